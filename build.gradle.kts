@@ -14,6 +14,7 @@ plugins {
     id("net.ltgt.errorprone") version "4.1.0"
     id("io.freefair.lombok") version "8.12.1"
     id("com.github.ben-manes.versions") version "0.52.0"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 repositories {
@@ -39,6 +40,9 @@ dependencies {
     //pitest("it.mulders.stryker:pit-dashboard-reporter:0.2.1")
     checkstyle("com.thomasjensen.checkstyle.addons:checkstyle-addons:7.0.1")
 
+    jmh("org.openjdk.jmh:jmh-core:1.37")
+    jmhAnnotationProcessor("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+
     errorprone("com.google.errorprone:error_prone_core:2.36.0")
     errorprone("jp.skypencil.errorprone.slf4j:errorprone-slf4j:0.1.28")
 
@@ -59,6 +63,7 @@ tasks.withType<JavaCompile>().configureEach {
     options.compilerArgs.add("-parameters")
     options.errorprone {
         disableWarningsInGeneratedCode.set(true)
+        excludedPaths.set(".*/build/generated/.*")
         disable("Slf4jLoggerShouldBeNonStatic", "TruthSelfEquals")
     }
 }
@@ -74,6 +79,13 @@ tasks {
         finalizedBy(jacocoTestReport, jacocoTestCoverageVerification)
     }
 
+    register<JavaExec>("hitRatio") {
+        group = "benchmark"
+        description = "Prints hit ratios of in-memory caches on synthetic traces"
+        classpath = sourceSets["jmh"].runtimeClasspath
+        mainClass.set("io.github.mfvanek.caching.benchmarks.HitRatioSimulation")
+    }
+
     javadoc {
         if (JavaVersion.current().isJava9Compatible) {
             (options as StandardJavadocDocletOptions).addBooleanOption("html5", true)
@@ -134,6 +146,18 @@ tasks {
     }
 }
 
+jmh {
+    jmhVersion = "1.37"
+    fork = 1
+    warmupIterations = 2
+    warmup = "1s"
+    iterations = 3
+    timeOnIteration = "1s"
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+    includes = providers.gradleProperty("jmhIncludes").map { listOf(it) }.orElse(listOf())
+}
+
 lombok {
     version.set(libs.versions.lombok.get())
 }
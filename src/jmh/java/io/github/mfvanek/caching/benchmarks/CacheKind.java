@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.benchmarks;
+
+import io.github.mfvanek.caching.builders.CacheBuilder;
+import io.github.mfvanek.caching.builders.TwoLevelsCacheBuilder;
+import io.github.mfvanek.caching.enums.BackpressurePolicy;
+import io.github.mfvanek.caching.enums.CacheType;
+import io.github.mfvanek.caching.enums.StorageType;
+import io.github.mfvanek.caching.interfaces.LeveledCache;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.serializers.RecordValueSerializer;
+import io.github.mfvanek.caching.stats.ConcurrentStatsCounter;
+
+import java.nio.file.Path;
+
+/**
+ * Cache implementations covered by benchmarks.
+ */
+public enum CacheKind {
+
+    SIMPLE {
+        @Override
+        LeveledCache<String, Movie> create(final int cacheSize, final float evictionFactor, final Path baseDirectory) {
+            return single(CacheType.SIMPLE, cacheSize, evictionFactor, baseDirectory);
+        }
+    },
+
+    LFU {
+        @Override
+        LeveledCache<String, Movie> create(final int cacheSize, final float evictionFactor, final Path baseDirectory) {
+            return single(CacheType.LFU, cacheSize, evictionFactor, baseDirectory);
+        }
+    },
+
+    /**
+     * Same as {@link #LFU}, but hits, misses and evictions are recorded, to measure the cost of statistics.
+     */
+    LFU_WITH_STATS {
+        @Override
+        LeveledCache<String, Movie> create(final int cacheSize, final float evictionFactor, final Path baseDirectory) {
+            return CacheBuilder.builder(Movie.class)
+                    .setCacheType(CacheType.LFU)
+                    .setMaxSize(cacheSize)
+                    .setEvictionFactor(evictionFactor)
+                    .setStatsCounter(new ConcurrentStatsCounter())
+                    .build();
+        }
+    },
+
+    PERSISTENCE_LFU {
+        @Override
+        LeveledCache<String, Movie> create(final int cacheSize, final float evictionFactor, final Path baseDirectory) {
+            return single(CacheType.PERSISTENCE_LFU, cacheSize, evictionFactor, baseDirectory);
+        }
+    },
+
+    SEGMENTED_PERSISTENCE_LFU {
+        @Override
+        LeveledCache<String, Movie> create(final int cacheSize, final float evictionFactor, final Path baseDirectory) {
+            return CacheBuilder.builder(Movie.class)
+                    .setCacheType(CacheType.PERSISTENCE_LFU)
+                    .setStorageType(StorageType.SEGMENTED)
+                    .setMaxSize(cacheSize)
+                    .setEvictionFactor(evictionFactor)
+                    .setBaseDirectory(baseDirectory)
+                    .build();
+        }
+    },
+
+    CONCURRENT_LFU {
+        @Override
+        LeveledCache<String, Movie> create(final int cacheSize, final float evictionFactor, final Path baseDirectory) {
+            return single(CacheType.CONCURRENT_LFU, cacheSize, evictionFactor, baseDirectory);
+        }
+    },
+
+    BUFFERED_CONCURRENT_LFU {
+        @Override
+        LeveledCache<String, Movie> create(final int cacheSize, final float evictionFactor, final Path baseDirectory) {
+            return CacheBuilder.builder(Movie.class)
+                    .setCacheType(CacheType.CONCURRENT_LFU)
+                    .setBufferedReads(true)
+                    .setMaxSize(cacheSize)
+                    .setEvictionFactor(evictionFactor)
+                    .build();
+        }
+    },
+
+    OFF_HEAP_LFU {
+        @Override
+        LeveledCache<String, Movie> create(final int cacheSize, final float evictionFactor, final Path baseDirectory) {
+            return CacheBuilder.builder(Movie.class)
+                    .setCacheType(CacheType.OFF_HEAP_LFU)
+                    .setSerializer(new RecordValueSerializer<>(Movie.class))
+                    .setMaxSize(cacheSize)
+                    .setEvictionFactor(evictionFactor)
+                    .build();
+        }
+    },
+
+    WINDOW_TINY_LFU {
+        @Override
+        LeveledCache<String, Movie> create(final int cacheSize, final float evictionFactor, final Path baseDirectory) {
+            return single(CacheType.WINDOW_TINY_LFU, cacheSize, evictionFactor, baseDirectory);
+        }
+    },
+
+    /**
+     * Both levels share the given size equally, so the first level overflows to disk at the half of the capacity.
+     */
+    TWO_LEVELS {
+        @Override
+        LeveledCache<String, Movie> create(final int cacheSize, final float evictionFactor, final Path baseDirectory) {
+            return twoLevels(Math.max(1, cacheSize / 2), evictionFactor, baseDirectory).build();
+        }
+    },
+
+    /**
+     * Same as {@link #TWO_LEVELS}, but statistics of both levels including latencies of disk operations are recorded.
+     */
+    TWO_LEVELS_WITH_STATS {
+        @Override
+        LeveledCache<String, Movie> create(final int cacheSize, final float evictionFactor, final Path baseDirectory) {
+            return twoLevels(Math.max(1, cacheSize / 2), evictionFactor, baseDirectory)
+                    .setRecordStats(true)
+                    .build();
+        }
+    },
+
+    /**
+     * Same as {@link #TWO_LEVELS}, but items evicted from the first level are written to disk in the background.
+     */
+    TWO_LEVELS_WRITE_BEHIND {
+        @Override
+        LeveledCache<String, Movie> create(final int cacheSize, final float evictionFactor, final Path baseDirectory) {
+            final int levelSize = Math.max(1, cacheSize / 2);
+            return twoLevels(levelSize, evictionFactor, baseDirectory)
+                    .setSecondLevelWriteBehind(levelSize, BackpressurePolicy.BLOCK)
+                    .build();
+        }
+    };
+
+    /**
+     * Creates a new cache which can hold up to {@code cacheSize} items in total.
+     *
+     * @param cacheSize      total capacity of the cache
+     * @param evictionFactor eviction factor for LFU based levels
+     * @param baseDirectory  directory for persistent levels
+     * @return new empty cache
+     */
+    abstract LeveledCache<String, Movie> create(int cacheSize, float evictionFactor, Path baseDirectory);
+
+    private static LeveledCache<String, Movie> single(final CacheType cacheType,
+                                                      final int cacheSize,
+                                                      final float evictionFactor,
+                                                      final Path baseDirectory) {
+        return CacheBuilder.builder(Movie.class)
+                .setCacheType(cacheType)
+                .setMaxSize(cacheSize)
+                .setEvictionFactor(evictionFactor)
+                .setBaseDirectory(baseDirectory)
+                .build();
+    }
+
+    private static TwoLevelsCacheBuilder<String, Movie> twoLevels(final int levelSize,
+                                                                  final float evictionFactor,
+                                                                  final Path baseDirectory) {
+        return TwoLevelsCacheBuilder.builder(Movie.class)
+                .setBaseDirectory(baseDirectory)
+                .setFirstLevelMaxSize(levelSize)
+                .setSecondLevelMaxSize(levelSize)
+                .setFirstLevelEvictionFactor(evictionFactor)
+                .setSecondLevelEvictionFactor(evictionFactor);
+    }
+}
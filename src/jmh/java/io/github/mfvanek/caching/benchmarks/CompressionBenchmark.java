@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.benchmarks;
+
+import io.github.mfvanek.caching.interfaces.ValueSerializer;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.serializers.CompressingValueSerializer;
+import io.github.mfvanek.caching.serializers.RecordValueSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * CPU cost of compressing text-heavy values of the persistent level and the achieved compression ratio.
+ * Level 0 means no compression at all. The ratio is printed once per trial.
+ */
+@SuppressWarnings("PMD.SystemPrintln")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CompressionBenchmark {
+
+    private static final int VALUES_COUNT = 1 << 10;
+    private static final int VALUES_MASK = VALUES_COUNT - 1;
+    private static final String[] WORDS = ("the a of and to in his her young old agent city war love family secret must finds " +
+            "after before journey government world friends discovers life").split(" ");
+
+    @Param({"0", "1", "6", "9"})
+    private int level;
+
+    @Param("2048")
+    private int plotLength;
+
+    private ValueSerializer<Movie> serializer;
+    private Movie[] movies;
+    private byte[][] serialized;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final ValueSerializer<Movie> recordSerializer = new RecordValueSerializer<>(Movie.class);
+        serializer = level == Deflater.NO_COMPRESSION ? recordSerializer :
+                new CompressingValueSerializer<>(recordSerializer, level, CompressingValueSerializer.DEFAULT_THRESHOLD);
+        final SplittableRandom random = new SplittableRandom(42L);
+        movies = new Movie[VALUES_COUNT];
+        serialized = new byte[VALUES_COUNT][];
+        long rawBytes = 0;
+        long storedBytes = 0;
+        for (int i = 0; i < VALUES_COUNT; ++i) {
+            movies[i] = new Movie(generatePlot(random), 1950 + random.nextInt(70), "tt" + i);
+            serialized[i] = serializer.serialize(movies[i]);
+            rawBytes += recordSerializer.serialize(movies[i]).length;
+            storedBytes += serialized[i].length;
+        }
+        System.out.printf("level %d: compression ratio %.2f%n", level, (double) rawBytes / storedBytes);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(movies[cursor++ & VALUES_MASK]);
+    }
+
+    @Benchmark
+    public Movie deserialize() {
+        return serializer.deserialize(ByteBuffer.wrap(serialized[cursor++ & VALUES_MASK]));
+    }
+
+    private String generatePlot(final SplittableRandom random) {
+        final StringBuilder plot = new StringBuilder(plotLength + 16);
+        while (plot.length() < plotLength) {
+            plot.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        return plot.toString();
+    }
+}
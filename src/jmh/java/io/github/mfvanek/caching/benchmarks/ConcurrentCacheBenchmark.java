@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.benchmarks;
+
+import io.github.mfvanek.caching.interfaces.LeveledCache;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multithreaded benchmark comparing the concurrent LFU cache (with and without buffered reads)
+ * with a thread unsafe LFU cache behind a global lock.
+ * The number of threads can be changed with the {@code -t} option of JMH.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+public class ConcurrentCacheBenchmark {
+
+    private static final int SEQUENCE_LENGTH = 1 << 16;
+    private static final int SEQUENCE_MASK = SEQUENCE_LENGTH - 1;
+    /**
+     * Every eighth operation of the mixed workload is a put.
+     */
+    private static final int WRITE_MASK = 7;
+
+    @Param({"CONCURRENT_LFU", "BUFFERED_CONCURRENT_LFU", "SYNCHRONIZED_LFU"})
+    private String implementation;
+
+    @Param("10000")
+    private int cacheSize;
+
+    @Param({"UNIFORM", "ZIPF"})
+    private KeySkew keySkew;
+
+    private LeveledCache<String, Movie> cache;
+    private List<Movie> movies;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final LeveledCache<String, Movie> lfuCache = switch (implementation) {
+            case "CONCURRENT_LFU" -> CacheKind.CONCURRENT_LFU.create(cacheSize, 0.2f, null);
+            case "BUFFERED_CONCURRENT_LFU" -> CacheKind.BUFFERED_CONCURRENT_LFU.create(cacheSize, 0.2f, null);
+            default -> new SynchronizedCache<>(CacheKind.LFU.create(cacheSize, 0.2f, null));
+        };
+        movies = Movies.getRandomGeneratedMovies(cacheSize * 2);
+        for (int i = 0; i < cacheSize; ++i) {
+            lfuCache.put(movies.get(i));
+        }
+        cache = lfuCache;
+    }
+
+    @Benchmark
+    public Movie get(final ThreadCursor cursor) {
+        return cache.get(movies.get(cursor.next()).getIdentifier());
+    }
+
+    /**
+     * Mostly reads with a small share of puts; half of the written keys are not in the cache and cause eviction.
+     */
+    @Benchmark
+    public Object readMostly(final ThreadCursor cursor) {
+        final int index = cursor.next();
+        if ((index & WRITE_MASK) == 0) {
+            return cache.put(movies.get(index + cursor.writeOffset));
+        }
+        return cache.get(movies.get(index).getIdentifier());
+    }
+
+    /**
+     * Per thread position in the sequence of requested keys.
+     */
+    @State(Scope.Thread)
+    public static class ThreadCursor {
+
+        private int[] sequence;
+        private int position;
+        private int writeOffset;
+
+        @Setup(Level.Trial)
+        public void setUp(final ConcurrentCacheBenchmark benchmark, final ThreadParams threadParams) {
+            sequence = benchmark.keySkew.generate(benchmark.cacheSize, SEQUENCE_LENGTH, threadParams.getThreadIndex());
+            writeOffset = threadParams.getThreadIndex() % 2 == 0 ? 0 : benchmark.cacheSize;
+        }
+
+        int next() {
+            return sequence[position++ & SEQUENCE_MASK];
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.benchmarks;
+
+import io.github.mfvanek.caching.interfaces.LeveledCache;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Replays synthetic access traces against in-memory caches and prints their hit ratios.
+ * A miss is followed by a put, as a caller of a read-through cache would do.
+ * Run it with {@code ./gradlew hitRatio}.
+ */
+@SuppressWarnings("PMD.SystemPrintln")
+public final class HitRatioSimulation {
+
+    private static final int KEY_SPACE = 20_000;
+    private static final int TRACE_LENGTH = 200_000;
+    private static final int SCAN_LENGTH = 5_000;
+    private static final long SEED = 42L;
+    private static final float EVICTION_FACTOR = 0.1f;
+    private static final int[] CACHE_SIZES = {200, 1_000, 5_000};
+    private static final List<CacheKind> CACHE_KINDS = List.of(CacheKind.SIMPLE, CacheKind.LFU, CacheKind.WINDOW_TINY_LFU);
+
+    private HitRatioSimulation() {
+    }
+
+    public static void main(final String[] args) {
+        final List<Movie> movies = Movies.getRandomGeneratedMovies(KEY_SPACE + TRACE_LENGTH / 2);
+        final int[] zipf = KeySkew.ZIPF.generate(KEY_SPACE, TRACE_LENGTH, SEED);
+        System.out.printf(Locale.ROOT, "%-6s %6s %-16s %9s%n", "trace", "size", "cache", "hit ratio");
+        simulate("zipf", movies, zipf);
+        simulate("scan", movies, withScans(zipf));
+    }
+
+    private static void simulate(final String traceName, final List<Movie> movies, final int... trace) {
+        // Only in-memory caches are simulated, so the directory is never used
+        final Path baseDirectory = Path.of(".");
+        for (final int cacheSize : CACHE_SIZES) {
+            for (final CacheKind kind : CACHE_KINDS) {
+                final double hitRatio = replay(kind.create(cacheSize, EVICTION_FACTOR, baseDirectory), movies, trace);
+                System.out.printf(Locale.ROOT, "%-6s %6d %-16s %8.2f%%%n", traceName, cacheSize, kind, hitRatio);
+            }
+        }
+    }
+
+    /**
+     * Replaces every other block of the trace with a sequential scan over keys that are never requested again.
+     */
+    private static int[] withScans(final int... trace) {
+        final int[] result = trace.clone();
+        int nextScanKey = KEY_SPACE;
+        for (int i = 0; i < result.length; ++i) {
+            final boolean scanBlock = i / SCAN_LENGTH % 2 != 0;
+            if (scanBlock) {
+                result[i] = nextScanKey++;
+            }
+        }
+        return result;
+    }
+
+    private static double replay(final LeveledCache<String, Movie> cache, final List<Movie> movies, final int... trace) {
+        int hits = 0;
+        for (final int index : trace) {
+            final Movie movie = movies.get(index);
+            if (cache.get(movie.getIdentifier()) == null) {
+                cache.put(movie);
+            } else {
+                ++hits;
+            }
+        }
+        return hits * 100.0 / trace.length;
+    }
+}
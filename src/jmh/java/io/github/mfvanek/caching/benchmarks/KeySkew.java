@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.benchmarks;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Distribution of the keys requested by benchmarks.
+ * Indexes are precomputed so that random number generation is not measured.
+ */
+public enum KeySkew {
+
+    /**
+     * Every key has the same probability to be requested.
+     */
+    UNIFORM {
+        @Override
+        int[] generate(final int keySpace, final int count, final long seed) {
+            final SplittableRandom random = new SplittableRandom(seed);
+            final int[] indexes = new int[count];
+            for (int i = 0; i < count; ++i) {
+                indexes[i] = random.nextInt(keySpace);
+            }
+            return indexes;
+        }
+    },
+
+    /**
+     * A few hot keys take the most part of the requests (Zipf distribution with exponent 0.99 as in YCSB).
+     */
+    ZIPF {
+        @Override
+        int[] generate(final int keySpace, final int count, final long seed) {
+            final double[] cumulative = new double[keySpace];
+            double sum = 0.0;
+            for (int i = 0; i < keySpace; ++i) {
+                sum += 1.0 / Math.pow(i + 1.0, ZIPF_EXPONENT);
+                cumulative[i] = sum;
+            }
+            final SplittableRandom random = new SplittableRandom(seed);
+            final int[] indexes = new int[count];
+            for (int i = 0; i < count; ++i) {
+                final int position = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+                indexes[i] = Math.min(position >= 0 ? position : -position - 1, keySpace - 1);
+            }
+            return indexes;
+        }
+    };
+
+    private static final double ZIPF_EXPONENT = 0.99;
+
+    /**
+     * Generates a sequence of key indexes.
+     *
+     * @param keySpace number of distinct keys
+     * @param count    length of the sequence
+     * @param seed     seed for the random generator
+     * @return indexes in range [0, keySpace)
+     */
+    abstract int[] generate(int keySpace, int count, long seed);
+}
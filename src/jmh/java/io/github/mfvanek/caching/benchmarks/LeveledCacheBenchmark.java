@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.benchmarks;
+
+import io.github.mfvanek.caching.helpers.DirectoryUtils;
+import io.github.mfvanek.caching.interfaces.LeveledCache;
+import io.github.mfvanek.caching.interfaces.RemovalListener;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single threaded benchmark of the basic operations for every {@link LeveledCache} implementation.
+ * Run it with {@code ./gradlew jmh}; use {@code -PjmhIncludes=LeveledCacheBenchmark.get} to select benchmarks.
+ * The gc profiler is enabled, so {@code gc.alloc.rate.norm} shows the bytes allocated by every operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LeveledCacheBenchmark {
+
+    /**
+     * How many times the set of movies used for eviction-heavy puts exceeds the capacity of the cache.
+     */
+    private static final int OVERFLOW_FACTOR = 4;
+    private static final int SEQUENCE_LENGTH = 1 << 16;
+    private static final int SEQUENCE_MASK = SEQUENCE_LENGTH - 1;
+    private static final long SEED = 42L;
+
+    @Param({"SIMPLE", "LFU", "LFU_WITH_STATS", "WINDOW_TINY_LFU", "OFF_HEAP_LFU", "PERSISTENCE_LFU", "SEGMENTED_PERSISTENCE_LFU",
+        "TWO_LEVELS", "TWO_LEVELS_WITH_STATS", "TWO_LEVELS_WRITE_BEHIND"})
+    private CacheKind cacheKind;
+
+    @Param({"1000", "10000"})
+    private int cacheSize;
+
+    @Param({"0.1", "0.2"})
+    private float evictionFactor;
+
+    @Param({"UNIFORM", "ZIPF"})
+    private KeySkew keySkew;
+
+    private final RemovalListener<String, Movie> listener = RemovalListener.discarding();
+    private Path baseDirectory;
+    private LeveledCache<String, Movie> cache;
+    private List<Movie> movies;
+    private int[] residentSequence;
+    private int[] overflowSequence;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        baseDirectory = Files.createTempDirectory("jcache-benchmark");
+        movies = Movies.getRandomGeneratedMovies(cacheSize * OVERFLOW_FACTOR);
+        cache = cacheKind.create(cacheSize, evictionFactor, baseDirectory);
+        for (int i = 0; i < cacheSize; ++i) {
+            cache.put(movies.get(i));
+        }
+        residentSequence = keySkew.generate(cacheSize, SEQUENCE_LENGTH, SEED);
+        overflowSequence = keySkew.generate(movies.size(), SEQUENCE_LENGTH, SEED);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        cache.clear();
+        if (cache instanceof Closeable) {
+            ((Closeable) cache).close();
+        }
+        DirectoryUtils.deleteDirectory(baseDirectory);
+    }
+
+    @Benchmark
+    public Movie get() {
+        return cache.get(nextResident().getIdentifier());
+    }
+
+    @Benchmark
+    public boolean containsKey() {
+        return cache.containsKey(nextResident().getIdentifier());
+    }
+
+    /**
+     * Replaces the value of a key that is already in the cache; no eviction happens.
+     */
+    @Benchmark
+    public List<Movie> put() {
+        return cache.put(nextResident());
+    }
+
+    /**
+     * Same as {@code put}, but the evicted items are passed to a listener instead of a returned list.
+     */
+    @Benchmark
+    public void putInPlace() {
+        final Movie movie = nextResident();
+        cache.put(movie.getIdentifier(), movie, listener);
+    }
+
+    /**
+     * Removes a key and puts it back immediately to keep the size of the cache stable between invocations.
+     */
+    @Benchmark
+    public List<Movie> remove() {
+        final Movie movie = nextResident();
+        cache.remove(movie.getIdentifier());
+        return cache.put(movie);
+    }
+
+    /**
+     * Puts keys from a set that is several times larger than the cache, so most of the calls trigger eviction.
+     * Sample time mode shows the latency percentiles of the eviction batches.
+     */
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+    public List<Movie> putWithEviction() {
+        final Movie movie = movies.get(overflowSequence[cursor++ & SEQUENCE_MASK]);
+        return cache.put(movie);
+    }
+
+    /**
+     * Same as {@code putWithEviction}, but the evicted items are passed to a listener instead of a returned list.
+     */
+    @Benchmark
+    public void putWithEvictionInPlace() {
+        final Movie movie = movies.get(overflowSequence[cursor++ & SEQUENCE_MASK]);
+        cache.put(movie.getIdentifier(), movie, listener);
+    }
+
+    private Movie nextResident() {
+        return movies.get(residentSequence[cursor++ & SEQUENCE_MASK]);
+    }
+}
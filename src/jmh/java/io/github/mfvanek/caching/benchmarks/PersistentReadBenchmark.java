@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.benchmarks;
+
+import io.github.mfvanek.caching.enums.StorageType;
+import io.github.mfvanek.caching.helpers.DirectoryUtils;
+import io.github.mfvanek.caching.interfaces.PersistentStorage;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import io.github.mfvanek.caching.serializers.JavaValueSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares read paths of the persistent level: a file per entry read with {@code Files.readAllBytes},
+ * positional reads from segment files and reads from memory mapped segments.
+ * Cold page cache runs need root on Linux, since the page cache is dropped via {@code /proc/sys/vm/drop_caches}.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PersistentReadBenchmark {
+
+    private static final int SEQUENCE_LENGTH = 1 << 16;
+    private static final int SEQUENCE_MASK = SEQUENCE_LENGTH - 1;
+    private static final int COLD_READS = 1_000;
+    private static final long SEED = 42L;
+
+    @Param({"FILE_PER_ENTRY", "SEGMENTED", "MAPPED_SEGMENTED"})
+    private StorageType storageType;
+
+    @Param("10000")
+    private int entries;
+
+    private Path baseDirectory;
+    private PersistentStorage<String, Movie> storage;
+    private List<Movie> movies;
+    private int[] sequence;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        baseDirectory = Files.createTempDirectory("jcache-read-benchmark");
+        storage = storageType.create(new JavaValueSerializer<>(Movie.class), baseDirectory);
+        movies = Movies.getRandomGeneratedMovies(entries);
+        movies.forEach(m -> storage.write(m.getIdentifier(), m));
+        sequence = KeySkew.UNIFORM.generate(entries, SEQUENCE_LENGTH, SEED);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        storage.clear();
+        storage.close();
+        DirectoryUtils.deleteDirectory(baseDirectory);
+    }
+
+    /**
+     * Reads when all the data is in the page cache.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public Movie warmRead() {
+        return read();
+    }
+
+    /**
+     * Reads a batch of random entries right after the page cache is dropped.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 2, batchSize = COLD_READS)
+    @Measurement(iterations = 5, batchSize = COLD_READS)
+    public Movie coldRead(final ColdPageCache coldPageCache) {
+        return read();
+    }
+
+    private Movie read() {
+        return storage.read(movies.get(sequence[cursor++ & SEQUENCE_MASK]).getIdentifier());
+    }
+
+    /**
+     * Drops the page cache of the operating system before every iteration.
+     */
+    @State(Scope.Benchmark)
+    public static class ColdPageCache {
+
+        private static final Path DROP_CACHES = Path.of("/proc/sys/vm/drop_caches");
+
+        @Setup(Level.Iteration)
+        public void dropPageCache() throws IOException, InterruptedException {
+            if (!Files.isWritable(DROP_CACHES)) {
+                throw new IllegalStateException("Cannot drop the page cache: " + DROP_CACHES + " is not writable");
+            }
+            // Dirty pages cannot be dropped, so flush them first
+            new ProcessBuilder("sync").inheritIO().start().waitFor();
+            Files.writeString(DROP_CACHES, "1");
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.benchmarks;
+
+import io.github.mfvanek.caching.helpers.DirectoryUtils;
+import io.github.mfvanek.caching.impl.PersistenceLFUCache;
+import io.github.mfvanek.caching.interfaces.ValueSerializer;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import io.github.mfvanek.caching.serializers.RecordValueSerializer;
+import io.github.mfvanek.caching.serializers.StringSerializer;
+import io.github.mfvanek.caching.storage.SegmentStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup time of a persistent cache over segments: recovery from the snapshot saved on close
+ * versus a parallel scan of all segments when there is no snapshot, e.g. after a crash.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RecoveryBenchmark {
+
+    private static final ValueSerializer<Movie> SERIALIZER = new RecordValueSerializer<>(Movie.class);
+    private static final ValueSerializer<String> KEY_SERIALIZER = new StringSerializer();
+    private static final String SNAPSHOT_FILE_NAME = "index.snapshot";
+
+    @Param({"SNAPSHOT", "SCAN"})
+    private Source source;
+
+    @Param("1000000")
+    private int entries;
+
+    private Path baseDirectory;
+    private PersistenceLFUCache<String, Movie> cache;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        baseDirectory = Files.createTempDirectory("jcache-recovery-benchmark");
+        try (PersistenceLFUCache<String, Movie> filled = open()) {
+            final List<Movie> movies = Movies.getRandomGeneratedMovies(entries);
+            movies.forEach(filled::put);
+            final SplittableRandom random = new SplittableRandom(42L);
+            for (int i = 0; i < entries; ++i) {
+                filled.get(movies.get(random.nextInt(entries)).getIdentifier());
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DirectoryUtils.deleteDirectory(baseDirectory);
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareInvocation() throws IOException {
+        if (source == Source.SCAN) {
+            Files.deleteIfExists(baseDirectory.resolve(SNAPSHOT_FILE_NAME));
+        }
+    }
+
+    /**
+     * Closing saves the snapshot for the next invocation.
+     */
+    @TearDown(Level.Invocation)
+    public void closeCache() {
+        cache.close();
+    }
+
+    @Benchmark
+    public PersistenceLFUCache<String, Movie> start() {
+        cache = open();
+        return cache;
+    }
+
+    private PersistenceLFUCache<String, Movie> open() {
+        return new PersistenceLFUCache<>(Movie.class, entries, 0.2f,
+                new SegmentStorage<>(SERIALIZER, KEY_SERIALIZER, baseDirectory, false));
+    }
+
+    public enum Source {
+        SNAPSHOT,
+        SCAN
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.benchmarks;
+
+import io.github.mfvanek.caching.interfaces.ValueSerializer;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import io.github.mfvanek.caching.serializers.JavaValueSerializer;
+import io.github.mfvanek.caching.serializers.RecordValueSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of value serializers and the size of a serialized {@link Movie}.
+ * The size is printed once per trial. Use it with the GC profiler to compare allocation rates.
+ */
+@SuppressWarnings("PMD.SystemPrintln")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializerBenchmark {
+
+    @Param({"JAVA", "RECORD_BINARY"})
+    private Codec codec;
+
+    private ValueSerializer<Movie> serializer;
+    private Movie movie;
+    private byte[] serialized;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        serializer = codec.create();
+        movie = Movies.getRandomGeneratedMovies(1).get(0);
+        serialized = serializer.serialize(movie);
+        System.out.println(codec + ": " + serialized.length + " bytes per entry");
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(movie);
+    }
+
+    @Benchmark
+    public Movie deserialize() {
+        return serializer.deserialize(ByteBuffer.wrap(serialized));
+    }
+
+    public enum Codec {
+
+        JAVA {
+            @Override
+            ValueSerializer<Movie> create() {
+                return new JavaValueSerializer<>(Movie.class);
+            }
+        },
+
+        RECORD_BINARY {
+            @Override
+            ValueSerializer<Movie> create() {
+                return new RecordValueSerializer<>(Movie.class);
+            }
+        };
+
+        abstract ValueSerializer<Movie> create();
+    }
+}
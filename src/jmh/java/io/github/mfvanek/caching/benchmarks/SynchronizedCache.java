@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.benchmarks;
+
+import io.github.mfvanek.caching.interfaces.Cacheable;
+import io.github.mfvanek.caching.interfaces.LeveledCache;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Guards every call to the delegate with one global lock.
+ * This is how a thread unsafe cache has to be shared between threads, so it is the baseline for concurrent benchmarks.
+ *
+ * @param <K> key type
+ * @param <V> value type, should be {@link Cacheable}
+ */
+final class SynchronizedCache<K, V extends Cacheable<K>> implements LeveledCache<K, V> {
+
+    private final LeveledCache<K, V> delegate;
+    private final Object lock = new Object();
+
+    SynchronizedCache(final LeveledCache<K, V> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public List<Map.Entry<K, V>> put(final K key, final V value) {
+        synchronized (lock) {
+            return delegate.put(key, value);
+        }
+    }
+
+    @Override
+    public List<V> put(final V value) {
+        synchronized (lock) {
+            return delegate.put(value);
+        }
+    }
+
+    @Override
+    public V get(final K key) {
+        synchronized (lock) {
+            return delegate.get(key);
+        }
+    }
+
+    @Override
+    public boolean containsKey(final K key) {
+        synchronized (lock) {
+            return delegate.containsKey(key);
+        }
+    }
+
+    @Override
+    public V remove(final K key) {
+        synchronized (lock) {
+            return delegate.remove(key);
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (lock) {
+            delegate.clear();
+        }
+    }
+
+    @Override
+    public int size() {
+        synchronized (lock) {
+            return delegate.size();
+        }
+    }
+
+    @Override
+    public int frequencyOf(final K key) {
+        synchronized (lock) {
+            return delegate.frequencyOf(key);
+        }
+    }
+
+    @Override
+    public int getLowestFrequency() {
+        synchronized (lock) {
+            return delegate.getLowestFrequency();
+        }
+    }
+}
@@ -8,39 +8,99 @@
 package io.github.mfvanek.caching.builders;
 
 import io.github.mfvanek.caching.enums.CacheType;
+import io.github.mfvanek.caching.enums.StorageType;
+import io.github.mfvanek.caching.impl.ConcurrentLFUCache;
+import io.github.mfvanek.caching.impl.IntKeyLFUCache;
 import io.github.mfvanek.caching.impl.LFUCache;
+import io.github.mfvanek.caching.impl.LongKeyLFUCache;
+import io.github.mfvanek.caching.impl.OffHeapLFUCache;
 import io.github.mfvanek.caching.impl.PersistenceLFUCache;
 import io.github.mfvanek.caching.impl.SimpleInMemoryCache;
+import io.github.mfvanek.caching.impl.StatsCache;
+import io.github.mfvanek.caching.impl.WindowTinyLFUCache;
 import io.github.mfvanek.caching.interfaces.Cacheable;
 import io.github.mfvanek.caching.interfaces.LeveledCache;
+import io.github.mfvanek.caching.interfaces.PersistentStorage;
+import io.github.mfvanek.caching.interfaces.ValueSerializer;
+import io.github.mfvanek.caching.interfaces.Weigher;
+import io.github.mfvanek.caching.serializers.JavaValueSerializer;
+import io.github.mfvanek.caching.serializers.TimedValueSerializer;
+import io.github.mfvanek.caching.stats.StatsCounter;
+import io.github.mfvanek.caching.storage.FilteredStorage;
+import io.github.mfvanek.caching.storage.TimedStorage;
 import org.apache.commons.lang3.SystemUtils;
 
 import java.io.Serializable;
+import java.lang.reflect.Method;
 import java.nio.file.Path;
+import java.util.Arrays;
 
+@SuppressWarnings({"PMD.TooManyMethods", "checkstyle:ClassDataAbstractionCoupling"})
 public final class CacheBuilder<K, V extends Cacheable<K> & Serializable> {
 
     public static final int DEFAULT_MAX_SIZE = 10;
     public static final float DEFAULT_EVICTION_FACTOR = 0.2f;
+    public static final long DEFAULT_MAX_WEIGHT = Long.MAX_VALUE;
 
     private final Class<V> type;
     private int maxCacheSize = DEFAULT_MAX_SIZE;
     private float evictionFactor = DEFAULT_EVICTION_FACTOR;
+    private long maxWeight = DEFAULT_MAX_WEIGHT;
+    private Weigher<? super K, ? super V> weigher;
     private CacheType cacheType = CacheType.SIMPLE;
     private Path baseDirectory = getDefaultBaseDirectory();
+    private boolean bufferedReads;
+    private StorageType storageType = StorageType.FILE_PER_ENTRY;
+    private ValueSerializer<V> serializer;
+    private ValueSerializer<K> keySerializer;
+    private StatsCounter statsCounter = StatsCounter.disabled();
+    private double lookupFilterFalsePositiveRate;
 
     private CacheBuilder(final Class<V> type) {
         this.type = type;
     }
 
     public LeveledCache<K, V> build() {
+        final LeveledCache<K, V> cache = buildLevel();
+        return isRecordingStats() ? new StatsCache<>(cache, statsCounter) : cache;
+    }
+
+    /**
+     * Builds the cache without recording its hits, misses and evictions, e.g. for a level of {@code TwoLevelsCache}
+     * which records them on its own. Latencies of the serializer and storage are still recorded.
+     */
+    LeveledCache<K, V> buildLevel() {
         return switch (cacheType) {
-            case LFU -> new LFUCache<>(type, maxCacheSize, evictionFactor);
-            case PERSISTENCE_LFU -> new PersistenceLFUCache<>(type, maxCacheSize, evictionFactor, baseDirectory);
-            case SIMPLE -> new SimpleInMemoryCache<>(type, maxCacheSize);
+            case LFU -> new LFUCache<>(type, maxCacheSize, evictionFactor, maxWeight, getWeigher());
+            case PERSISTENCE_LFU -> new PersistenceLFUCache<>(type, maxCacheSize, evictionFactor, maxWeight, createStorage());
+            case CONCURRENT_LFU -> new ConcurrentLFUCache<>(type, maxCacheSize, evictionFactor, bufferedReads);
+            case WINDOW_TINY_LFU -> new WindowTinyLFUCache<>(type, maxCacheSize);
+            case OFF_HEAP_LFU -> new OffHeapLFUCache<>(type, maxCacheSize, evictionFactor, maxWeight, getTimedSerializer());
+            case SIMPLE -> new SimpleInMemoryCache<>(type, maxCacheSize, maxWeight, getWeigher());
+            case LONG_KEY_LFU, INT_KEY_LFU -> createPrimitiveKeyCache();
         };
     }
 
+    /**
+     * Creates a cache with primitive keys. The signature of the builder doesn't bind the key type,
+     * so the type of identifiers of values is checked here instead of failing on the first put.
+     */
+    @SuppressWarnings("unchecked")
+    private LeveledCache<K, V> createPrimitiveKeyCache() {
+        final boolean longKeys = cacheType == CacheType.LONG_KEY_LFU;
+        final Class<?> keyType = longKeys ? Long.class : Integer.class;
+        if (type == null || !keyType.equals(getIdentifierType(type))) {
+            throw new IllegalArgumentException(cacheType + " cache requires values with " + keyType.getSimpleName() + " identifiers");
+        }
+        final LeveledCache<?, ?> cache;
+        if (longKeys) {
+            cache = new LongKeyLFUCache<>(maxCacheSize, evictionFactor);
+        } else {
+            cache = new IntKeyLFUCache<>(maxCacheSize, evictionFactor);
+        }
+        return (LeveledCache<K, V>) cache;
+    }
+
     public CacheBuilder<K, V> setMaxSize(final int maxCacheSize) {
         this.maxCacheSize = maxCacheSize;
         return this;
@@ -51,6 +111,32 @@ public final class CacheBuilder<K, V extends Cacheable<K> & Serializable> {
         return this;
     }
 
+    /**
+     * Bounds the cache by the total weight of items in addition to their number.
+     * For {@link CacheType#LFU} and {@link CacheType#SIMPLE} caches the weight is calculated by the weigher;
+     * for {@link CacheType#PERSISTENCE_LFU} and {@link CacheType#OFF_HEAP_LFU} caches it is the size of the stored data in bytes.
+     * Other caches are bounded by the number of items only.
+     *
+     * @param maxWeight the maximum total weight, e.g. heap or disk bytes; unbounded by default
+     * @return this builder
+     */
+    public CacheBuilder<K, V> setMaxWeight(final long maxWeight) {
+        this.maxWeight = maxWeight;
+        return this;
+    }
+
+    /**
+     * Sets the weigher of items for {@link CacheType#LFU} and {@link CacheType#SIMPLE} caches bounded by weight.
+     *
+     * @param weigher the weigher, e.g. one that estimates heap bytes of items;
+     *                the size of serialized values is used by default
+     * @return this builder
+     */
+    public CacheBuilder<K, V> setWeigher(final Weigher<? super K, ? super V> weigher) {
+        this.weigher = weigher;
+        return this;
+    }
+
     public CacheBuilder<K, V> setCacheType(final CacheType cacheType) {
         this.cacheType = cacheType;
         return this;
@@ -61,6 +147,115 @@ public final class CacheBuilder<K, V extends Cacheable<K> & Serializable> {
         return this;
     }
 
+    /**
+     * Enables recording of hits into a lossy read buffer for {@link CacheType#CONCURRENT_LFU} cache.
+     * Reads become cheaper, but frequencies may lose some increments under heavy load.
+     *
+     * @param bufferedReads whether reads should be buffered
+     * @return this builder
+     */
+    public CacheBuilder<K, V> setBufferedReads(final boolean bufferedReads) {
+        this.bufferedReads = bufferedReads;
+        return this;
+    }
+
+    /**
+     * Sets the disk engine for {@link CacheType#PERSISTENCE_LFU} cache.
+     *
+     * @param storageType the disk engine; {@link StorageType#FILE_PER_ENTRY} by default
+     * @return this builder
+     */
+    public CacheBuilder<K, V> setStorageType(final StorageType storageType) {
+        this.storageType = storageType;
+        return this;
+    }
+
+    /**
+     * Sets the serializer of values for {@link CacheType#PERSISTENCE_LFU} and {@link CacheType#OFF_HEAP_LFU} caches.
+     *
+     * @param serializer the serializer; Java serialization is used by default
+     * @return this builder
+     */
+    public CacheBuilder<K, V> setSerializer(final ValueSerializer<V> serializer) {
+        this.serializer = serializer;
+        return this;
+    }
+
+    /**
+     * Sets the serializer of keys for {@link CacheType#PERSISTENCE_LFU} cache.
+     * With a serializer of keys, segmented storages recover the data and frequencies left by a previous instance.
+     *
+     * @param keySerializer the thread safe serializer of keys; the data is not recovered by default
+     * @return this builder
+     */
+    public CacheBuilder<K, V> setKeySerializer(final ValueSerializer<K> keySerializer) {
+        this.keySerializer = keySerializer;
+        return this;
+    }
+
+    /**
+     * Enables statistics of the cache: hits, misses and evictions are recorded by the {@link StatsCache} decorator,
+     * latencies of serialization and disk operations are recorded by {@link CacheType#PERSISTENCE_LFU}
+     * and {@link CacheType#OFF_HEAP_LFU} caches.
+     *
+     * @param statsCounter the receiver of statistics; {@code StatsCounter.disabled()} by default, which costs nothing
+     * @return this builder
+     */
+    public CacheBuilder<K, V> setStatsCounter(final StatsCounter statsCounter) {
+        this.statsCounter = statsCounter;
+        return this;
+    }
+
+    private boolean isRecordingStats() {
+        return !StatsCounter.disabled().equals(statsCounter);
+    }
+
+    /**
+     * Puts a counting Bloom filter of the stored keys in front of the storage of {@link CacheType#PERSISTENCE_LFU} cache,
+     * so lookups of keys that are not in the cache don't touch the storage. The filter is sized for the maximum size of the cache.
+     *
+     * @param falsePositiveRate the desired ratio of lookups of absent keys that still reach the storage, e.g. 0.01;
+     *                          0 disables the filter (by default)
+     * @return this builder
+     */
+    public CacheBuilder<K, V> setLookupFilter(final double falsePositiveRate) {
+        this.lookupFilterFalsePositiveRate = falsePositiveRate;
+        return this;
+    }
+
+    @SuppressWarnings("PMD.CloseResource")
+    private PersistentStorage<K, V> createStorage() {
+        final PersistentStorage<K, V> storage = storageType.create(getTimedSerializer(), keySerializer, baseDirectory);
+        final PersistentStorage<K, V> timedStorage = isRecordingStats() ? new TimedStorage<>(storage, statsCounter) : storage;
+        // Lookups rejected by the filter are not timed, so the latencies reflect the real disk operations
+        return lookupFilterFalsePositiveRate > 0 ? new FilteredStorage<>(timedStorage, maxCacheSize, lookupFilterFalsePositiveRate) : timedStorage;
+    }
+
+    private Weigher<? super K, ? super V> getWeigher() {
+        if (weigher != null) {
+            return weigher;
+        }
+        // Weighing by serialization is expensive, so it is used only when the weight matters
+        return maxWeight == DEFAULT_MAX_WEIGHT ? Weigher.perEntry() : Weigher.serializedSize(getSerializer());
+    }
+
+    private ValueSerializer<V> getSerializer() {
+        return serializer == null ? new JavaValueSerializer<>(type) : serializer;
+    }
+
+    private ValueSerializer<V> getTimedSerializer() {
+        return isRecordingStats() ? new TimedValueSerializer<>(getSerializer(), statsCounter) : getSerializer();
+    }
+
+    private static Class<?> getIdentifierType(final Class<?> type) {
+        // The bridge method returns Object, so only the method declared by the type tells the key type
+        return Arrays.stream(type.getMethods())
+                .filter(method -> "getIdentifier".equals(method.getName()) && method.getParameterCount() == 0 && !method.isBridge())
+                .findFirst()
+                .map(Method::getReturnType)
+                .orElse(null);
+    }
+
     public static Path getDefaultBaseDirectory() {
         if (SystemUtils.IS_OS_MAC) {
             return DefaultBaseDirectoryHelper.forMacOs();
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.builders;
+
+import io.github.mfvanek.caching.impl.CacheTier;
+import io.github.mfvanek.caching.impl.TieredCache;
+import io.github.mfvanek.caching.interfaces.Cacheable;
+import io.github.mfvanek.caching.stats.ConcurrentStatsCounter;
+import io.github.mfvanek.caching.stats.StatsCounter;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Builder of {@link TieredCache} with any number of tiers, e.g. heap, off-heap memory, local disk and bulk disk.
+ * Each tier is configured by its own {@link CacheBuilder}, so it has its own eviction policy, capacity and storage.
+ *
+ * @param <K> key type
+ * @param <V> value type, should be {@link Cacheable} and {@link Serializable}
+ */
+public final class TieredCacheBuilder<K, V extends Cacheable<K> & Serializable> {
+
+    private final Class<V> type;
+    private final List<TierSpec<K, V>> tierSpecs = new ArrayList<>();
+    private boolean recordStats;
+
+    private TieredCacheBuilder(final Class<V> type) {
+        this.type = type;
+    }
+
+    public TieredCache<K, V> build() {
+        final List<CacheTier<K, V>> tiers = IntStream.range(0, tierSpecs.size())
+                .mapToObj(this::buildTier)
+                .toList();
+        return new TieredCache<>(tiers);
+    }
+
+    /**
+     * Adds the next tier without promotion, see {@code addTier(configurator, promotionFrequency)}.
+     *
+     * @param configurator the configurator of the cache of the tier
+     * @return this builder
+     */
+    public TieredCacheBuilder<K, V> addTier(final Consumer<CacheBuilder<K, V>> configurator) {
+        tierSpecs.add(new TierSpec<>(configure(configurator), 0));
+        return this;
+    }
+
+    /**
+     * Adds the next tier, which is slower than the previous ones. Items evicted from the previous tier are demoted to this one.
+     *
+     * @param configurator       the configurator of the cache of the tier, e.g. {@code tier -> tier.setCacheType(CacheType.LFU).setMaxSize(100)};
+     *                           statistics of the tier are set by this builder
+     * @param promotionFrequency the frequency on the tier at which a hit moves the item to the tier above;
+     *                           1 promotes on the first hit, 0 disables promotion. It is ignored for the first tier
+     * @return this builder
+     */
+    public TieredCacheBuilder<K, V> addTier(final Consumer<CacheBuilder<K, V>> configurator, final int promotionFrequency) {
+        tierSpecs.add(new TierSpec<>(configure(configurator), promotionFrequency));
+        return this;
+    }
+
+    /**
+     * Enables statistics of every tier, see {@code TieredCache.tierStats(int)}.
+     *
+     * @param recordStats whether statistics should be recorded; disabled by default
+     * @return this builder
+     */
+    public TieredCacheBuilder<K, V> setRecordStats(final boolean recordStats) {
+        this.recordStats = recordStats;
+        return this;
+    }
+
+    private CacheBuilder<K, V> configure(final Consumer<CacheBuilder<K, V>> configurator) {
+        final CacheBuilder<K, V> tierBuilder = CacheBuilder.builder(type);
+        configurator.accept(tierBuilder);
+        return tierBuilder;
+    }
+
+    private CacheTier<K, V> buildTier(final int index) {
+        final TierSpec<K, V> tierSpec = tierSpecs.get(index);
+        final StatsCounter statsCounter = recordStats ? new ConcurrentStatsCounter() : StatsCounter.disabled();
+        return new CacheTier<>("tier " + index,
+                tierSpec.builder().setStatsCounter(statsCounter).buildLevel(),
+                tierSpec.promotionFrequency(),
+                statsCounter);
+    }
+
+    public static <K, V extends Cacheable<K> & Serializable> TieredCacheBuilder<K, V> builder(final Class<V> type) {
+        return new TieredCacheBuilder<>(type);
+    }
+
+    private record TierSpec<K, V extends Cacheable<K> & Serializable>(CacheBuilder<K, V> builder, int promotionFrequency) {
+    }
+}
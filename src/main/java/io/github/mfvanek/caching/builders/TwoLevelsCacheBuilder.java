@@ -7,39 +7,84 @@
 
 package io.github.mfvanek.caching.builders;
 
+import io.github.mfvanek.caching.enums.BackpressurePolicy;
 import io.github.mfvanek.caching.enums.CacheType;
+import io.github.mfvanek.caching.enums.StorageType;
 import io.github.mfvanek.caching.impl.TwoLevelsCache;
+import io.github.mfvanek.caching.impl.WriteBehindCache;
 import io.github.mfvanek.caching.interfaces.Cacheable;
 import io.github.mfvanek.caching.interfaces.LeveledCache;
+import io.github.mfvanek.caching.interfaces.ValueSerializer;
+import io.github.mfvanek.caching.interfaces.Weigher;
+import io.github.mfvanek.caching.serializers.CompressingValueSerializer;
+import io.github.mfvanek.caching.serializers.JavaValueSerializer;
+import io.github.mfvanek.caching.stats.ConcurrentStatsCounter;
+import io.github.mfvanek.caching.stats.StatsCounter;
 
 import java.io.Serializable;
 import java.nio.file.Path;
+import java.util.zip.Deflater;
 
+@SuppressWarnings({"PMD.TooManyMethods", "PMD.TooManyFields"})
 public final class TwoLevelsCacheBuilder<K, V extends Cacheable<K> & Serializable> {
 
     private final Class<V> type;
+    private CacheType firstLevelCacheType = CacheType.LFU;
     private int firstLevelMaxSize = CacheBuilder.DEFAULT_MAX_SIZE;
     private int secondLevelMaxSize = CacheBuilder.DEFAULT_MAX_SIZE;
     private float firstLevelEvictionFactor = CacheBuilder.DEFAULT_EVICTION_FACTOR;
     private float secondLevelEvictionFactor = CacheBuilder.DEFAULT_EVICTION_FACTOR;
+    private long firstLevelMaxWeight = CacheBuilder.DEFAULT_MAX_WEIGHT;
+    private Weigher<? super K, ? super V> firstLevelWeigher;
+    private long secondLevelMaxBytes = CacheBuilder.DEFAULT_MAX_WEIGHT;
     private Path baseDirectory = CacheBuilder.getDefaultBaseDirectory();
+    private StorageType secondLevelStorageType = StorageType.FILE_PER_ENTRY;
+    private ValueSerializer<V> secondLevelSerializer;
+    private ValueSerializer<K> secondLevelKeySerializer;
+    private int secondLevelCompressionLevel = Deflater.NO_COMPRESSION;
+    private int secondLevelCompressionThreshold = CompressingValueSerializer.DEFAULT_THRESHOLD;
+    private int writeBehindQueueCapacity;
+    private BackpressurePolicy writeBehindPolicy = BackpressurePolicy.BLOCK;
+    private int promotionFrequency;
+    private boolean recordStats;
+    private double secondLevelLookupFilter;
 
     private TwoLevelsCacheBuilder(final Class<V> type) {
         this.type = type;
     }
 
-    public LeveledCache<K, V> build() {
+    public TwoLevelsCache<K, V> build() {
+        final StatsCounter firstLevelStats = createStatsCounter();
+        final StatsCounter secondLevelStats = createStatsCounter();
         final CacheBuilder<K, V> builder = CacheBuilder.builder(type);
-        final LeveledCache<K, V> firstLevel = builder.setCacheType(CacheType.LFU)
+        final LeveledCache<K, V> firstLevel = builder.setCacheType(firstLevelCacheType)
                 .setMaxSize(firstLevelMaxSize)
                 .setEvictionFactor(firstLevelEvictionFactor)
-                .build();
+                .setMaxWeight(firstLevelMaxWeight)
+                .setWeigher(firstLevelWeigher)
+                .setStatsCounter(firstLevelStats)
+                .buildLevel();
         final LeveledCache<K, V> secondLevel = builder.setCacheType(CacheType.PERSISTENCE_LFU)
                 .setMaxSize(secondLevelMaxSize)
                 .setEvictionFactor(secondLevelEvictionFactor)
+                .setMaxWeight(secondLevelMaxBytes)
                 .setBaseDirectory(baseDirectory)
-                .build();
-        return new TwoLevelsCache<>(firstLevel, secondLevel);
+                .setStorageType(secondLevelStorageType)
+                .setSerializer(getSecondLevelSerializer())
+                .setKeySerializer(secondLevelKeySerializer)
+                .setStatsCounter(secondLevelStats)
+                .setLookupFilter(secondLevelLookupFilter)
+                .buildLevel();
+        if (writeBehindQueueCapacity > 0) {
+            return new TwoLevelsCache<>(firstLevel, new WriteBehindCache<>(secondLevel, writeBehindQueueCapacity, writeBehindPolicy),
+                    promotionFrequency, firstLevelStats, secondLevelStats);
+        }
+        return new TwoLevelsCache<>(firstLevel, secondLevel, promotionFrequency, firstLevelStats, secondLevelStats);
+    }
+
+    public TwoLevelsCacheBuilder<K, V> setFirstLevelCacheType(final CacheType cacheType) {
+        this.firstLevelCacheType = cacheType;
+        return this;
     }
 
     public TwoLevelsCacheBuilder<K, V> setFirstLevelMaxSize(final int maxCacheSize) {
@@ -62,11 +107,142 @@ public final class TwoLevelsCacheBuilder<K, V extends Cacheable<K> & Serializabl
         return this;
     }
 
+    /**
+     * Bounds the first level by the total weight of items in addition to their number.
+     * Items that don't fit into the first level are demoted to the second one as usual.
+     *
+     * @param maxWeight the maximum total weight of items, e.g. heap bytes
+     * @param weigher   the weigher of items or null to weigh them by the size of serialized values
+     * @return this builder
+     */
+    public TwoLevelsCacheBuilder<K, V> setFirstLevelMaxWeight(final long maxWeight, final Weigher<? super K, ? super V> weigher) {
+        this.firstLevelMaxWeight = maxWeight;
+        this.firstLevelWeigher = weigher;
+        return this;
+    }
+
+    /**
+     * Bounds the second level by the size of the data on disk in addition to the number of items.
+     *
+     * @param maxBytes the maximum size of the stored data in bytes
+     * @return this builder
+     */
+    public TwoLevelsCacheBuilder<K, V> setSecondLevelMaxBytes(final long maxBytes) {
+        this.secondLevelMaxBytes = maxBytes;
+        return this;
+    }
+
+    public TwoLevelsCacheBuilder<K, V> setSecondLevelStorageType(final StorageType storageType) {
+        this.secondLevelStorageType = storageType;
+        return this;
+    }
+
+    /**
+     * Sets the serializer of values for the second level.
+     *
+     * @param serializer the serializer; Java serialization is used by default
+     * @return this builder
+     */
+    public TwoLevelsCacheBuilder<K, V> setSecondLevelSerializer(final ValueSerializer<V> serializer) {
+        this.secondLevelSerializer = serializer;
+        return this;
+    }
+
+    /**
+     * Sets the serializer of keys for the second level, so that the segmented second level is recovered after a restart.
+     *
+     * @param keySerializer the thread safe serializer of keys; the data is not recovered by default
+     * @return this builder
+     */
+    public TwoLevelsCacheBuilder<K, V> setSecondLevelKeySerializer(final ValueSerializer<K> keySerializer) {
+        this.secondLevelKeySerializer = keySerializer;
+        return this;
+    }
+
+    /**
+     * Enables compression of values on the second level.
+     *
+     * @param level     the {@link Deflater} compression level from 1 (fastest) to 9 (smallest); 0 disables compression
+     * @param threshold the minimal size of a serialized value in bytes to be compressed
+     * @return this builder
+     */
+    public TwoLevelsCacheBuilder<K, V> setSecondLevelCompression(final int level, final int threshold) {
+        this.secondLevelCompressionLevel = level;
+        this.secondLevelCompressionThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * Enables write-behind for the second level: items evicted from the first level are written to disk
+     * by a background thread, so puts don't wait for the disk. The cache should be closed to write the queued items.
+     *
+     * @param queueCapacity the maximum number of items waiting to be written; 0 disables write-behind
+     * @param policy        what to do with an item when the queue is full
+     * @return this builder
+     */
+    public TwoLevelsCacheBuilder<K, V> setSecondLevelWriteBehind(final int queueCapacity, final BackpressurePolicy policy) {
+        this.writeBehindQueueCapacity = queueCapacity;
+        this.writeBehindPolicy = policy;
+        return this;
+    }
+
+    /**
+     * Enables promotion of hot items from the second level back to the first one.
+     * Items evicted from the first level on promotion are demoted to the second level.
+     *
+     * @param frequency the frequency on the second level at which a hit promotes the item;
+     *                  1 promotes on the first hit, 0 disables promotion (by default)
+     * @return this builder
+     */
+    public TwoLevelsCacheBuilder<K, V> setPromotionFrequency(final int frequency) {
+        this.promotionFrequency = frequency;
+        return this;
+    }
+
+    /**
+     * Puts a counting Bloom filter of the stored keys in front of the second level,
+     * so misses of the whole cache return without touching the disk engine.
+     * The filter is rebuilt from the recovered keys when the second level is recovered after a restart.
+     *
+     * @param falsePositiveRate the desired ratio of misses that still reach the disk engine, e.g. 0.01;
+     *                          0 disables the filter (by default)
+     * @return this builder
+     */
+    public TwoLevelsCacheBuilder<K, V> setSecondLevelLookupFilter(final double falsePositiveRate) {
+        this.secondLevelLookupFilter = falsePositiveRate;
+        return this;
+    }
+
+    /**
+     * Enables statistics of both levels, see {@code TwoLevelsCache.firstLevelStats()} and {@code TwoLevelsCache.secondLevelStats()}.
+     * Besides hits, misses, evictions and promotions, the latencies of serialization and disk operations
+     * of the second level are recorded.
+     *
+     * @param recordStats whether statistics should be recorded; disabled by default
+     * @return this builder
+     */
+    public TwoLevelsCacheBuilder<K, V> setRecordStats(final boolean recordStats) {
+        this.recordStats = recordStats;
+        return this;
+    }
+
     public TwoLevelsCacheBuilder<K, V> setBaseDirectory(final Path baseDirectory) {
         this.baseDirectory = baseDirectory;
         return this;
     }
 
+    private StatsCounter createStatsCounter() {
+        return recordStats ? new ConcurrentStatsCounter() : StatsCounter.disabled();
+    }
+
+    private ValueSerializer<V> getSecondLevelSerializer() {
+        final ValueSerializer<V> serializer = secondLevelSerializer == null ? new JavaValueSerializer<>(type) : secondLevelSerializer;
+        if (secondLevelCompressionLevel == Deflater.NO_COMPRESSION) {
+            return serializer;
+        }
+        return new CompressingValueSerializer<>(serializer, secondLevelCompressionLevel, secondLevelCompressionThreshold);
+    }
+
     public static <K, V extends Cacheable<K> & Serializable> TwoLevelsCacheBuilder<K, V> builder(final Class<V> type) {
         return new TwoLevelsCacheBuilder<>(type);
     }
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.enums;
+
+/**
+ * What a write-behind cache does with a new entry when its queue is full.
+ */
+public enum BackpressurePolicy {
+
+    /**
+     * The caller waits until the background writer frees space in the queue.
+     */
+    BLOCK,
+
+    /**
+     * The entry is not stored and is returned to the caller as evicted.
+     * An update of a key that is already in the underlying cache is written on the caller's thread instead,
+     * otherwise reads would keep returning the old value.
+     */
+    DROP,
+
+    /**
+     * The entry is written to the underlying cache on the caller's thread.
+     */
+    WRITE_INLINE
+}
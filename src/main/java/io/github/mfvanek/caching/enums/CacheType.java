@@ -11,5 +11,16 @@ public enum CacheType {
 
     SIMPLE,
     LFU,
-    PERSISTENCE_LFU
+    PERSISTENCE_LFU,
+    CONCURRENT_LFU,
+    WINDOW_TINY_LFU,
+    OFF_HEAP_LFU,
+    /**
+     * LFU cache without objects per entry for values with {@link Long} identifiers.
+     */
+    LONG_KEY_LFU,
+    /**
+     * LFU cache without objects per entry for values with {@link Integer} identifiers.
+     */
+    INT_KEY_LFU
 }
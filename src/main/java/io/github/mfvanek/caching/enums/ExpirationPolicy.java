@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.enums;
+
+/**
+ * When the lifetime of a cache entry starts over.
+ */
+public enum ExpirationPolicy {
+
+    /**
+     * The entry expires after the given time since it was put in the cache or last updated.
+     */
+    AFTER_WRITE,
+
+    /**
+     * The entry expires after the given time since it was last put, updated or read.
+     */
+    AFTER_ACCESS
+}
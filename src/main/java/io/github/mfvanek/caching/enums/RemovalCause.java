@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.enums;
+
+/**
+ * Why an entry has left a cache or one of its levels.
+ */
+public enum RemovalCause {
+
+    /**
+     * The entry has been evicted to keep the cache within its size or weight budget.
+     */
+    SIZE,
+
+    /**
+     * The lifetime of the entry is over, see {@link ExpirationPolicy}.
+     */
+    EXPIRED,
+
+    /**
+     * The entry has been evicted from the first level and moved to the second one, so it is still in the cache.
+     */
+    DEMOTED
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.enums;
+
+import io.github.mfvanek.caching.interfaces.PersistentStorage;
+import io.github.mfvanek.caching.interfaces.ValueSerializer;
+import io.github.mfvanek.caching.storage.FileStorage;
+import io.github.mfvanek.caching.storage.SegmentStorage;
+
+import java.nio.file.Path;
+
+/**
+ * Disk engines for the {@link CacheType#PERSISTENCE_LFU} cache.
+ */
+public enum StorageType {
+
+    /**
+     * One file per entry. Files left by previous instances are never recovered.
+     */
+    FILE_PER_ENTRY {
+        @Override
+        public <K, V> PersistentStorage<K, V> create(final ValueSerializer<V> serializer,
+                                                     final ValueSerializer<K> keySerializer,
+                                                     final Path baseDirectory) {
+            return new FileStorage<>(serializer, baseDirectory);
+        }
+    },
+
+    /**
+     * Entries are appended to large segment files which are compacted in the background.
+     */
+    SEGMENTED {
+        @Override
+        public <K, V> PersistentStorage<K, V> create(final ValueSerializer<V> serializer,
+                                                     final ValueSerializer<K> keySerializer,
+                                                     final Path baseDirectory) {
+            return new SegmentStorage<>(serializer, keySerializer, baseDirectory, false);
+        }
+    },
+
+    /**
+     * Same as {@link #SEGMENTED}, but values are read from memory mapped segments.
+     */
+    MAPPED_SEGMENTED {
+        @Override
+        public <K, V> PersistentStorage<K, V> create(final ValueSerializer<V> serializer,
+                                                     final ValueSerializer<K> keySerializer,
+                                                     final Path baseDirectory) {
+            return new SegmentStorage<>(serializer, keySerializer, baseDirectory, true);
+        }
+    };
+
+    /**
+     * Creates a new storage that starts empty.
+     *
+     * @param serializer    The serializer of values
+     * @param baseDirectory The directory in which the data will be saved
+     * @param <K>           key type
+     * @param <V>           value type
+     * @return new storage
+     */
+    public <K, V> PersistentStorage<K, V> create(final ValueSerializer<V> serializer, final Path baseDirectory) {
+        return create(serializer, null, baseDirectory);
+    }
+
+    /**
+     * Creates a new storage.
+     *
+     * @param serializer    The serializer of values
+     * @param keySerializer The serializer of keys which allows segmented storages to recover the data
+     *                      after a restart; null if the data shouldn't be recovered
+     * @param baseDirectory The directory in which the data will be saved
+     * @param <K>           key type
+     * @param <V>           value type
+     * @return new storage
+     */
+    public abstract <K, V> PersistentStorage<K, V> create(ValueSerializer<V> serializer, ValueSerializer<K> keySerializer, Path baseDirectory);
+}
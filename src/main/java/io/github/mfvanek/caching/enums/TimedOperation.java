@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.enums;
+
+/**
+ * Operations of persistent cache levels whose latency is recorded by statistics.
+ */
+public enum TimedOperation {
+
+    /**
+     * Conversion of a value to bytes.
+     */
+    SERIALIZE,
+
+    /**
+     * Restoring a value from bytes.
+     */
+    DESERIALIZE,
+
+    /**
+     * Reading of one or several values from the storage, including their deserialization.
+     */
+    READ,
+
+    /**
+     * Writing of a value to the storage, including its serialization.
+     */
+    WRITE,
+
+    /**
+     * Removing of a value from the storage.
+     */
+    REMOVE
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+import java.util.Objects;
+
+/**
+ * Flight recorder event of a lookup on a level of the two levels cache.
+ * Only lookups longer than the threshold are recorded; it can be changed in the recording settings.
+ */
+@Name(CacheGetEvent.NAME)
+@Label("Cache Get")
+@Description("Lookup of a key on a level of the two levels cache")
+@Category(CacheGetEvent.CATEGORY)
+@StackTrace(false)
+@Threshold("1 ms")
+// The flight recorder reads the fields of the event reflectively
+@SuppressWarnings("UnusedVariable")
+public final class CacheGetEvent extends Event {
+
+    public static final String NAME = "io.github.mfvanek.caching.Get";
+    static final String CATEGORY = "Two Levels Caching";
+
+    @Label("Key Hash")
+    private int keyHash;
+
+    @Label("Level")
+    private String level;
+
+    @Label("Hit")
+    private boolean hit;
+
+    /**
+     * Creates the event and starts timing. A disabled event is not allocated at all once the code is compiled.
+     *
+     * @return the started event
+     */
+    public static CacheGetEvent start() {
+        final CacheGetEvent event = new CacheGetEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event and commits it if the event is enabled and has taken longer than the threshold.
+     *
+     * @param key       The key
+     * @param levelName The name of the level
+     * @param found     Whether the level has the key
+     */
+    public void finish(final Object key, final String levelName, final boolean found) {
+        end();
+        if (shouldCommit()) {
+            keyHash = Objects.hashCode(key);
+            level = levelName;
+            hit = found;
+            commit();
+        }
+    }
+}
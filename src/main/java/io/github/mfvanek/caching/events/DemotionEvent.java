@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+import java.util.Objects;
+
+/**
+ * Flight recorder event of moving the items evicted from the first level to the second one.
+ * Only demotions longer than the threshold are recorded; it can be changed in the recording settings.
+ */
+@Name(DemotionEvent.NAME)
+@Label("Cache Demotion")
+@Description("Items evicted from the first level are written to the second level")
+@Category(CacheGetEvent.CATEGORY)
+@StackTrace(false)
+@Threshold("1 ms")
+// The flight recorder reads the fields of the event reflectively
+@SuppressWarnings("UnusedVariable")
+public final class DemotionEvent extends Event {
+
+    public static final String NAME = "io.github.mfvanek.caching.Demotion";
+
+    @Label("Key Hash")
+    @Description("Hash of the key whose put caused the demotion; 0 for batch puts")
+    private int keyHash;
+
+    @Label("Demoted Items")
+    private int count;
+
+    /**
+     * Creates the event and starts timing. A disabled event is not allocated at all once the code is compiled.
+     *
+     * @return the started event
+     */
+    public static DemotionEvent start() {
+        final DemotionEvent event = new DemotionEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event and commits it if the event is enabled and has taken longer than the threshold.
+     *
+     * @param key          The key whose put caused the demotion or null for batch puts
+     * @param demotedItems The number of demoted items
+     */
+    public void finish(final Object key, final int demotedItems) {
+        end();
+        if (shouldCommit()) {
+            keyHash = Objects.hashCode(key);
+            count = demotedItems;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event of evicting a batch of the least frequently used items when a cache is full.
+ * Only evictions longer than the threshold are recorded; it can be changed in the recording settings.
+ */
+@Name(EvictionEvent.NAME)
+@Label("Cache Eviction")
+@Description("A batch of the least frequently used items is evicted from a full cache")
+@Category(CacheGetEvent.CATEGORY)
+@StackTrace(false)
+@Threshold("1 ms")
+// The flight recorder reads the fields of the event reflectively
+@SuppressWarnings("UnusedVariable")
+public final class EvictionEvent extends Event {
+
+    public static final String NAME = "io.github.mfvanek.caching.Eviction";
+
+    @Label("Cache")
+    private String cache;
+
+    @Label("Evicted Items")
+    private int count;
+
+    /**
+     * Creates the event and starts timing. A disabled event is not allocated at all once the code is compiled.
+     *
+     * @return the started event
+     */
+    public static EvictionEvent start() {
+        final EvictionEvent event = new EvictionEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event and commits it if the event is enabled and has taken longer than the threshold.
+     *
+     * @param cacheType    The type of the cache
+     * @param evictedItems The number of evicted items
+     */
+    public void finish(final Class<?> cacheType, final int evictedItems) {
+        end();
+        if (shouldCommit()) {
+            cache = cacheType.getSimpleName();
+            count = evictedItems;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event of Java serialization of a cached value.
+ * Only operations longer than the threshold are recorded; it can be changed in the recording settings.
+ */
+@Name(SerializationEvent.NAME)
+@Label("Cache Serialization")
+@Description("A value is serialized or deserialized with Java serialization")
+@Category(CacheGetEvent.CATEGORY)
+@StackTrace(false)
+@Threshold("1 ms")
+// The flight recorder reads the fields of the event reflectively
+@SuppressWarnings("UnusedVariable")
+public final class SerializationEvent extends Event {
+
+    public static final String NAME = "io.github.mfvanek.caching.Serialization";
+    public static final String SERIALIZE = "serialize";
+    public static final String DESERIALIZE = "deserialize";
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Size")
+    @DataAmount
+    private int byteSize;
+
+    /**
+     * Creates the event and starts timing. A disabled event is not allocated at all once the code is compiled.
+     *
+     * @return the started event
+     */
+    public static SerializationEvent start() {
+        final SerializationEvent event = new SerializationEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event and commits it if the event is enabled and has taken longer than the threshold.
+     *
+     * @param operationName {@link #SERIALIZE} or {@link #DESERIALIZE}
+     * @param size          The size of the serialized value in bytes
+     */
+    public void finish(final String operationName, final int size) {
+        end();
+        if (shouldCommit()) {
+            operation = operationName;
+            byteSize = size;
+            commit();
+        }
+    }
+}
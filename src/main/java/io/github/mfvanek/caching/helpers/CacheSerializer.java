@@ -7,10 +7,10 @@
 
 package io.github.mfvanek.caching.helpers;
 
+import io.github.mfvanek.caching.events.SerializationEvent;
 import lombok.SneakyThrows;
 import lombok.experimental.UtilityClass;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
@@ -27,20 +27,46 @@ public final class CacheSerializer {
     @SneakyThrows
     public static <V extends Serializable> Path serialize(final V value, final Path cacheFilePath) {
         try (FileChannel channel = FileChannel.open(cacheFilePath, StandardOpenOption.WRITE,
-                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-             ByteArrayOutputStream bos = new ByteArrayOutputStream();
-             ObjectOutputStream ous = new ObjectOutputStream(bos)) {
-            ous.writeObject(value);
-            channel.write(ByteBuffer.wrap(bos.toByteArray()));
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap(toBytes(value)));
         }
         return cacheFilePath;
     }
 
     @SneakyThrows
     public static <V extends Serializable> V deserialize(final Class<V> type, final Path cacheFilePath) {
-        final byte[] data = Files.readAllBytes(cacheFilePath);
-        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data))) {
-            return type.cast(ois.readObject());
+        return fromBuffer(type, ByteBuffer.wrap(Files.readAllBytes(cacheFilePath)));
+    }
+
+    @SneakyThrows
+    public static <V extends Serializable> byte[] toBytes(final V value) {
+        final SerializationEvent event = SerializationEvent.start();
+        try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
+             ObjectOutputStream ous = new ObjectOutputStream(bos)) {
+            ous.writeObject(value);
+            ous.flush();
+            final byte[] data = bos.toByteArray();
+            event.finish(SerializationEvent.SERIALIZE, data.length);
+            return data;
+        }
+    }
+
+    /**
+     * Deserializes the remaining bytes of the buffer. Direct and mapped buffers are read in place.
+     *
+     * @param type   The type of the value
+     * @param buffer The buffer with serialized value
+     * @param <V>    value type
+     * @return deserialized value
+     */
+    @SneakyThrows
+    public static <V extends Serializable> V fromBuffer(final Class<V> type, final ByteBuffer buffer) {
+        final SerializationEvent event = SerializationEvent.start();
+        final int size = buffer.remaining();
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteBufferInputStream(buffer))) {
+            final V value = type.cast(ois.readObject());
+            event.finish(SerializationEvent.DESERIALIZE, size);
+            return value;
         }
     }
 }
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.helpers;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Counting Bloom filter that tells for sure that a key has never been added, so a lookup can skip the storage.
+ * Every counter takes 4 bits (sixteen counters are packed into one long), which allows removing keys.
+ * A counter that has reached the maximum is never decremented again, so removals never cause false negatives,
+ * but heavily overloaded filters slowly lose their accuracy. Each key must be removed at most as many times as it was added.
+ * The filter is not thread safe.
+ *
+ * @param <K> key type
+ * @see <a href="https://en.wikipedia.org/wiki/Counting_Bloom_filter">Counting Bloom filter</a>
+ */
+public final class CountingBloomFilter<K> {
+
+    private static final int MAX_COUNT = 15;
+    private static final int COUNTERS_PER_LONG = 16;
+    private static final int MIN_COUNTERS = 64;
+    private static final int MAX_HASH_FUNCTIONS = 16;
+    private static final double LN2 = Math.log(2.0);
+
+    private final long[] table;
+    private final int counterMask;
+    private final int hashFunctions;
+
+    /**
+     * Creates a filter sized for the given number of keys.
+     *
+     * @param expectedKeys      the maximum number of keys in the filter at the same time
+     * @param falsePositiveRate the desired probability of reporting a key that has never been added, between 0 and 1
+     */
+    public CountingBloomFilter(final int expectedKeys, final double falsePositiveRate) {
+        if (falsePositiveRate <= 0.0 || falsePositiveRate >= 1.0) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+        }
+        final int keys = Math.max(expectedKeys, 1);
+        final double optimalCounters = -keys * Math.log(falsePositiveRate) / (LN2 * LN2);
+        final int counters = Math.max(MIN_COUNTERS, Integer.highestOneBit(((int) Math.min(optimalCounters, 1 << 30)) * 2 - 1));
+        this.table = new long[counters / COUNTERS_PER_LONG];
+        this.counterMask = counters - 1;
+        this.hashFunctions = (int) Math.max(1L, Math.min(MAX_HASH_FUNCTIONS, Math.round(optimalCounters / keys * LN2)));
+    }
+
+    /**
+     * Checks whether the key may have been added.
+     *
+     * @param key the key
+     * @return false if the key has definitely not been added or has been removed
+     */
+    public boolean mightContain(final K key) {
+        final int hash = spread(Objects.hashCode(key));
+        final int step = stepOf(hash);
+        for (int i = 0; i < hashFunctions; ++i) {
+            if (countAt(hash + i * step) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void add(final K key) {
+        final int hash = spread(Objects.hashCode(key));
+        final int step = stepOf(hash);
+        for (int i = 0; i < hashFunctions; ++i) {
+            final int counter = (hash + i * step) & counterMask;
+            if (countAt(counter) < MAX_COUNT) {
+                table[counter >>> 4] += 1L << shiftOf(counter);
+            }
+        }
+    }
+
+    /**
+     * Removes the key that has been added before.
+     *
+     * @param key the key
+     */
+    public void remove(final K key) {
+        final int hash = spread(Objects.hashCode(key));
+        final int step = stepOf(hash);
+        for (int i = 0; i < hashFunctions; ++i) {
+            final int counter = (hash + i * step) & counterMask;
+            final int count = countAt(counter);
+            if (count > 0 && count < MAX_COUNT) {
+                table[counter >>> 4] -= 1L << shiftOf(counter);
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0L);
+    }
+
+    int getHashFunctions() {
+        return hashFunctions;
+    }
+
+    int getCounters() {
+        return counterMask + 1;
+    }
+
+    private int countAt(final int position) {
+        final int counter = position & counterMask;
+        return (int) (table[counter >>> 4] >>> shiftOf(counter) & 0xfL);
+    }
+
+    private static int shiftOf(final int counter) {
+        return (counter & (COUNTERS_PER_LONG - 1)) << 2;
+    }
+
+    /**
+     * Double hashing: the second hash must be odd to visit distinct counters of the power of two table.
+     */
+    private static int stepOf(final int hash) {
+        return spread(hash ^ 0x9e3779b9) | 1;
+    }
+
+    private static int spread(final int hashCode) {
+        int value = (hashCode >>> 16 ^ hashCode) * 0x45d9f3b;
+        value = (value >>> 16 ^ value) * 0x45d9f3b;
+        return value >>> 16 ^ value;
+    }
+}
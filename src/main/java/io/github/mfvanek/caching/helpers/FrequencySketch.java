@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.helpers;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Count-Min sketch that estimates the popularity of keys within a time window.
+ * Every counter takes 4 bits (sixteen counters are packed into one long), so the maximum frequency is 15.
+ * Each key is mapped to four counters, and the estimate is the minimum of them.
+ * When the number of increments reaches the sample size, all counters are halved (aging),
+ * so keys that were popular long ago gradually lose their advantage.
+ *
+ * @param <K> key type
+ * @see <a href="https://arxiv.org/abs/1512.00727">TinyLFU: A Highly Efficient Cache Admission Policy</a>
+ */
+public final class FrequencySketch<K> {
+
+    public static final int MAX_FREQUENCY = 15;
+
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777_7777_7777_7777L;
+    private static final long ONE_MASK = 0x1111_1111_1111_1111L;
+    private static final int SAMPLE_FACTOR = 10;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     * Creates a sketch sized for the given number of keys.
+     *
+     * @param maximumSize the maximum number of keys in the cache
+     */
+    public FrequencySketch(final int maximumSize) {
+        final int size = Math.max(maximumSize, 1);
+        final int capacity = Integer.highestOneBit(size * 2 - 1);
+        this.table = new long[capacity];
+        this.tableMask = capacity - 1;
+        this.sampleSize = SAMPLE_FACTOR * size;
+    }
+
+    /**
+     * Returns the estimated number of occurrences of the key, up to {@link #MAX_FREQUENCY}.
+     *
+     * @param key the key
+     * @return estimated frequency
+     */
+    public int frequency(final K key) {
+        final int hash = spread(Objects.hashCode(key));
+        final int start = (hash & 3) << 2;
+        int frequency = MAX_FREQUENCY;
+        for (int i = 0; i < SEEDS.length; ++i) {
+            final int index = indexOf(hash, i);
+            final int count = (int) (table[index] >>> ((start + i) << 2) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Increments the popularity of the key; all counters are halved when the sample size is reached.
+     *
+     * @param key the key
+     */
+    public void increment(final K key) {
+        final int hash = spread(Objects.hashCode(key));
+        final int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; ++i) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added) {
+            ++additions;
+            if (additions == sampleSize) {
+                reset();
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0L);
+        additions = 0;
+    }
+
+    int getSampleSize() {
+        return sampleSize;
+    }
+
+    private boolean incrementAt(final int index, final int counter) {
+        final int offset = counter << 2;
+        final long mask = 0xfL << offset;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    private void reset() {
+        int oddCounters = 0;
+        for (int i = 0; i < table.length; ++i) {
+            oddCounters += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = table[i] >>> 1 & RESET_MASK;
+        }
+        // Halving loses a quarter of an increment per odd counter on average
+        additions = (additions >>> 1) - (oddCounters >>> 2);
+    }
+
+    private int indexOf(final int hash, final int depth) {
+        long value = (hash + SEEDS[depth]) * SEEDS[depth];
+        value += value >>> 32;
+        return (int) value & tableMask;
+    }
+
+    private static int spread(final int hashCode) {
+        int value = (hashCode >>> 16 ^ hashCode) * 0x45d9f3b;
+        value = (value >>> 16 ^ value) * 0x45d9f3b;
+        return value >>> 16 ^ value;
+    }
+}
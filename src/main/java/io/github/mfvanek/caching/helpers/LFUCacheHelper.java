@@ -8,36 +8,44 @@
 package io.github.mfvanek.caching.helpers;
 
 import io.github.mfvanek.caching.interfaces.Countable;
-import org.apache.commons.collections4.CollectionUtils;
 
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.Set;
-import java.util.SortedMap;
-import java.util.TreeMap;
 
+/**
+ * Keeps track of the access frequencies of keys with O(1) complexity for every operation.
+ * Frequencies are stored in a doubly linked list of nodes sorted in ascending order.
+ * Each frequency node holds its own doubly linked list of keys, where the oldest key goes first.
+ * The head of the list is the lowest frequency, so it is always known without searching.
+ * Frequency nodes that become empty are kept for reuse, so reading the keys that are already tracked allocates nothing.
+ *
+ * @param <K> key type
+ * @see <a href="http://dhruvbird.com/lfu.pdf">An O(1) algorithm for implementing the LFU cache eviction scheme</a>
+ */
+@SuppressWarnings("PMD.NullAssignment")
 public class LFUCacheHelper<K> implements Countable<K> {
 
     private final float evictionFactor;
-    private final SortedMap<Integer, Set<K>> frequencies;
-    private final Map<K, Integer> innerFrequencyMap;
+    private final Map<K, KeyNode<K>> keyNodes;
+    private FrequencyNode<K> lowest;
+    /**
+     * The stack of unused frequency nodes linked through their next references.
+     */
+    private FrequencyNode<K> spare;
 
     public LFUCacheHelper(final float evictionFactor) {
         LFUCacheHelper.validateEvictionFactor(evictionFactor);
 
         this.evictionFactor = evictionFactor;
-        this.frequencies = new TreeMap<>();
-        this.innerFrequencyMap = new HashMap<>();
+        this.keyNodes = new HashMap<>();
     }
 
     public float getEvictionFactor() {
         return evictionFactor;
     }
 
-    private static void validateEvictionFactor(final float evictionFactor) {
+    public static void validateEvictionFactor(final float evictionFactor) {
         if (evictionFactor <= 0.0f || evictionFactor > 1.0f) {
             throw new IllegalArgumentException("Eviction factor must be greater than 0 and less than or equal to 1");
         }
@@ -45,69 +53,203 @@ public class LFUCacheHelper<K> implements Countable<K> {
 
     @Override
     public int getLowestFrequency() {
-        return frequencies.keySet()
-                .stream()
-                .min(Integer::compareTo)
-                .orElse(0);
+        return lowest == null ? 0 : lowest.frequency;
     }
 
     @Override
     public int frequencyOf(final K key) {
-        final Integer value = innerFrequencyMap.get(key);
-        if (value != null) {
-            return value;
+        final KeyNode<K> node = keyNodes.get(key);
+        if (node != null) {
+            return node.parent.frequency;
         }
         throw new NoSuchElementException("Key " + key + " not found in the cache");
     }
 
     public void clear() {
-        frequencies.clear();
-        innerFrequencyMap.clear();
+        keyNodes.clear();
+        lowest = null;
+        spare = null;
     }
 
-    public void removeKeyOnEviction(final K key) {
-        innerFrequencyMap.remove(key);
+    /**
+     * Removes the key from the frequency structure.
+     *
+     * @param key The key
+     * @return frequency of the removed key or {@link Countable#INVALID_FREQUENCY} if the key is unknown
+     */
+    public int removeKeyFromFrequencies(final K key) {
+        final KeyNode<K> node = keyNodes.remove(key);
+        if (node == null) {
+            return INVALID_FREQUENCY;
+        }
+        final int frequency = node.parent.frequency;
+        unlink(node);
+        return frequency;
     }
 
-    public Integer removeKeyFromFrequencies(final K key) {
-        final Integer frequency = innerFrequencyMap.remove(key);
-        removeKeyFromFrequencies(key, frequency);
-        return frequency;
+    /**
+     * Starts tracking the key with the given frequency.
+     * The complexity is O(1) when the frequency is not greater than the lowest one (new keys always start from zero).
+     *
+     * @param frequency initial frequency of the key
+     * @param key       The key
+     */
+    public void rememberFrequency(final int frequency, final K key) {
+        KeyNode<K> node = keyNodes.get(key);
+        if (node == null) {
+            node = new KeyNode<>(key);
+            keyNodes.put(key, node);
+        } else {
+            unlink(node);
+        }
+        link(node, findOrCreate(frequency));
+    }
+
+    public void updateFrequency(final K key) {
+        final KeyNode<K> node = keyNodes.get(key);
+        final FrequencyNode<K> current = node.parent;
+        final int newFrequency = current.frequency + 1;
+        FrequencyNode<K> target = current.next;
+        if (target == null || target.frequency != newFrequency) {
+            if (node.prev == null && node.next == null) {
+                // The key is the only one with its frequency, so the node keeps its place in the list
+                current.frequency = newFrequency;
+                return;
+            }
+            target = createNode(newFrequency);
+            insertAfter(current, target);
+        }
+        unlink(node);
+        link(node, target);
+    }
+
+    /**
+     * Removes the least frequently used key from the frequency structure.
+     * If several keys have the same frequency, the one that got it earlier is chosen.
+     *
+     * @return the evicted key
+     * @throws NoSuchElementException if there are no keys
+     */
+    public K pollLowestFrequencyKey() {
+        if (lowest == null) {
+            throw new NoSuchElementException("There are no keys in the cache");
+        }
+        final KeyNode<K> node = lowest.head;
+        keyNodes.remove(node.key);
+        unlink(node);
+        return node.key;
+    }
+
+    private FrequencyNode<K> findOrCreate(final int frequency) {
+        if (lowest == null || frequency < lowest.frequency) {
+            final FrequencyNode<K> created = createNode(frequency);
+            created.next = lowest;
+            if (lowest != null) {
+                lowest.prev = created;
+            }
+            lowest = created;
+            return created;
+        }
+        FrequencyNode<K> current = lowest;
+        while (current.next != null && current.next.frequency <= frequency) {
+            current = current.next;
+        }
+        if (current.frequency == frequency) {
+            return current;
+        }
+        final FrequencyNode<K> created = createNode(frequency);
+        insertAfter(current, created);
+        return created;
     }
 
-    @SuppressWarnings("PMD.AvoidLiteralsInIfCondition")
-    private void removeKeyFromFrequencies(final K key, final Integer frequency) {
-        final Set<K> keys = frequencies.get(frequency);
-        if (keys.size() > 1) {
-            keys.remove(key);
+    private FrequencyNode<K> createNode(final int frequency) {
+        if (spare == null) {
+            return new FrequencyNode<>(frequency);
+        }
+        final FrequencyNode<K> reused = spare;
+        spare = reused.next;
+        reused.frequency = frequency;
+        reused.next = null;
+        return reused;
+    }
+
+    private static <K> void insertAfter(final FrequencyNode<K> existing, final FrequencyNode<K> created) {
+        created.prev = existing;
+        created.next = existing.next;
+        if (existing.next != null) {
+            existing.next.prev = created;
+        }
+        existing.next = created;
+    }
+
+    private static <K> void link(final KeyNode<K> node, final FrequencyNode<K> parent) {
+        node.parent = parent;
+        node.prev = parent.tail;
+        node.next = null;
+        if (parent.tail == null) {
+            parent.head = node;
         } else {
-            frequencies.remove(frequency);
+            parent.tail.next = node;
         }
+        parent.tail = node;
     }
 
-    public void rememberFrequency(final Integer frequency, final K key) {
-        Set<K> keys = frequencies.get(frequency);
-        if (keys == null) {
-            keys = new HashSet<>(Set.of(key));
-            frequencies.put(frequency, keys);
+    private void unlink(final KeyNode<K> node) {
+        final FrequencyNode<K> parent = node.parent;
+        if (node.prev == null) {
+            parent.head = node.next;
         } else {
-            keys.add(key);
+            node.prev.next = node.next;
+        }
+        if (node.next == null) {
+            parent.tail = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+        node.parent = null;
+        if (parent.head == null) {
+            unlink(parent);
         }
-        innerFrequencyMap.put(key, frequency);
     }
 
-    public void updateFrequency(final K key) {
-        final Integer frequency = innerFrequencyMap.get(key);
-        removeKeyFromFrequencies(key, frequency);
-        rememberFrequency(frequency + 1, key);
+    private void unlink(final FrequencyNode<K> node) {
+        if (node.prev == null) {
+            lowest = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = spare;
+        spare = node;
     }
 
-    public Iterator<K> iteratorForLowestFrequency() {
-        // We need to remove entries with empty values
-        frequencies.entrySet().removeIf(e -> CollectionUtils.isEmpty(e.getValue()));
+    private static final class FrequencyNode<K> {
+
+        private int frequency;
+        private FrequencyNode<K> prev;
+        private FrequencyNode<K> next;
+        private KeyNode<K> head;
+        private KeyNode<K> tail;
 
-        final Integer lowestFrequency = getLowestFrequency();
-        final Set<K> keys = frequencies.get(lowestFrequency);
-        return keys.iterator();
+        FrequencyNode(final int frequency) {
+            this.frequency = frequency;
+        }
+    }
+
+    private static final class KeyNode<K> {
+
+        private final K key;
+        private FrequencyNode<K> parent;
+        private KeyNode<K> prev;
+        private KeyNode<K> next;
+
+        KeyNode(final K key) {
+            this.key = key;
+        }
     }
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.helpers;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Lossy buffer for recording reads from many threads without locking.
+ * It consists of several ring buffers (stripes); each thread always writes to the same stripe chosen by its id.
+ * When a stripe is full or another thread wins the race for a slot, the element is dropped.
+ * The buffer should be drained by one thread at a time (usually under a lock).
+ *
+ * @param <E> element type
+ */
+public final class ReadBuffer<E> {
+
+    /**
+     * Capacity of every stripe; must be a power of two.
+     */
+    static final int STRIPE_CAPACITY = 16;
+    private static final int STRIPE_MASK = STRIPE_CAPACITY - 1;
+    private static final int MAX_STRIPES = 64;
+
+    private final Stripe<E>[] stripes;
+    private final int stripesMask;
+
+    public ReadBuffer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    @SuppressWarnings("unchecked")
+    ReadBuffer(final int parallelism) {
+        // The nearest power of two that is not less than twice the parallelism
+        final int stripesCount = Math.min(MAX_STRIPES, Integer.highestOneBit(Math.max(1, parallelism) * 2 - 1) << 1);
+        this.stripes = new Stripe[stripesCount];
+        for (int i = 0; i < stripesCount; ++i) {
+            stripes[i] = new Stripe<>();
+        }
+        this.stripesMask = stripesCount - 1;
+    }
+
+    int stripesCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Records the element into the stripe of the current thread.
+     *
+     * @param element element to record
+     * @return result of recording
+     */
+    public Result offer(final E element) {
+        return stripes[stripeIndex()].offer(element);
+    }
+
+    /**
+     * Passes all recorded elements to the consumer and frees the buffer.
+     * Must not be called concurrently from several threads.
+     *
+     * @param consumer receiver of the recorded elements
+     * @return number of drained elements
+     */
+    public int drainTo(final Consumer<? super E> consumer) {
+        int drained = 0;
+        for (final Stripe<E> stripe : stripes) {
+            drained += stripe.drainTo(consumer);
+        }
+        return drained;
+    }
+
+    @SuppressWarnings("deprecation")
+    private int stripeIndex() {
+        final long id = Thread.currentThread().getId();
+        final long hash = id * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & stripesMask;
+    }
+
+    /**
+     * Outcome of recording an element.
+     */
+    public enum Result {
+
+        /**
+         * The element has been recorded.
+         */
+        SUCCESS,
+
+        /**
+         * The element has been dropped because another thread took the slot at the same time.
+         */
+        FAILED,
+
+        /**
+         * The element has been dropped because the stripe is full, so the buffer should be drained.
+         */
+        FULL
+    }
+
+    private static final class Stripe<E> {
+
+        private final AtomicLong readCounter = new AtomicLong();
+        private final AtomicLong writeCounter = new AtomicLong();
+        private final AtomicReferenceArray<E> elements = new AtomicReferenceArray<>(STRIPE_CAPACITY);
+
+        Result offer(final E element) {
+            final long head = readCounter.get();
+            final long tail = writeCounter.get();
+            if (tail - head >= STRIPE_CAPACITY) {
+                return Result.FULL;
+            }
+            if (writeCounter.compareAndSet(tail, tail + 1)) {
+                elements.lazySet((int) tail & STRIPE_MASK, element);
+                return Result.SUCCESS;
+            }
+            return Result.FAILED;
+        }
+
+        int drainTo(final Consumer<? super E> consumer) {
+            final long tail = writeCounter.get();
+            long head = readCounter.get();
+            int drained = 0;
+            while (head < tail) {
+                final int index = (int) head & STRIPE_MASK;
+                final E element = elements.get(index);
+                if (element == null) {
+                    // The slot has been reserved, but the element is not published yet
+                    break;
+                }
+                elements.lazySet(index, null);
+                consumer.accept(element);
+                ++head;
+                ++drained;
+            }
+            readCounter.lazySet(head);
+            return drained;
+        }
+    }
+}
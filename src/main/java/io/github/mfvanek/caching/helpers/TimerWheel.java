@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.helpers;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel that tracks the expiration time of keys.
+ * Every wheel is an array of buckets that span a power-of-two interval of time: about a second, a minute, an hour
+ * and a day; times that are further away are kept in a single overflow bucket.
+ * Scheduling a key is O(1); when the time advances, only the buckets whose interval has passed are visited,
+ * and keys that are not due yet cascade into the buckets of a finer wheel. So expiration costs amortized O(1) per key
+ * instead of a sweep over all keys. Times are in nanoseconds and must not be negative. Thread unsafe.
+ *
+ * @param <K> key type
+ * @see <a href="http://www.cs.columbia.edu/~nahum/w6998/papers/ton97-timing-wheels.pdf">Hashed and Hierarchical Timing Wheels</a>
+ */
+@SuppressWarnings({"PMD.NullAssignment", "PMD.UseConcurrentHashMap"})
+public final class TimerWheel<K> {
+
+    private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+    /**
+     * Intervals of a bucket in every wheel: 1.07 seconds, 1.14 minutes, 1.22 hours, 19.5 hours and 3.26 days.
+     */
+    private static final long[] SPANS = {1L << 30, 1L << 36, 1L << 42, 1L << 46, 1L << 48};
+
+    private final TimerNode<K>[][] wheel;
+    private final Map<K, TimerNode<K>> nodes;
+    private long nanos;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimerWheel() {
+        this.wheel = new TimerNode[BUCKETS.length][];
+        for (int i = 0; i < BUCKETS.length; ++i) {
+            wheel[i] = new TimerNode[BUCKETS[i]];
+        }
+        this.nodes = new HashMap<>();
+    }
+
+    /**
+     * Sets or moves the expiration time of the key.
+     *
+     * @param key  the key
+     * @param time the expiration time
+     */
+    public void schedule(final K key, final long time) {
+        TimerNode<K> node = nodes.get(key);
+        if (node == null) {
+            node = new TimerNode<>(key);
+            nodes.put(key, node);
+        } else {
+            unlink(node);
+        }
+        node.time = time;
+        link(node);
+    }
+
+    /**
+     * Stops tracking the key.
+     *
+     * @param key the key
+     */
+    public void deschedule(final K key) {
+        final TimerNode<K> node = nodes.remove(key);
+        if (node != null) {
+            unlink(node);
+        }
+    }
+
+    /**
+     * Returns the expiration time of the key.
+     *
+     * @param key the key
+     * @return the time or {@link Long#MAX_VALUE} if the key is not tracked
+     */
+    public long timeOf(final K key) {
+        final TimerNode<K> node = nodes.get(key);
+        return node == null ? Long.MAX_VALUE : node.time;
+    }
+
+    /**
+     * Advances the current time and stops tracking keys whose expiration time has come.
+     *
+     * @param currentTime the current time; it must not go backwards
+     * @param expired     receives the expired keys
+     */
+    public void advance(final long currentTime, final Consumer<K> expired) {
+        final long previousTime = nanos;
+        nanos = currentTime;
+        for (int i = 0; i < SPANS.length; ++i) {
+            final int shift = Long.numberOfTrailingZeros(SPANS[i]);
+            final long previousTicks = previousTime >>> shift;
+            final long currentTicks = currentTime >>> shift;
+            // Coarser wheels can't tick if a finer one hasn't
+            if (currentTicks == previousTicks) {
+                break;
+            }
+            expire(i, previousTicks, currentTicks - previousTicks, expired);
+        }
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public void clear() {
+        nodes.clear();
+        for (final TimerNode<K>[] buckets : wheel) {
+            Arrays.fill(buckets, null);
+        }
+    }
+
+    private void expire(final int level, final long previousTicks, final long delta, final Consumer<K> expired) {
+        final TimerNode<K>[] buckets = wheel[level];
+        final int mask = buckets.length - 1;
+        final int steps = (int) Math.min(1L + delta, buckets.length);
+        for (int i = 0; i < steps; ++i) {
+            final int index = (int) ((previousTicks + i) & mask);
+            TimerNode<K> node = buckets[index];
+            buckets[index] = null;
+            while (node != null) {
+                final TimerNode<K> next = node.next;
+                if (node.time <= nanos) {
+                    nodes.remove(node.key);
+                    expired.accept(node.key);
+                } else {
+                    link(node);
+                }
+                node = next;
+            }
+        }
+    }
+
+    private void link(final TimerNode<K> node) {
+        final long duration = node.time - nanos;
+        int level = 0;
+        while (level < SPANS.length - 1 && duration >= SPANS[level + 1]) {
+            ++level;
+        }
+        final TimerNode<K>[] buckets = wheel[level];
+        node.level = level;
+        node.index = (int) ((node.time >>> Long.numberOfTrailingZeros(SPANS[level])) & (buckets.length - 1));
+        node.prev = null;
+        node.next = buckets[node.index];
+        if (node.next != null) {
+            node.next.prev = node;
+        }
+        buckets[node.index] = node;
+    }
+
+    private void unlink(final TimerNode<K> node) {
+        if (node.prev == null) {
+            wheel[node.level][node.index] = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        }
+    }
+
+    private static final class TimerNode<K> {
+
+        private final K key;
+        private long time;
+        private int level;
+        private int index;
+        private TimerNode<K> prev;
+        private TimerNode<K> next;
+
+        TimerNode(final K key) {
+            this.key = key;
+        }
+    }
+}
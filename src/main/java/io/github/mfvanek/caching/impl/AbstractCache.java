@@ -10,9 +10,7 @@ package io.github.mfvanek.caching.impl;
 import io.github.mfvanek.caching.interfaces.Cacheable;
 import io.github.mfvanek.caching.interfaces.LeveledCache;
 
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Abstract base class for implementing cache.
@@ -22,26 +20,38 @@ import java.util.stream.Collectors;
  */
 abstract class AbstractCache<K, V extends Cacheable<K>> implements LeveledCache<K, V> {
 
+    /**
+     * The budget of caches that are bounded by the number of entries only.
+     */
+    static final long UNBOUNDED_WEIGHT = Long.MAX_VALUE;
+
     private final Class<V> type;
     private final int maxCacheSize;
+    private final long maxWeight;
 
     protected AbstractCache(final Class<V> type, final int maxCacheSize) {
+        this(type, maxCacheSize, UNBOUNDED_WEIGHT);
+    }
+
+    protected AbstractCache(final Class<V> type, final int maxCacheSize, final long maxWeight) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("Max weight must be positive");
+        }
         this.type = type;
         this.maxCacheSize = maxCacheSize;
+        this.maxWeight = maxWeight;
     }
 
     protected int getCacheMaxSize() {
         return maxCacheSize;
     }
 
-    protected Class<V> getType() {
-        return type;
+    protected long getMaxWeight() {
+        return maxWeight;
     }
 
-    @Override
-    public List<V> put(final V value) {
-        final List<Map.Entry<K, V>> evictedItems = this.put(value.getIdentifier(), value);
-        return evictedItems.stream().map(Map.Entry::getValue).collect(Collectors.toList());
+    protected Class<V> getType() {
+        return type;
     }
 
     protected abstract Map.Entry<Integer, V> innerRemove(K key);
@@ -8,16 +8,24 @@
 package io.github.mfvanek.caching.impl;
 
 import io.github.mfvanek.caching.interfaces.Cacheable;
+import io.github.mfvanek.caching.interfaces.Weigher;
 
 import java.util.Map;
 
 abstract class AbstractMapCache<K, V extends Cacheable<K>> extends AbstractCache<K, V> {
 
     private final Map<K, V> innerMap;
+    private final Weigher<? super K, ? super V> weigher;
+    private long weight;
 
-    protected AbstractMapCache(final Class<V> type, final int maxCacheSize, final Map<K, V> innerMap) {
-        super(type, maxCacheSize);
+    protected AbstractMapCache(final Class<V> type,
+                               final int maxCacheSize,
+                               final Map<K, V> innerMap,
+                               final long maxWeight,
+                               final Weigher<? super K, ? super V> weigher) {
+        super(type, maxCacheSize, maxWeight);
         this.innerMap = innerMap;
+        this.weigher = weigher;
     }
 
     protected Map<K, V> getInnerMap() {
@@ -28,6 +36,25 @@ abstract class AbstractMapCache<K, V extends Cacheable<K>> extends AbstractCache
         return innerMap.size() == getCacheMaxSize();
     }
 
+    /**
+     * Puts the value into the inner map keeping track of the total weight.
+     *
+     * @return the weight of the value
+     */
+    protected int putValue(final K key, final V value) {
+        final V previous = innerMap.put(key, value);
+        if (previous != null) {
+            weight -= weigher.weigh(key, previous);
+        }
+        final int valueWeight = weigher.weigh(key, value);
+        weight += valueWeight;
+        return valueWeight;
+    }
+
+    protected boolean isOverweight() {
+        return weight > getMaxWeight();
+    }
+
     @Override
     public V get(final K key) {
         return innerMap.get(key);
@@ -40,12 +67,17 @@ abstract class AbstractMapCache<K, V extends Cacheable<K>> extends AbstractCache
 
     @Override
     public V remove(final K key) {
-        return innerMap.remove(key);
+        final V deletedValue = innerMap.remove(key);
+        if (deletedValue != null) {
+            weight -= weigher.weigh(key, deletedValue);
+        }
+        return deletedValue;
     }
 
     @Override
     public void clear() {
         innerMap.clear();
+        weight = 0L;
     }
 
     @Override
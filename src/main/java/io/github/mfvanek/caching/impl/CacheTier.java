@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.interfaces.Cacheable;
+import io.github.mfvanek.caching.interfaces.LeveledCache;
+import io.github.mfvanek.caching.stats.StatsCounter;
+
+/**
+ * A tier of {@link TieredCache}.
+ *
+ * @param name               The name of the tier in logs and flight recorder events
+ * @param cache              The cache that holds the items of the tier
+ * @param promotionFrequency The frequency on the tier at which a hit moves the item to the tier above;
+ *                           1 promotes on the first hit, 0 disables promotion. It is ignored for the first tier
+ * @param statsCounter       The receiver of statistics of the tier
+ * @param <K>                key type
+ * @param <V>                value type, should be {@link Cacheable}
+ */
+public record CacheTier<K, V extends Cacheable<K>>(String name,
+                                                   LeveledCache<K, V> cache,
+                                                   int promotionFrequency,
+                                                   StatsCounter statsCounter) {
+
+    public CacheTier {
+        if (promotionFrequency < 0) {
+            throw new IllegalArgumentException("Promotion frequency must be greater than or equal to zero");
+        }
+    }
+}
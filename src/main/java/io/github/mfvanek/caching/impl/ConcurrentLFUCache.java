@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.events.EvictionEvent;
+import io.github.mfvanek.caching.helpers.LFUCacheHelper;
+import io.github.mfvanek.caching.helpers.ReadBuffer;
+import io.github.mfvanek.caching.interfaces.Cacheable;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread safe implementation of LFU cache (Least Frequently Used).
+ * Lookups go to {@link ConcurrentHashMap} without any locking and every entry counts its own hits atomically,
+ * so readers never block each other. Only insertion of new keys and eviction are serialized by a single lock.
+ * Eviction scans all entries once and keeps the least frequently used ones in a bounded heap reused by every eviction,
+ * so it costs O(n log k) for k evicted items and allocates nothing but the list of evicted items.
+ * <p>
+ * With buffered reads enabled, hits are not counted on the entries directly. They are recorded into a lossy
+ * {@link ReadBuffer} and applied in batches under the lock, so reads don't write to shared state at all.
+ * Some hits may be lost under heavy load; that only makes frequencies approximate.
+ *
+ * @param <K> key type
+ * @param <V> value type, should be {@link Cacheable}
+ */
+public class ConcurrentLFUCache<K, V extends Cacheable<K>> extends AbstractCache<K, V> {
+
+    private final ConcurrentMap<K, EntryNode<K, V>> innerMap;
+    private final Lock lock = new ReentrantLock();
+    private final ReadBuffer<EntryNode<K, V>> readBuffer;
+    private final EvictionQueue<K, V> evictionQueue;
+    private long insertionCounter;
+
+    /**
+     * Creates an instance of {@link ConcurrentLFUCache} class.
+     *
+     * @param type           type of the values
+     * @param maxCacheSize   The maximum number of items that can be placed in the cache
+     * @param evictionFactor The percentage of items that should be removed from the cache when it is full
+     * @param bufferedReads  Whether hits should be recorded into a read buffer instead of updating frequencies in place
+     */
+    @SuppressWarnings("PMD.NullAssignment")
+    public ConcurrentLFUCache(final Class<V> type,
+                              final int maxCacheSize,
+                              final float evictionFactor,
+                              final boolean bufferedReads) {
+        super(type, maxCacheSize);
+        LFUCacheHelper.validateEvictionFactor(evictionFactor);
+        this.innerMap = new ConcurrentHashMap<>(maxCacheSize);
+        this.readBuffer = bufferedReads ? new ReadBuffer<>() : null;
+        // A cache of zero size still has to evict the single item it holds before a new one is put
+        this.evictionQueue = new EvictionQueue<>(Math.max(1, (int) Math.ceil(maxCacheSize * evictionFactor)));
+    }
+
+    @Override
+    public List<Map.Entry<K, V>> put(final K key, final V value) {
+        if (replace(key, value)) {
+            return List.of();
+        }
+        lock.lock();
+        try {
+            // New keys are inserted only under the lock, so the key cannot appear after this check
+            if (replace(key, value)) {
+                return List.of();
+            }
+            List<Map.Entry<K, V>> evictedItems = List.of();
+            if (innerMap.size() >= getCacheMaxSize()) {
+                drainReadBuffer();
+                evictedItems = doEviction();
+            }
+            innerMap.put(key, new EntryNode<>(key, value, insertionCounter++));
+            return evictedItems;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public V get(final K key) {
+        final EntryNode<K, V> node = key == null ? null : innerMap.get(key);
+        if (node == null) {
+            return null;
+        }
+        recordHit(node);
+        return node.value;
+    }
+
+    @Override
+    public boolean containsKey(final K key) {
+        return key != null && innerMap.containsKey(key);
+    }
+
+    @Override
+    public V remove(final K key) {
+        return innerRemove(key).getValue();
+    }
+
+    @Override
+    protected Map.Entry<Integer, V> innerRemove(final K key) {
+        final EntryNode<K, V> node = key == null ? null : innerMap.remove(key);
+        if (node == null) {
+            return new AbstractMap.SimpleEntry<>(INVALID_FREQUENCY, null);
+        }
+        return new AbstractMap.SimpleEntry<>(node.frequency, node.value);
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            drainReadBuffer();
+            innerMap.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return innerMap.size();
+    }
+
+    @Override
+    public int frequencyOf(final K key) {
+        flushReadBuffer();
+        final EntryNode<K, V> node = key == null ? null : innerMap.get(key);
+        if (node != null) {
+            return node.frequency;
+        }
+        throw new NoSuchElementException("Key " + key + " not found in the cache");
+    }
+
+    /**
+     * Returns the lowest frequency among all entries; it requires a full scan of the cache.
+     *
+     * @return the lowest frequency or zero if the cache is empty
+     */
+    @Override
+    public int getLowestFrequency() {
+        flushReadBuffer();
+        return innerMap.values().stream()
+                .mapToInt(n -> n.frequency)
+                .min()
+                .orElse(0);
+    }
+
+    private void recordHit(final EntryNode<K, V> node) {
+        if (readBuffer == null) {
+            node.incrementFrequency();
+        } else if (readBuffer.offer(node) == ReadBuffer.Result.FULL && lock.tryLock()) {
+            // Only one thread drains the buffer; the others just go on without waiting and lose their hits
+            try {
+                drainReadBuffer();
+                node.incrementFrequency();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void flushReadBuffer() {
+        if (readBuffer != null) {
+            lock.lock();
+            try {
+                drainReadBuffer();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void drainReadBuffer() {
+        // Must be called under the lock
+        if (readBuffer != null) {
+            readBuffer.drainTo(EntryNode::incrementFrequency);
+        }
+    }
+
+    private boolean replace(final K key, final V value) {
+        return innerMap.computeIfPresent(key, (k, node) -> node.withValue(value)) != null;
+    }
+
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    private List<Map.Entry<K, V>> doEviction() {
+        // This method will be called only when cache is full and the lock is held
+        final EvictionEvent event = EvictionEvent.start();
+        for (final EntryNode<K, V> node : innerMap.values()) {
+            evictionQueue.offer(node);
+        }
+        final int count = evictionQueue.sort();
+        final List<Map.Entry<K, V>> evictedItems = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            final EntryNode<K, V> node = evictionQueue.get(i);
+            if (innerMap.remove(node.key, node)) {
+                evictedItems.add(new AbstractMap.SimpleEntry<>(node.key, node.value));
+            }
+        }
+        evictionQueue.clear();
+        event.finish(getClass(), evictedItems.size());
+        return evictedItems;
+    }
+
+    @SuppressWarnings("PMD.AvoidUsingVolatile")
+    private static final class EntryNode<K, V> {
+
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<EntryNode> FREQUENCY = AtomicIntegerFieldUpdater.newUpdater(EntryNode.class, "frequency");
+
+        private final K key;
+        private final long order;
+        private volatile V value;
+        private volatile int frequency;
+
+        EntryNode(final K key, final V value, final long order) {
+            this.key = key;
+            this.value = value;
+            this.order = order;
+        }
+
+        EntryNode<K, V> withValue(final V newValue) {
+            this.value = newValue;
+            return this;
+        }
+
+        void incrementFrequency() {
+            FREQUENCY.incrementAndGet(this);
+        }
+    }
+
+    /**
+     * Bounded max-heap of the entries to evict. The root is the most frequently used of them,
+     * so it is replaced whenever a less frequently used entry is found; ties are broken by the insertion order.
+     * Frequencies keep changing, so the heap compares their snapshots.
+     *
+     * @param <K> key type
+     * @param <V> value type
+     */
+    private static final class EvictionQueue<K, V> {
+
+        private final EntryNode<K, V>[] nodes;
+        private final int[] frequencies;
+        private int size;
+
+        @SuppressWarnings("unchecked")
+        EvictionQueue(final int capacity) {
+            this.nodes = (EntryNode<K, V>[]) new EntryNode[capacity];
+            this.frequencies = new int[capacity];
+        }
+
+        void offer(final EntryNode<K, V> node) {
+            final int frequency = node.frequency;
+            if (size < nodes.length) {
+                nodes[size] = node;
+                frequencies[size] = frequency;
+                siftUp(size++);
+            } else if (evictsBefore(frequency, node, 0)) {
+                nodes[0] = node;
+                frequencies[0] = frequency;
+                siftDown(0, size);
+            }
+        }
+
+        /**
+         * Sorts the entries from the least frequently used one in place.
+         *
+         * @return the number of entries
+         */
+        int sort() {
+            for (int last = size - 1; last > 0; --last) {
+                swap(0, last);
+                siftDown(0, last);
+            }
+            return size;
+        }
+
+        EntryNode<K, V> get(final int index) {
+            return nodes[index];
+        }
+
+        void clear() {
+            // Evicted entries must not be held until the next eviction
+            Arrays.fill(nodes, 0, size, null);
+            size = 0;
+        }
+
+        private boolean evictsBefore(final int frequency, final EntryNode<K, V> node, final int index) {
+            if (frequency != frequencies[index]) {
+                return frequency < frequencies[index];
+            }
+            return node.order < nodes[index].order;
+        }
+
+        private boolean evictsBefore(final int first, final int second) {
+            return evictsBefore(frequencies[first], nodes[first], second);
+        }
+
+        private void siftUp(final int index) {
+            int child = index;
+            int parent = (child - 1) >>> 1;
+            while (child > 0 && evictsBefore(parent, child)) {
+                swap(parent, child);
+                child = parent;
+                parent = (child - 1) >>> 1;
+            }
+        }
+
+        private void siftDown(final int index, final int length) {
+            int parent = index;
+            int child = 2 * parent + 1;
+            while (child < length) {
+                if (child + 1 < length && evictsBefore(child, child + 1)) {
+                    ++child;
+                }
+                if (!evictsBefore(parent, child)) {
+                    return;
+                }
+                swap(parent, child);
+                parent = child;
+                child = 2 * parent + 1;
+            }
+        }
+
+        private void swap(final int first, final int second) {
+            final EntryNode<K, V> node = nodes[first];
+            nodes[first] = nodes[second];
+            nodes[second] = node;
+            final int frequency = frequencies[first];
+            frequencies[first] = frequencies[second];
+            frequencies[second] = frequency;
+        }
+    }
+}
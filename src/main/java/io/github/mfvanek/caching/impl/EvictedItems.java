@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.enums.RemovalCause;
+import io.github.mfvanek.caching.interfaces.RemovalListener;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the items that have left the cache for the methods that return them as a list.
+ * Demoted items are still in the cache, so they are skipped.
+ * The list is allocated on the first eviction only.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+final class EvictedItems<K, V> implements RemovalListener<K, V> {
+
+    private List<Map.Entry<K, V>> items = List.of();
+
+    @Override
+    public void onRemoval(final K key, final V value, final RemovalCause cause) {
+        if (cause != RemovalCause.DEMOTED) {
+            if (items.isEmpty()) {
+                items = new ArrayList<>();
+            }
+            items.add(new AbstractMap.SimpleEntry<>(key, value));
+        }
+    }
+
+    List<Map.Entry<K, V>> toList() {
+        return items;
+    }
+}
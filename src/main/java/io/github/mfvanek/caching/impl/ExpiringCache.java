@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.enums.ExpirationPolicy;
+import io.github.mfvanek.caching.enums.RemovalCause;
+import io.github.mfvanek.caching.helpers.TimerWheel;
+import io.github.mfvanek.caching.interfaces.Cacheable;
+import io.github.mfvanek.caching.interfaces.LeveledCache;
+import io.github.mfvanek.caching.interfaces.RemovalListener;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Decorator that expires entries of a cache after a fixed time, see {@link ExpirationPolicy}.
+ * When it wraps a {@link TwoLevelsCache}, the lifetime of an entry doesn't depend on the level it is stored in.
+ * Expiration times are tracked by a {@link TimerWheel}: every operation first removes the entries whose time has come,
+ * so expired entries never take part in eviction. A background sweeper does the same once a second,
+ * so the disk space of expired entries is reclaimed even if the cache is idle.
+ * Entries that the underlying cache has recovered from disk start their lifetime on the first read.
+ * The underlying cache is accessed under a single lock, so it doesn't have to be thread safe.
+ *
+ * @param <K> key type
+ * @param <V> value type, should be {@link Cacheable}
+ */
+@Slf4j
+@SuppressWarnings("PMD.TooManyMethods")
+public final class ExpiringCache<K, V extends Cacheable<K>> implements LeveledCache<K, V>, Closeable {
+
+    private static final long SWEEP_INTERVAL_MILLIS = 1000L;
+
+    private final LeveledCache<K, V> delegate;
+    private final ExpirationPolicy policy;
+    private final long durationNanos;
+    private final LongSupplier ticker;
+    private final RemovalListener<? super K, ? super V> expirationListener;
+    private final TimerWheel<K> wheel = new TimerWheel<>();
+    private final Lock lock = new ReentrantLock();
+    private final AtomicBoolean running = new AtomicBoolean(true);
+
+    /**
+     * Creates an instance of {@link ExpiringCache} class and starts its background sweeper.
+     *
+     * @param delegate The underlying cache
+     * @param policy   When the lifetime of an entry starts over
+     * @param duration The lifetime of entries
+     */
+    public ExpiringCache(final LeveledCache<K, V> delegate,
+                         final ExpirationPolicy policy,
+                         final Duration duration) {
+        this(delegate, policy, duration, systemTicker(), ExpiringCache::startSweeper, RemovalListener.discarding());
+    }
+
+    /**
+     * Creates an instance of {@link ExpiringCache} class that reports expired entries as {@link RemovalCause#EXPIRED}.
+     * The listener is called under the lock of the cache, possibly from the background sweeper.
+     *
+     * @param delegate           The underlying cache
+     * @param policy             When the lifetime of an entry starts over
+     * @param duration           The lifetime of entries
+     * @param expirationListener The receiver of expired entries
+     */
+    public ExpiringCache(final LeveledCache<K, V> delegate,
+                         final ExpirationPolicy policy,
+                         final Duration duration,
+                         final RemovalListener<? super K, ? super V> expirationListener) {
+        this(delegate, policy, duration, systemTicker(), ExpiringCache::startSweeper, expirationListener);
+    }
+
+    ExpiringCache(final LeveledCache<K, V> delegate,
+                  final ExpirationPolicy policy,
+                  final Duration duration,
+                  final LongSupplier ticker,
+                  final Executor sweeperExecutor) {
+        this(delegate, policy, duration, ticker, sweeperExecutor, RemovalListener.discarding());
+    }
+
+    ExpiringCache(final LeveledCache<K, V> delegate,
+                  final ExpirationPolicy policy,
+                  final Duration duration,
+                  final LongSupplier ticker,
+                  final Executor sweeperExecutor,
+                  final RemovalListener<? super K, ? super V> expirationListener) {
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Duration must be positive");
+        }
+        this.delegate = delegate;
+        this.policy = policy;
+        this.durationNanos = duration.toNanos();
+        this.ticker = ticker;
+        this.expirationListener = expirationListener;
+        sweeperExecutor.execute(this::sweep);
+    }
+
+    @Override
+    public List<Map.Entry<K, V>> put(final K key, final V value) {
+        lock.lock();
+        try {
+            final long now = expireEntries();
+            final List<Map.Entry<K, V>> evictedItems = delegate.put(key, value);
+            wheel.schedule(key, now + durationNanos);
+            evictedItems.forEach(entry -> wheel.deschedule(entry.getKey()));
+            return evictedItems;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Map.Entry<K, V>> putAll(final Map<? extends K, ? extends V> items) {
+        lock.lock();
+        try {
+            final long now = expireEntries();
+            final List<Map.Entry<K, V>> evictedItems = delegate.putAll(items);
+            items.keySet().forEach(key -> wheel.schedule(key, now + durationNanos));
+            evictedItems.forEach(entry -> wheel.deschedule(entry.getKey()));
+            return evictedItems;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public V get(final K key) {
+        lock.lock();
+        try {
+            final long now = expireEntries();
+            if (isExpired(key, now)) {
+                return null;
+            }
+            final V value = delegate.get(key);
+            if (value != null) {
+                touch(key, now);
+            }
+            return value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Map<K, V> getAll(final Collection<? extends K> keys) {
+        lock.lock();
+        try {
+            final long now = expireEntries();
+            final List<K> liveKeys = new ArrayList<>(keys.size());
+            for (final K key : keys) {
+                if (!isExpired(key, now)) {
+                    liveKeys.add(key);
+                }
+            }
+            final Map<K, V> foundItems = delegate.getAll(liveKeys);
+            foundItems.keySet().forEach(key -> touch(key, now));
+            return foundItems;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean containsKey(final K key) {
+        lock.lock();
+        try {
+            return !isExpired(key, expireEntries()) && delegate.containsKey(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public V remove(final K key) {
+        lock.lock();
+        try {
+            if (isExpired(key, expireEntries())) {
+                return null;
+            }
+            wheel.deschedule(key);
+            return delegate.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            wheel.clear();
+            delegate.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            expireEntries();
+            return delegate.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int frequencyOf(final K key) {
+        lock.lock();
+        try {
+            // An expired entry is removed, so the underlying cache treats it as an unknown key
+            isExpired(key, expireEntries());
+            return delegate.frequencyOf(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getLowestFrequency() {
+        lock.lock();
+        try {
+            expireEntries();
+            return delegate.getLowestFrequency();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops the background sweeper and closes the underlying cache if it is {@link Closeable}.
+     * The cache must not be used after that.
+     *
+     * @throws IOException if the underlying cache fails to close
+     */
+    @SuppressWarnings("PMD.CloseResource")
+    @Override
+    public void close() throws IOException {
+        running.set(false);
+        lock.lock();
+        try {
+            if (delegate instanceof Closeable closeable) {
+                closeable.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the entries whose expiration time has come.
+     *
+     * @return the current time
+     */
+    private long expireEntries() {
+        final long now = ticker.getAsLong();
+        wheel.advance(now, this::expire);
+        return now;
+    }
+
+    /**
+     * Removes the entry if it has expired since the last tick of the wheel.
+     */
+    private boolean isExpired(final K key, final long now) {
+        if (wheel.timeOf(key) > now) {
+            return false;
+        }
+        wheel.deschedule(key);
+        expire(key);
+        return true;
+    }
+
+    private void expire(final K key) {
+        final V value = delegate.remove(key);
+        if (value != null) {
+            expirationListener.onRemoval(key, value, RemovalCause.EXPIRED);
+        }
+        log.trace("The item with key = {} has expired", key);
+    }
+
+    private void touch(final K key, final long now) {
+        if (policy == ExpirationPolicy.AFTER_ACCESS || wheel.timeOf(key) == Long.MAX_VALUE) {
+            wheel.schedule(key, now + durationNanos);
+        }
+    }
+
+    @SuppressWarnings("checkstyle:IllegalCatch")
+    private void sweep() {
+        try {
+            while (running.get()) {
+                TimeUnit.MILLISECONDS.sleep(SWEEP_INTERVAL_MILLIS);
+                lock.lock();
+                try {
+                    if (running.get()) {
+                        expireEntries();
+                    }
+                } catch (Exception e) {
+                    // The sweeper must survive failures of the underlying cache; the next operation will try again
+                    log.error("Failed to remove expired items", e);
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static LongSupplier systemTicker() {
+        // The wheel needs non-negative times
+        final long origin = System.nanoTime();
+        return () -> System.nanoTime() - origin;
+    }
+
+    private static void startSweeper(final Runnable sweeper) {
+        final Thread thread = new Thread(sweeper, "expiration-sweeper");
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
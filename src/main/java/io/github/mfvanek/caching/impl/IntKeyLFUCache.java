@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.interfaces.Cacheable;
+import io.github.mfvanek.caching.interfaces.RemovalListener;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thread unsafe LFU cache specialized for {@code int} keys, see {@link LongKeyLFUCache}.
+ * Keys are widened to {@code long} internally.
+ *
+ * @param <V> value type, should be {@link Cacheable}
+ */
+public class IntKeyLFUCache<V extends Cacheable<Integer>> extends PrimitiveKeyLFUCache<Integer, V> {
+
+    /**
+     * Creates an instance of {@link IntKeyLFUCache} class.
+     *
+     * @param maxCacheSize   The maximum number of items that can be placed in the cache
+     * @param evictionFactor The percentage of items that should be removed from the cache when it is full
+     */
+    public IntKeyLFUCache(final int maxCacheSize, final float evictionFactor) {
+        super(maxCacheSize, evictionFactor);
+    }
+
+    public List<Map.Entry<Integer, V>> put(final int key, final V value) {
+        final EvictedItems<Integer, V> evictedItems = new EvictedItems<>();
+        putByPrimitive(key, value, evictedItems);
+        return evictedItems.toList();
+    }
+
+    public void put(final int key, final V value, final RemovalListener<? super Integer, ? super V> listener) {
+        putByPrimitive(key, value, listener);
+    }
+
+    public V get(final int key) {
+        return getByPrimitive(key);
+    }
+
+    public boolean containsKey(final int key) {
+        return containsPrimitive(key);
+    }
+
+    public V remove(final int key) {
+        return removeByPrimitive(key);
+    }
+
+    public int frequencyOf(final int key) {
+        return frequencyOfPrimitive(key);
+    }
+
+    @Override
+    protected Integer toKey(final long key) {
+        return (int) key;
+    }
+
+    @Override
+    protected long toPrimitive(final Integer key) {
+        return key;
+    }
+}
@@ -7,14 +7,16 @@
 
 package io.github.mfvanek.caching.impl;
 
+import io.github.mfvanek.caching.enums.RemovalCause;
+import io.github.mfvanek.caching.events.EvictionEvent;
 import io.github.mfvanek.caching.helpers.LFUCacheHelper;
 import io.github.mfvanek.caching.interfaces.Cacheable;
 import io.github.mfvanek.caching.interfaces.Countable;
+import io.github.mfvanek.caching.interfaces.RemovalListener;
+import io.github.mfvanek.caching.interfaces.Weigher;
 
 import java.util.AbstractMap;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -30,22 +32,47 @@ public class LFUCache<K, V extends Cacheable<K>> extends AbstractMapCache<K, V>
     private final LFUCacheHelper<K> helper;
 
     public LFUCache(final Class<V> type, final int maxCacheSize, final float evictionFactor) {
-        super(type, maxCacheSize, new HashMap<>(maxCacheSize));
+        this(type, maxCacheSize, evictionFactor, UNBOUNDED_WEIGHT, Weigher.perEntry());
+    }
+
+    /**
+     * Creates an instance of {@link LFUCache} class bounded by both the number of items and their total weight.
+     * When the weight is exceeded, the least frequently used items are evicted until the new one fits;
+     * an item heavier than the whole budget is evicted itself.
+     *
+     * @param maxCacheSize   The maximum number of items that can be placed in the cache
+     * @param evictionFactor The percentage of items that should be removed from the cache when it is full
+     * @param maxWeight      The maximum total weight of items, e.g. heap bytes
+     * @param weigher        The weigher of items
+     */
+    public LFUCache(final Class<V> type,
+                    final int maxCacheSize,
+                    final float evictionFactor,
+                    final long maxWeight,
+                    final Weigher<? super K, ? super V> weigher) {
+        super(type, maxCacheSize, new HashMap<>(maxCacheSize), maxWeight, weigher);
         helper = new LFUCacheHelper<>(evictionFactor);
     }
 
     @Override
     public List<Map.Entry<K, V>> put(final K key, final V value) {
-        List<Map.Entry<K, V>> evictedItems = List.of();
-        final V currentValue = getInnerMap().get(key);
-        if (currentValue == null) {
+        final EvictedItems<K, V> evictedItems = new EvictedItems<>();
+        put(key, value, evictedItems);
+        return evictedItems.toList();
+    }
+
+    @Override
+    public void put(final K key, final V value, final RemovalListener<? super K, ? super V> listener) {
+        if (!getInnerMap().containsKey(key)) {
             if (isCacheMaxSizeReached()) {
-                evictedItems = doEviction();
+                doEviction(listener);
             }
             helper.rememberFrequency(0, key);
         }
-        getInnerMap().put(key, value);
-        return evictedItems;
+        final int weight = putValue(key, value);
+        if (isOverweight()) {
+            evictOverweight(key, weight > getMaxWeight(), listener);
+        }
     }
 
     @Override
@@ -59,12 +86,16 @@ public class LFUCache<K, V extends Cacheable<K>> extends AbstractMapCache<K, V>
 
     @Override
     public V remove(final K key) {
-        return innerRemove(key).getValue();
+        final V deletedValue = super.remove(key);
+        if (deletedValue != null) {
+            helper.removeKeyFromFrequencies(key);
+        }
+        return deletedValue;
     }
 
     @Override
     protected Map.Entry<Integer, V> innerRemove(final K key) {
-        Integer frequency = Countable.INVALID_FREQUENCY;
+        int frequency = Countable.INVALID_FREQUENCY;
         final V deletedValue = super.remove(key);
         if (deletedValue != null) {
             frequency = helper.removeKeyFromFrequencies(key);
@@ -88,22 +119,33 @@ public class LFUCache<K, V extends Cacheable<K>> extends AbstractMapCache<K, V>
         return helper.getLowestFrequency();
     }
 
-    @SuppressWarnings("PMD.AssignmentInOperand")
-    private List<Map.Entry<K, V>> doEviction() {
+    private void doEviction(final RemovalListener<? super K, ? super V> listener) {
         // This method will be called only when cache is full
-        final List<Map.Entry<K, V>> evictedItems = new ArrayList<>();
+        final EvictionEvent event = EvictionEvent.start();
         final float target = getCacheMaxSize() * helper.getEvictionFactor();
-        int currentlyDeleted = 0;
-        while (currentlyDeleted < target) {
-            final Iterator<K> it = helper.iteratorForLowestFrequency();
-            while (it.hasNext() && currentlyDeleted++ < target) {
-                final K key = it.next();
-                final V value = super.remove(key);
-                helper.removeKeyOnEviction(key);
-                it.remove();
-                evictedItems.add(new AbstractMap.SimpleEntry<>(key, value));
-            }
+        int evictedCount = 0;
+        while (evictedCount < target) {
+            final K key = helper.pollLowestFrequencyKey();
+            listener.onRemoval(key, super.remove(key), RemovalCause.SIZE);
+            ++evictedCount;
+        }
+        event.finish(getClass(), evictedCount);
+    }
+
+    /**
+     * Evicts the least frequently used items except the given one until the total weight fits into the budget.
+     * An item heavier than the whole budget is evicted itself right away.
+     */
+    private void evictOverweight(final K key, final boolean tooHeavy, final RemovalListener<? super K, ? super V> listener) {
+        final int frequency = helper.removeKeyFromFrequencies(key);
+        while (!tooHeavy && isOverweight() && size() > 1) {
+            final K evictedKey = helper.pollLowestFrequencyKey();
+            listener.onRemoval(evictedKey, super.remove(evictedKey), RemovalCause.SIZE);
+        }
+        if (isOverweight()) {
+            listener.onRemoval(key, super.remove(key), RemovalCause.SIZE);
+        } else {
+            helper.rememberFrequency(frequency, key);
         }
-        return evictedItems;
     }
 }
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.interfaces.CacheLoader;
+import io.github.mfvanek.caching.interfaces.Cacheable;
+import io.github.mfvanek.caching.interfaces.LeveledCache;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decorator that loads missing values from the backing source.
+ * Concurrent misses on the same key share a single in-flight load; other threads wait for its result
+ * instead of querying the source themselves. A failure of the load is thrown as is to the loading thread
+ * and wrapped into {@link java.util.concurrent.CompletionException} for the waiting ones.
+ * Loaded values are stored with the usual put of the underlying cache, so they are subject to the usual eviction.
+ * Null values are returned to callers, but not cached.
+ * The underlying cache is accessed under a single lock, so it doesn't have to be thread safe;
+ * the lock is never held while values are loaded or awaited.
+ *
+ * @param <K> key type
+ * @param <V> value type, should be {@link Cacheable}
+ */
+@Slf4j
+@SuppressWarnings("PMD.TooManyMethods")
+public final class LoadingCache<K, V extends Cacheable<K>> implements LeveledCache<K, V>, Closeable {
+
+    private final LeveledCache<K, V> delegate;
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Lock lock = new ReentrantLock();
+
+    public LoadingCache(final LeveledCache<K, V> delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Gets the element from the cache or loads it if it is missing; concurrent misses share a single load.
+     *
+     * @throws java.util.concurrent.CompletionException if the load started by another thread has failed
+     */
+    @Override
+    public V get(final K key, final CacheLoader<K, V> loader) {
+        final V cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+        final CompletableFuture<V> load = new CompletableFuture<>();
+        final CompletableFuture<V> shared = inFlight.putIfAbsent(key, load);
+        if (shared != null) {
+            log.trace("Waiting for the item with key = {} loaded by another thread", key);
+            return shared.join();
+        }
+        loadClaimed(Map.of(key, load), loader);
+        return load.join();
+    }
+
+    /**
+     * Gets the elements from the cache and loads the missing ones with a single call of {@link CacheLoader#loadAll}.
+     * Keys that are being loaded by other threads are not loaded again.
+     *
+     * @throws java.util.concurrent.CompletionException if a load started by another thread has failed
+     */
+    @Override
+    @SuppressWarnings({"PMD.UseConcurrentHashMap", "PMD.AvoidInstantiatingObjectsInLoops"})
+    public Map<K, V> getAll(final Collection<? extends K> keys, final CacheLoader<K, V> loader) {
+        final Map<K, V> foundItems = new LinkedHashMap<>(getAll(keys));
+        final Map<K, CompletableFuture<V>> ownLoads = new LinkedHashMap<>();
+        final Map<K, CompletableFuture<V>> sharedLoads = new LinkedHashMap<>();
+        for (final K key : keysNotIn(keys, foundItems)) {
+            final CompletableFuture<V> load = new CompletableFuture<>();
+            final CompletableFuture<V> shared = inFlight.putIfAbsent(key, load);
+            if (shared == null) {
+                ownLoads.put(key, load);
+            } else {
+                sharedLoads.put(key, shared);
+            }
+        }
+        if (!ownLoads.isEmpty()) {
+            foundItems.putAll(loadClaimed(ownLoads, loader));
+        }
+        sharedLoads.forEach((key, load) -> {
+            final V value = load.join();
+            if (value != null) {
+                foundItems.put(key, value);
+            }
+        });
+        return foundItems;
+    }
+
+    @Override
+    public List<Map.Entry<K, V>> put(final K key, final V value) {
+        lock.lock();
+        try {
+            return delegate.put(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public V get(final K key) {
+        lock.lock();
+        try {
+            return delegate.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Map<K, V> getAll(final Collection<? extends K> keys) {
+        lock.lock();
+        try {
+            return delegate.getAll(keys);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Map.Entry<K, V>> putAll(final Map<? extends K, ? extends V> items) {
+        lock.lock();
+        try {
+            return delegate.putAll(items);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Map<K, V> removeAll(final Collection<? extends K> keys) {
+        lock.lock();
+        try {
+            return delegate.removeAll(keys);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean containsKey(final K key) {
+        lock.lock();
+        try {
+            return delegate.containsKey(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public V remove(final K key) {
+        lock.lock();
+        try {
+            return delegate.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            delegate.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return delegate.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int frequencyOf(final K key) {
+        lock.lock();
+        try {
+            return delegate.frequencyOf(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getLowestFrequency() {
+        lock.lock();
+        try {
+            return delegate.getLowestFrequency();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the underlying cache if it is {@link Closeable}.
+     *
+     * @throws IOException if the underlying cache fails to close
+     */
+    @SuppressWarnings("PMD.CloseResource")
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (delegate instanceof Closeable closeable) {
+                closeable.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Loads the values of the keys claimed by the current thread, stores them and passes them to waiting threads.
+     */
+    @SuppressWarnings({"PMD.UseConcurrentHashMap", "checkstyle:IllegalCatch"})
+    private Map<K, V> loadClaimed(final Map<K, CompletableFuture<V>> ownLoads, final CacheLoader<K, V> loader) {
+        try {
+            // Other threads may have loaded some of the keys right before they were claimed
+            final Map<K, V> values = new HashMap<>(getAll(ownLoads.keySet()));
+            final Set<K> missedKeys = keysNotIn(ownLoads.keySet(), values);
+            if (!missedKeys.isEmpty()) {
+                final Map<K, V> loaded = loader.loadAll(missedKeys);
+                final List<Map.Entry<K, V>> evictedItems = putAll(loaded);
+                log.debug("{} of {} items have been loaded; evictedItems = {}", loaded.size(), missedKeys.size(), evictedItems);
+                values.putAll(loaded);
+            }
+            ownLoads.forEach((key, load) -> load.complete(values.get(key)));
+            return values;
+        } catch (RuntimeException | Error e) {
+            // Waiting threads must not hang whatever happens to the load
+            ownLoads.values().forEach(load -> load.completeExceptionally(e));
+            throw e;
+        } finally {
+            ownLoads.forEach(inFlight::remove);
+        }
+    }
+
+    private static <K> Set<K> keysNotIn(final Collection<? extends K> keys, final Map<K, ?> items) {
+        final Set<K> missedKeys = new LinkedHashSet<>(keys);
+        missedKeys.removeAll(items.keySet());
+        return missedKeys;
+    }
+}
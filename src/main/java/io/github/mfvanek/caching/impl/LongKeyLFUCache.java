@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.interfaces.Cacheable;
+import io.github.mfvanek.caching.interfaces.RemovalListener;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thread unsafe LFU cache specialized for {@code long} keys.
+ * It stores no objects per entry, so it takes a fraction of the heap of {@link LFUCache} with {@link Long} keys;
+ * the overloads with primitive keys don't box them at all.
+ *
+ * @param <V> value type, should be {@link Cacheable}
+ */
+public class LongKeyLFUCache<V extends Cacheable<Long>> extends PrimitiveKeyLFUCache<Long, V> {
+
+    /**
+     * Creates an instance of {@link LongKeyLFUCache} class.
+     *
+     * @param maxCacheSize   The maximum number of items that can be placed in the cache
+     * @param evictionFactor The percentage of items that should be removed from the cache when it is full
+     */
+    public LongKeyLFUCache(final int maxCacheSize, final float evictionFactor) {
+        super(maxCacheSize, evictionFactor);
+    }
+
+    public List<Map.Entry<Long, V>> put(final long key, final V value) {
+        final EvictedItems<Long, V> evictedItems = new EvictedItems<>();
+        putByPrimitive(key, value, evictedItems);
+        return evictedItems.toList();
+    }
+
+    public void put(final long key, final V value, final RemovalListener<? super Long, ? super V> listener) {
+        putByPrimitive(key, value, listener);
+    }
+
+    public V get(final long key) {
+        return getByPrimitive(key);
+    }
+
+    public boolean containsKey(final long key) {
+        return containsPrimitive(key);
+    }
+
+    public V remove(final long key) {
+        return removeByPrimitive(key);
+    }
+
+    public int frequencyOf(final long key) {
+        return frequencyOfPrimitive(key);
+    }
+
+    @Override
+    protected Long toKey(final long key) {
+        return key;
+    }
+
+    @Override
+    protected long toPrimitive(final Long key) {
+        return key;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.interfaces.Cacheable;
+import io.github.mfvanek.caching.interfaces.ValueSerializer;
+import io.github.mfvanek.caching.storage.OffHeapStorage;
+
+import java.io.Serializable;
+
+/**
+ * Thread unsafe implementation of LFU cache that keeps serialized values in direct memory.
+ * Only keys and their frequencies stay on the heap, so the cache can hold gigabytes of data without long GC pauses.
+ * Every read deserializes the value.
+ *
+ * @param <K> key type
+ * @param <V> value type, should be {@link Cacheable} and {@link Serializable}
+ * @see OffHeapStorage
+ */
+public class OffHeapLFUCache<K, V extends Cacheable<K> & Serializable> extends PersistenceLFUCache<K, V> {
+
+    /**
+     * Creates an instance of {@link OffHeapLFUCache} class.
+     *
+     * @param maxCacheSize   The maximum number of items that can be placed in the cache
+     * @param evictionFactor The percentage of items that should be removed from the cache when it is full
+     * @param serializer     The serializer of values
+     */
+    public OffHeapLFUCache(final Class<V> type,
+                           final int maxCacheSize,
+                           final float evictionFactor,
+                           final ValueSerializer<V> serializer) {
+        super(type, maxCacheSize, evictionFactor, UNBOUNDED_WEIGHT, new OffHeapStorage<>(serializer));
+    }
+
+    /**
+     * Creates an instance of {@link OffHeapLFUCache} class bounded by both the number of items and the direct memory they take.
+     *
+     * @param maxCacheSize   The maximum number of items that can be placed in the cache
+     * @param evictionFactor The percentage of items that should be removed from the cache when it is full
+     * @param maxBytes       The maximum size of direct memory allocated for values, see {@link OffHeapStorage#sizeInBytes()}
+     * @param serializer     The serializer of values
+     */
+    public OffHeapLFUCache(final Class<V> type,
+                           final int maxCacheSize,
+                           final float evictionFactor,
+                           final long maxBytes,
+                           final ValueSerializer<V> serializer) {
+        super(type, maxCacheSize, evictionFactor, maxBytes, new OffHeapStorage<>(serializer));
+    }
+}
@@ -7,128 +7,189 @@
 
 package io.github.mfvanek.caching.impl;
 
-import io.github.mfvanek.caching.helpers.CacheSerializer;
+import io.github.mfvanek.caching.enums.RemovalCause;
+import io.github.mfvanek.caching.events.EvictionEvent;
 import io.github.mfvanek.caching.helpers.LFUCacheHelper;
 import io.github.mfvanek.caching.interfaces.Cacheable;
-import lombok.SneakyThrows;
+import io.github.mfvanek.caching.interfaces.PersistentStorage;
+import io.github.mfvanek.caching.interfaces.RemovalListener;
+import io.github.mfvanek.caching.serializers.JavaValueSerializer;
+import io.github.mfvanek.caching.storage.FileStorage;
 
+import java.io.Closeable;
 import java.io.Serializable;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.AbstractMap;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
-public class PersistenceLFUCache<K, V extends Cacheable<K> & Serializable> extends AbstractCache<K, V> {
-
-    private static final String EXTENSION = ".ser";
+@SuppressWarnings("PMD.TooManyMethods")
+public class PersistenceLFUCache<K, V extends Cacheable<K> & Serializable> extends AbstractCache<K, V> implements Closeable {
 
     private final LFUCacheHelper<K> helper;
-    private final Map<K, Path> innerMap;
-    private final Path baseDirectory;
+    private final PersistentStorage<K, V> storage;
 
     /**
-     * Creates an instance of {@link PersistenceLFUCache} class.
+     * Creates an instance of {@link PersistenceLFUCache} class which stores every item in its own file
+     * using Java serialization.
      *
      * @param maxCacheSize   The maximum number of items that can be placed in the cache
      * @param evictionFactor The percentage of items that should be removed from the cache when it is full
      * @param baseDirectory  The directory in which the cached data will be saved. If the directory doesn't exist, it will be created.
      */
-    @SneakyThrows
     public PersistenceLFUCache(final Class<V> type,
                                final int maxCacheSize,
                                final float evictionFactor,
                                final Path baseDirectory) {
-        super(type, maxCacheSize);
-        this.helper = new LFUCacheHelper<>(evictionFactor);
-        this.innerMap = new HashMap<>(maxCacheSize);
-        this.baseDirectory = baseDirectory;
+        this(type, maxCacheSize, evictionFactor, UNBOUNDED_WEIGHT, new FileStorage<>(new JavaValueSerializer<>(type), baseDirectory));
+    }
 
-        Files.createDirectories(baseDirectory);
+    /**
+     * Creates an instance of {@link PersistenceLFUCache} class.
+     * Values left by a previous instance are recovered from the storage along with their frequencies.
+     * If there are more of them than the cache can hold, the least frequently used ones are evicted.
+     *
+     * @param maxCacheSize   The maximum number of items that can be placed in the cache
+     * @param evictionFactor The percentage of items that should be removed from the cache when it is full
+     * @param storage        The disk engine for the cached data
+     */
+    public PersistenceLFUCache(final Class<V> type,
+                               final int maxCacheSize,
+                               final float evictionFactor,
+                               final PersistentStorage<K, V> storage) {
+        this(type, maxCacheSize, evictionFactor, UNBOUNDED_WEIGHT, storage);
+    }
+
+    /**
+     * Creates an instance of {@link PersistenceLFUCache} class bounded by both the number of items and the size of their data.
+     * When the size is exceeded, the least frequently used items are evicted until the new one fits;
+     * an item larger than the whole budget is evicted itself.
+     *
+     * @param maxCacheSize   The maximum number of items that can be placed in the cache
+     * @param evictionFactor The percentage of items that should be removed from the cache when it is full
+     * @param maxBytes       The maximum size of the stored data in bytes, see {@link PersistentStorage#sizeInBytes()}
+     * @param storage        The disk engine for the cached data
+     */
+    public PersistenceLFUCache(final Class<V> type,
+                               final int maxCacheSize,
+                               final float evictionFactor,
+                               final long maxBytes,
+                               final PersistentStorage<K, V> storage) {
+        super(type, maxCacheSize, maxBytes);
+        this.helper = new LFUCacheHelper<>(evictionFactor);
+        this.storage = storage;
+        recover(maxCacheSize, maxBytes);
     }
 
     @Override
     public List<Map.Entry<K, V>> put(final K key, final V value) {
-        List<Map.Entry<K, V>> evictedItems = List.of();
-        Path cacheFilePath = innerMap.get(key);
-        if (cacheFilePath == null) {
-            cacheFilePath = generateSerializedFilePath();
+        final EvictedItems<K, V> evictedItems = new EvictedItems<>();
+        put(key, value, evictedItems);
+        return evictedItems.toList();
+    }
+
+    @Override
+    public void put(final K key, final V value, final RemovalListener<? super K, ? super V> listener) {
+        if (!storage.contains(key)) {
             if (isCacheMaxSizeReached()) {
-                evictedItems = doEviction();
+                doEviction(listener);
             }
             helper.rememberFrequency(0, key);
         }
-        innerMap.put(key, CacheSerializer.serialize(value, cacheFilePath));
-        return evictedItems;
+        final long writtenBytes = storage.write(key, value);
+        // The size of the storage is not even requested when the cache is bounded by the number of items only
+        if (getMaxWeight() != UNBOUNDED_WEIGHT && isOverweight()) {
+            evictOverweight(key, writtenBytes > getMaxWeight(), listener);
+        }
     }
 
     @Override
     public V get(final K key) {
-        V value = null;
-        final Path cacheFilePath = innerMap.get(key);
-        if (cacheFilePath != null) {
-            value = CacheSerializer.deserialize(getType(), cacheFilePath);
+        final V value = storage.read(key);
+        if (value != null) {
             helper.updateFrequency(key);
         }
         return value;
     }
 
+    /**
+     * Reads all found values from the storage at once, so the storage can read them in the order of their placement on disk.
+     */
+    @Override
+    public Map<K, V> getAll(final Collection<? extends K> keys) {
+        final Map<K, V> values = storage.readAll(keys);
+        values.keySet().forEach(helper::updateFrequency);
+        return values;
+    }
+
+    /**
+     * Makes room for all new keys of the batch with a single eviction, if the batch fits into the cache.
+     */
+    @Override
+    public List<Map.Entry<K, V>> putAll(final Map<? extends K, ? extends V> items) {
+        final long newKeys = items.keySet().stream()
+                .filter(key -> !storage.contains(key))
+                .count();
+        final long overflow = storage.size() + newKeys - getCacheMaxSize();
+        final EvictedItems<K, V> evictedItems = new EvictedItems<>();
+        if (overflow > 0) {
+            evict(Math.min(storage.size(), Math.max(overflow, evictionTarget())), evictedItems);
+        }
+        // Keys that don't fit even after the eviction are handled by the usual put
+        items.forEach((key, value) -> put(key, value, evictedItems));
+        return evictedItems.toList();
+    }
+
     @Override
     public boolean containsKey(final K key) {
-        return innerMap.containsKey(key);
+        return storage.contains(key);
     }
 
     @Override
     public V remove(final K key) {
-        return innerRemove(key).getValue();
+        final V deletedValue = storage.remove(key);
+        if (deletedValue != null) {
+            helper.removeKeyFromFrequencies(key);
+        }
+        return deletedValue;
     }
 
     @Override
     protected Map.Entry<Integer, V> innerRemove(final K key) {
-        Integer frequency = INVALID_FREQUENCY;
-        final V deletedValue = doRemove(key);
+        int frequency = INVALID_FREQUENCY;
+        final V deletedValue = storage.remove(key);
         if (deletedValue != null) {
             frequency = helper.removeKeyFromFrequencies(key);
         }
         return new AbstractMap.SimpleEntry<>(frequency, deletedValue);
     }
 
-    @SneakyThrows
-    private V doRemove(final K key) {
-        V deletedValue = null;
-        final Path cacheFilePath = innerMap.remove(key);
-        if (cacheFilePath != null) {
-            deletedValue = CacheSerializer.deserialize(getType(), cacheFilePath);
-            Files.deleteIfExists(cacheFilePath);
-        }
-        return deletedValue;
-    }
-
-    @SneakyThrows
     @Override
     public void clear() {
-        for (final Map.Entry<K, Path> entry : innerMap.entrySet()) {
-            Files.deleteIfExists(entry.getValue());
-        }
-        innerMap.clear();
+        storage.clear();
         helper.clear();
     }
 
+    /**
+     * Releases the resources of the disk engine. Cached data is kept on disk along with frequencies if the storage supports that.
+     */
+    @Override
+    public void close() {
+        storage.close(helper::frequencyOf);
+    }
+
     @Override
     public int size() {
-        return innerMap.size();
+        return storage.size();
     }
 
     private boolean isCacheMaxSizeReached() {
-        return innerMap.size() == getCacheMaxSize();
+        return storage.size() == getCacheMaxSize();
     }
 
-    private Path generateSerializedFilePath() {
-        return baseDirectory.resolve(UUID.randomUUID() + EXTENSION);
+    private boolean isOverweight() {
+        return storage.sizeInBytes() > getMaxWeight();
     }
 
     @Override
@@ -141,22 +202,51 @@ public class PersistenceLFUCache<K, V extends Cacheable<K> & Serializable> exten
         return helper.getLowestFrequency();
     }
 
-    @SuppressWarnings("PMD.AssignmentInOperand")
-    private List<Map.Entry<K, V>> doEviction() {
+    private void recover(final int maxCacheSize, final long maxBytes) {
+        // Keys come in descending order of frequencies, so every insertion is O(1)
+        storage.recover((key, frequency) -> helper.rememberFrequency(frequency, key));
+        while (storage.size() > maxCacheSize || storage.sizeInBytes() > maxBytes) {
+            storage.remove(helper.pollLowestFrequencyKey());
+        }
+    }
+
+    private void doEviction(final RemovalListener<? super K, ? super V> listener) {
         // This method will be called only when cache is full
-        final List<Map.Entry<K, V>> evictedItems = new ArrayList<>();
-        final float target = getCacheMaxSize() * helper.getEvictionFactor();
-        int currentlyDeleted = 0;
-        while (currentlyDeleted < target) {
-            final Iterator<K> it = helper.iteratorForLowestFrequency();
-            while (it.hasNext() && currentlyDeleted++ < target) {
-                final K key = it.next();
-                final V value = doRemove(key);
-                helper.removeKeyOnEviction(key);
-                it.remove();
-                evictedItems.add(new AbstractMap.SimpleEntry<>(key, value));
-            }
+        evict(evictionTarget(), listener);
+    }
+
+    /**
+     * Returns the number of items evicted from the full cache at once.
+     */
+    private long evictionTarget() {
+        return (long) Math.ceil(getCacheMaxSize() * helper.getEvictionFactor());
+    }
+
+    private void evict(final long target, final RemovalListener<? super K, ? super V> listener) {
+        final EvictionEvent event = EvictionEvent.start();
+        int evictedCount = 0;
+        while (evictedCount < target) {
+            final K key = helper.pollLowestFrequencyKey();
+            listener.onRemoval(key, storage.remove(key), RemovalCause.SIZE);
+            ++evictedCount;
+        }
+        event.finish(getClass(), evictedCount);
+    }
+
+    /**
+     * Evicts the least frequently used items except the given one until the stored data fits into the budget.
+     * An item larger than the whole budget is evicted itself right away.
+     */
+    private void evictOverweight(final K key, final boolean tooLarge, final RemovalListener<? super K, ? super V> listener) {
+        final int frequency = helper.removeKeyFromFrequencies(key);
+        while (!tooLarge && isOverweight() && storage.size() > 1) {
+            final K evictedKey = helper.pollLowestFrequencyKey();
+            listener.onRemoval(evictedKey, storage.remove(evictedKey), RemovalCause.SIZE);
+        }
+        if (isOverweight()) {
+            listener.onRemoval(key, storage.remove(key), RemovalCause.SIZE);
+        } else {
+            helper.rememberFrequency(frequency, key);
         }
-        return evictedItems;
     }
 }
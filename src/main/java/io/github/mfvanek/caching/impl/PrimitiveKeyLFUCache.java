@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.enums.RemovalCause;
+import io.github.mfvanek.caching.events.EvictionEvent;
+import io.github.mfvanek.caching.helpers.LFUCacheHelper;
+import io.github.mfvanek.caching.interfaces.Cacheable;
+import io.github.mfvanek.caching.interfaces.LeveledCache;
+import io.github.mfvanek.caching.interfaces.RemovalListener;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Base class for thread unsafe LFU caches with primitive keys.
+ * Entries are stored in parallel arrays of an open addressing hash table with linear probing,
+ * so there are no objects per entry and keys are never boxed on lookups.
+ * The frequency and the insertion order of an entry are packed into a single stamp, so comparing stamps
+ * orders entries by frequency first and by age second. Eviction selects the stamp of the last entry to evict
+ * in linear time and then removes all entries that are not newer, so the least frequently used entries are evicted
+ * and the earliest inserted of them go first.
+ *
+ * @param <K> boxed key type
+ * @param <V> value type, should be {@link Cacheable}
+ */
+@SuppressWarnings({"PMD.TooManyMethods", "PMD.NullAssignment"})
+abstract class PrimitiveKeyLFUCache<K, V extends Cacheable<K>> implements LeveledCache<K, V> {
+
+    /**
+     * Insertion order is tracked modulo 2^40, frequencies saturate at 2^23 - 1.
+     */
+    private static final int ORDER_BITS = 40;
+    private static final long ORDER_MASK = (1L << ORDER_BITS) - 1L;
+    private static final long FREQUENCY_UNIT = 1L << ORDER_BITS;
+    private static final long MAX_FREQUENCY = Long.MAX_VALUE >>> ORDER_BITS;
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final int maxCacheSize;
+    private final float evictionFactor;
+    private final int shift;
+    private final int mask;
+    private final long[] keys;
+    private final Object[] values;
+    private final long[] stamps;
+    /**
+     * The stamps of all entries copied for the selection on eviction, so eviction allocates nothing.
+     */
+    private final long[] selection;
+    private int entryCount;
+    private long insertionCounter;
+
+    protected PrimitiveKeyLFUCache(final int maxCacheSize, final float evictionFactor) {
+        if (maxCacheSize <= 0) {
+            throw new IllegalArgumentException("Max cache size must be positive");
+        }
+        LFUCacheHelper.validateEvictionFactor(evictionFactor);
+        this.maxCacheSize = maxCacheSize;
+        this.evictionFactor = evictionFactor;
+        // At least one slot always stays empty, so probing for an absent key terminates
+        final int minCapacity = Math.max(maxCacheSize + 1, (int) Math.ceil(maxCacheSize / LOAD_FACTOR));
+        final int capacity = Integer.highestOneBit(minCapacity * 2 - 1);
+        this.shift = Long.SIZE - Integer.numberOfTrailingZeros(capacity);
+        this.mask = capacity - 1;
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.stamps = new long[capacity];
+        this.selection = new long[maxCacheSize];
+    }
+
+    /**
+     * Converts the primitive key to the boxed one; it is used only for entries reported to listeners.
+     */
+    protected abstract K toKey(long key);
+
+    protected abstract long toPrimitive(K key);
+
+    @Override
+    public List<Map.Entry<K, V>> put(final K key, final V value) {
+        final EvictedItems<K, V> evictedItems = new EvictedItems<>();
+        putByPrimitive(toPrimitive(key), value, evictedItems);
+        return evictedItems.toList();
+    }
+
+    @Override
+    public void put(final K key, final V value, final RemovalListener<? super K, ? super V> listener) {
+        putByPrimitive(toPrimitive(key), value, listener);
+    }
+
+    @Override
+    public V get(final K key) {
+        return getByPrimitive(toPrimitive(key));
+    }
+
+    @Override
+    public boolean containsKey(final K key) {
+        return containsPrimitive(toPrimitive(key));
+    }
+
+    @Override
+    public V remove(final K key) {
+        return removeByPrimitive(toPrimitive(key));
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, null);
+        entryCount = 0;
+    }
+
+    @Override
+    public int size() {
+        return entryCount;
+    }
+
+    @Override
+    public int frequencyOf(final K key) {
+        return frequencyOfPrimitive(toPrimitive(key));
+    }
+
+    /**
+     * Returns the lowest frequency among all entries; it scans the table, so it costs O(capacity),
+     * unless an entry that has never been read is found earlier.
+     *
+     * @return the lowest frequency or zero if the cache is empty
+     */
+    @Override
+    public int getLowestFrequency() {
+        long lowest = entryCount == 0 ? 0 : MAX_FREQUENCY;
+        for (int slot = 0; slot < values.length && lowest > 0; ++slot) {
+            if (values[slot] != null) {
+                lowest = Math.min(lowest, stamps[slot] >>> ORDER_BITS);
+            }
+        }
+        return (int) lowest;
+    }
+
+    protected final void putByPrimitive(final long key, final V value, final RemovalListener<? super K, ? super V> listener) {
+        final int existing = slotOf(key);
+        if (existing >= 0) {
+            values[existing] = value;
+            return;
+        }
+        if (entryCount == maxCacheSize) {
+            evict(listener);
+        }
+        int slot = homeOf(key);
+        while (values[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        stamps[slot] = insertionCounter++ & ORDER_MASK;
+        ++entryCount;
+    }
+
+    protected final V getByPrimitive(final long key) {
+        final int slot = slotOf(key);
+        if (slot < 0) {
+            return null;
+        }
+        if (stamps[slot] >>> ORDER_BITS < MAX_FREQUENCY) {
+            stamps[slot] += FREQUENCY_UNIT;
+        }
+        return valueAt(slot);
+    }
+
+    protected final boolean containsPrimitive(final long key) {
+        return slotOf(key) >= 0;
+    }
+
+    protected final V removeByPrimitive(final long key) {
+        final int slot = slotOf(key);
+        if (slot < 0) {
+            return null;
+        }
+        final V value = valueAt(slot);
+        delete(slot);
+        return value;
+    }
+
+    protected final int frequencyOfPrimitive(final long key) {
+        final int slot = slotOf(key);
+        if (slot < 0) {
+            throw new NoSuchElementException("Key " + key + " not found in the cache");
+        }
+        return (int) (stamps[slot] >>> ORDER_BITS);
+    }
+
+    private int homeOf(final long key) {
+        // Fibonacci hashing takes the high bits of the product, so sequential keys are spread over the whole table
+        return (int) ((key * GOLDEN_RATIO) >>> shift);
+    }
+
+    private int slotOf(final long key) {
+        int slot = homeOf(key);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(final int slot) {
+        return (V) values[slot];
+    }
+
+    /**
+     * Removes the entry and shifts the following entries of the cluster back, so no tombstones are needed.
+     */
+    private void delete(final int slot) {
+        int hole = slot;
+        int next = (slot + 1) & mask;
+        while (values[next] != null) {
+            // The entry can fill the hole if the hole lies between its home slot and its current slot
+            if (((next - homeOf(keys[next])) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                stamps[hole] = stamps[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[hole] = null;
+        --entryCount;
+    }
+
+    private void evict(final RemovalListener<? super K, ? super V> listener) {
+        // This method will be called only when cache is full
+        final EvictionEvent event = EvictionEvent.start();
+        final int target = Math.min(entryCount, (int) Math.ceil(maxCacheSize * evictionFactor));
+        final long threshold = selectStamp(target - 1);
+        int evictedCount = 0;
+        int slot = 0;
+        while (evictedCount < target) {
+            if (values[slot] != null && stamps[slot] <= threshold) {
+                listener.onRemoval(toKey(keys[slot]), valueAt(slot), RemovalCause.SIZE);
+                // The next entry of the cluster may be shifted into this slot, so the slot is checked again
+                delete(slot);
+                ++evictedCount;
+            } else {
+                slot = (slot + 1) & mask;
+            }
+        }
+        event.finish(getClass(), evictedCount);
+    }
+
+    /**
+     * Finds the stamp with the given rank among the stamps of all entries with quickselect.
+     */
+    private long selectStamp(final int rank) {
+        int left = 0;
+        int right = copyStamps() - 1;
+        while (left < right) {
+            final int pivot = partition(left, right);
+            if (rank < pivot) {
+                right = pivot - 1;
+            } else if (rank > pivot) {
+                left = pivot + 1;
+            } else {
+                return selection[rank];
+            }
+        }
+        return selection[rank];
+    }
+
+    private int copyStamps() {
+        int length = 0;
+        for (int slot = 0; slot < values.length; ++slot) {
+            if (values[slot] != null) {
+                selection[length++] = stamps[slot];
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Moves the smaller stamps before the pivot and the greater ones after it; stamps are unique.
+     *
+     * @return the final position of the pivot
+     */
+    private int partition(final int left, final int right) {
+        swap((left + right) >>> 1, right);
+        final long pivot = selection[right];
+        int store = left;
+        for (int i = left; i < right; ++i) {
+            if (selection[i] < pivot) {
+                swap(i, store++);
+            }
+        }
+        swap(store, right);
+        return store;
+    }
+
+    private void swap(final int first, final int second) {
+        final long swapped = selection[first];
+        selection[first] = selection[second];
+        selection[second] = swapped;
+    }
+}
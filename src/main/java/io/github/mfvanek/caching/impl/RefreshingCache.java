@@ -0,0 +1,390 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.interfaces.CacheLoader;
+import io.github.mfvanek.caching.interfaces.Cacheable;
+import io.github.mfvanek.caching.interfaces.LeveledCache;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Decorator that reloads entries of a cache in the background once they get older than the refresh interval.
+ * A read of such an entry returns the current value immediately and starts a single asynchronous reload of the key,
+ * so callers never wait for the source. When it wraps a {@link TwoLevelsCache}, entries of both levels are refreshed.
+ * With a positive {@code beta} an entry may be refreshed a bit earlier, the more so the longer its last reload took
+ * (probabilistic early recomputation aka XFetch); it spreads the reloads of keys written at the same time.
+ * A reloaded value replaces the cached one unless the key has been written or removed in the meantime;
+ * a key that the source doesn't have anymore is removed, and a failed reload is retried on the next read.
+ * Entries that the underlying cache has recovered from disk start their age on the first read.
+ * The underlying cache may drop entries without reporting them, e.g. on promotion in a {@link TieredCache},
+ * so the refresh state of such entries is swept once the number of states doubles.
+ * The underlying cache is accessed under a single lock, so it doesn't have to be thread safe.
+ *
+ * @param <K> key type
+ * @param <V> value type, should be {@link Cacheable}
+ * @see <a href="https://www.vldb.org/pvldb/vol8/p886-vattani.pdf">Optimal Probabilistic Cache Stampede Prevention</a>
+ */
+@Slf4j
+@SuppressWarnings({"PMD.TooManyMethods", "PMD.UseConcurrentHashMap"})
+public final class RefreshingCache<K, V extends Cacheable<K>> implements LeveledCache<K, V>, Closeable {
+
+    private static final int MIN_SWEEP_THRESHOLD = 64;
+    // Versions start with one, so zero means that no reload has been claimed
+    private static final long NO_RELOAD = 0L;
+
+    private final LeveledCache<K, V> delegate;
+    private final CacheLoader<K, V> loader;
+    private final long refreshNanos;
+    private final double beta;
+    private final Executor reloadExecutor;
+    private final LongSupplier ticker;
+    private final DoubleSupplier random;
+    private final Map<K, RefreshState> states = new HashMap<>();
+    private final Lock lock = new ReentrantLock();
+    private long writes;
+    private int sweepThreshold = MIN_SWEEP_THRESHOLD;
+
+    /**
+     * Creates an instance of {@link RefreshingCache} class without early refresh that reloads entries
+     * in the {@link ForkJoinPool#commonPool()}.
+     *
+     * @param delegate          The underlying cache
+     * @param loader            The source of the entries
+     * @param refreshAfterWrite The age of an entry after which it is reloaded
+     */
+    public RefreshingCache(final LeveledCache<K, V> delegate,
+                           final CacheLoader<K, V> loader,
+                           final Duration refreshAfterWrite) {
+        this(delegate, loader, refreshAfterWrite, 0.0, ForkJoinPool.commonPool(), System::nanoTime, RefreshingCache::uniform);
+    }
+
+    /**
+     * Creates an instance of {@link RefreshingCache} class.
+     *
+     * @param delegate          The underlying cache
+     * @param loader            The source of the entries
+     * @param refreshAfterWrite The age of an entry after which it is reloaded
+     * @param beta              How eagerly entries are refreshed ahead of time; zero disables early refresh,
+     *                          and one is the usual choice
+     * @param reloadExecutor    Runs the reloads
+     */
+    public RefreshingCache(final LeveledCache<K, V> delegate,
+                           final CacheLoader<K, V> loader,
+                           final Duration refreshAfterWrite,
+                           final double beta,
+                           final Executor reloadExecutor) {
+        this(delegate, loader, refreshAfterWrite, beta, reloadExecutor, System::nanoTime, RefreshingCache::uniform);
+    }
+
+    RefreshingCache(final LeveledCache<K, V> delegate,
+                    final CacheLoader<K, V> loader,
+                    final Duration refreshAfterWrite,
+                    final double beta,
+                    final Executor reloadExecutor,
+                    final LongSupplier ticker,
+                    final DoubleSupplier random) {
+        if (refreshAfterWrite.isNegative() || refreshAfterWrite.isZero()) {
+            throw new IllegalArgumentException("Refresh interval must be positive");
+        }
+        if (beta < 0) {
+            throw new IllegalArgumentException("Beta must not be negative");
+        }
+        this.delegate = delegate;
+        this.loader = loader;
+        this.refreshNanos = refreshAfterWrite.toNanos();
+        this.beta = beta;
+        this.reloadExecutor = reloadExecutor;
+        this.ticker = ticker;
+        this.random = random;
+    }
+
+    @Override
+    public List<Map.Entry<K, V>> put(final K key, final V value) {
+        lock.lock();
+        try {
+            final List<Map.Entry<K, V>> evictedItems = delegate.put(key, value);
+            written(key, ticker.getAsLong());
+            evictedItems.forEach(entry -> states.remove(entry.getKey()));
+            return evictedItems;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Map.Entry<K, V>> putAll(final Map<? extends K, ? extends V> items) {
+        lock.lock();
+        try {
+            final List<Map.Entry<K, V>> evictedItems = delegate.putAll(items);
+            final long now = ticker.getAsLong();
+            items.keySet().forEach(key -> written(key, now));
+            evictedItems.forEach(entry -> states.remove(entry.getKey()));
+            return evictedItems;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the element from the cache; if it is due to refresh, starts its reload in the background.
+     */
+    @Override
+    public V get(final K key) {
+        long version = NO_RELOAD;
+        final V value;
+        lock.lock();
+        try {
+            value = delegate.get(key);
+            if (value == null) {
+                states.remove(key);
+            } else {
+                version = claimRefresh(key, ticker.getAsLong());
+            }
+        } finally {
+            lock.unlock();
+        }
+        // The loader may be slow, so it must be called without the lock
+        if (version != NO_RELOAD) {
+            final long claimedVersion = version;
+            reloadExecutor.execute(() -> reload(key, claimedVersion));
+        }
+        return value;
+    }
+
+    /**
+     * Gets the elements from the cache; the ones that are due to refresh are reloaded in the background.
+     */
+    @Override
+    public Map<K, V> getAll(final Collection<? extends K> keys) {
+        final List<Runnable> reloads = new ArrayList<>(keys.size());
+        final Map<K, V> foundItems;
+        lock.lock();
+        try {
+            foundItems = delegate.getAll(keys);
+            final long now = ticker.getAsLong();
+            for (final K key : foundItems.keySet()) {
+                final long version = claimRefresh(key, now);
+                if (version != NO_RELOAD) {
+                    reloads.add(() -> reload(key, version));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        reloads.forEach(reloadExecutor::execute);
+        return foundItems;
+    }
+
+    @Override
+    public boolean containsKey(final K key) {
+        lock.lock();
+        try {
+            return delegate.containsKey(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public V remove(final K key) {
+        lock.lock();
+        try {
+            states.remove(key);
+            return delegate.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            states.clear();
+            delegate.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return delegate.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int frequencyOf(final K key) {
+        lock.lock();
+        try {
+            return delegate.frequencyOf(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getLowestFrequency() {
+        lock.lock();
+        try {
+            return delegate.getLowestFrequency();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the underlying cache if it is {@link Closeable}.
+     * Reloads that complete after that are discarded.
+     *
+     * @throws IOException if the underlying cache fails to close
+     */
+    @SuppressWarnings("PMD.CloseResource")
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            states.clear();
+            if (delegate instanceof Closeable closeable) {
+                closeable.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int refreshStates() {
+        lock.lock();
+        try {
+            return states.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void written(final K key, final long now) {
+        RefreshState state = states.get(key);
+        if (state == null) {
+            sweepIfNeeded();
+            state = new RefreshState();
+            states.put(key, state);
+        }
+        state.writeTime = now;
+        // Any reload in flight is outdated now
+        state.version = ++writes;
+        state.reloading = false;
+    }
+
+    /**
+     * Drops the states of the keys that the underlying cache doesn't have anymore.
+     * The threshold grows with the number of live states, so the sweeps take amortized constant time.
+     */
+    private void sweepIfNeeded() {
+        if (states.size() >= sweepThreshold) {
+            states.keySet().removeIf(key -> !delegate.containsKey(key));
+            sweepThreshold = Math.max(MIN_SWEEP_THRESHOLD, states.size() * 2);
+        }
+    }
+
+    /**
+     * Claims a reload of the key if the key is due to refresh and isn't being reloaded yet.
+     *
+     * @return the version of the item to reload without the lock or {@link #NO_RELOAD}
+     */
+    private long claimRefresh(final K key, final long now) {
+        final RefreshState state = states.get(key);
+        if (state == null) {
+            written(key, now);
+        } else if (!state.reloading && isDue(state, now)) {
+            state.reloading = true;
+            return state.version;
+        }
+        return NO_RELOAD;
+    }
+
+    private boolean isDue(final RefreshState state, final long now) {
+        // -ln(u) is exponentially distributed, so the refresh starts earlier with a small probability
+        // that grows as the refresh time comes closer and as the reload gets more expensive
+        final double earlyNanos = beta * state.reloadNanos * -Math.log(random.getAsDouble());
+        return now - state.writeTime + earlyNanos >= refreshNanos;
+    }
+
+    @SuppressWarnings("checkstyle:IllegalCatch")
+    private void reload(final K key, final long version) {
+        final long start = ticker.getAsLong();
+        try {
+            final V value = loader.load(key);
+            complete(key, version, value, ticker.getAsLong() - start);
+        } catch (RuntimeException e) {
+            log.warn("Failed to reload the item with key = {}", key, e);
+            complete(key, version, null, -1L);
+        }
+    }
+
+    /**
+     * Stores the reloaded value unless the key has been written or removed since the reload started.
+     *
+     * @param reloadNanos the duration of the reload or a negative value if it has failed
+     */
+    private void complete(final K key, final long version, final V value, final long reloadNanos) {
+        lock.lock();
+        try {
+            final RefreshState state = states.get(key);
+            if (state == null || state.version != version) {
+                log.trace("The reloaded item with key = {} has been discarded", key);
+            } else if (reloadNanos < 0) {
+                state.reloading = false;
+            } else if (value == null) {
+                states.remove(key);
+                delegate.remove(key);
+                log.debug("The item with key = {} is missing in the source and has been removed", key);
+            } else {
+                final List<Map.Entry<K, V>> evictedItems = delegate.put(key, value);
+                written(key, ticker.getAsLong());
+                state.reloadNanos = reloadNanos;
+                evictedItems.forEach(entry -> states.remove(entry.getKey()));
+                log.trace("The item has been reloaded; {}", value);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static double uniform() {
+        // The value must be in (0, 1] to have a logarithm
+        return 1.0 - ThreadLocalRandom.current().nextDouble();
+    }
+
+    private static final class RefreshState {
+
+        private long writeTime;
+        private long reloadNanos;
+        private long version;
+        private boolean reloading;
+    }
+}
@@ -9,6 +9,7 @@ package io.github.mfvanek.caching.impl;
 
 import io.github.mfvanek.caching.interfaces.Cacheable;
 import io.github.mfvanek.caching.interfaces.Countable;
+import io.github.mfvanek.caching.interfaces.Weigher;
 
 import java.util.AbstractMap;
 import java.util.LinkedHashMap;
@@ -17,6 +18,7 @@ import java.util.Map;
 
 /**
  * The simplest thread unsafe implementation of in-memory cache.
+ * The eldest items are dropped when the cache is full.
  *
  * @param <K> key type
  * @param <V> value type, should be {@link Cacheable}
@@ -24,18 +26,33 @@ import java.util.Map;
 public final class SimpleInMemoryCache<K, V extends Cacheable<K>> extends AbstractMapCache<K, V> {
 
     public SimpleInMemoryCache(final Class<V> type, final int maxCacheSize) {
-        super(type, maxCacheSize, new LinkedHashMap<>(maxCacheSize) {
-            @Override
-            protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
-                return size() > maxCacheSize;
-            }
-        });
+        this(type, maxCacheSize, UNBOUNDED_WEIGHT, Weigher.perEntry());
+    }
+
+    /**
+     * Creates an instance of {@link SimpleInMemoryCache} class bounded by both the number of items and their total weight.
+     *
+     * @param maxCacheSize The maximum number of items that can be placed in the cache
+     * @param maxWeight    The maximum total weight of items, e.g. heap bytes
+     * @param weigher      The weigher of items
+     */
+    public SimpleInMemoryCache(final Class<V> type,
+                               final int maxCacheSize,
+                               final long maxWeight,
+                               final Weigher<? super K, ? super V> weigher) {
+        super(type, maxCacheSize, new LinkedHashMap<>(maxCacheSize), maxWeight, weigher);
     }
 
     @Override
     public List<Map.Entry<K, V>> put(final K key, final V value) {
-        getInnerMap().put(key, value);
-        // In this case we always return an empty list because we don't control eviction from the cache
+        if (putValue(key, value) > getMaxWeight()) {
+            // An item heavier than the whole budget must not flush the others
+            remove(key);
+        }
+        while (size() > getCacheMaxSize() || isOverweight()) {
+            remove(getInnerMap().keySet().iterator().next());
+        }
+        // In this case we always return an empty list because this cache just forgets the dropped items
         return List.of();
     }
 
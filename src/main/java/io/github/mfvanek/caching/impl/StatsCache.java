@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.enums.RemovalCause;
+import io.github.mfvanek.caching.interfaces.Cacheable;
+import io.github.mfvanek.caching.interfaces.LeveledCache;
+import io.github.mfvanek.caching.interfaces.RemovalListener;
+import io.github.mfvanek.caching.stats.CacheStats;
+import io.github.mfvanek.caching.stats.StatsCounter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decorator that records hits, misses and evictions of a cache.
+ * It adds no locking of its own, so it is as thread safe as the underlying cache.
+ * Caches without this decorator don't pay anything for statistics.
+ *
+ * @param <K> key type
+ * @param <V> value type, should be {@link Cacheable}
+ */
+public final class StatsCache<K, V extends Cacheable<K>> implements LeveledCache<K, V>, Closeable {
+
+    private final LeveledCache<K, V> delegate;
+    private final StatsCounter statsCounter;
+    // The wrapper of the listener given last; callers usually pass the same listener, so it is reused.
+    // The wrapper is immutable, so a racy read sees either a complete wrapper or null.
+    private CountingListener<K, V> countingListener;
+
+    /**
+     * Creates an instance of {@link StatsCache} class.
+     *
+     * @param delegate     The underlying cache
+     * @param statsCounter The receiver of statistics; it may also be given to the serializer and storage of the cache
+     *                     to record their latencies
+     */
+    public StatsCache(final LeveledCache<K, V> delegate, final StatsCounter statsCounter) {
+        this.delegate = delegate;
+        this.statsCounter = statsCounter;
+    }
+
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    @Override
+    public List<Map.Entry<K, V>> put(final K key, final V value) {
+        final List<Map.Entry<K, V>> evictedItems = delegate.put(key, value);
+        recordEvictions(evictedItems);
+        return evictedItems;
+    }
+
+    @Override
+    @SuppressWarnings("PMD.CompareObjectsWithEquals")
+    public void put(final K key, final V value, final RemovalListener<? super K, ? super V> listener) {
+        CountingListener<K, V> counting = countingListener;
+        if (counting == null || counting.target != listener) {
+            counting = new CountingListener<>(listener, statsCounter);
+            countingListener = counting;
+        }
+        delegate.put(key, value, counting);
+    }
+
+    @Override
+    public V get(final K key) {
+        final V value = delegate.get(key);
+        if (value == null) {
+            statsCounter.recordMisses(1);
+        } else {
+            statsCounter.recordHits(1);
+        }
+        return value;
+    }
+
+    @Override
+    public Map<K, V> getAll(final Collection<? extends K> keys) {
+        final Map<K, V> foundItems = delegate.getAll(keys);
+        statsCounter.recordHits(foundItems.size());
+        statsCounter.recordMisses(keys.size() - foundItems.size());
+        return foundItems;
+    }
+
+    @Override
+    public List<Map.Entry<K, V>> putAll(final Map<? extends K, ? extends V> items) {
+        final List<Map.Entry<K, V>> evictedItems = delegate.putAll(items);
+        recordEvictions(evictedItems);
+        return evictedItems;
+    }
+
+    @Override
+    public boolean containsKey(final K key) {
+        return delegate.containsKey(key);
+    }
+
+    @Override
+    public V remove(final K key) {
+        return delegate.remove(key);
+    }
+
+    @Override
+    public Map<K, V> removeAll(final Collection<? extends K> keys) {
+        return delegate.removeAll(keys);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public int frequencyOf(final K key) {
+        return delegate.frequencyOf(key);
+    }
+
+    @Override
+    public int getLowestFrequency() {
+        return delegate.getLowestFrequency();
+    }
+
+    @Override
+    @SuppressWarnings("PMD.CloseResource")
+    public void close() throws IOException {
+        if (delegate instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    private void recordEvictions(final List<Map.Entry<K, V>> evictedItems) {
+        if (!evictedItems.isEmpty()) {
+            statsCounter.recordEvictions(evictedItems.size());
+        }
+    }
+
+    /**
+     * Counts the evictions reported to a listener and passes them on.
+     * It is immutable, so it can be shared between threads.
+     * Demoted items are still in the cache, so they are not counted, just like in {@link EvictedItems}.
+     *
+     * @param <K> key type
+     * @param <V> value type
+     */
+    private static final class CountingListener<K, V> implements RemovalListener<K, V> {
+
+        private final RemovalListener<? super K, ? super V> target;
+        private final StatsCounter statsCounter;
+
+        CountingListener(final RemovalListener<? super K, ? super V> target, final StatsCounter statsCounter) {
+            this.target = target;
+            this.statsCounter = statsCounter;
+        }
+
+        @Override
+        public void onRemoval(final K key, final V value, final RemovalCause cause) {
+            if (cause != RemovalCause.DEMOTED) {
+                statsCounter.recordEvictions(1);
+            }
+            target.onRemoval(key, value, cause);
+        }
+    }
+}
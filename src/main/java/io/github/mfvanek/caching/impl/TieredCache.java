@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.enums.RemovalCause;
+import io.github.mfvanek.caching.events.CacheGetEvent;
+import io.github.mfvanek.caching.events.DemotionEvent;
+import io.github.mfvanek.caching.interfaces.Cacheable;
+import io.github.mfvanek.caching.interfaces.LeveledCache;
+import io.github.mfvanek.caching.interfaces.RemovalListener;
+import io.github.mfvanek.caching.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
+/**
+ * Cache of an ordered list of tiers, from the fastest to the slowest one, e.g. heap, off-heap memory and disk.
+ * New items are put into the first tier; items evicted from a tier are demoted to the next one,
+ * and only items evicted from the last tier leave the cache. Each item is stored on one tier only.
+ * A hit on a tier with promotion enabled moves a hot item one tier up.
+ *
+ * @param <K> key type
+ * @param <V> value type, should be {@link Cacheable} and {@link Serializable}
+ */
+@Slf4j
+@SuppressWarnings({"PMD.TooManyMethods", "PMD.CouplingBetweenObjects"})
+public class TieredCache<K, V extends Cacheable<K> & Serializable> implements LeveledCache<K, V>, Closeable {
+
+    private final List<CacheTier<K, V>> tiers;
+
+    /**
+     * Creates an instance of {@link TieredCache} class.
+     *
+     * @param tiers The tiers from the fastest to the slowest one
+     */
+    public TieredCache(final List<CacheTier<K, V>> tiers) {
+        if (tiers.isEmpty()) {
+            throw new IllegalArgumentException("At least one tier is required");
+        }
+        this.tiers = List.copyOf(tiers);
+    }
+
+    /**
+     * Returns statistics of the tier.
+     * Items evicted from a tier are counted as its evictions and then demoted; promoted items are counted by the tier they are moved to.
+     *
+     * @param index The index of the tier, 0 for the first one
+     * @return the snapshot of statistics
+     */
+    public CacheStats tierStats(final int index) {
+        return tiers.get(index).statsCounter().snapshot();
+    }
+
+    @Override
+    public List<Map.Entry<K, V>> put(final K key, final V value) {
+        final EvictedItems<K, V> evictedItems = new EvictedItems<>();
+        put(key, value, evictedItems);
+        log.debug("evictedItems = {}", evictedItems.toList());
+        return evictedItems.toList();
+    }
+
+    /**
+     * Puts the item into the cache. Items evicted from a tier are reported as {@link RemovalCause#DEMOTED}
+     * and moved to the next tier; only items evicted from the last tier leave the cache.
+     */
+    @Override
+    public void put(final K key, final V value, final RemovalListener<? super K, ? super V> listener) {
+        // If the item is already stored in a slower tier, we will not move it up, just update the value.
+        // The item that is not present in the cache or is held on the first tier, will be proceeded as usual.
+        putIntoTier(tierToUpdate(key), key, value, listener);
+    }
+
+    @Override
+    public V get(final K key) {
+        for (int index = 0; index < tiers.size(); ++index) {
+            final CacheTier<K, V> tier = tiers.get(index);
+            final V foundItem = getFromTier(tier, key);
+            if (foundItem != null) {
+                tier.statsCounter().recordHits(1);
+                log.trace("The item has been found in the {} tier; {}", tier.name(), foundItem);
+                promoteIfNeeded(index, key, foundItem);
+                return foundItem;
+            }
+            tier.statsCounter().recordMisses(1);
+        }
+        log.trace("The item with key = {} hasn't been found in the cache", key);
+        return null;
+    }
+
+    /**
+     * Resolves all hits of a tier before the next tier is asked for the rest of the keys at once.
+     */
+    @Override
+    @SuppressWarnings("PMD.UseConcurrentHashMap")
+    public Map<K, V> getAll(final Collection<? extends K> keys) {
+        final Map<K, V> foundItems = new LinkedHashMap<>(keys.size());
+        Collection<? extends K> missedKeys = keys;
+        for (int index = 0; index < tiers.size() && !missedKeys.isEmpty(); ++index) {
+            final CacheTier<K, V> tier = tiers.get(index);
+            final Map<K, V> tierItems = tier.cache().getAll(missedKeys);
+            final List<K> stillMissedKeys = keysNotIn(missedKeys, tierItems);
+            tier.statsCounter().recordHits(missedKeys.size() - stillMissedKeys.size());
+            tier.statsCounter().recordMisses(stillMissedKeys.size());
+            final int tierIndex = index;
+            tierItems.forEach((key, value) -> promoteIfNeeded(tierIndex, key, value));
+            foundItems.putAll(tierItems);
+            missedKeys = stillMissedKeys;
+        }
+        log.trace("{} of {} items have been found in the cache", foundItems.size(), keys.size());
+        return foundItems;
+    }
+
+    /**
+     * Puts the items of all tiers in batches; items evicted from a tier are demoted to the next tier at once.
+     */
+    @Override
+    @SuppressWarnings("PMD.UseConcurrentHashMap")
+    public List<Map.Entry<K, V>> putAll(final Map<? extends K, ? extends V> items) {
+        // Items that are already stored in slower tiers are updated there, as in put
+        final Map<Integer, Map<K, V>> batches = new LinkedHashMap<>();
+        items.forEach((key, value) -> batches.computeIfAbsent(tierToUpdate(key), index -> new LinkedHashMap<>()).put(key, value));
+        final Map<K, V> firstTierItems = batches.getOrDefault(0, Map.of());
+        final List<Map.Entry<K, V>> evictedItems = new ArrayList<>();
+        batches.forEach((index, batch) -> {
+            if (index > 0) {
+                putAllIntoTier(index, batch, evictedItems);
+            }
+        });
+        putAllIntoTier(0, firstTierItems, evictedItems);
+        log.debug("evictedItems = {}", evictedItems);
+        return evictedItems;
+    }
+
+    @Override
+    public boolean containsKey(final K key) {
+        for (final CacheTier<K, V> tier : tiers) {
+            if (tier.cache().containsKey(key)) {
+                log.trace("The item with key = {} is in the cache and stored in the {} tier", key, tier.name());
+                return true;
+            }
+        }
+        log.trace("The item with key = {} doesn't present in the cache", key);
+        return false;
+    }
+
+    @Override
+    public V remove(final K key) {
+        for (final CacheTier<K, V> tier : tiers) {
+            final V deletedItem = tier.cache().remove(key);
+            if (deletedItem != null) {
+                log.trace("The item has been successfully deleted from the {} tier; {}", tier.name(), deletedItem);
+                return deletedItem;
+            }
+        }
+        log.trace("No item has been deleted with key = {}", key);
+        return null;
+    }
+
+    @Override
+    public void clear() {
+        tiers.forEach(tier -> tier.cache().clear());
+    }
+
+    @Override
+    public int size() {
+        return tiers.stream()
+                .mapToInt(tier -> tier.cache().size())
+                .sum();
+    }
+
+    /**
+     * Returns the frequency of the item on the tier where it is stored.
+     */
+    @Override
+    public int frequencyOf(final K key) {
+        for (final CacheTier<K, V> tier : tiers) {
+            if (tier.cache().containsKey(key)) {
+                return tier.cache().frequencyOf(key);
+            }
+        }
+        throw new NoSuchElementException("Key " + key + " not found in the cache");
+    }
+
+    @Override
+    public int getLowestFrequency() {
+        return tiers.stream()
+                .mapToInt(tier -> tier.cache().getLowestFrequency())
+                .min()
+                .orElse(0);
+    }
+
+    /**
+     * Closes the tiers that hold resources: writes queued items of a write-behind tier and releases disk engines.
+     * The cache must not be used after that.
+     *
+     * @throws IOException if a tier fails to close
+     */
+    @Override
+    public void close() throws IOException {
+        for (final CacheTier<K, V> tier : tiers) {
+            closeTier(tier.cache());
+        }
+    }
+
+    /**
+     * Finds the slower tier that already stores the item.
+     *
+     * @return the index of the tier or 0 if the item is stored on the first tier or is not present in the cache
+     */
+    private int tierToUpdate(final K key) {
+        for (int index = 1; index < tiers.size(); ++index) {
+            if (tiers.get(index).cache().containsKey(key)) {
+                log.trace("The item is already in the cache and stored in the {} tier", tiers.get(index).name());
+                return index;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Puts the item into the tier and demotes the items evicted from it to the next tier right away.
+     */
+    private void putIntoTier(final int index, final K key, final V value, final RemovalListener<? super K, ? super V> listener) {
+        final CacheTier<K, V> tier = tiers.get(index);
+        if (index == tiers.size() - 1) {
+            tier.cache().put(key, value, (evictedKey, evictedValue, cause) -> {
+                tier.statsCounter().recordEvictions(1);
+                listener.onRemoval(evictedKey, evictedValue, cause);
+            });
+        } else {
+            tier.cache().put(key, value, (evictedKey, evictedValue, cause) -> demote(index, key, evictedKey, evictedValue, listener));
+        }
+    }
+
+    private void demote(final int index, final K key, final K demotedKey, final V demotedValue, final RemovalListener<? super K, ? super V> listener) {
+        final CacheTier<K, V> tier = tiers.get(index);
+        log.trace("The item with key = {} has been evicted from the {} tier", demotedKey, tier.name());
+        tier.statsCounter().recordEvictions(1);
+        listener.onRemoval(demotedKey, demotedValue, RemovalCause.DEMOTED);
+        final DemotionEvent event = DemotionEvent.start();
+        putIntoTier(index + 1, demotedKey, demotedValue, listener);
+        event.finish(key, 1);
+    }
+
+    /**
+     * Puts the batch into the tier and demotes the items evicted from it to the next tier at once.
+     */
+    @SuppressWarnings("PMD.UseConcurrentHashMap")
+    private void putAllIntoTier(final int index, final Map<K, V> batch, final List<Map.Entry<K, V>> evictedItems) {
+        final CacheTier<K, V> tier = tiers.get(index);
+        final List<Map.Entry<K, V>> tierEvictedItems = tier.cache().putAll(batch);
+        tier.statsCounter().recordEvictions(tierEvictedItems.size());
+        if (index == tiers.size() - 1) {
+            evictedItems.addAll(tierEvictedItems);
+        } else if (!tierEvictedItems.isEmpty()) {
+            final DemotionEvent event = DemotionEvent.start();
+            final Map<K, V> demotedItems = new LinkedHashMap<>(tierEvictedItems.size());
+            tierEvictedItems.forEach(entry -> demotedItems.put(entry.getKey(), entry.getValue()));
+            putAllIntoTier(index + 1, demotedItems, evictedItems);
+            event.finish(null, demotedItems.size());
+        }
+    }
+
+    /**
+     * Moves a hot item from the tier to the one above, so that it is stored on one tier only.
+     */
+    private void promoteIfNeeded(final int index, final K key, final V value) {
+        final CacheTier<K, V> tier = tiers.get(index);
+        if (index > 0 && tier.promotionFrequency() > 0 && tier.cache().frequencyOf(key) >= tier.promotionFrequency()) {
+            tier.cache().remove(key);
+            putIntoTier(index - 1, key, value, (evictedKey, evictedValue, cause) -> logEvictionOnPromotion(evictedKey, cause));
+            final CacheTier<K, V> upperTier = tiers.get(index - 1);
+            upperTier.statsCounter().recordPromotion();
+            log.trace("The item with key = {} has been promoted to the {} tier", key, upperTier.name());
+        }
+    }
+
+    private static void logEvictionOnPromotion(final Object key, final RemovalCause cause) {
+        if (cause != RemovalCause.DEMOTED) {
+            log.debug("The item with key = {} has been evicted from the cache on promotion", key);
+        }
+    }
+
+    private static <K, V extends Cacheable<K>> V getFromTier(final CacheTier<K, V> tier, final K key) {
+        final CacheGetEvent event = CacheGetEvent.start();
+        final V foundItem = tier.cache().get(key);
+        event.finish(key, tier.name(), foundItem != null);
+        return foundItem;
+    }
+
+    private static <K> List<K> keysNotIn(final Collection<? extends K> keys, final Map<K, ?> items) {
+        return keys.stream()
+                .filter(key -> !items.containsKey(key))
+                .collect(Collectors.toList());
+    }
+
+    @SuppressWarnings("PMD.CloseResource")
+    private static void closeTier(final LeveledCache<?, ?> cache) throws IOException {
+        if (cache instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.helpers.FrequencySketch;
+import io.github.mfvanek.caching.interfaces.Cacheable;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Thread unsafe implementation of W-TinyLFU cache (Window Tiny Least Frequently Used).
+ * New entries go to a small LRU admission window (1% of the capacity).
+ * Entries leaving the window compete with the victim of the main region: the one that is estimated to be
+ * more popular by the {@link FrequencySketch} stays in the cache.
+ * The main region is a segmented LRU: entries accessed again are promoted from the probation segment
+ * to the protected one (80% of the main region).
+ * Unlike {@link LFUCache}, entries are evicted one by one, so the eviction factor isn't used.
+ *
+ * @param <K> key type
+ * @param <V> value type, should be {@link Cacheable}
+ * @see <a href="https://arxiv.org/abs/1512.00727">TinyLFU: A Highly Efficient Cache Admission Policy</a>
+ */
+public class WindowTinyLFUCache<K, V extends Cacheable<K>> extends AbstractCache<K, V> {
+
+    private static final float WINDOW_PERCENTAGE = 0.01f;
+    private static final float PROTECTED_PERCENTAGE = 0.8f;
+
+    private final Map<K, EntryNode<K, V>> innerMap;
+    private final FrequencySketch<K> sketch;
+    private final Segment<K, V> window;
+    private final Segment<K, V> probation;
+    private final Segment<K, V> protectedSegment;
+
+    public WindowTinyLFUCache(final Class<V> type, final int maxCacheSize) {
+        super(type, maxCacheSize);
+        this.innerMap = new HashMap<>(maxCacheSize);
+        this.sketch = new FrequencySketch<>(maxCacheSize);
+        final int windowMaxSize = maxCacheSize == 0 ? 0 : Math.max(1, (int) (maxCacheSize * WINDOW_PERCENTAGE));
+        this.window = new Segment<>(windowMaxSize);
+        this.probation = new Segment<>(maxCacheSize - windowMaxSize);
+        this.protectedSegment = new Segment<>((int) ((maxCacheSize - windowMaxSize) * PROTECTED_PERCENTAGE));
+    }
+
+    @Override
+    public List<Map.Entry<K, V>> put(final K key, final V value) {
+        sketch.increment(key);
+        EntryNode<K, V> node = innerMap.get(key);
+        if (node != null) {
+            node.value = value;
+            onAccess(node);
+            return List.of();
+        }
+        node = new EntryNode<>(key, value, window);
+        innerMap.put(key, node);
+        window.addLast(node);
+        EntryNode<K, V> candidate = null;
+        while (window.size > window.maxSize) {
+            candidate = window.head;
+            window.remove(candidate);
+            probation.addLast(candidate);
+        }
+        return doEviction(candidate);
+    }
+
+    @Override
+    public V get(final K key) {
+        sketch.increment(key);
+        final EntryNode<K, V> node = innerMap.get(key);
+        if (node == null) {
+            return null;
+        }
+        onAccess(node);
+        return node.value;
+    }
+
+    @Override
+    public boolean containsKey(final K key) {
+        return innerMap.containsKey(key);
+    }
+
+    @Override
+    public V remove(final K key) {
+        return innerRemove(key).getValue();
+    }
+
+    @Override
+    protected Map.Entry<Integer, V> innerRemove(final K key) {
+        final EntryNode<K, V> node = innerMap.remove(key);
+        if (node == null) {
+            return new AbstractMap.SimpleEntry<>(INVALID_FREQUENCY, null);
+        }
+        node.segment.remove(node);
+        return new AbstractMap.SimpleEntry<>(sketch.frequency(key), node.value);
+    }
+
+    @Override
+    public void clear() {
+        innerMap.clear();
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+        sketch.clear();
+    }
+
+    @Override
+    public int size() {
+        return innerMap.size();
+    }
+
+    /**
+     * Returns the estimated frequency of the key; it takes into account both reads and writes.
+     *
+     * @param key The key
+     * @return estimated frequency of the key
+     */
+    @Override
+    public int frequencyOf(final K key) {
+        if (innerMap.containsKey(key)) {
+            return sketch.frequency(key);
+        }
+        throw new NoSuchElementException("Key " + key + " not found in the cache");
+    }
+
+    /**
+     * Returns the estimated frequency of the entry that would be evicted next.
+     *
+     * @return estimated frequency of the next victim or zero if the cache is empty
+     */
+    @Override
+    public int getLowestFrequency() {
+        final EntryNode<K, V> victim = nextVictim();
+        return victim == null ? 0 : sketch.frequency(victim.key);
+    }
+
+    private void onAccess(final EntryNode<K, V> node) {
+        if (protectedSegment.maxSize > 0 && probation.equals(node.segment)) {
+            probation.remove(node);
+            protectedSegment.addLast(node);
+            while (protectedSegment.size > protectedSegment.maxSize) {
+                final EntryNode<K, V> demoted = protectedSegment.head;
+                protectedSegment.remove(demoted);
+                probation.addLast(demoted);
+            }
+        } else {
+            final Segment<K, V> segment = node.segment;
+            segment.remove(node);
+            segment.addLast(node);
+        }
+    }
+
+    private List<Map.Entry<K, V>> doEviction(final EntryNode<K, V> candidate) {
+        if (innerMap.size() <= getCacheMaxSize()) {
+            return List.of();
+        }
+        final List<Map.Entry<K, V>> evictedItems = new ArrayList<>(1);
+        final EntryNode<K, V> victim = nextVictim();
+        if (candidate != null && !candidate.equals(victim)) {
+            // TinyLFU admission: the candidate replaces the victim only if it is more popular
+            evict(sketch.frequency(candidate.key) > sketch.frequency(victim.key) ? victim : candidate, evictedItems);
+        }
+        while (innerMap.size() > getCacheMaxSize()) {
+            evict(nextVictim(), evictedItems);
+        }
+        return evictedItems;
+    }
+
+    private void evict(final EntryNode<K, V> evicted, final List<Map.Entry<K, V>> evictedItems) {
+        innerMap.remove(evicted.key);
+        evicted.segment.remove(evicted);
+        evictedItems.add(new AbstractMap.SimpleEntry<>(evicted.key, evicted.value));
+    }
+
+    private EntryNode<K, V> nextVictim() {
+        if (probation.head != null) {
+            return probation.head;
+        }
+        if (protectedSegment.head != null) {
+            return protectedSegment.head;
+        }
+        return window.head;
+    }
+
+    private static final class EntryNode<K, V> {
+
+        private final K key;
+        private V value;
+        private Segment<K, V> segment;
+        private EntryNode<K, V> prev;
+        private EntryNode<K, V> next;
+
+        EntryNode(final K key, final V value, final Segment<K, V> segment) {
+            this.key = key;
+            this.value = value;
+            this.segment = segment;
+        }
+    }
+
+    /**
+     * Doubly linked list of entries in access order: the least recently used entry is the head.
+     *
+     * @param <K> key type
+     * @param <V> value type
+     */
+    @SuppressWarnings("PMD.NullAssignment")
+    private static final class Segment<K, V> {
+
+        private final int maxSize;
+        private EntryNode<K, V> head;
+        private EntryNode<K, V> tail;
+        private int size;
+
+        Segment(final int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        void addLast(final EntryNode<K, V> node) {
+            node.segment = this;
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            ++size;
+        }
+
+        void remove(final EntryNode<K, V> node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            node.segment = null;
+            --size;
+        }
+
+        void clear() {
+            head = null;
+            tail = null;
+            size = 0;
+        }
+    }
+}
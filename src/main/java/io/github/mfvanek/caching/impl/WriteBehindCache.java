@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.enums.BackpressurePolicy;
+import io.github.mfvanek.caching.interfaces.Cacheable;
+import io.github.mfvanek.caching.interfaces.LeveledCache;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind decorator of a slow cache level, usually a persistent one.
+ * A put only remembers the value and queues its key; a background writer moves queued values into the underlying cache,
+ * so callers don't wait for the disk. Queued values are visible to reads until they are written.
+ * The queue is bounded; what happens to a new key when it is full is defined by {@link BackpressurePolicy}.
+ * Entries evicted from the underlying cache by the background writer cannot be returned to callers; they are only logged.
+ * The underlying cache is accessed under a single lock, so it doesn't have to be thread safe.
+ * Queued values are lost if the cache is not closed.
+ *
+ * @param <K> key type
+ * @param <V> value type, should be {@link Cacheable}
+ */
+@Slf4j
+public final class WriteBehindCache<K, V extends Cacheable<K>> implements LeveledCache<K, V>, Closeable {
+
+    private static final long POLL_TIMEOUT_MILLIS = 100L;
+
+    private final LeveledCache<K, V> delegate;
+    private final BackpressurePolicy policy;
+    private final ConcurrentMap<K, V> pending;
+    private final BlockingQueue<K> queue;
+    private final Lock lock = new ReentrantLock();
+    private final AtomicBoolean running = new AtomicBoolean(true);
+
+    /**
+     * Creates an instance of {@link WriteBehindCache} class and starts its background writer.
+     *
+     * @param delegate      The underlying cache
+     * @param queueCapacity The maximum number of keys waiting to be written
+     * @param policy        What to do with a new key when the queue is full
+     */
+    public WriteBehindCache(final LeveledCache<K, V> delegate,
+                            final int queueCapacity,
+                            final BackpressurePolicy policy) {
+        this(delegate, queueCapacity, policy, WriteBehindCache::startWriter);
+    }
+
+    WriteBehindCache(final LeveledCache<K, V> delegate,
+                     final int queueCapacity,
+                     final BackpressurePolicy policy,
+                     final Executor writerExecutor) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be greater than zero");
+        }
+        this.delegate = delegate;
+        this.policy = policy;
+        this.pending = new ConcurrentHashMap<>(queueCapacity);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        writerExecutor.execute(this::drain);
+    }
+
+    @Override
+    public List<Map.Entry<K, V>> put(final K key, final V value) {
+        // A key that is already queued will be written with the latest value
+        if (pending.put(key, value) != null || enqueue(key)) {
+            return List.of();
+        }
+        lock.lock();
+        try {
+            return putWithoutQueue(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public V get(final K key) {
+        final V queued = pending.get(key);
+        if (queued != null) {
+            return queued;
+        }
+        lock.lock();
+        try {
+            // The value may have been written while the lock was being acquired
+            final V value = pending.get(key);
+            return value == null ? delegate.get(key) : value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean containsKey(final K key) {
+        if (pending.containsKey(key)) {
+            return true;
+        }
+        lock.lock();
+        try {
+            return pending.containsKey(key) || delegate.containsKey(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public V remove(final K key) {
+        lock.lock();
+        try {
+            // The key stays in the queue; the writer skips keys without values
+            final V queued = pending.remove(key);
+            final V removed = delegate.remove(key);
+            return queued == null ? removed : queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            queue.clear();
+            pending.clear();
+            delegate.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            final long queuedOnly = pending.keySet().stream()
+                    .filter(key -> !delegate.containsKey(key))
+                    .count();
+            return delegate.size() + (int) queuedOnly;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int frequencyOf(final K key) {
+        lock.lock();
+        try {
+            // Queued keys get zero frequency when they are written
+            if (pending.containsKey(key) && !delegate.containsKey(key)) {
+                return 0;
+            }
+            return delegate.frequencyOf(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getLowestFrequency() {
+        lock.lock();
+        try {
+            return pending.isEmpty() ? delegate.getLowestFrequency() : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes all queued values, stops the background writer and closes the underlying cache if it is {@link Closeable}.
+     * The cache must not be used after that.
+     *
+     * @throws IOException if the underlying cache fails to close
+     */
+    @SuppressWarnings("PMD.CloseResource")
+    @Override
+    public void close() throws IOException {
+        running.set(false);
+        lock.lock();
+        try {
+            // Values of keys that are taken by the writer, but not written yet, are written here as well
+            pending.forEach(delegate::put);
+            pending.clear();
+            queue.clear();
+            if (delegate instanceof Closeable closeable) {
+                closeable.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean enqueue(final K key) {
+        if (policy != BackpressurePolicy.BLOCK) {
+            return queue.offer(key);
+        }
+        try {
+            queue.put(key);
+            return true;
+        } catch (InterruptedException e) {
+            // The caller doesn't want to wait anymore, so the value is written right away
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Stores the value that didn't get a slot in the queue. Puts of the same key made meanwhile have seen it as queued,
+     * so the latest value of the key is written instead of it. Only values of new keys can be dropped.
+     */
+    private List<Map.Entry<K, V>> putWithoutQueue(final K key, final V value) {
+        if (pending.remove(key, value)) {
+            if (policy == BackpressurePolicy.DROP && !delegate.containsKey(key)) {
+                log.debug("The write-behind queue is full; the item with key = {} has been dropped", key);
+                return List.of(new AbstractMap.SimpleEntry<>(key, value));
+            }
+            return delegate.put(key, value);
+        }
+        // The value has been replaced by a later put or removed
+        final V latest = pending.remove(key);
+        return latest == null ? List.of() : delegate.put(key, latest);
+    }
+
+    private void drain() {
+        try {
+            while (running.get()) {
+                final K key = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    write(key);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @SuppressWarnings("checkstyle:IllegalCatch")
+    private void write(final K key) {
+        lock.lock();
+        try {
+            for (V value = pending.get(key); value != null; value = replacementOf(key, value)) {
+                final List<Map.Entry<K, V>> evictedItems = delegate.put(key, value);
+                if (!evictedItems.isEmpty()) {
+                    log.debug("Some elements have been evicted by the write-behind writer = {}", evictedItems);
+                }
+            }
+        } catch (Exception e) {
+            // The writer must survive failures of the underlying cache; the value is lost like an evicted one
+            log.error("Failed to write the item with key = {}", key, e);
+            pending.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the value that has replaced the written one while it was being written, if any.
+     */
+    private V replacementOf(final K key, final V written) {
+        return pending.remove(key, written) ? null : pending.get(key);
+    }
+
+    private static void startWriter(final Runnable writer) {
+        final Thread thread = new Thread(writer, "write-behind-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
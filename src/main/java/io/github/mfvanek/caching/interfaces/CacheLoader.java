@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.interfaces;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Loads values that are missing in the cache from the backing source, e.g. a database.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+@FunctionalInterface
+public interface CacheLoader<K, V> {
+
+    /**
+     * Loads the value.
+     *
+     * @param key The key
+     * @return the loaded value or null if the source has no such key
+     */
+    V load(K key);
+
+    /**
+     * Loads the values of several keys at once.
+     * Implementations should override it when the source supports batch queries.
+     *
+     * @param keys The keys
+     * @return the loaded values by their keys; keys without values are omitted
+     */
+    @SuppressWarnings("PMD.UseConcurrentHashMap")
+    default Map<K, V> loadAll(final Collection<? extends K> keys) {
+        final Map<K, V> values = new LinkedHashMap<>(keys.size());
+        for (final K key : keys) {
+            final V value = load(key);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+}
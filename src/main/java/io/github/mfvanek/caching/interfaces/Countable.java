@@ -9,7 +9,7 @@ package io.github.mfvanek.caching.interfaces;
 
 public interface Countable<K> {
 
-    Integer INVALID_FREQUENCY = -1;
+    int INVALID_FREQUENCY = -1;
 
     int frequencyOf(K key);
 
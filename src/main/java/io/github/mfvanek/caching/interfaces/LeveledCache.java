@@ -7,8 +7,14 @@
 
 package io.github.mfvanek.caching.interfaces;
 
+import io.github.mfvanek.caching.enums.RemovalCause;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 public interface LeveledCache<K, V extends Cacheable<K>> extends Countable<K> {
 
@@ -21,13 +27,34 @@ public interface LeveledCache<K, V extends Cacheable<K>> extends Countable<K> {
      */
     List<Map.Entry<K, V>> put(K key, V value);
 
+    /**
+     * Puts the element with given key in the cache and passes the evicted elements to the listener in place.
+     * Unlike {@code put(key, value)}, implementations allocate nothing when nothing is evicted.
+     * By default, every element of the list returned by {@code put(key, value)} is reported as evicted by size.
+     *
+     * @param key      The key
+     * @param value    The element to be stored in the cache
+     * @param listener The receiver of the evicted elements
+     */
+    default void put(final K key, final V value, final RemovalListener<? super K, ? super V> listener) {
+        for (final Map.Entry<K, V> entry : put(key, value)) {
+            listener.onRemoval(entry.getKey(), entry.getValue(), RemovalCause.SIZE);
+        }
+    }
+
     /**
      * Puts the element in the cache.
      *
      * @param value The element to be stored in the cache
      * @return Returns a list of elements evicted from the cache
      */
-    List<V> put(V value);
+    default List<V> put(final V value) {
+        final List<Map.Entry<K, V>> evictedItems = this.put(value.getIdentifier(), value);
+        if (evictedItems.isEmpty()) {
+            return List.of();
+        }
+        return evictedItems.stream().map(Map.Entry::getValue).collect(Collectors.toList());
+    }
 
     V get(K key);
 
@@ -38,4 +65,96 @@ public interface LeveledCache<K, V extends Cacheable<K>> extends Countable<K> {
     void clear();
 
     int size();
+
+    /**
+     * Gets the elements with given keys.
+     * Implementations may resolve the keys in any order, e.g. to read the data from disk in one pass.
+     *
+     * @param keys The keys
+     * @return Returns the found elements by their keys; keys that are not in the cache are omitted
+     */
+    @SuppressWarnings("PMD.UseConcurrentHashMap")
+    default Map<K, V> getAll(final Collection<? extends K> keys) {
+        final Map<K, V> foundItems = new LinkedHashMap<>(keys.size());
+        for (final K key : keys) {
+            final V value = get(key);
+            if (value != null) {
+                foundItems.put(key, value);
+            }
+        }
+        return foundItems;
+    }
+
+    /**
+     * Gets the element from the cache or loads it and puts in the cache if it is missing.
+     * Concurrent misses on the same key load it independently; see {@code LoadingCache} for a single load per key.
+     *
+     * @param key    The key
+     * @param loader The source of the element
+     * @return Returns the cached or loaded element; null if the source has no such key
+     */
+    default V get(final K key, final CacheLoader<K, V> loader) {
+        final V cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+        final V loaded = loader.load(key);
+        if (loaded != null) {
+            put(key, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Gets the elements from the cache and loads the missing ones with a single call of {@link CacheLoader#loadAll}.
+     *
+     * @param keys   The keys
+     * @param loader The source of the elements
+     * @return Returns the cached and loaded elements by their keys; keys that the source doesn't have are omitted
+     */
+    @SuppressWarnings("PMD.UseConcurrentHashMap")
+    default Map<K, V> getAll(final Collection<? extends K> keys, final CacheLoader<K, V> loader) {
+        final Map<K, V> foundItems = new LinkedHashMap<>(getAll(keys));
+        final List<K> missedKeys = keys.stream()
+                .filter(key -> !foundItems.containsKey(key))
+                .distinct()
+                .collect(Collectors.toList());
+        if (!missedKeys.isEmpty()) {
+            final Map<K, V> loaded = loader.loadAll(missedKeys);
+            putAll(loaded);
+            foundItems.putAll(loaded);
+        }
+        return foundItems;
+    }
+
+    /**
+     * Puts the elements in the cache.
+     * Implementations may evict the data once for the whole batch instead of once per element.
+     *
+     * @param items The pairs [key, element] to be stored in the cache
+     * @return Returns a list of pairs [key, element] evicted from the cache
+     */
+    default List<Map.Entry<K, V>> putAll(final Map<? extends K, ? extends V> items) {
+        final List<Map.Entry<K, V>> evictedItems = new ArrayList<>();
+        items.forEach((key, value) -> evictedItems.addAll(put(key, value)));
+        return evictedItems;
+    }
+
+    /**
+     * Removes the elements with given keys from the cache.
+     *
+     * @param keys The keys
+     * @return Returns the removed elements by their keys; keys that were not in the cache are omitted
+     */
+    @SuppressWarnings("PMD.UseConcurrentHashMap")
+    default Map<K, V> removeAll(final Collection<? extends K> keys) {
+        final Map<K, V> removedItems = new LinkedHashMap<>(keys.size());
+        for (final K key : keys) {
+            final V value = remove(key);
+            if (value != null) {
+                removedItems.put(key, value);
+            }
+        }
+        return removedItems;
+    }
 }
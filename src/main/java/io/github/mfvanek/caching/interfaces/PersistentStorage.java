@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.interfaces;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Disk engine of a persistent cache level.
+ * The storage keeps its own index of keys; eviction policy is up to the cache.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public interface PersistentStorage<K, V> extends Closeable {
+
+    /**
+     * Writes the value replacing the previous one with the same key.
+     *
+     * @param key   The key
+     * @param value The value to be stored
+     * @return the change of {@link #sizeInBytes()} caused by the write, so callers don't have to measure the size around it
+     */
+    long write(K key, V value);
+
+    /**
+     * Reads the value.
+     *
+     * @param key The key
+     * @return the stored value or null if there is no such key
+     */
+    V read(K key);
+
+    /**
+     * Reads the values of several keys at once.
+     * Implementations may read the data in the order of its placement on disk.
+     *
+     * @param keys The keys
+     * @return the stored values by their keys; keys without values are omitted
+     */
+    @SuppressWarnings("PMD.UseConcurrentHashMap")
+    default Map<K, V> readAll(final Collection<? extends K> keys) {
+        final Map<K, V> values = new LinkedHashMap<>(keys.size());
+        for (final K key : keys) {
+            final V value = read(key);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Removes the value from the storage.
+     *
+     * @param key The key
+     * @return the removed value or null if there was no such key
+     */
+    V remove(K key);
+
+    boolean contains(K key);
+
+    int size();
+
+    /**
+     * Returns the number of bytes taken by the stored values, so the cache can be bounded by the disk space.
+     *
+     * @return the total size of the live data
+     */
+    long sizeInBytes();
+
+    /**
+     * Removes all values and the files that belong to this storage.
+     */
+    void clear();
+
+    /**
+     * Releases the resources held by the storage; stored files are kept on disk.
+     */
+    @Override
+    void close();
+
+    /**
+     * Loads the values left on disk by a previous instance. Must be called before any other operation.
+     * Storages that cannot be recovered start empty.
+     *
+     * @param consumer receives every recovered key with its frequency saved by {@link #close(ToIntFunction)}
+     *                 in descending order of frequencies; the frequency is zero if it is unknown
+     */
+    default void recover(final ObjIntConsumer<? super K> consumer) {
+        // Nothing to recover by default
+    }
+
+    /**
+     * Releases the resources held by the storage and saves frequencies of the keys if the storage can be recovered.
+     *
+     * @param frequencyOf The source of frequencies of the keys
+     */
+    default void close(final ToIntFunction<? super K> frequencyOf) {
+        close();
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.interfaces;
+
+import io.github.mfvanek.caching.enums.RemovalCause;
+
+/**
+ * Receives the entries that leave a cache while it is being modified.
+ * Caches invoke the listener in place, so it must be fast and must not access the cache that calls it.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+@FunctionalInterface
+public interface RemovalListener<K, V> {
+
+    /**
+     * Handles the removed entry.
+     *
+     * @param key   The key
+     * @param value The removed value
+     * @param cause Why the entry has been removed
+     */
+    void onRemoval(K key, V value, RemovalCause cause);
+
+    /**
+     * Ignores all removed entries.
+     *
+     * @param <K> key type
+     * @param <V> value type
+     * @return the listener
+     */
+    static <K, V> RemovalListener<K, V> discarding() {
+        return (key, value, cause) -> {
+            // Nobody is interested in removed entries
+        };
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.interfaces;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts values to bytes and back for persistent cache levels.
+ *
+ * @param <V> value type
+ */
+public interface ValueSerializer<V> {
+
+    byte[] serialize(V value);
+
+    /**
+     * Restores the value from the remaining bytes of the buffer.
+     * The buffer may be direct or memory mapped, so implementations shouldn't rely on {@link ByteBuffer#array()}.
+     *
+     * @param buffer The buffer with serialized value
+     * @return restored value
+     */
+    V deserialize(ByteBuffer buffer);
+}
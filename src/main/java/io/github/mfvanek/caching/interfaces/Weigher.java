@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.interfaces;
+
+/**
+ * Calculates the weight of cache entries, e.g. the number of bytes they occupy in the heap.
+ * Caches bounded by weight evict entries until the total weight fits into the budget.
+ * The weight of an entry must not change while it is in the cache.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+@FunctionalInterface
+public interface Weigher<K, V> {
+
+    /**
+     * Calculates the weight of the entry.
+     *
+     * @param key   The key
+     * @param value The value
+     * @return the non-negative weight
+     */
+    int weigh(K key, V value);
+
+    /**
+     * Weighs every entry as one, so the weight of a cache is the number of its entries.
+     *
+     * @param <K> key type
+     * @param <V> value type
+     * @return the weigher
+     */
+    static <K, V> Weigher<K, V> perEntry() {
+        return (key, value) -> 1;
+    }
+
+    /**
+     * Weighs entries by the size of their serialized values.
+     * It is a rough estimate of the heap footprint of values that are mostly strings and arrays;
+     * values are serialized on every put and removal, so a dedicated weigher is preferable.
+     *
+     * @param serializer The serializer of values
+     * @param <K>        key type
+     * @param <V>        value type
+     * @return the weigher
+     */
+    static <K, V> Weigher<K, V> serializedSize(final ValueSerializer<V> serializer) {
+        return (key, value) -> serializer.serialize(value).length;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.serializers;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Growable big-endian output buffer; the byte order matches {@link ByteBuffer} defaults used for reading.
+ */
+final class BinaryWriter {
+
+    private static final int VAR_INT_MAX_BYTES = 5;
+
+    private ByteBuffer buffer;
+
+    BinaryWriter(final int initialCapacity) {
+        this.buffer = ByteBuffer.allocate(initialCapacity);
+    }
+
+    void writeByte(final byte value) {
+        ensureRemaining(Byte.BYTES).put(value);
+    }
+
+    void writeShort(final short value) {
+        ensureRemaining(Short.BYTES).putShort(value);
+    }
+
+    void writeChar(final char value) {
+        ensureRemaining(Character.BYTES).putChar(value);
+    }
+
+    void writeInt(final int value) {
+        ensureRemaining(Integer.BYTES).putInt(value);
+    }
+
+    void writeLong(final long value) {
+        ensureRemaining(Long.BYTES).putLong(value);
+    }
+
+    void writeFloat(final float value) {
+        ensureRemaining(Float.BYTES).putFloat(value);
+    }
+
+    void writeDouble(final double value) {
+        ensureRemaining(Double.BYTES).putDouble(value);
+    }
+
+    /**
+     * Writes a non-negative number using 7 bits per byte, so small numbers take a single byte.
+     *
+     * @param value non-negative number
+     */
+    void writeVarInt(final int value) {
+        final ByteBuffer target = ensureRemaining(VAR_INT_MAX_BYTES);
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            target.put((byte) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        target.put((byte) remaining);
+    }
+
+    void writeBytes(final byte[] bytes) {
+        ensureRemaining(bytes.length).put(bytes);
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    static int readVarInt(final ByteBuffer in) {
+        int result = 0;
+        int shift = 0;
+        byte current;
+        do {
+            current = in.get();
+            result |= (current & 0x7F) << shift;
+            shift += 7;
+        } while ((current & 0x80) != 0);
+        return result;
+    }
+
+    private ByteBuffer ensureRemaining(final int size) {
+        if (buffer.remaining() < size) {
+            final ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + size));
+            buffer = larger.put(buffer.flip());
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.serializers;
+
+import io.github.mfvanek.caching.interfaces.ValueSerializer;
+import lombok.SneakyThrows;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses the output of another serializer with {@link Deflater}.
+ * Values smaller than the threshold and values that don't shrink are stored as is,
+ * so tiny entries don't pay for compression. Every entry starts with a format byte;
+ * compressed entries also store the size of the uncompressed value.
+ * Deflaters and inflaters are shared by all instances within a thread, since creating them allocates native memory.
+ *
+ * @param <V> value type
+ */
+public final class CompressingValueSerializer<V> implements ValueSerializer<V> {
+
+    public static final int DEFAULT_THRESHOLD = 256;
+
+    private static final byte STORED = 0;
+    private static final byte DEFLATED = 1;
+    private static final int DEFLATED_HEADER_SIZE = Byte.BYTES + Integer.BYTES;
+    private static final ThreadLocal<Deflater> DEFLATERS = ThreadLocal.withInitial(Deflater::new);
+    private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(Inflater::new);
+
+    private final ValueSerializer<V> delegate;
+    private final int level;
+    private final int threshold;
+
+    /**
+     * Creates an instance of {@link CompressingValueSerializer} class.
+     *
+     * @param delegate  The serializer whose output is compressed
+     * @param level     The compression level from {@link Deflater#DEFAULT_COMPRESSION} to {@link Deflater#BEST_COMPRESSION}
+     * @param threshold The minimal size in bytes of a serialized value to be compressed
+     */
+    public CompressingValueSerializer(final ValueSerializer<V> delegate, final int level, final int threshold) {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Compression level must be between -1 and 9");
+        }
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Threshold must be greater than or equal to 0");
+        }
+        this.delegate = delegate;
+        this.level = level;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public byte[] serialize(final V value) {
+        final byte[] raw = delegate.serialize(value);
+        if (raw.length >= threshold && raw.length > DEFLATED_HEADER_SIZE) {
+            final Deflater deflater = DEFLATERS.get();
+            deflater.reset();
+            deflater.setLevel(level);
+            deflater.setInput(raw);
+            deflater.finish();
+            // The output is limited by the raw size: a value that doesn't shrink is stored as is
+            final byte[] compressed = new byte[raw.length];
+            int size = DEFLATED_HEADER_SIZE;
+            // The first call after changing the level may only flush the parameters, so keep calling
+            while (size < compressed.length && !deflater.finished()) {
+                size += deflater.deflate(compressed, size, compressed.length - size);
+            }
+            if (deflater.finished()) {
+                ByteBuffer.wrap(compressed).put(DEFLATED).putInt(raw.length);
+                return Arrays.copyOf(compressed, size);
+            }
+        }
+        final byte[] stored = new byte[Byte.BYTES + raw.length];
+        stored[0] = STORED;
+        System.arraycopy(raw, 0, stored, Byte.BYTES, raw.length);
+        return stored;
+    }
+
+    @Override
+    public V deserialize(final ByteBuffer buffer) {
+        final byte format = buffer.get();
+        if (format == STORED) {
+            return delegate.deserialize(buffer);
+        }
+        if (format != DEFLATED) {
+            throw new IllegalStateException("Unknown format of serialized value: " + format);
+        }
+        final byte[] raw = new byte[buffer.getInt()];
+        final Inflater inflater = INFLATERS.get();
+        inflater.reset();
+        inflater.setInput(buffer);
+        int inflatedSize = 0;
+        while (!inflater.finished()) {
+            if (inflater.needsInput() || inflatedSize == raw.length) {
+                throw new IllegalStateException("Compressed value is corrupted");
+            }
+            inflatedSize += inflate(inflater, raw, inflatedSize);
+        }
+        return delegate.deserialize(ByteBuffer.wrap(raw));
+    }
+
+    @SneakyThrows
+    private static int inflate(final Inflater inflater, final byte[] output, final int offset) {
+        return inflater.inflate(output, offset, output.length - offset);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.serializers;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Binary format of a single record component.
+ */
+interface FieldCodec {
+
+    void write(BinaryWriter out, Object value);
+
+    Object read(ByteBuffer in);
+
+    /**
+     * Finds the codec for the type of record component.
+     *
+     * @param type The type of record component
+     * @return the codec
+     * @throws IllegalArgumentException if the type is not supported
+     */
+    static FieldCodec forType(final Class<?> type) {
+        final Map<Class<?>, PrimitiveCodec> primitives = Map.of(
+                boolean.class, PrimitiveCodec.BOOLEAN,
+                byte.class, PrimitiveCodec.BYTE,
+                short.class, PrimitiveCodec.SHORT,
+                char.class, PrimitiveCodec.CHAR,
+                int.class, PrimitiveCodec.INT,
+                long.class, PrimitiveCodec.LONG,
+                float.class, PrimitiveCodec.FLOAT,
+                double.class, PrimitiveCodec.DOUBLE,
+                String.class, PrimitiveCodec.STRING);
+        final Map<Class<?>, PrimitiveCodec> boxes = Map.of(
+                Boolean.class, PrimitiveCodec.BOOLEAN,
+                Byte.class, PrimitiveCodec.BYTE,
+                Short.class, PrimitiveCodec.SHORT,
+                Character.class, PrimitiveCodec.CHAR,
+                Integer.class, PrimitiveCodec.INT,
+                Long.class, PrimitiveCodec.LONG,
+                Float.class, PrimitiveCodec.FLOAT,
+                Double.class, PrimitiveCodec.DOUBLE);
+        final PrimitiveCodec primitive = primitives.get(type);
+        if (primitive != null) {
+            return primitive;
+        }
+        final PrimitiveCodec boxed = boxes.get(type);
+        if (boxed != null) {
+            return new NullableCodec(boxed);
+        }
+        if (type.isEnum()) {
+            return new NullableCodec(new EnumCodec(type));
+        }
+        throw new IllegalArgumentException("Unsupported type of record component: " + type.getName());
+    }
+
+    /**
+     * Writes a presence flag before the value.
+     *
+     * @param delegate The codec of non-null values
+     */
+    record NullableCodec(FieldCodec delegate) implements FieldCodec {
+
+        @Override
+        public void write(final BinaryWriter out, final Object value) {
+            out.writeByte(value == null ? (byte) 0 : (byte) 1);
+            if (value != null) {
+                delegate.write(out, value);
+            }
+        }
+
+        @Override
+        public Object read(final ByteBuffer in) {
+            return in.get() == 0 ? null : delegate.read(in);
+        }
+    }
+
+    /**
+     * Writes the ordinal of the constant.
+     */
+    final class EnumCodec implements FieldCodec {
+
+        private final Enum<?>[] constants;
+
+        /**
+         * Creates the codec.
+         *
+         * @param type The type of the enum
+         */
+        EnumCodec(final Class<?> type) {
+            this.constants = (Enum<?>[]) type.getEnumConstants();
+        }
+
+        @Override
+        // The ordinal is the wire format, so constants must not be reordered
+        @SuppressWarnings("EnumOrdinal")
+        public void write(final BinaryWriter out, final Object value) {
+            out.writeVarInt(((Enum<?>) value).ordinal());
+        }
+
+        @Override
+        public Object read(final ByteBuffer in) {
+            return constants[BinaryWriter.readVarInt(in)];
+        }
+    }
+}
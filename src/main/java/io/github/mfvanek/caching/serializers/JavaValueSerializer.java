@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.serializers;
+
+import io.github.mfvanek.caching.helpers.CacheSerializer;
+import io.github.mfvanek.caching.interfaces.ValueSerializer;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+
+/**
+ * Standard Java serialization. Works for any {@link Serializable} value, but writes a class descriptor into every entry.
+ *
+ * @param <V> value type
+ */
+public final class JavaValueSerializer<V extends Serializable> implements ValueSerializer<V> {
+
+    private final Class<V> type;
+
+    public JavaValueSerializer(final Class<V> type) {
+        this.type = type;
+    }
+
+    @Override
+    public byte[] serialize(final V value) {
+        return CacheSerializer.toBytes(value);
+    }
+
+    @Override
+    public V deserialize(final ByteBuffer buffer) {
+        return CacheSerializer.fromBuffer(type, buffer);
+    }
+}
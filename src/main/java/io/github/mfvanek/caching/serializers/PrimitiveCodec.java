@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.serializers;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fixed size encodings of primitive values and length-prefixed UTF-8 encoding of strings.
+ */
+enum PrimitiveCodec implements FieldCodec {
+
+    BOOLEAN {
+        @Override
+        public void write(final BinaryWriter out, final Object value) {
+            out.writeByte((Boolean) value ? (byte) 1 : (byte) 0);
+        }
+
+        @Override
+        public Object read(final ByteBuffer in) {
+            return in.get() != 0;
+        }
+    },
+
+    BYTE {
+        @Override
+        public void write(final BinaryWriter out, final Object value) {
+            out.writeByte((Byte) value);
+        }
+
+        @Override
+        public Object read(final ByteBuffer in) {
+            return in.get();
+        }
+    },
+
+    SHORT {
+        @Override
+        public void write(final BinaryWriter out, final Object value) {
+            out.writeShort((Short) value);
+        }
+
+        @Override
+        public Object read(final ByteBuffer in) {
+            return in.getShort();
+        }
+    },
+
+    CHAR {
+        @Override
+        public void write(final BinaryWriter out, final Object value) {
+            out.writeChar((Character) value);
+        }
+
+        @Override
+        public Object read(final ByteBuffer in) {
+            return in.getChar();
+        }
+    },
+
+    INT {
+        @Override
+        public void write(final BinaryWriter out, final Object value) {
+            out.writeInt((Integer) value);
+        }
+
+        @Override
+        public Object read(final ByteBuffer in) {
+            return in.getInt();
+        }
+    },
+
+    LONG {
+        @Override
+        public void write(final BinaryWriter out, final Object value) {
+            out.writeLong((Long) value);
+        }
+
+        @Override
+        public Object read(final ByteBuffer in) {
+            return in.getLong();
+        }
+    },
+
+    FLOAT {
+        @Override
+        public void write(final BinaryWriter out, final Object value) {
+            out.writeFloat((Float) value);
+        }
+
+        @Override
+        public Object read(final ByteBuffer in) {
+            return in.getFloat();
+        }
+    },
+
+    DOUBLE {
+        @Override
+        public void write(final BinaryWriter out, final Object value) {
+            out.writeDouble((Double) value);
+        }
+
+        @Override
+        public Object read(final ByteBuffer in) {
+            return in.getDouble();
+        }
+    },
+
+    /**
+     * The length is written as length + 1, so zero stands for null.
+     */
+    STRING {
+        @Override
+        public void write(final BinaryWriter out, final Object value) {
+            if (value == null) {
+                out.writeVarInt(0);
+            } else {
+                final byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+                out.writeVarInt(bytes.length + 1);
+                out.writeBytes(bytes);
+            }
+        }
+
+        @Override
+        public Object read(final ByteBuffer in) {
+            final int length = BinaryWriter.readVarInt(in) - 1;
+            if (length < 0) {
+                return null;
+            }
+            final String value;
+            if (in.hasArray()) {
+                value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+                in.position(in.position() + length);
+            } else {
+                final byte[] bytes = new byte[length];
+                in.get(bytes);
+                value = new String(bytes, StandardCharsets.UTF_8);
+            }
+            return value;
+        }
+    }
+}
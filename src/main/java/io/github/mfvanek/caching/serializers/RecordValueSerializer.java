@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.serializers;
+
+import io.github.mfvanek.caching.interfaces.ValueSerializer;
+import lombok.SneakyThrows;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.RecordComponent;
+import java.nio.ByteBuffer;
+
+/**
+ * Compact binary codec for records whose components are primitives, boxed primitives, strings or enums.
+ * Components are written one after another in declaration order without any class metadata,
+ * so the format depends on the record declaration: changing the components makes stored entries unreadable.
+ * Accessors and the canonical constructor are resolved once into method handles.
+ *
+ * @param <V> record type
+ */
+public final class RecordValueSerializer<V extends Record> implements ValueSerializer<V> {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Class<V> type;
+    private final Component[] components;
+    private final MethodHandle constructor;
+
+    /**
+     * Creates an instance of {@link RecordValueSerializer} class.
+     *
+     * @param type The record type
+     * @throws IllegalArgumentException if a record component has an unsupported type
+     */
+    @SneakyThrows
+    public RecordValueSerializer(final Class<V> type) {
+        this.type = type;
+        final RecordComponent[] recordComponents = type.getRecordComponents();
+        final MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+        this.components = new Component[recordComponents.length];
+        final Class<?>[] componentTypes = new Class<?>[recordComponents.length];
+        for (int i = 0; i < recordComponents.length; ++i) {
+            componentTypes[i] = recordComponents[i].getType();
+            final MethodHandle accessor = lookup.unreflect(recordComponents[i].getAccessor())
+                    .asType(MethodType.methodType(Object.class, Object.class));
+            components[i] = new Component(accessor, FieldCodec.forType(componentTypes[i]));
+        }
+        this.constructor = lookup.findConstructor(type, MethodType.methodType(void.class, componentTypes))
+                .asSpreader(Object[].class, recordComponents.length)
+                .asType(MethodType.methodType(Object.class, Object[].class));
+    }
+
+    @SneakyThrows
+    @Override
+    public byte[] serialize(final V value) {
+        final BinaryWriter out = new BinaryWriter(INITIAL_CAPACITY);
+        for (final Component component : components) {
+            // invokeExact returns Object when its result isn't cast, which matches the type of the handle
+            final Object componentValue = component.accessor().invokeExact((Object) value);
+            component.codec().write(out, componentValue);
+        }
+        return out.toByteArray();
+    }
+
+    @SneakyThrows
+    @Override
+    public V deserialize(final ByteBuffer buffer) {
+        final Object[] arguments = new Object[components.length];
+        for (int i = 0; i < components.length; ++i) {
+            arguments[i] = components[i].codec().read(buffer);
+        }
+        final Object result = constructor.invokeExact(arguments);
+        return type.cast(result);
+    }
+
+    private record Component(MethodHandle accessor, FieldCodec codec) {
+    }
+}
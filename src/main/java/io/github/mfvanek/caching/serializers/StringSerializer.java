@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.serializers;
+
+import io.github.mfvanek.caching.interfaces.ValueSerializer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Plain UTF-8 encoding of strings without any header. Suits string keys of a persistent level.
+ */
+public final class StringSerializer implements ValueSerializer<String> {
+
+    @Override
+    public byte[] serialize(final String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String deserialize(final ByteBuffer buffer) {
+        // Copying the bytes is much cheaper than decoding a direct buffer with a charset decoder
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.serializers;
+
+import io.github.mfvanek.caching.enums.TimedOperation;
+import io.github.mfvanek.caching.interfaces.ValueSerializer;
+import io.github.mfvanek.caching.stats.StatsCounter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Records the latency of another serializer.
+ *
+ * @param <V> value type
+ */
+public final class TimedValueSerializer<V> implements ValueSerializer<V> {
+
+    private final ValueSerializer<V> delegate;
+    private final StatsCounter statsCounter;
+
+    /**
+     * Creates an instance of {@link TimedValueSerializer} class.
+     *
+     * @param delegate     The serializer to be timed
+     * @param statsCounter The receiver of {@link TimedOperation#SERIALIZE} and {@link TimedOperation#DESERIALIZE} latencies
+     */
+    public TimedValueSerializer(final ValueSerializer<V> delegate, final StatsCounter statsCounter) {
+        this.delegate = delegate;
+        this.statsCounter = statsCounter;
+    }
+
+    @Override
+    public byte[] serialize(final V value) {
+        final long start = System.nanoTime();
+        final byte[] data = delegate.serialize(value);
+        statsCounter.recordLatency(TimedOperation.SERIALIZE, System.nanoTime() - start);
+        return data;
+    }
+
+    @Override
+    public V deserialize(final ByteBuffer buffer) {
+        final long start = System.nanoTime();
+        final V value = delegate.deserialize(buffer);
+        statsCounter.recordLatency(TimedOperation.DESERIALIZE, System.nanoTime() - start);
+        return value;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.stats;
+
+import io.github.mfvanek.caching.enums.TimedOperation;
+
+import java.util.Map;
+
+/**
+ * Immutable snapshot of statistics of a cache level.
+ *
+ * @param hitCount       The number of requests that found the item
+ * @param missCount      The number of requests that didn't find the item
+ * @param evictionCount  The number of items that left the level because of its size limits
+ * @param promotionCount The number of items moved to the level from a slower one
+ * @param latencies      The latencies of the timed operations; operations that are not timed by the level are omitted
+ */
+public record CacheStats(long hitCount,
+                         long missCount,
+                         long evictionCount,
+                         long promotionCount,
+                         Map<TimedOperation, Latency> latencies) {
+
+    /**
+     * Returns the ratio of requests that found the item.
+     *
+     * @return the hit ratio from 0 to 1; 1 if there were no requests
+     */
+    public double hitRate() {
+        final long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    /**
+     * Returns the latency of the operation.
+     *
+     * @param operation The operation
+     * @return the latency; empty if the operation has never been recorded
+     */
+    public Latency latencyOf(final TimedOperation operation) {
+        return latencies.getOrDefault(operation, new Latency(0L, 0L, 0L, 0L, 0L));
+    }
+
+    public static CacheStats empty() {
+        return new CacheStats(0L, 0L, 0L, 0L, Map.of());
+    }
+
+    /**
+     * Latency of an operation.
+     *
+     * @param count       The number of recorded operations
+     * @param totalNanos  The total duration of the operations
+     * @param maxNanos    The longest duration
+     * @param medianNanos The approximate median duration
+     * @param p99Nanos    The approximate 99th percentile of durations
+     */
+    public record Latency(long count, long totalNanos, long maxNanos, long medianNanos, long p99Nanos) {
+
+        public long meanNanos() {
+            return count == 0 ? 0L : totalNanos / count;
+        }
+    }
+}
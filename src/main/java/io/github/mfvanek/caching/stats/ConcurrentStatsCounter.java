@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.stats;
+
+import io.github.mfvanek.caching.enums.TimedOperation;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread safe statistics built on striped counters, so concurrent updates don't contend on a single memory location.
+ */
+public final class ConcurrentStatsCounter implements StatsCounter {
+
+    private static final TimedOperation[] OPERATIONS = TimedOperation.values();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder promotions = new LongAdder();
+    private final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+
+    public ConcurrentStatsCounter() {
+        for (int i = 0; i < latencies.length; ++i) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    @Override
+    public void recordHits(final int count) {
+        hits.add(count);
+    }
+
+    @Override
+    public void recordMisses(final int count) {
+        misses.add(count);
+    }
+
+    @Override
+    public void recordEvictions(final int count) {
+        evictions.add(count);
+    }
+
+    @Override
+    public void recordPromotion() {
+        promotions.increment();
+    }
+
+    @Override
+    // Histograms are indexed by the ordinal, so recording a latency costs no map lookup
+    @SuppressWarnings("EnumOrdinal")
+    public void recordLatency(final TimedOperation operation, final long nanos) {
+        latencies[operation.ordinal()].add(nanos);
+    }
+
+    @Override
+    @SuppressWarnings({"PMD.UseConcurrentHashMap", "EnumOrdinal"})
+    public CacheStats snapshot() {
+        final Map<TimedOperation, CacheStats.Latency> snapshots = new EnumMap<>(TimedOperation.class);
+        for (final TimedOperation operation : OPERATIONS) {
+            snapshots.put(operation, latencies[operation.ordinal()].snapshot());
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), promotions.sum(), Collections.unmodifiableMap(snapshots));
+    }
+}
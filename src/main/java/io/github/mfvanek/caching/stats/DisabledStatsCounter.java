@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.stats;
+
+import io.github.mfvanek.caching.enums.TimedOperation;
+
+final class DisabledStatsCounter implements StatsCounter {
+
+    static final StatsCounter INSTANCE = new DisabledStatsCounter();
+
+    private DisabledStatsCounter() {
+    }
+
+    @Override
+    public void recordHits(final int count) {
+        // Statistics are disabled
+    }
+
+    @Override
+    public void recordMisses(final int count) {
+        // Statistics are disabled
+    }
+
+    @Override
+    public void recordEvictions(final int count) {
+        // Statistics are disabled
+    }
+
+    @Override
+    public void recordPromotion() {
+        // Statistics are disabled
+    }
+
+    @Override
+    public void recordLatency(final TimedOperation operation, final long nanos) {
+        // Statistics are disabled
+    }
+
+    @Override
+    public CacheStats snapshot() {
+        return CacheStats.empty();
+    }
+}
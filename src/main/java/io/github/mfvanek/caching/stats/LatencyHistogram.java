@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.stats;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread safe histogram of durations with buckets of powers of two.
+ * Recording takes a few striped increments; percentiles are reported as the upper bound of their bucket,
+ * so they may be up to twice as large as the real values.
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKETS = Long.SIZE;
+    private static final double MEDIAN = 0.5;
+    private static final double P99 = 0.99;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; ++i) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records the duration. Negative durations, e.g. caused by a clock adjustment, are recorded as zero.
+     *
+     * @param nanos The duration in nanoseconds
+     */
+    public void add(final long nanos) {
+        final long duration = Math.max(0L, nanos);
+        buckets[bucketOf(duration)].increment();
+        totalNanos.add(duration);
+        maxNanos.accumulate(duration);
+    }
+
+    public CacheStats.Latency snapshot() {
+        final long[] counts = new long[BUCKETS];
+        long count = 0L;
+        for (int i = 0; i < BUCKETS; ++i) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        final long max = maxNanos.get();
+        return new CacheStats.Latency(count, totalNanos.sum(), max,
+                percentile(counts, count, MEDIAN, max), percentile(counts, count, P99, max));
+    }
+
+    private static int bucketOf(final long nanos) {
+        return BUCKETS - 1 - Long.numberOfLeadingZeros(nanos | 1L);
+    }
+
+    private static long percentile(final long[] counts, final long count, final double quantile, final long max) {
+        final long rank = (long) Math.ceil(count * quantile);
+        long seen = 0L;
+        for (int i = 0; i < BUCKETS; ++i) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+                return Math.min(max, upperBoundOf(i));
+            }
+        }
+        return 0L;
+    }
+
+    private static long upperBoundOf(final int bucket) {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : (1L << (bucket + 1)) - 1L;
+    }
+}
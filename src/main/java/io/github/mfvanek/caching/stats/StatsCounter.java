@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.stats;
+
+import io.github.mfvanek.caching.enums.TimedOperation;
+
+/**
+ * Accumulates statistics of a cache level.
+ * Implementations must be thread safe and cheap enough to be called on every operation.
+ */
+public interface StatsCounter {
+
+    void recordHits(int count);
+
+    void recordMisses(int count);
+
+    /**
+     * Records items that left the level because of its size limits.
+     *
+     * @param count The number of evicted items
+     */
+    void recordEvictions(int count);
+
+    /**
+     * Records an item moved to this level from a slower one.
+     */
+    void recordPromotion();
+
+    /**
+     * Records the duration of an operation.
+     *
+     * @param operation The operation
+     * @param nanos     The duration in nanoseconds
+     */
+    void recordLatency(TimedOperation operation, long nanos);
+
+    /**
+     * Returns the statistics accumulated so far. Counters that are updated concurrently may be slightly out of sync.
+     *
+     * @return the snapshot of statistics
+     */
+    CacheStats snapshot();
+
+    /**
+     * Returns the counter that ignores everything, so statistics cost nothing when they are not needed.
+     *
+     * @return the disabled counter
+     */
+    static StatsCounter disabled() {
+        return DisabledStatsCounter.INSTANCE;
+    }
+}
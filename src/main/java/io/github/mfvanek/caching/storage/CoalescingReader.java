@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.storage;
+
+import lombok.experimental.UtilityClass;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the values of many records in the order of their placement in segments.
+ * Neighbouring records of a segment that is not mapped are read from its channel at once,
+ * so every run of them costs a single system call instead of one per record.
+ * Thread unsafe; the owning storage is responsible for locking.
+ */
+@UtilityClass
+final class CoalescingReader {
+
+    /**
+     * Records separated by at most this number of bytes are read at once.
+     */
+    static final int MAX_GAP = 4096;
+    static final int MAX_READ_SIZE = 1024 * 1024;
+
+    /**
+     * Reads the serialized values of the records.
+     *
+     * @param segments  All segments of the storage
+     * @param locations The locations of the records; the list is sorted in place by segments and offsets
+     * @param <K>       key type
+     * @return the values in the order of the sorted locations
+     */
+    static <K> List<ByteBuffer> readAll(final Map<Integer, Segment<K>> segments, final List<Location<K>> locations) {
+        locations.sort(Comparator.comparingInt(Location<K>::segmentId).thenComparingLong(Location::offset));
+        final List<ByteBuffer> values = new ArrayList<>(locations.size());
+        int first = 0;
+        while (first < locations.size()) {
+            final Segment<K> segment = segments.get(locations.get(first).segmentId());
+            int last = first;
+            while (last + 1 < locations.size() &&
+                    canBeReadTogether(locations.get(first), locations.get(last), locations.get(last + 1))) {
+                ++last;
+            }
+            if (segment.isMapped()) {
+                // Slices of a mapping cost no system calls at all
+                locations.subList(first, last + 1).forEach(location -> values.add(segment.read(location)));
+            } else {
+                final long start = locations.get(first).valueOffset();
+                final ByteBuffer run = ByteBuffer.wrap(segment.readBytes(start, (int) (endOf(locations.get(last)) - start)));
+                for (int i = first; i <= last; ++i) {
+                    final Location<K> location = locations.get(i);
+                    values.add(run.slice((int) (location.valueOffset() - start), location.length()));
+                }
+            }
+            first = last + 1;
+        }
+        return values;
+    }
+
+    private static boolean canBeReadTogether(final Location<?> first,
+                                             final Location<?> previous,
+                                             final Location<?> next) {
+        if (next.segmentId() != first.segmentId()) {
+            return false;
+        }
+        return next.valueOffset() - endOf(previous) <= MAX_GAP && endOf(next) - first.valueOffset() <= MAX_READ_SIZE;
+    }
+
+    private static long endOf(final Location<?> location) {
+        return location.valueOffset() + location.length();
+    }
+}
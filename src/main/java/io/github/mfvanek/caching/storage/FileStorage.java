@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.storage;
+
+import io.github.mfvanek.caching.interfaces.PersistentStorage;
+import io.github.mfvanek.caching.interfaces.ValueSerializer;
+import lombok.SneakyThrows;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Stores every value in its own file named with a random UUID.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public final class FileStorage<K, V> implements PersistentStorage<K, V> {
+
+    private static final String EXTENSION = ".ser";
+
+    private final ValueSerializer<V> serializer;
+    private final Path baseDirectory;
+    private final Map<K, Path> files;
+    private long bytes;
+
+    /**
+     * Creates an instance of {@link FileStorage} class.
+     *
+     * @param serializer    The serializer of values
+     * @param baseDirectory The directory in which the files will be saved. If the directory doesn't exist, it will be created.
+     */
+    @SneakyThrows
+    public FileStorage(final ValueSerializer<V> serializer, final Path baseDirectory) {
+        this.serializer = serializer;
+        this.baseDirectory = baseDirectory;
+        this.files = new HashMap<>();
+
+        Files.createDirectories(baseDirectory);
+    }
+
+    @SneakyThrows
+    @Override
+    public long write(final K key, final V value) {
+        final long bytesBefore = bytes;
+        Path cacheFilePath = files.get(key);
+        if (cacheFilePath == null) {
+            cacheFilePath = generateSerializedFilePath();
+        } else {
+            bytes -= Files.size(cacheFilePath);
+        }
+        final byte[] data = serializer.serialize(value);
+        files.put(key, Files.write(cacheFilePath, data));
+        bytes += data.length;
+        return bytes - bytesBefore;
+    }
+
+    @Override
+    public V read(final K key) {
+        V value = null;
+        final Path cacheFilePath = files.get(key);
+        if (cacheFilePath != null) {
+            value = readFile(cacheFilePath);
+        }
+        return value;
+    }
+
+    @SneakyThrows
+    @Override
+    public V remove(final K key) {
+        V deletedValue = null;
+        final Path cacheFilePath = files.remove(key);
+        if (cacheFilePath != null) {
+            final byte[] data = Files.readAllBytes(cacheFilePath);
+            deletedValue = serializer.deserialize(ByteBuffer.wrap(data));
+            Files.deleteIfExists(cacheFilePath);
+            bytes -= data.length;
+        }
+        return deletedValue;
+    }
+
+    @Override
+    public boolean contains(final K key) {
+        return files.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return files.size();
+    }
+
+    /**
+     * Returns the total size of the files, not counting the space that the file system reserves for them.
+     *
+     * @return the total size of the files
+     */
+    @Override
+    public long sizeInBytes() {
+        return bytes;
+    }
+
+    @SneakyThrows
+    @Override
+    public void clear() {
+        for (final Path cacheFilePath : files.values()) {
+            Files.deleteIfExists(cacheFilePath);
+        }
+        files.clear();
+        bytes = 0L;
+    }
+
+    @Override
+    public void close() {
+        // Files are opened only for the duration of a single operation
+    }
+
+    @SneakyThrows
+    private V readFile(final Path cacheFilePath) {
+        return serializer.deserialize(ByteBuffer.wrap(Files.readAllBytes(cacheFilePath)));
+    }
+
+    private Path generateSerializedFilePath() {
+        return baseDirectory.resolve(UUID.randomUUID() + EXTENSION);
+    }
+}
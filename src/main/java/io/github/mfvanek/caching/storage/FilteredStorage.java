@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.storage;
+
+import io.github.mfvanek.caching.helpers.CountingBloomFilter;
+import io.github.mfvanek.caching.interfaces.PersistentStorage;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps a {@link CountingBloomFilter} of the stored keys in front of another storage,
+ * so lookups of keys that have never been stored return without consulting the index or files of the storage.
+ * The filter is maintained on writes and removals, including the ones made by eviction,
+ * and is rebuilt from the keys recovered by the storage after a restart.
+ * Like the caches that use it, the storage must be accessed by one thread at a time.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public final class FilteredStorage<K, V> implements PersistentStorage<K, V> {
+
+    private final PersistentStorage<K, V> delegate;
+    private final CountingBloomFilter<K> filter;
+
+    /**
+     * Creates an instance of {@link FilteredStorage} class.
+     *
+     * @param delegate          The storage to be filtered
+     * @param expectedKeys      The maximum number of keys in the storage
+     * @param falsePositiveRate The desired ratio of lookups of absent keys that still reach the storage
+     */
+    public FilteredStorage(final PersistentStorage<K, V> delegate, final int expectedKeys, final double falsePositiveRate) {
+        this.delegate = delegate;
+        this.filter = new CountingBloomFilter<>(expectedKeys, falsePositiveRate);
+    }
+
+    @Override
+    public long write(final K key, final V value) {
+        // The storage is asked only if the filter cannot tell that the key is new
+        if (!filter.mightContain(key) || !delegate.contains(key)) {
+            filter.add(key);
+        }
+        return delegate.write(key, value);
+    }
+
+    @Override
+    public V read(final K key) {
+        return filter.mightContain(key) ? delegate.read(key) : null;
+    }
+
+    @Override
+    public Map<K, V> readAll(final Collection<? extends K> keys) {
+        final List<K> candidates = keys.stream()
+                .filter(filter::mightContain)
+                .collect(Collectors.toList());
+        return candidates.isEmpty() ? Map.of() : delegate.readAll(candidates);
+    }
+
+    @Override
+    public V remove(final K key) {
+        if (!filter.mightContain(key)) {
+            return null;
+        }
+        final V deletedValue = delegate.remove(key);
+        if (deletedValue != null) {
+            filter.remove(key);
+        }
+        return deletedValue;
+    }
+
+    @Override
+    public boolean contains(final K key) {
+        return filter.mightContain(key) && delegate.contains(key);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return delegate.sizeInBytes();
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        filter.clear();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    /**
+     * Adds every recovered key to the filter, so the filter survives restarts along with the data.
+     */
+    @Override
+    public void recover(final ObjIntConsumer<? super K> consumer) {
+        delegate.recover((key, frequency) -> {
+            filter.add(key);
+            consumer.accept(key, frequency);
+        });
+    }
+
+    @Override
+    public void close(final ToIntFunction<? super K> frequencyOf) {
+        delegate.close(frequencyOf);
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.storage;
+
+/**
+ * Position of a record in a segment file.
+ *
+ * @param key       The key of the record
+ * @param segmentId The id of the segment
+ * @param offset    The offset of the record header in the segment
+ * @param keyLength The length of the serialized key
+ * @param length    The length of the serialized value
+ * @param <K>       key type
+ */
+record Location<K>(K key, int segmentId, long offset, int keyLength, int length) {
+
+    long valueOffset() {
+        return offset + Segment.HEADER_SIZE + keyLength;
+    }
+
+    int recordSize() {
+        return Segment.HEADER_SIZE + keyLength + length;
+    }
+}
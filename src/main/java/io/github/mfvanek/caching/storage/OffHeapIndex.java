@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.storage;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Open addressing hash table from keys to chunk addresses with linear probing.
+ * Hashes and addresses live in a direct buffer; the heap holds only a flat array of key references,
+ * so there are no entry objects or boxed addresses per key.
+ * Removal shifts the following entries back instead of leaving tombstones.
+ * Thread unsafe; the owning storage is responsible for locking.
+ *
+ * @param <K> key type
+ */
+@SuppressWarnings("PMD.NullAssignment")
+final class OffHeapIndex<K> {
+
+    private static final int SLOT_SIZE = 16;
+    private static final int HASH_OFFSET = Long.BYTES;
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private Object[] keys;
+    private ByteBuffer slots;
+    private int mask;
+    private int resizeThreshold;
+    private int count;
+
+    OffHeapIndex() {
+        allocate(MIN_CAPACITY);
+    }
+
+    int size() {
+        return count;
+    }
+
+    /**
+     * Returns the address of the key.
+     *
+     * @param key The key
+     * @return address or {@link SlabAllocator#NULL_ADDRESS} if there is no such key
+     */
+    long get(final K key) {
+        final int slot = find(key);
+        return slot < 0 ? SlabAllocator.NULL_ADDRESS : addressAt(slot);
+    }
+
+    /**
+     * Maps the key to the address.
+     *
+     * @param key     The key
+     * @param address The address
+     * @return previous address of the key or {@link SlabAllocator#NULL_ADDRESS} if there was no such key
+     */
+    long put(final K key, final long address) {
+        final int hash = hash(key);
+        int slot = hash & mask;
+        while (keys[slot] != null) {
+            if (hashAt(slot) == hash && key.equals(keys[slot])) {
+                final long previous = addressAt(slot);
+                slots.putLong(slot * SLOT_SIZE, address);
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        insert(slot, key, hash, address);
+        if (count > resizeThreshold) {
+            resize();
+        }
+        return SlabAllocator.NULL_ADDRESS;
+    }
+
+    /**
+     * Removes the key.
+     *
+     * @param key The key
+     * @return address of the removed key or {@link SlabAllocator#NULL_ADDRESS} if there was no such key
+     */
+    long remove(final K key) {
+        final int slot = find(key);
+        if (slot < 0) {
+            return SlabAllocator.NULL_ADDRESS;
+        }
+        final long address = addressAt(slot);
+        int hole = slot;
+        int next = (slot + 1) & mask;
+        while (keys[next] != null) {
+            final int home = hashAt(next) & mask;
+            // The entry may fill the hole only if the hole is not before its home slot in the probe sequence
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                slots.put(hole * SLOT_SIZE, slots, next * SLOT_SIZE, SLOT_SIZE);
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = null;
+        --count;
+        return address;
+    }
+
+    void clear() {
+        Arrays.fill(keys, null);
+        count = 0;
+    }
+
+    private int find(final K key) {
+        // Null keys are never stored, but they may be looked up
+        if (key == null) {
+            return -1;
+        }
+        final int hash = hash(key);
+        int slot = hash & mask;
+        while (keys[slot] != null) {
+            if (hashAt(slot) == hash && key.equals(keys[slot])) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insert(final int slot, final Object key, final int hash, final long address) {
+        keys[slot] = key;
+        slots.putLong(slot * SLOT_SIZE, address);
+        slots.putInt(slot * SLOT_SIZE + HASH_OFFSET, hash);
+        ++count;
+    }
+
+    private void resize() {
+        final Object[] oldKeys = keys;
+        final ByteBuffer oldSlots = slots;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldKeys[i] != null) {
+                final int hash = oldSlots.getInt(i * SLOT_SIZE + HASH_OFFSET);
+                int slot = hash & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                insert(slot, oldKeys[i], hash, oldSlots.getLong(i * SLOT_SIZE));
+            }
+        }
+    }
+
+    private void allocate(final int capacity) {
+        this.keys = new Object[capacity];
+        this.slots = ByteBuffer.allocateDirect(capacity * SLOT_SIZE);
+        this.mask = capacity - 1;
+        this.resizeThreshold = (int) (capacity * LOAD_FACTOR);
+        this.count = 0;
+    }
+
+    private long addressAt(final int slot) {
+        return slots.getLong(slot * SLOT_SIZE);
+    }
+
+    private int hashAt(final int slot) {
+        return slots.getInt(slot * SLOT_SIZE + HASH_OFFSET);
+    }
+
+    private static int hash(final Object key) {
+        final int hash = key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.storage;
+
+import io.github.mfvanek.caching.interfaces.PersistentStorage;
+import io.github.mfvanek.caching.interfaces.ValueSerializer;
+
+/**
+ * Keeps serialized values in direct memory outside the Java heap, so a large cache doesn't slow down garbage collection.
+ * Values are stored in chunks of a {@link SlabAllocator} and found via an {@link OffHeapIndex}.
+ * Nothing is written to disk: the data is lost when the storage is cleared or closed.
+ * Thread unsafe.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public final class OffHeapStorage<K, V> implements PersistentStorage<K, V> {
+
+    public static final int DEFAULT_PAGE_SIZE = 1024 * 1024;
+
+    private final ValueSerializer<V> serializer;
+    private final SlabAllocator allocator;
+    private final OffHeapIndex<K> index;
+
+    /**
+     * Creates an instance of {@link OffHeapStorage} class with the default page size.
+     *
+     * @param serializer The serializer of values
+     */
+    public OffHeapStorage(final ValueSerializer<V> serializer) {
+        this(serializer, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Creates an instance of {@link OffHeapStorage} class.
+     *
+     * @param serializer The serializer of values
+     * @param pageSize   The size of a block of direct memory that is allocated at once; larger values get a page of their own
+     */
+    OffHeapStorage(final ValueSerializer<V> serializer, final int pageSize) {
+        this.serializer = serializer;
+        this.allocator = new SlabAllocator(pageSize);
+        this.index = new OffHeapIndex<>();
+    }
+
+    @Override
+    public long write(final K key, final V value) {
+        final long bytesBefore = allocator.allocatedBytes();
+        final long previous = index.put(key, allocator.allocate(serializer.serialize(value)));
+        if (previous != SlabAllocator.NULL_ADDRESS) {
+            allocator.free(previous);
+        }
+        return allocator.allocatedBytes() - bytesBefore;
+    }
+
+    @Override
+    public V read(final K key) {
+        final long address = index.get(key);
+        if (address == SlabAllocator.NULL_ADDRESS) {
+            return null;
+        }
+        return serializer.deserialize(allocator.read(address));
+    }
+
+    @Override
+    public V remove(final K key) {
+        final long address = index.remove(key);
+        if (address == SlabAllocator.NULL_ADDRESS) {
+            return null;
+        }
+        final V value = serializer.deserialize(allocator.read(address));
+        allocator.free(address);
+        return value;
+    }
+
+    @Override
+    public boolean contains(final K key) {
+        return index.get(key) != SlabAllocator.NULL_ADDRESS;
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Returns the size of the chunks allocated for values including headers and internal fragmentation.
+     *
+     * @return bytes in allocated chunks of direct memory
+     */
+    @Override
+    public long sizeInBytes() {
+        return allocator.allocatedBytes();
+    }
+
+    @Override
+    public void clear() {
+        index.clear();
+        allocator.clear();
+    }
+
+    /**
+     * Drops all values, since direct memory cannot outlive the storage.
+     */
+    @Override
+    public void close() {
+        clear();
+    }
+
+    long reservedBytes() {
+        return allocator.reservedBytes();
+    }
+}
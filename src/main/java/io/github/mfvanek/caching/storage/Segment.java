@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.storage;
+
+import io.github.mfvanek.caching.interfaces.ValueSerializer;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of records. Every record is a status byte, the lengths of the key and the value,
+ * the CRC32 checksum of the key and the value, the serialized key and the serialized value.
+ * The status of a removed or overwritten record is changed to dead in place,
+ * so the segment alone is enough to restore the live records after a restart.
+ * The file is extended to its full capacity on creation, so appends don't change its size;
+ * the zero status of the unwritten tail marks the end of the records. A record torn by a crash doesn't match
+ * its checksum, so it marks the end of the records as well.
+ * Records can be read either with positional reads from the channel or from a read-only memory mapping of the whole file.
+ * Mappings are never unmapped explicitly: a deserializer may still be reading a slice after the segment is deleted,
+ * so the mapping is released by the garbage collector once the segment and all slices become unreachable.
+ * Thread unsafe; the owning storage is responsible for locking.
+ *
+ * @param <K> key type
+ */
+@Slf4j
+@SuppressWarnings("PMD.TooManyMethods")
+final class Segment<K> {
+
+    static final int HEADER_SIZE = 1 + 3 * Integer.BYTES;
+    private static final byte LIVE = 1;
+    private static final byte DEAD = 2;
+    private static final int NO_RECORD = -1;
+    private static final String EXTENSION = ".seg";
+
+    private final int id;
+    private final Path path;
+    private final FileChannel channel;
+    private final int capacity;
+    private final List<Location<K>> locations;
+    private final MappedByteBuffer mapped;
+    private final CRC32 checksum = new CRC32();
+    private long writePosition;
+    private long liveBytes;
+    private boolean compactionScheduled;
+
+    private Segment(final int id, final Path path, final FileChannel channel, final int capacity, final MappedByteBuffer mapped) {
+        this.id = id;
+        this.path = path;
+        this.channel = channel;
+        this.capacity = capacity;
+        this.locations = new ArrayList<>();
+        this.mapped = mapped;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    /**
+     * Returns locations of all records that were appended to the segment, including dead ones.
+     *
+     * @return locations in order of appending
+     */
+    List<Location<K>> getLocations() {
+        return locations;
+    }
+
+    long getWritePosition() {
+        return writePosition;
+    }
+
+    void setWritePosition(final long writePosition) {
+        this.writePosition = writePosition;
+    }
+
+    boolean hasRoomFor(final int recordSize) {
+        return writePosition + recordSize <= capacity;
+    }
+
+    Location<K> append(final K key, final byte[] keyData, final byte[] data) {
+        final Location<K> location = new Location<>(key, id, writePosition, keyData.length, data.length);
+        final int recordSize = location.recordSize();
+        checksum.reset();
+        checksum.update(keyData);
+        checksum.update(data);
+        final ByteBuffer buffer = ByteBuffer.allocate(recordSize);
+        buffer.put(LIVE).putInt(keyData.length).putInt(data.length).putInt((int) checksum.getValue())
+                .put(keyData).put(data).flip();
+        writeFully(channel, buffer, writePosition);
+        writePosition += recordSize;
+        restore(location);
+        return location;
+    }
+
+    /**
+     * Registers a live record that was written before the segment was opened.
+     *
+     * @param location The location of the record
+     */
+    void restore(final Location<K> location) {
+        liveBytes += location.recordSize();
+        locations.add(location);
+    }
+
+    /**
+     * Reads all records of the segment and moves the write position to the end of them.
+     * The records end at the unwritten tail or at the first record that doesn't match its checksum or
+     * whose key can't be deserialized; such a record and everything after it are ignored.
+     * Keys may be deserialized concurrently with other segments.
+     *
+     * @param keySerializer The serializer of keys
+     * @return locations of live records in order of appending
+     */
+    @SneakyThrows
+    List<Location<K>> scan(final ValueSerializer<K> keySerializer) {
+        final ByteBuffer buffer = mapped != null ? mapped : channel.map(FileChannel.MapMode.READ_ONLY, 0, capacity);
+        final ByteBuffer view = buffer.duplicate();
+        int position = 0;
+        boolean hasRecord = true;
+        while (hasRecord && position + HEADER_SIZE <= capacity) {
+            final int end = endOfRecord(buffer, view, position);
+            hasRecord = end != NO_RECORD && (buffer.get(position) == DEAD || restoreScanned(keySerializer, view, position, end));
+            if (hasRecord) {
+                position = end;
+            }
+        }
+        writePosition = position;
+        return locations;
+    }
+
+    /**
+     * Checks the header and the checksum of the record.
+     *
+     * @return the end of the record or {@link #NO_RECORD} if there is no intact record at the position
+     */
+    private int endOfRecord(final ByteBuffer buffer, final ByteBuffer view, final int position) {
+        final byte status = buffer.get(position);
+        final int keyLength = buffer.getInt(position + 1);
+        final int length = buffer.getInt(position + 1 + Integer.BYTES);
+        final long end = (long) position + HEADER_SIZE + keyLength + length;
+        final boolean complete = keyLength >= 0 && length >= 0 && end <= capacity;
+        final boolean written = complete && (status == LIVE || status == DEAD);
+        final int expectedChecksum = buffer.getInt(position + 1 + 2 * Integer.BYTES);
+        return written && expectedChecksum == checksumOf(view, position + HEADER_SIZE, (int) end) ? (int) end : NO_RECORD;
+    }
+
+    private int checksumOf(final ByteBuffer view, final int from, final int to) {
+        checksum.reset();
+        checksum.update(view.clear().position(from).limit(to));
+        return (int) checksum.getValue();
+    }
+
+    /**
+     * Deserializes the key of a scanned record and registers the record.
+     *
+     * @return false if the key can't be deserialized
+     */
+    @SuppressWarnings("checkstyle:IllegalCatch")
+    private boolean restoreScanned(final ValueSerializer<K> keySerializer, final ByteBuffer view, final int position, final int end) {
+        final int keyLength = view.clear().getInt(position + 1);
+        final int length = end - position - HEADER_SIZE - keyLength;
+        view.position(position + HEADER_SIZE).limit(position + HEADER_SIZE + keyLength);
+        boolean restored;
+        try {
+            restore(new Location<>(keySerializer.deserialize(view), id, position, keyLength, length));
+            restored = true;
+        } catch (RuntimeException e) {
+            log.warn("Failed to deserialize the key at {} of segment {}; the segment is truncated there", position, path, e);
+            restored = false;
+        }
+        return restored;
+    }
+
+    /**
+     * Reads the serialized value.
+     *
+     * @param location The location of the record
+     * @return a read-only slice of the mapping if the segment is mapped or a heap buffer with a copy of the value otherwise
+     */
+    ByteBuffer read(final Location<K> location) {
+        if (mapped != null) {
+            return mapped.slice((int) location.valueOffset(), location.length());
+        }
+        return ByteBuffer.wrap(readBytes(location.valueOffset(), location.length()));
+    }
+
+    boolean isMapped() {
+        return mapped != null;
+    }
+
+    @SneakyThrows
+    byte[] readBytes(final long offset, final int length) {
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            final int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IllegalStateException("Unexpected end of segment " + path);
+            }
+            position += read;
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Marks the record as dead both in memory and in the file.
+     *
+     * @param location The location of the record
+     */
+    void release(final Location<K> location) {
+        liveBytes -= location.recordSize();
+        writeFully(channel, ByteBuffer.wrap(new byte[]{DEAD}), location.offset());
+    }
+
+    boolean isEmpty() {
+        return liveBytes == 0;
+    }
+
+    long getLiveBytes() {
+        return liveBytes;
+    }
+
+    /**
+     * Checks whether the share of dead bytes exceeds the threshold.
+     *
+     * @param threshold share of dead bytes
+     * @return true if the segment is worth compacting
+     */
+    boolean isDeadAbove(final double threshold) {
+        return liveBytes < writePosition * (1.0 - threshold);
+    }
+
+    /**
+     * Marks the segment as scheduled for compaction.
+     *
+     * @return true if the segment wasn't scheduled before
+     */
+    boolean scheduleCompaction() {
+        final boolean firstTime = !compactionScheduled;
+        compactionScheduled = true;
+        return firstTime;
+    }
+
+    @SneakyThrows
+    void close() {
+        channel.close();
+    }
+
+    @SneakyThrows
+    void delete() {
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * Creates a new segment file. Existing files are never overwritten.
+     *
+     * @param directory The directory for the segment
+     * @param id        The id of the segment which defines the file name
+     * @param capacity  The size of the file in bytes
+     * @param mapped    Whether records should be read from a memory mapping of the file
+     * @param <K>       key type
+     * @return new empty segment
+     */
+    @SneakyThrows
+    @SuppressWarnings("PMD.CloseResource")
+    static <K> Segment<K> create(final Path directory, final int id, final int capacity, final boolean mapped) {
+        final Path path = directory.resolve(String.format("%08d%s", id, EXTENSION));
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        writeFully(channel, ByteBuffer.allocate(1), capacity - 1L);
+        // Appends through the channel are visible in the mapping since both share the page cache
+        final MappedByteBuffer mapping = mapped ? channel.map(FileChannel.MapMode.READ_ONLY, 0, capacity) : null;
+        return new Segment<>(id, path, channel, capacity, mapping);
+    }
+
+    /**
+     * Opens a segment file written by a previous instance.
+     * The write position is unknown until the segment is scanned or restored from a snapshot.
+     *
+     * @param path   The path of the segment file
+     * @param id     The id of the segment
+     * @param mapped Whether records should be read from a memory mapping of the file
+     * @param <K>    key type
+     * @return segment without known records
+     */
+    @SneakyThrows
+    @SuppressWarnings("PMD.CloseResource")
+    static <K> Segment<K> open(final Path path, final int id, final boolean mapped) {
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final int capacity = (int) channel.size();
+        final MappedByteBuffer mapping = mapped ? channel.map(FileChannel.MapMode.READ_ONLY, 0, capacity) : null;
+        return new Segment<>(id, path, channel, capacity, mapping);
+    }
+
+    /**
+     * Finds all segment files in the directory.
+     *
+     * @param directory The directory to look into
+     * @return paths of segment files by their ids
+     */
+    @SneakyThrows
+    static SortedMap<Integer, Path> findAll(final Path directory) {
+        final SortedMap<Integer, Path> result = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(path -> {
+                final String name = String.valueOf(path.getFileName());
+                final String id = name.substring(0, Math.max(name.length() - EXTENSION.length(), 0));
+                if (name.endsWith(EXTENSION) && !id.isEmpty() && id.chars().allMatch(Character::isDigit)) {
+                    result.put(Integer.valueOf(id), path);
+                }
+            });
+        }
+        return result;
+    }
+
+    @SneakyThrows
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer, final long position) {
+        long current = position;
+        while (buffer.hasRemaining()) {
+            current += channel.write(buffer, current);
+        }
+    }
+}
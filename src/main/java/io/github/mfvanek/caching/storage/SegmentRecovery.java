@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.storage;
+
+import io.github.mfvanek.caching.interfaces.ValueSerializer;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Restores the index of a {@link SegmentStorage} from the segments left by a previous instance.
+ * On close the storage saves a snapshot with locations and frequencies of all keys. The snapshot is used only if
+ * it lists exactly the segments found in the directory, and it is deleted as soon as it is loaded,
+ * so changes made after loading can never be hidden by it.
+ * Without a usable snapshot all segments are scanned in parallel. Records carry their keys and dead records
+ * are marked in place, so the segments are an incrementally updated index on their own; only frequencies are lost.
+ *
+ * @param <K> key type
+ */
+@Slf4j
+@SuppressWarnings({"PMD.UseConcurrentHashMap", "PMD.AvoidInstantiatingObjectsInLoops"})
+final class SegmentRecovery<K> {
+
+    static final String SNAPSHOT_FILE_NAME = "index.snapshot";
+    private static final int MAGIC = 0x4C465531;
+
+    private final Path baseDirectory;
+    private final ValueSerializer<K> keySerializer;
+    private final boolean mappedReads;
+
+    SegmentRecovery(final Path baseDirectory, final ValueSerializer<K> keySerializer, final boolean mappedReads) {
+        this.baseDirectory = baseDirectory;
+        this.keySerializer = keySerializer;
+        this.mappedReads = mappedReads;
+    }
+
+    /**
+     * Opens all segments in the directory and fills the index with their live records.
+     *
+     * @param segments The empty map of segments to fill
+     * @param index    The empty index to fill
+     * @param consumer receives every recovered key with its frequency in descending order of frequencies
+     */
+    void recover(final Map<Integer, Segment<K>> segments, final Map<K, Location<K>> index, final ObjIntConsumer<? super K> consumer) {
+        final SortedMap<Integer, Path> files = Segment.findAll(baseDirectory);
+        final Path snapshot = baseDirectory.resolve(SNAPSHOT_FILE_NAME);
+        if (Files.exists(snapshot)) {
+            try {
+                load(snapshot, files, segments, index, consumer);
+                return;
+            } catch (IOException | BufferUnderflowException | IndexOutOfBoundsException e) {
+                log.warn("Snapshot {} is stale or corrupted; falling back to a scan of segments", snapshot, e);
+            }
+            segments.values().forEach(Segment::close);
+            segments.clear();
+            index.clear();
+        }
+        scan(files, segments, index);
+        index.keySet().forEach(key -> consumer.accept(key, 0));
+    }
+
+    /**
+     * Writes the snapshot of the index in descending order of frequencies. The previous snapshot is replaced atomically.
+     *
+     * @param segments    All segments of the storage
+     * @param locations   Locations of all live records
+     * @param frequencyOf The source of frequencies of the keys
+     */
+    @SneakyThrows
+    void save(final Collection<Segment<K>> segments, final Collection<Location<K>> locations, final ToIntFunction<? super K> frequencyOf) {
+        final Path temporary = baseDirectory.resolve(SNAPSHOT_FILE_NAME + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(segments.size());
+            for (final Segment<K> segment : segments) {
+                output.writeInt(segment.getId());
+                output.writeLong(segment.getWritePosition());
+            }
+            final List<Entry<K>> entries = locations.stream()
+                    .map(l -> new Entry<>(l, frequencyOf.applyAsInt(l.key())))
+                    .sorted(Comparator.comparingInt(Entry<K>::frequency).reversed())
+                    .toList();
+            output.writeInt(entries.size());
+            for (final Entry<K> entry : entries) {
+                final Location<K> location = entry.location();
+                output.writeInt(location.segmentId());
+                output.writeLong(location.offset());
+                output.writeInt(location.length());
+                output.writeInt(entry.frequency());
+                final byte[] keyData = keySerializer.serialize(location.key());
+                output.writeInt(keyData.length);
+                output.write(keyData);
+            }
+        }
+        Files.move(temporary, baseDirectory.resolve(SNAPSHOT_FILE_NAME),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void load(final Path snapshot,
+                         final SortedMap<Integer, Path> files,
+                         final Map<Integer, Segment<K>> segments,
+                         final Map<K, Location<K>> index,
+                         final ObjIntConsumer<? super K> consumer) throws IOException {
+        final ByteBuffer buffer;
+        // The snapshot is deleted right away, while the mapping stays readable
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ, StandardOpenOption.DELETE_ON_CLOSE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Unknown format of snapshot");
+        }
+        openSegments(buffer, files, segments);
+        final int count = buffer.getInt();
+        // The consumer is called only when the whole snapshot is read
+        final List<K> keys = new ArrayList<>(count);
+        final int[] frequencies = new int[count];
+        final ByteBuffer keyView = buffer.duplicate();
+        for (int i = 0; i < count; ++i) {
+            final int segmentId = buffer.getInt();
+            final long offset = buffer.getLong();
+            final int length = buffer.getInt();
+            frequencies[i] = buffer.getInt();
+            final int keyLength = buffer.getInt();
+            keyView.clear().position(buffer.position()).limit(buffer.position() + keyLength);
+            final K key = keySerializer.deserialize(keyView);
+            buffer.position(buffer.position() + keyLength);
+            final Segment<K> segment = segments.get(segmentId);
+            if (segment == null) {
+                throw new IOException("Unknown segment " + segmentId);
+            }
+            final Location<K> location = new Location<>(key, segmentId, offset, keyLength, length);
+            segment.restore(location);
+            index.put(key, location);
+            keys.add(key);
+        }
+        for (int i = 0; i < count; ++i) {
+            consumer.accept(keys.get(i), frequencies[i]);
+        }
+    }
+
+    /**
+     * Opens the segments listed in the snapshot if they are exactly the segments in the directory.
+     */
+    private void openSegments(final ByteBuffer buffer,
+                              final SortedMap<Integer, Path> files,
+                              final Map<Integer, Segment<K>> segments) throws IOException {
+        final int segmentsCount = buffer.getInt();
+        final Map<Integer, Long> writePositions = new HashMap<>(capacityFor(segmentsCount));
+        for (int i = 0; i < segmentsCount; ++i) {
+            writePositions.put(buffer.getInt(), buffer.getLong());
+        }
+        if (!writePositions.keySet().equals(files.keySet())) {
+            throw new IOException("Segments in the directory differ from the snapshot");
+        }
+        files.forEach((id, path) -> {
+            final Segment<K> segment = Segment.open(path, id, mappedReads);
+            segment.setWritePosition(writePositions.get(id));
+            segments.put(id, segment);
+        });
+    }
+
+    private void scan(final SortedMap<Integer, Path> files,
+                      final Map<Integer, Segment<K>> segments,
+                      final Map<K, Location<K>> index) {
+        final List<Segment<K>> scanned = files.entrySet().parallelStream()
+                .map(e -> {
+                    final Segment<K> segment = Segment.open(e.getValue(), e.getKey(), mappedReads);
+                    segment.scan(keySerializer);
+                    return segment;
+                })
+                .toList();
+        // Segments go in order of ids and records in order of offsets, so the latest record of a key wins
+        for (final Segment<K> segment : scanned) {
+            segments.put(segment.getId(), segment);
+            for (final Location<K> location : segment.getLocations()) {
+                final Location<K> previous = index.put(location.key(), location);
+                if (previous != null) {
+                    segments.get(previous.segmentId()).release(previous);
+                }
+            }
+        }
+    }
+
+    static int capacityFor(final int size) {
+        return (int) (size / 0.75f) + 1;
+    }
+
+    private record Entry<K>(Location<K> location, int frequency) {
+    }
+}
@@ -0,0 +1,458 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.storage;
+
+import io.github.mfvanek.caching.interfaces.PersistentStorage;
+import io.github.mfvanek.caching.interfaces.ValueSerializer;
+import lombok.SneakyThrows;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Log-structured storage: values are appended to large pre-allocated segment files,
+ * and an in-memory index maps every key to its segment, offset and length.
+ * Removed and overwritten values stay in their segments as dead records.
+ * A segment without live records is deleted at once; a segment that is mostly dead is compacted
+ * in the background by copying its live records to the active segment in small batches.
+ * So puts and removals don't create or delete files, and the number of files stays proportional to the data size.
+ * With mapped reads, values are deserialized straight from memory mapped segments without any system calls
+ * once the pages are resident.
+ * Given a serializer of keys, the storage saves a snapshot of its index on close
+ * and can be recovered from the snapshot or from the segments themselves after a restart (see {@link SegmentRecovery}).
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+public final class SegmentStorage<K, V> implements PersistentStorage<K, V> {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Share of dead bytes in a segment after which the segment is compacted.
+     */
+    private static final double COMPACTION_THRESHOLD = 0.5;
+
+    /**
+     * Compaction copies a segment in about this number of batches and takes the lock for each batch separately,
+     * so other operations wait for a small part of a segment instead of the whole one.
+     */
+    private static final int COMPACTION_BATCHES = 64;
+
+    private static final byte[] NO_KEY = new byte[0];
+
+    private final ValueSerializer<V> serializer;
+    private final ValueSerializer<K> keySerializer;
+    private final SegmentRecovery<K> recovery;
+    private final Path baseDirectory;
+    private final int segmentSize;
+    private final boolean mappedReads;
+    private final Map<K, Location<K>> index;
+    private final Map<Integer, Segment<K>> segments;
+    private final Lock lock = new ReentrantLock();
+    private final ExecutorService compactor;
+    private Segment<K> active;
+    private int nextSegmentId;
+    /**
+     * The sum of live bytes of all segments, so the size is known without visiting them.
+     */
+    private long liveBytes;
+
+    /**
+     * Creates an instance of {@link SegmentStorage} class with the default segment size.
+     *
+     * @param serializer    The serializer of values
+     * @param baseDirectory The directory in which the segments will be saved. If the directory doesn't exist, it will be created.
+     */
+    public SegmentStorage(final ValueSerializer<V> serializer, final Path baseDirectory) {
+        this(serializer, null, baseDirectory, false);
+    }
+
+    /**
+     * Creates an instance of {@link SegmentStorage} class with the default segment size.
+     *
+     * @param serializer    The serializer of values
+     * @param baseDirectory The directory in which the segments will be saved. If the directory doesn't exist, it will be created.
+     * @param mappedReads   Whether values should be read from memory mapped segments instead of reading the files
+     */
+    public SegmentStorage(final ValueSerializer<V> serializer, final Path baseDirectory, final boolean mappedReads) {
+        this(serializer, null, baseDirectory, mappedReads);
+    }
+
+    /**
+     * Creates an instance of {@link SegmentStorage} class with the default segment size that supports recovery.
+     *
+     * @param serializer    The serializer of values
+     * @param keySerializer The serializer of keys; it must be thread safe
+     * @param baseDirectory The directory in which the segments will be saved. If the directory doesn't exist, it will be created.
+     * @param mappedReads   Whether values should be read from memory mapped segments instead of reading the files
+     */
+    public SegmentStorage(final ValueSerializer<V> serializer,
+                          final ValueSerializer<K> keySerializer,
+                          final Path baseDirectory,
+                          final boolean mappedReads) {
+        this(serializer, keySerializer, baseDirectory, DEFAULT_SEGMENT_SIZE, mappedReads);
+    }
+
+    /**
+     * Creates an instance of {@link SegmentStorage} class.
+     *
+     * @param serializer    The serializer of values
+     * @param baseDirectory The directory in which the segments will be saved. If the directory doesn't exist, it will be created.
+     * @param segmentSize   The size of a segment file in bytes; larger values get a segment of their own
+     * @param mappedReads   Whether values should be read from memory mapped segments instead of reading the files
+     */
+    SegmentStorage(final ValueSerializer<V> serializer, final Path baseDirectory, final int segmentSize, final boolean mappedReads) {
+        this(serializer, null, baseDirectory, segmentSize, mappedReads);
+    }
+
+    /**
+     * Creates an instance of {@link SegmentStorage} class.
+     *
+     * @param serializer    The serializer of values
+     * @param keySerializer The serializer of keys or null if the storage shouldn't be recovered after a restart
+     * @param baseDirectory The directory in which the segments will be saved. If the directory doesn't exist, it will be created.
+     * @param segmentSize   The size of a segment file in bytes; larger values get a segment of their own
+     * @param mappedReads   Whether values should be read from memory mapped segments instead of reading the files
+     */
+    @SneakyThrows
+    SegmentStorage(final ValueSerializer<V> serializer,
+                   final ValueSerializer<K> keySerializer,
+                   final Path baseDirectory,
+                   final int segmentSize,
+                   final boolean mappedReads) {
+        if (segmentSize <= Segment.HEADER_SIZE) {
+            throw new IllegalArgumentException("Segment size must be greater than " + Segment.HEADER_SIZE);
+        }
+        this.serializer = serializer;
+        this.keySerializer = keySerializer;
+        this.recovery = new SegmentRecovery<>(baseDirectory, keySerializer, mappedReads);
+        this.baseDirectory = baseDirectory;
+        this.segmentSize = segmentSize;
+        this.mappedReads = mappedReads;
+        this.index = new HashMap<>();
+        this.segments = new HashMap<>();
+        this.compactor = Executors.newSingleThreadExecutor(r -> {
+            final Thread thread = new Thread(r, "segment-storage-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Files.createDirectories(baseDirectory);
+        // Never overwrite segments left in the directory by other instances
+        final SortedMap<Integer, Path> existing = Segment.findAll(baseDirectory);
+        this.nextSegmentId = existing.isEmpty() ? 1 : existing.lastKey() + 1;
+    }
+
+    /**
+     * Takes over all segments in the base directory, including ones written by other instances.
+     * Segments without live records are deleted and mostly dead ones are compacted.
+     * Without a serializer of keys nothing is recovered and the segments are left untouched.
+     *
+     * @param consumer receives every recovered key with its frequency
+     */
+    @Override
+    public void recover(final ObjIntConsumer<? super K> consumer) {
+        if (keySerializer == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (!segments.isEmpty()) {
+                throw new IllegalStateException("Storage must be recovered before it is used");
+            }
+            recovery.recover(segments, index, consumer);
+            liveBytes = segments.values().stream()
+                    .mapToLong(Segment::getLiveBytes)
+                    .sum();
+            List.copyOf(segments.values()).forEach(this::reclaimIfNeeded);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long write(final K key, final V value) {
+        final byte[] keyData = keySerializer == null ? NO_KEY : keySerializer.serialize(key);
+        final byte[] data = serializer.serialize(value);
+        lock.lock();
+        try {
+            final long bytesBefore = liveBytes;
+            final Location<K> previous = index.put(key, append(key, keyData, data));
+            if (previous != null) {
+                markDead(previous);
+            }
+            return liveBytes - bytesBefore;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public V read(final K key) {
+        final ByteBuffer data;
+        lock.lock();
+        try {
+            final Location<K> location = index.get(key);
+            if (location == null) {
+                return null;
+            }
+            data = segments.get(location.segmentId()).read(location);
+        } finally {
+            lock.unlock();
+        }
+        return serializer.deserialize(data);
+    }
+
+    /**
+     * Reads the values of several keys in the order of their placement on disk under a single acquisition of the lock
+     * (see {@link CoalescingReader}). Values are deserialized after the lock is released.
+     *
+     * @param keys The keys
+     * @return the stored values by their keys; keys without values are omitted
+     */
+    @Override
+    public Map<K, V> readAll(final Collection<? extends K> keys) {
+        final List<Location<K>> found = new ArrayList<>(keys.size());
+        final List<ByteBuffer> data;
+        lock.lock();
+        try {
+            for (final K key : keys) {
+                final Location<K> location = index.get(key);
+                if (location != null) {
+                    found.add(location);
+                }
+            }
+            data = CoalescingReader.readAll(segments, found);
+        } finally {
+            lock.unlock();
+        }
+        @SuppressWarnings("PMD.UseConcurrentHashMap")
+        final Map<K, V> values = new HashMap<>(SegmentRecovery.capacityFor(found.size()));
+        for (int i = 0; i < found.size(); ++i) {
+            values.put(found.get(i).key(), serializer.deserialize(data.get(i)));
+        }
+        return values;
+    }
+
+    @Override
+    public V remove(final K key) {
+        final ByteBuffer data;
+        lock.lock();
+        try {
+            final Location<K> location = index.remove(key);
+            if (location == null) {
+                return null;
+            }
+            data = segments.get(location.segmentId()).read(location);
+            markDead(location);
+        } finally {
+            lock.unlock();
+        }
+        return serializer.deserialize(data);
+    }
+
+    @Override
+    public boolean contains(final K key) {
+        lock.lock();
+        try {
+            return index.containsKey(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return index.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the size of live records including their keys and headers.
+     * Dead records take disk space too until their segment is compacted, which happens when they are the majority of it.
+     *
+     * @return the total size of live records
+     */
+    @Override
+    public long sizeInBytes() {
+        lock.lock();
+        try {
+            return liveBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @SuppressWarnings("PMD.NullAssignment")
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            segments.values().forEach(Segment::delete);
+            segments.clear();
+            index.clear();
+            active = null;
+            liveBytes = 0L;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the storage saving a snapshot of the index with frequencies of all keys if recovery is supported.
+     *
+     * @param frequencyOf The source of frequencies of the keys
+     */
+    @SneakyThrows
+    @Override
+    public void close(final ToIntFunction<? super K> frequencyOf) {
+        compactor.shutdown();
+        try {
+            if (!compactor.awaitTermination(1, TimeUnit.MINUTES)) {
+                compactor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            if (keySerializer != null && !segments.isEmpty()) {
+                recovery.save(segments.values(), index.values(), frequencyOf);
+            }
+            segments.values().forEach(Segment::close);
+            // Drop the references to mappings, so they can be released
+            segments.clear();
+            index.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        close(key -> 0);
+    }
+
+    int segmentsCount() {
+        lock.lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until all compactions scheduled so far are completed.
+     */
+    @SneakyThrows
+    void awaitCompaction() {
+        compactor.submit(() -> { }).get();
+    }
+
+    private Location<K> append(final K key, final byte[] keyData, final byte[] data) {
+        final int recordSize = Segment.HEADER_SIZE + keyData.length + data.length;
+        if (active == null || !active.hasRoomFor(recordSize)) {
+            final Segment<K> previous = active;
+            active = Segment.create(baseDirectory, nextSegmentId++, Math.max(segmentSize, recordSize), mappedReads);
+            segments.put(active.getId(), active);
+            if (previous != null) {
+                reclaimIfNeeded(previous);
+            }
+        }
+        final Location<K> location = active.append(key, keyData, data);
+        liveBytes += location.recordSize();
+        return location;
+    }
+
+    private void markDead(final Location<K> location) {
+        final Segment<K> segment = segments.get(location.segmentId());
+        segment.release(location);
+        liveBytes -= location.recordSize();
+        if (!segment.equals(active)) {
+            reclaimIfNeeded(segment);
+        }
+    }
+
+    private void reclaimIfNeeded(final Segment<K> segment) {
+        if (segment.isEmpty()) {
+            segments.remove(segment.getId());
+            segment.delete();
+        } else if (segment.isDeadAbove(COMPACTION_THRESHOLD) && segment.scheduleCompaction()) {
+            final int segmentId = segment.getId();
+            compactor.execute(() -> compact(segmentId));
+        }
+    }
+
+    private void compact(final int segmentId) {
+        int next = 0;
+        while (next >= 0) {
+            lock.lock();
+            try {
+                next = compactBatch(segmentId, next);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Copies the live records of the segment starting from the given one until the batch is full.
+     * Records are checked against the index under the lock, so the ones overwritten or removed between batches are skipped.
+     *
+     * @return the position of the next record to copy or -1 if the segment has been compacted or deleted
+     */
+    private int compactBatch(final int segmentId, final int from) {
+        final Segment<K> segment = segments.get(segmentId);
+        // The segment might be deleted by clear() or become empty while waiting
+        if (segment == null) {
+            return -1;
+        }
+        final List<Location<K>> locations = segment.getLocations();
+        final int batchBytes = segmentSize / COMPACTION_BATCHES;
+        int copiedBytes = 0;
+        int next = from;
+        while (copiedBytes < batchBytes && next < locations.size()) {
+            final Location<K> location = locations.get(next++);
+            if (location.equals(index.get(location.key()))) {
+                final byte[] keyData = segment.readBytes(location.offset() + Segment.HEADER_SIZE, location.keyLength());
+                final byte[] data = segment.readBytes(location.valueOffset(), location.length());
+                index.put(location.key(), append(location.key(), keyData, data));
+                copiedBytes += location.recordSize();
+            }
+        }
+        if (next < locations.size()) {
+            return next;
+        }
+        // Records copied from the segment are counted in the active one now
+        liveBytes -= segment.getLiveBytes();
+        segments.remove(segmentId);
+        segment.delete();
+        return -1;
+    }
+}
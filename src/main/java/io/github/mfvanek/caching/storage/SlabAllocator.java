@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.storage;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Slab allocator of chunks in direct memory.
+ * Chunk sizes are powers of two starting from {@link #MIN_CHUNK_SIZE}; every page of direct memory is cut into chunks
+ * of a single size class. Freed chunks are kept in a per class free list that is linked through the chunks themselves,
+ * so the allocator creates no heap objects per chunk. Pages are never returned to the operating system
+ * until {@link #clear()} is called.
+ * Every chunk starts with the length of the data. A chunk is addressed by the page index in the high 32 bits
+ * and the offset within the page in the low 32 bits.
+ * Thread unsafe; the owning storage is responsible for locking.
+ */
+final class SlabAllocator {
+
+    static final long NULL_ADDRESS = -1L;
+    static final int MIN_CHUNK_SIZE = 64;
+    private static final int HEADER_SIZE = Integer.BYTES;
+    private static final int MIN_CHUNK_SHIFT = Integer.numberOfTrailingZeros(MIN_CHUNK_SIZE);
+    private static final int SIZE_CLASSES = Integer.SIZE - 1 - MIN_CHUNK_SHIFT;
+
+    private final int pageSize;
+    private final List<ByteBuffer> pages;
+    private final long[] freeLists;
+    private final long[] bumpAddresses;
+    private long allocated;
+
+    SlabAllocator(final int pageSize) {
+        if (pageSize < MIN_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Page size must be greater than or equal to " + MIN_CHUNK_SIZE);
+        }
+        this.pageSize = pageSize;
+        this.pages = new ArrayList<>();
+        this.freeLists = new long[SIZE_CLASSES];
+        this.bumpAddresses = new long[SIZE_CLASSES];
+        clear();
+    }
+
+    /**
+     * Copies the data into a newly allocated chunk.
+     *
+     * @param data The data
+     * @return address of the chunk
+     */
+    long allocate(final byte[] data) {
+        final int sizeClass = sizeClassOf(HEADER_SIZE + data.length);
+        final long address = takeChunk(sizeClass);
+        final ByteBuffer page = pages.get(pageIndex(address));
+        page.putInt(offset(address), data.length);
+        page.put(offset(address) + HEADER_SIZE, data);
+        allocated += chunkSize(sizeClass);
+        return address;
+    }
+
+    /**
+     * Returns a read-only view of the data in the chunk.
+     *
+     * @param address The address of the chunk
+     * @return buffer positioned at the beginning of the data
+     */
+    ByteBuffer read(final long address) {
+        final ByteBuffer page = pages.get(pageIndex(address));
+        final int offset = offset(address);
+        return page.slice(offset + HEADER_SIZE, page.getInt(offset)).asReadOnlyBuffer();
+    }
+
+    void free(final long address) {
+        final ByteBuffer page = pages.get(pageIndex(address));
+        final int offset = offset(address);
+        final int sizeClass = sizeClassOf(HEADER_SIZE + page.getInt(offset));
+        // The first bytes of a free chunk hold the address of the next free chunk
+        page.putLong(offset, freeLists[sizeClass]);
+        freeLists[sizeClass] = address;
+        allocated -= chunkSize(sizeClass);
+    }
+
+    /**
+     * Drops all pages; the direct memory is released by the garbage collector.
+     */
+    void clear() {
+        pages.clear();
+        Arrays.fill(freeLists, NULL_ADDRESS);
+        Arrays.fill(bumpAddresses, NULL_ADDRESS);
+        allocated = 0L;
+    }
+
+    /**
+     * Returns the total size of allocated chunks including headers and internal fragmentation.
+     *
+     * @return bytes in allocated chunks
+     */
+    long allocatedBytes() {
+        return allocated;
+    }
+
+    /**
+     * Returns the size of direct memory reserved by pages.
+     *
+     * @return bytes in pages
+     */
+    long reservedBytes() {
+        return pages.stream().mapToLong(ByteBuffer::capacity).sum();
+    }
+
+    private long takeChunk(final int sizeClass) {
+        final long free = freeLists[sizeClass];
+        if (free != NULL_ADDRESS) {
+            freeLists[sizeClass] = pages.get(pageIndex(free)).getLong(offset(free));
+            return free;
+        }
+        final int chunkSize = chunkSize(sizeClass);
+        long address = bumpAddresses[sizeClass];
+        if (address == NULL_ADDRESS || offset(address) + chunkSize > pages.get(pageIndex(address)).capacity()) {
+            // Values larger than a page get a page of their own
+            pages.add(ByteBuffer.allocateDirect(Math.max(pageSize / chunkSize, 1) * chunkSize));
+            address = address(pages.size() - 1, 0);
+        }
+        bumpAddresses[sizeClass] = address + chunkSize;
+        return address;
+    }
+
+    private static int sizeClassOf(final int size) {
+        final int shift = Integer.SIZE - Integer.numberOfLeadingZeros(size - 1);
+        return Math.max(shift - MIN_CHUNK_SHIFT, 0);
+    }
+
+    private static int chunkSize(final int sizeClass) {
+        return MIN_CHUNK_SIZE << sizeClass;
+    }
+
+    private static long address(final int pageIndex, final int offset) {
+        return (long) pageIndex << Integer.SIZE | offset;
+    }
+
+    private static int pageIndex(final long address) {
+        return (int) (address >>> Integer.SIZE);
+    }
+
+    private static int offset(final long address) {
+        return (int) address;
+    }
+}
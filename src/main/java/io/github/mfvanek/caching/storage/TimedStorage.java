@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.storage;
+
+import io.github.mfvanek.caching.enums.TimedOperation;
+import io.github.mfvanek.caching.interfaces.PersistentStorage;
+import io.github.mfvanek.caching.stats.StatsCounter;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Records the latency of reads, writes and removals of another storage.
+ * A batch read is recorded as a single operation.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public final class TimedStorage<K, V> implements PersistentStorage<K, V> {
+
+    private final PersistentStorage<K, V> delegate;
+    private final StatsCounter statsCounter;
+
+    /**
+     * Creates an instance of {@link TimedStorage} class.
+     *
+     * @param delegate     The storage to be timed
+     * @param statsCounter The receiver of the latencies
+     */
+    public TimedStorage(final PersistentStorage<K, V> delegate, final StatsCounter statsCounter) {
+        this.delegate = delegate;
+        this.statsCounter = statsCounter;
+    }
+
+    @Override
+    public long write(final K key, final V value) {
+        final long start = System.nanoTime();
+        final long writtenBytes = delegate.write(key, value);
+        statsCounter.recordLatency(TimedOperation.WRITE, System.nanoTime() - start);
+        return writtenBytes;
+    }
+
+    @Override
+    public V read(final K key) {
+        final long start = System.nanoTime();
+        final V value = delegate.read(key);
+        statsCounter.recordLatency(TimedOperation.READ, System.nanoTime() - start);
+        return value;
+    }
+
+    @Override
+    public Map<K, V> readAll(final Collection<? extends K> keys) {
+        final long start = System.nanoTime();
+        final Map<K, V> values = delegate.readAll(keys);
+        statsCounter.recordLatency(TimedOperation.READ, System.nanoTime() - start);
+        return values;
+    }
+
+    @Override
+    public V remove(final K key) {
+        final long start = System.nanoTime();
+        final V value = delegate.remove(key);
+        statsCounter.recordLatency(TimedOperation.REMOVE, System.nanoTime() - start);
+        return value;
+    }
+
+    @Override
+    public boolean contains(final K key) {
+        return delegate.contains(key);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return delegate.sizeInBytes();
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    @Override
+    public void recover(final ObjIntConsumer<? super K> consumer) {
+        delegate.recover(consumer);
+    }
+
+    @Override
+    public void close(final ToIntFunction<? super K> frequencyOf) {
+        delegate.close(frequencyOf);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.events;
+
+import io.github.mfvanek.caching.builders.CacheBuilder;
+import io.github.mfvanek.caching.builders.TwoLevelsCacheBuilder;
+import io.github.mfvanek.caching.enums.CacheType;
+import io.github.mfvanek.caching.impl.TwoLevelsCache;
+import io.github.mfvanek.caching.interfaces.LeveledCache;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class CacheEventsTest {
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void cacheOperationsShouldBeRecorded() throws IOException {
+        final List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            List.of(CacheGetEvent.class, DemotionEvent.class, EvictionEvent.class, SerializationEvent.class)
+                    .forEach(type -> recording.enable(type).withThreshold(Duration.ZERO));
+            recording.start();
+            try (TwoLevelsCache<String, Movie> cache = TwoLevelsCacheBuilder.builder(Movie.class)
+                    .setBaseDirectory(tempDir.resolve("cache"))
+                    .setFirstLevelMaxSize(1)
+                    .setFirstLevelEvictionFactor(1.0f)
+                    .setSecondLevelMaxSize(1)
+                    .setSecondLevelEvictionFactor(1.0f)
+                    .build()) {
+                cache.put(Movies.getSnowden());
+                cache.put(Movies.getAquaman());
+                cache.get(Movies.SNOWDEN_IMDB);
+                cache.putAll(Map.of(Movies.INCEPTION_IMDB, Movies.getInception()));
+            }
+            final LeveledCache<String, Movie> concurrentCache = CacheBuilder.builder(Movie.class)
+                    .setCacheType(CacheType.CONCURRENT_LFU)
+                    .setMaxSize(1)
+                    .build();
+            concurrentCache.put(Movies.getSnowden());
+            concurrentCache.put(Movies.getAquaman());
+            recording.stop();
+            final Path file = tempDir.resolve("cache.jfr");
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file);
+        }
+
+        assertThat(eventsOf(events, CacheGetEvent.NAME))
+                .extracting(e -> e.getInt("keyHash"), e -> e.getString("level"), e -> e.getBoolean("hit"))
+                .containsExactly(
+                        tuple(Movies.SNOWDEN_IMDB.hashCode(), "first", Boolean.FALSE),
+                        tuple(Movies.SNOWDEN_IMDB.hashCode(), "second", Boolean.TRUE));
+        assertThat(eventsOf(events, DemotionEvent.NAME))
+                .extracting(e -> e.getInt("keyHash"), e -> e.getInt("count"))
+                .containsExactly(
+                        tuple(Movies.AQUAMAN_IMDB.hashCode(), 1),
+                        tuple(0, 1));
+        assertThat(eventsOf(events, EvictionEvent.NAME))
+                .extracting(e -> e.getString("cache"), e -> e.getInt("count"))
+                .containsExactly(
+                        tuple("LFUCache", 1),
+                        tuple("LFUCache", 1),
+                        tuple("PersistenceLFUCache", 1),
+                        tuple("ConcurrentLFUCache", 1));
+        assertThat(eventsOf(events, SerializationEvent.NAME))
+                .extracting(e -> e.getString("operation"))
+                .as("an item evicted from disk is read back to be returned")
+                .containsExactly(SerializationEvent.SERIALIZE, SerializationEvent.DESERIALIZE, SerializationEvent.DESERIALIZE,
+                        SerializationEvent.SERIALIZE);
+        assertThat(eventsOf(events, SerializationEvent.NAME))
+                .allSatisfy(e -> assertThat(e.getInt("byteSize")).isPositive());
+    }
+
+    private static List<RecordedEvent> eventsOf(final Collection<RecordedEvent> events, final String name) {
+        return events.stream()
+                .filter(e -> e.getEventType().getName().equals(name))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.helpers;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ByteBufferInputStreamTest {
+
+    @Test
+    void shouldReadRemainingBytes() throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(4).put(new byte[]{1, 2, (byte) 0xFF, 4}).flip();
+        buffer.get();
+        try (ByteBufferInputStream stream = new ByteBufferInputStream(buffer)) {
+            assertThat(stream.available())
+                    .isEqualTo(3);
+            assertThat(stream.read())
+                    .isEqualTo(2);
+            assertThat(stream.read())
+                    .isEqualTo(0xFF);
+
+            final byte[] bytes = new byte[4];
+            assertThat(stream.read(bytes, 0, 0))
+                    .isZero();
+            assertThat(stream.read(bytes, 1, 3))
+                    .isEqualTo(1);
+            assertThat(bytes)
+                    .containsExactly(0, 4, 0, 0);
+            assertThat(stream.read())
+                    .isEqualTo(-1);
+            assertThat(stream.read(bytes, 0, 4))
+                    .isEqualTo(-1);
+        }
+    }
+}
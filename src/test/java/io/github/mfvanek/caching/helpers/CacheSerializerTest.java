@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.helpers;
+
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheSerializerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldSerializeToFile() {
+        final Movie snowden = Movies.getSnowden();
+        final Path file = tempDir.resolve("snowden.ser");
+
+        assertThat(CacheSerializer.serialize(snowden, file))
+                .isEqualTo(file)
+                .exists();
+        assertThat(CacheSerializer.deserialize(Movie.class, file))
+                .isEqualTo(snowden);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.helpers;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CountingBloomFilterTest {
+
+    private static final String KEY = "key";
+    private static final String FIRST = "first";
+    private static final String SECOND = "second";
+
+    @Test
+    void filterShouldBeSizedForFalsePositiveRate() {
+        final CountingBloomFilter<String> filter = new CountingBloomFilter<>(1000, 0.01);
+        assertThat(filter.getCounters())
+                .isEqualTo(16_384);
+        assertThat(filter.getHashFunctions())
+                .isEqualTo(7);
+        assertThat(new CountingBloomFilter<>(0, 0.5).getCounters())
+                .isEqualTo(64);
+    }
+
+    @Test
+    void addedKeysShouldBeFoundAndAbsentKeysRejectedMostly() {
+        final CountingBloomFilter<String> filter = new CountingBloomFilter<>(1000, 0.01);
+        for (int i = 0; i < 1000; ++i) {
+            filter.add(KEY + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 1000; ++i) {
+            assertThat(filter.mightContain(KEY + i))
+                    .isTrue();
+            if (filter.mightContain("absent" + i)) {
+                ++falsePositives;
+            }
+        }
+        assertThat(falsePositives)
+                .isLessThan(30);
+        filter.clear();
+        assertThat(filter.mightContain(KEY + 0))
+                .isFalse();
+    }
+
+    @Test
+    void removedKeysShouldBeForgotten() {
+        final CountingBloomFilter<String> filter = new CountingBloomFilter<>(100, 0.01);
+        filter.add(FIRST);
+        filter.add(SECOND);
+        filter.add(SECOND);
+        filter.remove(FIRST);
+        filter.remove(SECOND);
+        assertThat(filter.mightContain(FIRST))
+                .isFalse();
+        assertThat(filter.mightContain(SECOND))
+                .as("added twice, removed once")
+                .isTrue();
+        filter.remove(SECOND);
+        assertThat(filter.mightContain(SECOND))
+                .isFalse();
+    }
+
+    @Test
+    void saturatedCountersShouldNeverBeDecremented() {
+        final CountingBloomFilter<String> filter = new CountingBloomFilter<>(1, 0.5);
+        for (int i = 0; i < 20; ++i) {
+            filter.add(KEY);
+        }
+        for (int i = 0; i < 20; ++i) {
+            filter.remove(KEY);
+        }
+        assertThat(filter.mightContain(KEY))
+                .as("false positives are allowed, false negatives are not")
+                .isTrue();
+    }
+
+    @Test
+    void falsePositiveRateShouldBeValidated() {
+        assertThatThrownBy(() -> new CountingBloomFilter<>(10, 0.0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("False positive rate must be between 0 and 1");
+        assertThatThrownBy(() -> new CountingBloomFilter<>(10, 1.0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.helpers;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FrequencySketchTest {
+
+    @Test
+    void shouldCountIncrements() {
+        final FrequencySketch<String> sketch = new FrequencySketch<>(100);
+        assertThat(sketch.frequency("a"))
+                .isZero();
+
+        sketch.increment("a");
+        sketch.increment("a");
+        sketch.increment("b");
+        assertThat(sketch.frequency("a"))
+                .isEqualTo(2);
+        assertThat(sketch.frequency("b"))
+                .isEqualTo(1);
+        assertThat(sketch.frequency(null))
+                .isZero();
+    }
+
+    @Test
+    void frequencyShouldBeLimited() {
+        final FrequencySketch<String> sketch = new FrequencySketch<>(100);
+        for (int i = 0; i < 100; ++i) {
+            sketch.increment("a");
+        }
+        assertThat(sketch.frequency("a"))
+                .isEqualTo(FrequencySketch.MAX_FREQUENCY);
+    }
+
+    @Test
+    void countersShouldBeHalvedWhenSampleSizeIsReached() {
+        final FrequencySketch<String> sketch = new FrequencySketch<>(1);
+        assertThat(sketch.getSampleSize())
+                .isEqualTo(10);
+        for (int i = 0; i < sketch.getSampleSize(); ++i) {
+            sketch.increment("a");
+        }
+        assertThat(sketch.frequency("a"))
+                .isEqualTo(5);
+    }
+
+    @Test
+    void clearShouldResetCounters() {
+        final FrequencySketch<Integer> sketch = new FrequencySketch<>(0);
+        sketch.increment(1);
+        sketch.clear();
+        assertThat(sketch.frequency(1))
+                .isZero();
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.helpers;
+
+import io.github.mfvanek.caching.interfaces.Countable;
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LFUCacheHelperTest {
+
+    @Test
+    void shouldValidateEvictionFactor() {
+        assertThatThrownBy(() -> new LFUCacheHelper<>(0.0f))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Eviction factor must be greater than 0 and less than or equal to 1");
+        assertThatThrownBy(() -> new LFUCacheHelper<>(1.1f))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(new LFUCacheHelper<String>(1.0f).getEvictionFactor())
+                .isEqualTo(1.0f);
+    }
+
+    @Test
+    void emptyHelper() {
+        final LFUCacheHelper<String> helper = new LFUCacheHelper<>(0.5f);
+        assertThat(helper.getLowestFrequency())
+                .isZero();
+        assertThatThrownBy(helper::pollLowestFrequencyKey)
+                .isInstanceOf(NoSuchElementException.class)
+                .hasMessage("There are no keys in the cache");
+        assertThat(helper.removeKeyFromFrequencies("a"))
+                .isEqualTo(Countable.INVALID_FREQUENCY);
+        assertThatThrownBy(() -> helper.frequencyOf("a"))
+                .isInstanceOf(NoSuchElementException.class)
+                .hasMessage("Key a not found in the cache");
+    }
+
+    @Test
+    void updateFrequencyShouldMoveKeyToNextBucket() {
+        final LFUCacheHelper<String> helper = new LFUCacheHelper<>(0.5f);
+        helper.rememberFrequency(0, "a");
+        helper.rememberFrequency(0, "b");
+        helper.rememberFrequency(0, "c");
+        helper.updateFrequency("a");
+        helper.updateFrequency("b");
+        helper.updateFrequency("a");
+
+        assertThat(helper.frequencyOf("a"))
+                .isEqualTo(2);
+        assertThat(helper.frequencyOf("b"))
+                .isEqualTo(1);
+        assertThat(helper.getLowestFrequency())
+                .isZero();
+
+        assertThat(helper.pollLowestFrequencyKey())
+                .isEqualTo("c");
+        assertThat(helper.getLowestFrequency())
+                .isEqualTo(1);
+        assertThat(helper.pollLowestFrequencyKey())
+                .isEqualTo("b");
+        assertThat(helper.pollLowestFrequencyKey())
+                .isEqualTo("a");
+        assertThat(helper.getLowestFrequency())
+                .isZero();
+    }
+
+    @Test
+    void reusedFrequencyNodesShouldKeepBucketsOrdered() {
+        final LFUCacheHelper<String> helper = new LFUCacheHelper<>(0.5f);
+        helper.rememberFrequency(0, "a");
+        helper.rememberFrequency(0, "b");
+        helper.rememberFrequency(0, "c");
+        helper.updateFrequency("a");
+        helper.updateFrequency("b");
+        helper.updateFrequency("a");
+        // The bucket of frequency 1 becomes empty and is kept for reuse
+        helper.updateFrequency("b");
+        // "c" is alone in its bucket, so the bucket is moved to frequency 1 in place
+        helper.updateFrequency("c");
+        // The kept bucket is reused for frequency 3
+        helper.updateFrequency("a");
+
+        assertThat(helper.frequencyOf("a"))
+                .isEqualTo(3);
+        assertThat(helper.frequencyOf("b"))
+                .isEqualTo(2);
+        assertThat(helper.getLowestFrequency())
+                .isEqualTo(1);
+        assertThat(helper.pollLowestFrequencyKey())
+                .isEqualTo("c");
+        assertThat(helper.pollLowestFrequencyKey())
+                .isEqualTo("b");
+        assertThat(helper.pollLowestFrequencyKey())
+                .isEqualTo("a");
+    }
+
+    @Test
+    void keysWithTheSameFrequencyShouldBeEvictedInInsertionOrder() {
+        final LFUCacheHelper<String> helper = new LFUCacheHelper<>(0.5f);
+        helper.rememberFrequency(0, "a");
+        helper.rememberFrequency(0, "b");
+        helper.rememberFrequency(0, "c");
+        assertThat(helper.removeKeyFromFrequencies("b"))
+                .isZero();
+
+        assertThat(helper.pollLowestFrequencyKey())
+                .isEqualTo("a");
+        assertThat(helper.pollLowestFrequencyKey())
+                .isEqualTo("c");
+    }
+
+    @Test
+    void rememberFrequencyShouldKeepBucketsOrdered() {
+        final LFUCacheHelper<String> helper = new LFUCacheHelper<>(0.5f);
+        helper.rememberFrequency(5, "a");
+        helper.rememberFrequency(1, "b");
+        helper.rememberFrequency(3, "c");
+        helper.rememberFrequency(9, "d");
+        helper.rememberFrequency(3, "e");
+        helper.rememberFrequency(7, "b");
+
+        assertThat(helper.getLowestFrequency())
+                .isEqualTo(3);
+        assertThat(helper.frequencyOf("b"))
+                .isEqualTo(7);
+        assertThat(helper.pollLowestFrequencyKey())
+                .isEqualTo("c");
+        assertThat(helper.pollLowestFrequencyKey())
+                .isEqualTo("e");
+        assertThat(helper.pollLowestFrequencyKey())
+                .isEqualTo("a");
+        assertThat(helper.pollLowestFrequencyKey())
+                .isEqualTo("b");
+        assertThat(helper.pollLowestFrequencyKey())
+                .isEqualTo("d");
+    }
+
+    @Test
+    void clearShouldForgetAllKeys() {
+        final LFUCacheHelper<String> helper = new LFUCacheHelper<>(0.5f);
+        helper.rememberFrequency(0, "a");
+        helper.updateFrequency("a");
+        helper.clear();
+
+        assertThat(helper.getLowestFrequency())
+                .isZero();
+        assertThatThrownBy(() -> helper.frequencyOf("a"))
+                .isInstanceOf(NoSuchElementException.class);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.helpers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadBufferTest {
+
+    @Test
+    void stripesCountShouldBePowerOfTwo() {
+        assertThat(new ReadBuffer<String>(1).stripesCount())
+                .isEqualTo(2);
+        assertThat(new ReadBuffer<String>(3).stripesCount())
+                .isEqualTo(8);
+        assertThat(new ReadBuffer<String>(4).stripesCount())
+                .isEqualTo(8);
+        assertThat(new ReadBuffer<String>(1_000).stripesCount())
+                .isEqualTo(64);
+        assertThat(new ReadBuffer<String>().stripesCount())
+                .isPositive();
+    }
+
+    @Test
+    void shouldReportFullStripe() {
+        final ReadBuffer<Integer> buffer = new ReadBuffer<>(1);
+        for (int i = 0; i < ReadBuffer.STRIPE_CAPACITY; ++i) {
+            assertThat(buffer.offer(i))
+                    .isEqualTo(ReadBuffer.Result.SUCCESS);
+        }
+        assertThat(buffer.offer(-1))
+                .isEqualTo(ReadBuffer.Result.FULL);
+
+        final List<Integer> drained = new ArrayList<>();
+        assertThat(buffer.drainTo(drained::add))
+                .isEqualTo(ReadBuffer.STRIPE_CAPACITY);
+        assertThat(drained)
+                .hasSize(ReadBuffer.STRIPE_CAPACITY)
+                .startsWith(0, 1, 2)
+                .doesNotContain(-1);
+        assertThat(buffer.offer(1))
+                .isEqualTo(ReadBuffer.Result.SUCCESS);
+    }
+
+    @Test
+    void drainOfEmptyBuffer() {
+        final ReadBuffer<Integer> buffer = new ReadBuffer<>(2);
+        final AtomicInteger counter = new AtomicInteger();
+        assertThat(buffer.drainTo(e -> counter.incrementAndGet()))
+                .isZero();
+        assertThat(counter)
+                .hasValue(0);
+    }
+}
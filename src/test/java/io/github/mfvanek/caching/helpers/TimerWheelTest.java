@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.helpers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimerWheelTest {
+
+    private final TimerWheel<String> wheel = new TimerWheel<>();
+    private final List<String> expired = new ArrayList<>();
+
+    @Test
+    void keysShouldExpireOnTime() {
+        wheel.schedule("second", TimeUnit.SECONDS.toNanos(1L));
+        wheel.schedule("minutes", TimeUnit.MINUTES.toNanos(2L));
+        wheel.schedule("hours", TimeUnit.HOURS.toNanos(2L));
+        wheel.schedule("days", TimeUnit.DAYS.toNanos(10L));
+        assertThat(wheel.size())
+                .isEqualTo(4);
+        assertThat(wheel.timeOf("minutes"))
+                .isEqualTo(TimeUnit.MINUTES.toNanos(2L));
+        assertThat(wheel.timeOf("unknown"))
+                .isEqualTo(Long.MAX_VALUE);
+
+        assertExpiredAt(TimeUnit.MILLISECONDS.toNanos(500L));
+        assertExpiredAt(TimeUnit.SECONDS.toNanos(3L), "second");
+        assertExpiredAt(TimeUnit.MINUTES.toNanos(1L));
+        assertExpiredAt(TimeUnit.MINUTES.toNanos(3L), "minutes");
+        assertExpiredAt(TimeUnit.HOURS.toNanos(3L), "hours");
+        assertExpiredAt(TimeUnit.DAYS.toNanos(5L));
+        assertExpiredAt(TimeUnit.DAYS.toNanos(11L), "days");
+        assertThat(wheel.size())
+                .isZero();
+    }
+
+    @Test
+    void rescheduledKeyShouldExpireOnce() {
+        wheel.schedule("a", TimeUnit.SECONDS.toNanos(1L));
+        wheel.schedule("b", TimeUnit.SECONDS.toNanos(1L));
+        wheel.schedule("a", TimeUnit.MINUTES.toNanos(1L));
+        wheel.deschedule("b");
+        wheel.deschedule("unknown");
+
+        assertExpiredAt(TimeUnit.SECONDS.toNanos(2L));
+        assertExpiredAt(TimeUnit.MINUTES.toNanos(2L), "a");
+
+        wheel.schedule("c", TimeUnit.MINUTES.toNanos(3L));
+        wheel.clear();
+        assertExpiredAt(TimeUnit.MINUTES.toNanos(4L));
+        assertThat(wheel.size())
+                .isZero();
+    }
+
+    @Test
+    @SuppressWarnings("PMD.UseConcurrentHashMap")
+    void keysShouldNeverExpireEarlyOrLate() {
+        final SplittableRandom random = new SplittableRandom(42L);
+        final Map<String, Long> times = new HashMap<>(10_000);
+        for (int i = 0; i < 10_000; ++i) {
+            final long time = 1L + random.nextLong(TimeUnit.DAYS.toNanos(5L));
+            times.put("key" + i, time);
+            wheel.schedule("key" + i, time);
+        }
+        long now = 0L;
+        while (!times.isEmpty()) {
+            final long previous = now;
+            now += random.nextLong(TimeUnit.MINUTES.toNanos(30L));
+            final long current = now;
+            wheel.advance(now, key -> assertThat(times.remove(key))
+                    .isGreaterThan(previous)
+                    .isLessThanOrEqualTo(current));
+            assertThat(times.values())
+                    .allMatch(time -> time > current);
+        }
+        assertThat(wheel.size())
+                .isZero();
+    }
+
+    private void assertExpiredAt(final long time, final String... keys) {
+        wheel.advance(time, expired::add);
+        assertThat(expired)
+                .containsExactlyInAnyOrder(keys);
+        expired.clear();
+    }
+}
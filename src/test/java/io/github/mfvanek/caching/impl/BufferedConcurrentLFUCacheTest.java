@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.builders.CacheBuilder;
+import io.github.mfvanek.caching.enums.CacheType;
+import io.github.mfvanek.caching.interfaces.LeveledCache;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BufferedConcurrentLFUCacheTest extends BaseLFUCacheTest {
+
+    @Test
+    void singleThreadShouldNotLoseHits() {
+        final LeveledCache<String, Movie> cache = createCache();
+        cache.put(SNOWDEN);
+        cache.put(AQUAMAN);
+        for (int i = 0; i < 100; ++i) {
+            cache.get(Movies.SNOWDEN_IMDB);
+        }
+        cache.get(Movies.AQUAMAN_IMDB);
+
+        assertThat(cache.frequencyOf(Movies.SNOWDEN_IMDB))
+                .isEqualTo(100);
+        assertThat(cache.getLowestFrequency())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void evictionShouldTakeBufferedHitsIntoAccount() {
+        final LeveledCache<String, Movie> cache = createCache();
+        cache.put(SNOWDEN);
+        cache.put(AQUAMAN);
+        cache.get(Movies.SNOWDEN_IMDB);
+
+        assertThat(cache.put(INCEPTION))
+                .hasSize(1)
+                .containsExactly(AQUAMAN);
+        cache.clear();
+        assertThat(cache.size())
+                .isZero();
+    }
+
+    @Override
+    protected LeveledCache<String, Movie> createCache() {
+        return createCache(0.1f);
+    }
+
+    @Override
+    protected LeveledCache<String, Movie> createCache(final int maxSize) {
+        return createCache(maxSize, 0.1f);
+    }
+
+    @Override
+    protected LeveledCache<String, Movie> createCache(final float evictionFactor) {
+        return createCache(MAX_SIZE, evictionFactor);
+    }
+
+    private static LeveledCache<String, Movie> createCache(final int maxSize, final float evictionFactor) {
+        return CacheBuilder.builder(Movie.class)
+                .setCacheType(CacheType.CONCURRENT_LFU)
+                .setBufferedReads(true)
+                .setMaxSize(maxSize)
+                .setEvictionFactor(evictionFactor)
+                .build();
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.builders.CacheBuilder;
+import io.github.mfvanek.caching.enums.CacheType;
+import io.github.mfvanek.caching.interfaces.LeveledCache;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrentLFUCacheTest extends BaseLFUCacheTest {
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 1_000;
+
+    @Test
+    void getLowestFrequency() {
+        final LeveledCache<String, Movie> cache = createCache(3);
+        assertThat(cache.getLowestFrequency())
+                .isZero();
+
+        cache.put(SNOWDEN);
+        cache.put(AQUAMAN);
+        cache.get(Movies.SNOWDEN_IMDB);
+        cache.get(Movies.AQUAMAN_IMDB);
+        cache.get(Movies.AQUAMAN_IMDB);
+        assertThat(cache.getLowestFrequency())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void putShouldReplaceValueAndKeepFrequency() {
+        final LeveledCache<String, Movie> cache = createCache();
+        cache.put(SNOWDEN);
+        cache.get(Movies.SNOWDEN_IMDB);
+        final Movie updated = new Movie("Snowden (director's cut)", 2016, Movies.SNOWDEN_IMDB);
+
+        assertThat(cache.put(updated))
+                .isEmpty();
+        assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                .isEqualTo(updated);
+        assertThat(cache.frequencyOf(Movies.SNOWDEN_IMDB))
+                .isEqualTo(2);
+    }
+
+    @Test
+    void concurrentGetsShouldCountEveryHit() {
+        final LeveledCache<String, Movie> cache = createCache();
+        cache.put(SNOWDEN);
+
+        runConcurrently(() -> {
+            for (int i = 0; i < ITERATIONS; ++i) {
+                assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                        .isEqualTo(SNOWDEN);
+            }
+            return 0;
+        });
+        assertThat(cache.frequencyOf(Movies.SNOWDEN_IMDB))
+                .isEqualTo(THREADS * ITERATIONS);
+    }
+
+    @Test
+    void cacheOfZeroSizeShouldKeepOneItemAtMost() {
+        final LeveledCache<String, Movie> cache = createCache(0);
+        assertThat(cache.put(SNOWDEN))
+                .isEmpty();
+        assertThat(cache.put(AQUAMAN))
+                .containsExactly(SNOWDEN);
+        assertThat(cache.size())
+                .isEqualTo(1);
+        assertThat(cache.get(Movies.AQUAMAN_IMDB))
+                .isEqualTo(AQUAMAN);
+    }
+
+    @Test
+    void concurrentPutsShouldNotExceedMaxSize() {
+        final int maxSize = 100;
+        final LeveledCache<String, Movie> cache = createCache(maxSize);
+        final List<Movie> movies = Movies.getRandomGeneratedMovies(THREADS * ITERATIONS);
+        final AtomicInteger counter = new AtomicInteger();
+
+        final List<Integer> evicted = runConcurrently(() -> {
+            int evictedCount = 0;
+            for (int i = counter.getAndIncrement(); i < movies.size(); i = counter.getAndIncrement()) {
+                final List<Map.Entry<String, Movie>> evictedItems = cache.put(movies.get(i).getIdentifier(), movies.get(i));
+                evictedCount += evictedItems.size();
+                cache.get(movies.get(i).getIdentifier());
+                assertThat(cache.size())
+                        .isLessThanOrEqualTo(maxSize);
+            }
+            return evictedCount;
+        });
+        final int totalEvicted = evicted.stream().mapToInt(Integer::intValue).sum();
+        assertThat(cache.size() + totalEvicted)
+                .isEqualTo(movies.size());
+    }
+
+    @SneakyThrows
+    private static List<Integer> runConcurrently(final Callable<Integer> task) {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final List<Future<Integer>> futures = new ArrayList<>(THREADS);
+            for (int i = 0; i < THREADS; ++i) {
+                futures.add(executor.submit(task));
+            }
+            final List<Integer> results = new ArrayList<>(THREADS);
+            for (final Future<Integer> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    protected LeveledCache<String, Movie> createCache() {
+        return createCache(0.1f);
+    }
+
+    @Override
+    protected LeveledCache<String, Movie> createCache(final int maxSize) {
+        return createCache(maxSize, 0.1f);
+    }
+
+    @Override
+    protected LeveledCache<String, Movie> createCache(final float evictionFactor) {
+        return createCache(MAX_SIZE, evictionFactor);
+    }
+
+    private static LeveledCache<String, Movie> createCache(final int maxSize, final float evictionFactor) {
+        return CacheBuilder.builder(Movie.class)
+                .setCacheType(CacheType.CONCURRENT_LFU)
+                .setMaxSize(maxSize)
+                .setEvictionFactor(evictionFactor)
+                .build();
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.enums.ExpirationPolicy;
+import io.github.mfvanek.caching.interfaces.LeveledCache;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExpiringCacheTest {
+
+    private static final Movie SNOWDEN = Movies.getSnowden();
+    private static final Movie AQUAMAN = Movies.getAquaman();
+    private static final Movie INCEPTION = Movies.getInception();
+    private static final Duration TEN_SECONDS = Duration.ofSeconds(10L);
+
+    private final List<Runnable> sweepers = new ArrayList<>();
+    private long now;
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void itemsShouldExpireAfterWrite() throws IOException {
+        final LeveledCache<String, Movie> delegate = new LFUCache<>(Movie.class, 2, 0.5f);
+        try (ExpiringCache<String, Movie> cache = createWithStoppedSweeper(delegate, ExpirationPolicy.AFTER_WRITE, TEN_SECONDS)) {
+            cache.put(SNOWDEN);
+            advanceSeconds(5L);
+            assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(SNOWDEN);
+            cache.put(AQUAMAN);
+
+            advanceSeconds(6L);
+            assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                    .as("reads don't prolong the lifetime")
+                    .isNull();
+            assertThat(delegate.containsKey(Movies.SNOWDEN_IMDB))
+                    .isFalse();
+            assertThat(cache.containsKey(Movies.AQUAMAN_IMDB))
+                    .isTrue();
+            assertThat(cache.size())
+                    .isEqualTo(1);
+
+            advanceSeconds(5L);
+            assertThat(cache.size())
+                    .isZero();
+        }
+    }
+
+    @Test
+    void itemsShouldExpireAfterAccess() throws IOException {
+        final LeveledCache<String, Movie> delegate = new LFUCache<>(Movie.class, 2, 0.5f);
+        try (ExpiringCache<String, Movie> cache = createWithStoppedSweeper(delegate, ExpirationPolicy.AFTER_ACCESS, TEN_SECONDS)) {
+            cache.putAll(Map.of(Movies.SNOWDEN_IMDB, SNOWDEN, Movies.AQUAMAN_IMDB, AQUAMAN));
+            advanceSeconds(8L);
+            assertThat(cache.getAll(List.of(Movies.SNOWDEN_IMDB, Movies.INCEPTION_IMDB)))
+                    .containsOnlyKeys(Movies.SNOWDEN_IMDB);
+
+            advanceSeconds(8L);
+            assertThat(cache.getAll(List.of(Movies.SNOWDEN_IMDB, Movies.AQUAMAN_IMDB)))
+                    .containsOnlyKeys(Movies.SNOWDEN_IMDB);
+            assertThat(cache.frequencyOf(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(delegate.frequencyOf(Movies.SNOWDEN_IMDB));
+
+            advanceSeconds(11L);
+            assertThatThrownBy(() -> cache.frequencyOf(Movies.SNOWDEN_IMDB))
+                    .isInstanceOf(NoSuchElementException.class);
+            assertThat(delegate.size())
+                    .isZero();
+        }
+    }
+
+    @Test
+    void expirationShouldBePreciseBetweenTicksOfWheel() throws IOException {
+        final LeveledCache<String, Movie> delegate = new LFUCache<>(Movie.class, 2, 0.5f);
+        try (ExpiringCache<String, Movie> cache = createWithStoppedSweeper(delegate, ExpirationPolicy.AFTER_WRITE, Duration.ofMillis(100L))) {
+            cache.put(SNOWDEN);
+            cache.put(AQUAMAN);
+            cache.put(INCEPTION);
+            now += TimeUnit.MILLISECONDS.toNanos(150L);
+
+            assertThat(cache.containsKey(Movies.SNOWDEN_IMDB))
+                    .isFalse();
+            assertThat(cache.remove(Movies.AQUAMAN_IMDB))
+                    .isNull();
+            assertThat(cache.get(Movies.INCEPTION_IMDB))
+                    .isNull();
+            assertThat(delegate.size())
+                    .isZero();
+
+            cache.put(SNOWDEN);
+            assertThat(cache.remove(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(SNOWDEN);
+        }
+    }
+
+    @Test
+    void expiredItemsShouldNotTakePartInEviction() throws IOException {
+        final LeveledCache<String, Movie> delegate = new LFUCache<>(Movie.class, 2, 0.5f);
+        try (ExpiringCache<String, Movie> cache = createWithStoppedSweeper(delegate, ExpirationPolicy.AFTER_WRITE, TEN_SECONDS)) {
+            cache.put(SNOWDEN);
+            advanceSeconds(5L);
+            cache.put(AQUAMAN);
+            cache.get(Movies.AQUAMAN_IMDB);
+
+            advanceSeconds(6L);
+            assertThat(cache.put(INCEPTION))
+                    .as("the expired item has made room for the new one")
+                    .isEmpty();
+            assertThat(cache.getLowestFrequency())
+                    .isZero();
+            assertThat(delegate.containsKey(Movies.AQUAMAN_IMDB))
+                    .isTrue();
+            cache.clear();
+            assertThat(cache.size())
+                    .isZero();
+        }
+    }
+
+    @Test
+    void recoveredItemsShouldStartLifetimeOnFirstRead() throws IOException {
+        final LeveledCache<String, Movie> delegate = new LFUCache<>(Movie.class, 2, 0.5f);
+        delegate.put(SNOWDEN);
+        try (ExpiringCache<String, Movie> cache = createWithStoppedSweeper(delegate, ExpirationPolicy.AFTER_WRITE, TEN_SECONDS)) {
+            advanceSeconds(20L);
+            assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(SNOWDEN);
+            advanceSeconds(9L);
+            assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(SNOWDEN);
+            advanceSeconds(2L);
+            assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                    .isNull();
+        }
+    }
+
+    @Test
+    void expiredItemsShouldBeRemovedFromBothLevels() throws IOException {
+        final LeveledCache<String, Movie> firstLevel = new LFUCache<>(Movie.class, 1, 1.0f);
+        final PersistenceLFUCache<String, Movie> secondLevel = new PersistenceLFUCache<>(Movie.class, 2, 0.5f, tempDir);
+        try (ExpiringCache<String, Movie> cache = createWithStoppedSweeper(
+                new TwoLevelsCache<>(firstLevel, secondLevel), ExpirationPolicy.AFTER_WRITE, TEN_SECONDS)) {
+            cache.put(SNOWDEN);
+            cache.put(AQUAMAN);
+            assertThat(secondLevel.containsKey(Movies.SNOWDEN_IMDB))
+                    .isTrue();
+
+            advanceSeconds(11L);
+            assertThat(cache.size())
+                    .isZero();
+            assertThat(secondLevel.size())
+                    .isZero();
+        }
+    }
+
+    @Test
+    void sweeperShouldRemoveExpiredItems() throws IOException {
+        final LeveledCache<String, Movie> delegate = new ConcurrentLFUCache<>(Movie.class, 2, 0.5f, false);
+        try (ExpiringCache<String, Movie> cache = new ExpiringCache<>(delegate, ExpirationPolicy.AFTER_WRITE, Duration.ofMillis(10L))) {
+            cache.put(SNOWDEN);
+            awaitUntil(() -> !delegate.containsKey(Movies.SNOWDEN_IMDB));
+            assertThat(delegate.size())
+                    .isZero();
+        }
+    }
+
+    @Test
+    void sweeperShouldSurviveFailures() throws IOException, InterruptedException {
+        final FailingRemovalCache delegate = new FailingRemovalCache();
+        try (ExpiringCache<String, Movie> cache = createWithStoppedSweeper(delegate, ExpirationPolicy.AFTER_WRITE, TEN_SECONDS)) {
+            cache.put(SNOWDEN);
+            advanceSeconds(11L);
+            final Thread sweeper = new Thread(sweepers.get(0));
+            sweeper.start();
+            awaitUntil(() -> delegate.failures.get() > 0);
+            assertThat(sweeper.isAlive())
+                    .isTrue();
+            sweeper.interrupt();
+            sweeper.join();
+        }
+    }
+
+    @Test
+    void durationShouldBePositive() {
+        final LeveledCache<String, Movie> delegate = new LFUCache<>(Movie.class, 2, 0.5f);
+        assertThatThrownBy(() -> new ExpiringCache<>(delegate, ExpirationPolicy.AFTER_WRITE, Duration.ZERO))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Duration must be positive");
+        assertThatThrownBy(() -> new ExpiringCache<>(delegate, ExpirationPolicy.AFTER_ACCESS, Duration.ofSeconds(-1L)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private ExpiringCache<String, Movie> createWithStoppedSweeper(final LeveledCache<String, Movie> delegate,
+                                                                  final ExpirationPolicy policy,
+                                                                  final Duration duration) {
+        return new ExpiringCache<>(delegate, policy, duration, () -> now, sweepers::add);
+    }
+
+    private void advanceSeconds(final long seconds) {
+        now += TimeUnit.SECONDS.toNanos(seconds);
+    }
+
+    private static void awaitUntil(final BooleanSupplier condition) {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime())
+                    .isLessThan(deadline);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10L));
+        }
+    }
+
+    private static final class FailingRemovalCache extends LFUCache<String, Movie> {
+
+        private final AtomicInteger failures = new AtomicInteger();
+
+        FailingRemovalCache() {
+            super(Movie.class, 2, 0.5f);
+        }
+
+        @Override
+        public Movie remove(final String key) {
+            failures.incrementAndGet();
+            throw new IllegalStateException("Failed to remove");
+        }
+    }
+}
@@ -10,11 +10,38 @@ package io.github.mfvanek.caching.impl;
 import io.github.mfvanek.caching.builders.CacheBuilder;
 import io.github.mfvanek.caching.enums.CacheType;
 import io.github.mfvanek.caching.interfaces.LeveledCache;
+import io.github.mfvanek.caching.interfaces.RemovalListener;
 import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
 
-@SuppressWarnings("PMD.TestClassWithoutTestCases")
 class LFUCacheTest extends BaseLFUCacheTest {
 
+    private static final int STEADY_STATE_SIZE = 100;
+
+    @Test
+    void steadyStateGetAndPutShouldNotAllocate() {
+        final Movie[] movies = Movies.getRandomGeneratedMovies(STEADY_STATE_SIZE).toArray(new Movie[0]);
+        final LFUCache<String, Movie> cache = new LFUCache<>(Movie.class, STEADY_STATE_SIZE, 0.1f);
+        final RemovalListener<String, Movie> listener = RemovalListener.discarding();
+        final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (final Movie movie : movies) {
+            cache.put(movie.getIdentifier(), movie, listener);
+        }
+        // The first round creates the frequency nodes that the next rounds reuse
+        touchAll(cache, movies, listener);
+        final long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        touchAll(cache, movies, listener);
+        assertThat(threads.getCurrentThreadAllocatedBytes() - allocatedBefore)
+                .isZero();
+        assertThat(cache.frequencyOf(movies[0].getIdentifier()))
+                .isEqualTo(2);
+    }
+
     @Override
     protected LeveledCache<String, Movie> createCache() {
         return createCache(0.1f);
@@ -37,4 +64,11 @@ class LFUCacheTest extends BaseLFUCacheTest {
                 .setEvictionFactor(evictionFactor)
                 .build();
     }
+
+    private static void touchAll(final LeveledCache<String, Movie> cache, final Movie[] movies, final RemovalListener<String, Movie> listener) {
+        for (final Movie movie : movies) {
+            cache.get(movie.getIdentifier());
+            cache.put(movie.getIdentifier(), movie, listener);
+        }
+    }
 }
@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.builders.TwoLevelsCacheBuilder;
+import io.github.mfvanek.caching.interfaces.CacheLoader;
+import io.github.mfvanek.caching.interfaces.LeveledCache;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoadingCacheTest {
+
+    private static final Movie SNOWDEN = Movies.getSnowden();
+    private static final Movie AQUAMAN = Movies.getAquaman();
+    private static final Movie INCEPTION = Movies.getInception();
+    private static final Map<String, Movie> SOURCE = Map.of(
+            Movies.SNOWDEN_IMDB, SNOWDEN,
+            Movies.AQUAMAN_IMDB, AQUAMAN,
+            Movies.INCEPTION_IMDB, INCEPTION);
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void missingItemsShouldBeLoadedOnce() throws IOException {
+        final LeveledCache<String, Movie> delegate = new ConcurrentLFUCache<>(Movie.class, 2, 0.5f, false);
+        try (LoadingCache<String, Movie> cache = new LoadingCache<>(delegate)) {
+            assertThat(cache.get(Movies.SNOWDEN_IMDB, this::load))
+                    .isEqualTo(SNOWDEN);
+            assertThat(cache.get(Movies.SNOWDEN_IMDB, this::load))
+                    .isEqualTo(SNOWDEN);
+            assertThat(delegate.containsKey(Movies.SNOWDEN_IMDB))
+                    .isTrue();
+            assertThat(cache.get(Movies.ARRIVAL_IMDB, this::load))
+                    .isNull();
+            assertThat(cache.get(Movies.ARRIVAL_IMDB, this::load))
+                    .as("missing values are not cached")
+                    .isNull();
+            assertThat(loads)
+                    .hasValue(3);
+        }
+    }
+
+    @Test
+    void concurrentMissesShouldShareSingleLoad() throws IOException, InterruptedException {
+        try (LoadingCache<String, Movie> cache = new LoadingCache<>(new ConcurrentLFUCache<>(Movie.class, 2, 0.5f, false))) {
+            final Map<Thread, Movie> results = new ConcurrentHashMap<>();
+            final List<Thread> threads = new ArrayList<>(4);
+            for (int i = 0; i < 4; ++i) {
+                threads.add(new Thread(() -> results.put(Thread.currentThread(), cache.get(Movies.SNOWDEN_IMDB, this::awaitAndLoad))));
+            }
+            threads.forEach(Thread::start);
+            awaitUntil(() -> threads.stream().allMatch(t -> t.getState() == Thread.State.WAITING));
+            release.countDown();
+            for (final Thread thread : threads) {
+                thread.join();
+            }
+
+            assertThat(results)
+                    .hasSize(4)
+                    .allSatisfy((thread, movie) -> assertThat(movie).isEqualTo(SNOWDEN));
+            assertThat(loads)
+                    .hasValue(1);
+        }
+    }
+
+    @Test
+    void failedLoadShouldBeSharedAndNotCached() throws IOException, InterruptedException {
+        try (LoadingCache<String, Movie> cache = new LoadingCache<>(new ConcurrentLFUCache<>(Movie.class, 2, 0.5f, false))) {
+            final Map<Thread, Throwable> failures = new ConcurrentHashMap<>();
+            final CacheLoader<String, Movie> failingLoader = key -> {
+                awaitAndLoad(key);
+                throw new IllegalStateException("The source is unavailable");
+            };
+            final Thread loader = new Thread(() -> cache.get(Movies.SNOWDEN_IMDB, failingLoader));
+            loader.setUncaughtExceptionHandler((t, e) -> failures.put(t, e));
+            loader.start();
+            awaitUntil(() -> loader.getState() == Thread.State.WAITING);
+            final Thread waiter = new Thread(() -> cache.get(Movies.SNOWDEN_IMDB, this::load));
+            waiter.setUncaughtExceptionHandler((t, e) -> failures.put(t, e));
+            waiter.start();
+            awaitUntil(() -> waiter.getState() == Thread.State.WAITING);
+            release.countDown();
+            loader.join();
+            waiter.join();
+
+            assertThat(failures)
+                    .hasSize(2);
+            assertThat(failures.get(loader))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessage("The source is unavailable");
+            assertThat(failures.get(waiter))
+                    .isInstanceOf(CompletionException.class)
+                    .hasCause(failures.get(loader));
+            assertThatThrownBy(() -> cache.get(Movies.SNOWDEN_IMDB, failingLoader))
+                    .isInstanceOf(IllegalStateException.class);
+            assertThat(cache.get(Movies.SNOWDEN_IMDB, this::load))
+                    .isEqualTo(SNOWDEN);
+        }
+    }
+
+    @Test
+    void missingItemsShouldBeLoadedInBatch() throws IOException, InterruptedException {
+        try (LoadingCache<String, Movie> cache = new LoadingCache<>(new ConcurrentLFUCache<>(Movie.class, 4, 0.5f, false))) {
+            cache.put(SNOWDEN);
+            final AtomicInteger batches = new AtomicInteger();
+            final CacheLoader<String, Movie> batchLoader = new CacheLoader<>() {
+                @Override
+                public Movie load(final String key) {
+                    return LoadingCacheTest.this.load(key);
+                }
+
+                @Override
+                public Map<String, Movie> loadAll(final Collection<? extends String> keys) {
+                    batches.incrementAndGet();
+                    return CacheLoader.super.loadAll(keys);
+                }
+            };
+            final Thread loader = new Thread(() -> cache.get(Movies.AQUAMAN_IMDB, this::awaitAndLoad));
+            loader.start();
+            awaitUntil(() -> loader.getState() == Thread.State.WAITING);
+            final Map<String, Movie> results = new ConcurrentHashMap<>();
+            final Thread batch = new Thread(() -> results.putAll(cache.getAll(
+                    List.of(Movies.SNOWDEN_IMDB, Movies.AQUAMAN_IMDB, Movies.INCEPTION_IMDB, Movies.ARRIVAL_IMDB), batchLoader)));
+            batch.start();
+            awaitUntil(() -> batch.getState() == Thread.State.WAITING);
+            release.countDown();
+            loader.join();
+            batch.join();
+
+            assertThat(results)
+                    .containsOnlyKeys(Movies.SNOWDEN_IMDB, Movies.AQUAMAN_IMDB, Movies.INCEPTION_IMDB);
+            assertThat(batches)
+                    .hasValue(1);
+            assertThat(loads)
+                    .as("the shared key has been loaded by the first thread only")
+                    .hasValue(3);
+            assertThat(cache.getAll(List.of(Movies.SNOWDEN_IMDB, Movies.AQUAMAN_IMDB, Movies.INCEPTION_IMDB), batchLoader))
+                    .hasSize(3);
+            assertThat(batches)
+                    .hasValue(1);
+        }
+    }
+
+    @Test
+    void threadUnsafeCacheShouldBeAccessedUnderLock() throws IOException, InterruptedException {
+        final Map<String, Movie> source = Movies.getRandomGeneratedMovies(32).stream()
+                .collect(Collectors.toMap(Movie::getIdentifier, Function.identity()));
+        try (LoadingCache<String, Movie> cache = new LoadingCache<>(TwoLevelsCacheBuilder.builder(Movie.class)
+                .setFirstLevelMaxSize(4)
+                .setSecondLevelMaxSize(8)
+                .setBaseDirectory(tempDir)
+                .build())) {
+            final Map<Thread, Throwable> failures = new ConcurrentHashMap<>();
+            final AtomicInteger mismatches = new AtomicInteger();
+            final List<Thread> threads = IntStream.range(0, 4)
+                    .mapToObj(i -> new Thread(() -> readAll(cache, source, i, mismatches)))
+                    .toList();
+            threads.forEach(thread -> thread.setUncaughtExceptionHandler((t, e) -> failures.put(t, e)));
+            threads.forEach(Thread::start);
+            for (final Thread thread : threads) {
+                thread.join();
+            }
+
+            assertThat(failures)
+                    .isEmpty();
+            assertThat(mismatches)
+                    .hasValue(0);
+            assertThat(cache.size())
+                    .isLessThanOrEqualTo(12);
+        }
+    }
+
+    @Test
+    void otherOperationsShouldBeDelegated() throws IOException {
+        // Decorators can be stacked; the inner one is closed by the outer one
+        final LeveledCache<String, Movie> delegate = new LoadingCache<>(new ConcurrentLFUCache<>(Movie.class, 2, 0.5f, false));
+        try (LoadingCache<String, Movie> cache = new LoadingCache<>(delegate)) {
+            assertThat(cache.putAll(Map.of(Movies.SNOWDEN_IMDB, SNOWDEN)))
+                    .isEmpty();
+            cache.put(AQUAMAN);
+            assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(SNOWDEN);
+            assertThat(cache.getAll(List.of(Movies.AQUAMAN_IMDB)))
+                    .containsOnlyKeys(Movies.AQUAMAN_IMDB);
+            assertThat(cache.containsKey(Movies.AQUAMAN_IMDB))
+                    .isTrue();
+            assertThat(cache.frequencyOf(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(delegate.frequencyOf(Movies.SNOWDEN_IMDB));
+            assertThat(cache.getLowestFrequency())
+                    .isEqualTo(delegate.getLowestFrequency());
+            assertThat(cache.remove(Movies.AQUAMAN_IMDB))
+                    .isEqualTo(AQUAMAN);
+            assertThat(cache.removeAll(List.of(Movies.SNOWDEN_IMDB)))
+                    .containsOnlyKeys(Movies.SNOWDEN_IMDB);
+            cache.put(INCEPTION);
+            cache.clear();
+            assertThat(cache.size())
+                    .isZero();
+        }
+    }
+
+    private Movie load(final String key) {
+        loads.incrementAndGet();
+        return SOURCE.get(key);
+    }
+
+    private Movie awaitAndLoad(final String key) {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return load(key);
+    }
+
+    /**
+     * Reads all keys of the source many times; each thread starts from its own key, so threads miss different keys.
+     */
+    private static void readAll(final LeveledCache<String, Movie> cache,
+                                final Map<String, Movie> source,
+                                final int start,
+                                final AtomicInteger mismatches) {
+        final List<String> keys = List.copyOf(source.keySet());
+        for (int i = 0; i < 1_000; ++i) {
+            final String key = keys.get((start + i * 7) % keys.size());
+            if (!source.get(key).equals(cache.get(key, source::get))) {
+                mismatches.incrementAndGet();
+            }
+        }
+    }
+
+    private static void awaitUntil(final BooleanSupplier condition) {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime())
+                    .isLessThan(deadline);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10L));
+        }
+    }
+}
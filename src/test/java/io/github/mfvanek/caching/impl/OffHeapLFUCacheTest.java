@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.builders.CacheBuilder;
+import io.github.mfvanek.caching.enums.CacheType;
+import io.github.mfvanek.caching.interfaces.LeveledCache;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import io.github.mfvanek.caching.serializers.RecordValueSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffHeapLFUCacheTest extends BaseLFUCacheTest {
+
+    @Test
+    void evictionShouldKeepValuesReadable() {
+        final int maxSize = 100;
+        try (OffHeapLFUCache<String, Movie> cache = new OffHeapLFUCache<>(Movie.class, maxSize, 0.1f,
+                new RecordValueSerializer<>(Movie.class))) {
+            final List<Movie> movies = Movies.getRandomGeneratedMovies(maxSize * 3);
+            movies.forEach(cache::put);
+
+            assertThat(cache.size())
+                    .isLessThanOrEqualTo(maxSize);
+            final Movie last = movies.get(movies.size() - 1);
+            assertThat(cache.get(last.getIdentifier()))
+                    .isEqualTo(last);
+        }
+    }
+
+    @Override
+    protected LeveledCache<String, Movie> createCache() {
+        return createCache(0.1f);
+    }
+
+    @Override
+    protected LeveledCache<String, Movie> createCache(final int maxSize) {
+        return createCache(maxSize, 0.1f);
+    }
+
+    @Override
+    protected LeveledCache<String, Movie> createCache(final float evictionFactor) {
+        return createCache(MAX_SIZE, evictionFactor);
+    }
+
+    private static LeveledCache<String, Movie> createCache(final int maxSize, final float evictionFactor) {
+        return CacheBuilder.builder(Movie.class)
+                .setCacheType(CacheType.OFF_HEAP_LFU)
+                .setMaxSize(maxSize)
+                .setEvictionFactor(evictionFactor)
+                .build();
+    }
+}
@@ -14,6 +14,8 @@ import io.github.mfvanek.caching.models.Movie;
 import io.github.mfvanek.caching.models.Movies;
 import org.junit.jupiter.api.Test;
 
+import java.nio.file.Path;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 class PersistenceLFUCacheTest extends BaseLFUCacheTest {
@@ -41,6 +43,20 @@ class PersistenceLFUCacheTest extends BaseLFUCacheTest {
                 .isZero();
     }
 
+    @Test
+    void closeShouldKeepFilesOnDisk() {
+        final Path directory = tempDir.resolve("close");
+        try (PersistenceLFUCache<String, Movie> cache = new PersistenceLFUCache<>(Movie.class, MAX_SIZE, 0.1f, directory)) {
+            cache.put(SNOWDEN);
+            assertThat(cache.get(Movies.AQUAMAN_IMDB))
+                    .isNull();
+            assertThat(cache.getLowestFrequency())
+                    .isZero();
+        }
+        assertThat(directory.toFile().list())
+                .hasSize(1);
+    }
+
     @Override
     protected LeveledCache<String, Movie> createCache() {
         return createCache(0.1f);
@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.builders.CacheBuilder;
+import io.github.mfvanek.caching.builders.TwoLevelsCacheBuilder;
+import io.github.mfvanek.caching.enums.CacheType;
+import io.github.mfvanek.caching.interfaces.Cacheable;
+import io.github.mfvanek.caching.interfaces.LeveledCache;
+import io.github.mfvanek.caching.interfaces.RemovalListener;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PrimitiveKeyLFUCacheTest {
+
+    private static final long SEED = 42L;
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void leastFrequentlyUsedItemsShouldBeEvicted() {
+        final LongKeyLFUCache<Account> cache = new LongKeyLFUCache<>(4, 0.5f);
+        accounts(4).forEach(account -> cache.put(account.id(), account));
+        cache.get(1L);
+        cache.get(2L);
+        cache.get(2L);
+        cache.get(4L);
+
+        final List<Long> evictedKeys = new ArrayList<>();
+        cache.put(5L, new Account(5L), (key, value, cause) -> evictedKeys.add(key));
+        assertThat(evictedKeys)
+                .as("the oldest of the items with the same frequency goes first")
+                .containsExactlyInAnyOrder(3L, 1L);
+        assertThat(cache.size())
+                .isEqualTo(3);
+        assertThat(cache.frequencyOf(2L))
+                .isEqualTo(2);
+        assertThat(cache.getLowestFrequency())
+                .isZero();
+
+        assertThat(cache.put(6L, new Account(6L)))
+                .isEmpty();
+        assertThat(cache.put(7L, new Account(7L)))
+                .extracting(Map.Entry::getKey)
+                .containsExactlyInAnyOrder(5L, 6L);
+        assertThat(cache.getLowestFrequency())
+                .isZero();
+        cache.clear();
+        assertThat(cache.size())
+                .isZero();
+        assertThat(cache.get(2L))
+                .isNull();
+        assertThat(cache.getLowestFrequency())
+                .isZero();
+    }
+
+    @Test
+    @SuppressWarnings("PMD.UseConcurrentHashMap")
+    void evictedItemsShouldBeLessFrequentlyUsedThanRemainingOnes() {
+        final LongKeyLFUCache<Account> cache = new LongKeyLFUCache<>(100, 0.1f);
+        final Map<Long, Integer> frequencies = new HashMap<>(256);
+        final SplittableRandom random = new SplittableRandom(SEED);
+        final int[] maxEvictedFrequency = {-1};
+        final RemovalListener<Long, Account> listener = (key, value, cause) ->
+                maxEvictedFrequency[0] = Math.max(maxEvictedFrequency[0], frequencies.remove(key));
+        for (final Account account : accounts(2_000)) {
+            maxEvictedFrequency[0] = -1;
+            cache.put(account.id(), account, listener);
+            assertThat(maxEvictedFrequency[0])
+                    .isLessThanOrEqualTo(frequencies.values().stream().mapToInt(Integer::intValue).min().orElse(0));
+            frequencies.put(account.id(), 0);
+            for (final Long key : List.copyOf(frequencies.keySet())) {
+                if (random.nextInt(4) == 0 && cache.get(key) != null) {
+                    frequencies.merge(key, 1, Integer::sum);
+                }
+            }
+            assertThat(cache.size())
+                    .isEqualTo(frequencies.size());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("PMD.UseConcurrentHashMap")
+    void tableShouldBehaveLikeMap() {
+        final LeveledCache<Long, Account> cache = new LongKeyLFUCache<>(1_000, 0.2f);
+        final Map<Long, Account> expected = new HashMap<>();
+        final SplittableRandom random = new SplittableRandom(SEED);
+        // Keys far from each other, including negative ones
+        final List<Account> accounts = LongStream.range(-300L, 300L)
+                .mapToObj(id -> new Account(id * 1_000_003L))
+                .toList();
+        for (int i = 0; i < 50_000; ++i) {
+            final Account account = accounts.get(random.nextInt(accounts.size()));
+            final long key = account.id();
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    cache.put(key, account);
+                    expected.put(key, account);
+                }
+                case 1 -> assertThat(cache.remove(key))
+                        .isEqualTo(expected.remove(key));
+                default -> assertThat(cache.get(key))
+                        .isEqualTo(expected.get(key));
+            }
+            assertThat(cache.containsKey(key))
+                    .isEqualTo(expected.containsKey(key));
+        }
+        assertThat(cache.size())
+                .isEqualTo(expected.size());
+        expected.forEach((key, value) -> assertThat(cache.get(key)).isEqualTo(value));
+    }
+
+    @Test
+    void intKeysShouldBeSupported() {
+        final IntKeyLFUCache<Counter> cache = new IntKeyLFUCache<>(2, 0.5f);
+        cache.put(1, new Counter(1));
+        cache.put(-1, new Counter(-1));
+        cache.get(1);
+        assertThat(cache.put(3, new Counter(3)))
+                .extracting(Map.Entry::getKey)
+                .containsExactly(-1);
+        assertThat(cache.containsKey(3))
+                .isTrue();
+        assertThat(cache.frequencyOf(1))
+                .isEqualTo(1);
+        assertThat(cache.remove(1))
+                .isEqualTo(new Counter(1));
+        assertThat(cache.remove(42))
+                .isNull();
+        final List<Integer> evictedKeys = new ArrayList<>();
+        cache.put(4, new Counter(4), (key, value, cause) -> evictedKeys.add(key));
+        cache.put(5, new Counter(5), (key, value, cause) -> evictedKeys.add(key));
+        assertThat(evictedKeys)
+                .containsExactly(3);
+        assertThat(cache.get(5))
+                .isEqualTo(new Counter(5));
+        assertThatThrownBy(() -> cache.frequencyOf(42))
+                .isInstanceOf(NoSuchElementException.class)
+                .hasMessage("Key 42 not found in the cache");
+    }
+
+    @Test
+    void primitiveOverloadsShouldMatchBoxedOnes() {
+        final LongKeyLFUCache<Account> cache = new LongKeyLFUCache<>(2, 1.0f);
+        final Long boxedKey = 1L;
+        cache.put(boxedKey, new Account(1L), RemovalListener.discarding());
+        assertThat(cache.containsKey(1L))
+                .isTrue();
+        assertThat(cache.get(boxedKey))
+                .isEqualTo(cache.get(1L));
+        assertThat(cache.frequencyOf(boxedKey))
+                .isEqualTo(cache.frequencyOf(1L))
+                .isEqualTo(2);
+        assertThat(cache.remove(1L))
+                .isEqualTo(new Account(1L));
+        assertThat(cache.containsKey(boxedKey))
+                .isFalse();
+    }
+
+    @Test
+    void cacheBuildersShouldCreatePrimitiveKeyCaches() throws IOException {
+        assertThat(CacheBuilder.builder(Account.class).setCacheType(CacheType.LONG_KEY_LFU).build())
+                .isInstanceOf(LongKeyLFUCache.class);
+        assertThat(CacheBuilder.builder(Counter.class).setCacheType(CacheType.INT_KEY_LFU).build())
+                .isInstanceOf(IntKeyLFUCache.class);
+        try (TwoLevelsCache<Long, Account> cache = TwoLevelsCacheBuilder.builder(Account.class)
+                .setFirstLevelCacheType(CacheType.LONG_KEY_LFU)
+                .setFirstLevelMaxSize(2)
+                .setBaseDirectory(tempDir)
+                .build()) {
+            accounts(3).forEach(cache::put);
+            assertThat(cache.size())
+                    .isEqualTo(3);
+            assertThat(cache.get(1L))
+                    .isEqualTo(new Account(1L));
+        }
+    }
+
+    @Test
+    void cacheBuilderShouldRejectValuesWithOtherIdentifiers() {
+        final CacheBuilder<Integer, Counter> builder = CacheBuilder.builder(Counter.class).setCacheType(CacheType.LONG_KEY_LFU);
+        assertThatThrownBy(builder::build)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("LONG_KEY_LFU cache requires values with Long identifiers");
+        builder.setCacheType(CacheType.INT_KEY_LFU);
+        assertThat(builder.build())
+                .isInstanceOf(IntKeyLFUCache.class);
+        final CacheBuilder<Long, Account> accountBuilder = CacheBuilder.builder(Account.class).setCacheType(CacheType.INT_KEY_LFU);
+        assertThatThrownBy(accountBuilder::build)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("INT_KEY_LFU cache requires values with Integer identifiers");
+    }
+
+    @Test
+    void maxCacheSizeShouldBePositive() {
+        assertThatThrownBy(() -> new LongKeyLFUCache<>(0, 0.5f))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Max cache size must be positive");
+    }
+
+    /**
+     * Creates accounts with identifiers from 1 to the given number.
+     */
+    private static List<Account> accounts(final int count) {
+        return LongStream.rangeClosed(1L, count)
+                .mapToObj(Account::new)
+                .toList();
+    }
+
+    private record Account(long id) implements Cacheable<Long>, Serializable {
+
+        @Override
+        public Long getIdentifier() {
+            return id;
+        }
+    }
+
+    private record Counter(int id) implements Cacheable<Integer>, Serializable {
+
+        @Override
+        public Integer getIdentifier() {
+            return id;
+        }
+    }
+}
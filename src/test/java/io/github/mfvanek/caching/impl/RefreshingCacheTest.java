@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.interfaces.CacheLoader;
+import io.github.mfvanek.caching.interfaces.LeveledCache;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SuppressWarnings("PMD.TooManyMethods")
+class RefreshingCacheTest {
+
+    private static final Movie SNOWDEN = Movies.getSnowden();
+    private static final Movie AQUAMAN = Movies.getAquaman();
+    private static final Movie INCEPTION = Movies.getInception();
+    private static final Duration TEN_SECONDS = Duration.ofSeconds(10L);
+
+    private final Map<String, Movie> source = new ConcurrentHashMap<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final List<Runnable> reloads = new ArrayList<>();
+    private long now;
+    private long loadSeconds;
+    private double uniform = 1.0;
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void staleItemShouldBeReturnedWhileReloading() throws IOException {
+        final LeveledCache<String, Movie> delegate = new LFUCache<>(Movie.class, 2, 0.5f);
+        try (RefreshingCache<String, Movie> cache = createWithCapturedReloads(delegate, 0.0)) {
+            cache.put(SNOWDEN);
+            advanceSeconds(9L);
+            assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(SNOWDEN);
+            assertThat(reloads)
+                    .isEmpty();
+
+            advanceSeconds(1L);
+            source.put(Movies.SNOWDEN_IMDB, remake(SNOWDEN));
+            assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                    .as("the current value is returned without waiting for the source")
+                    .isEqualTo(SNOWDEN);
+            assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(SNOWDEN);
+            assertThat(reloads)
+                    .as("a single reload per key is in flight")
+                    .hasSize(1);
+
+            runReloads();
+            assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(remake(SNOWDEN));
+            advanceSeconds(9L);
+            assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(remake(SNOWDEN));
+            assertThat(reloads)
+                    .isEmpty();
+            assertThat(loads)
+                    .hasValue(1);
+        }
+    }
+
+    @Test
+    void itemsOfBothLevelsShouldBeRefreshed() throws IOException {
+        final LeveledCache<String, Movie> firstLevel = new LFUCache<>(Movie.class, 1, 1.0f);
+        final PersistenceLFUCache<String, Movie> secondLevel = new PersistenceLFUCache<>(Movie.class, 2, 0.5f, tempDir);
+        try (RefreshingCache<String, Movie> cache = createWithCapturedReloads(new TwoLevelsCache<>(firstLevel, secondLevel), 0.0)) {
+            cache.putAll(Map.of(Movies.SNOWDEN_IMDB, SNOWDEN));
+            cache.put(AQUAMAN);
+            assertThat(secondLevel.containsKey(Movies.SNOWDEN_IMDB))
+                    .isTrue();
+            source.put(Movies.SNOWDEN_IMDB, remake(SNOWDEN));
+            source.put(Movies.AQUAMAN_IMDB, remake(AQUAMAN));
+
+            advanceSeconds(11L);
+            assertThat(cache.getAll(List.of(Movies.SNOWDEN_IMDB, Movies.AQUAMAN_IMDB, Movies.INCEPTION_IMDB)))
+                    .containsOnlyKeys(Movies.SNOWDEN_IMDB, Movies.AQUAMAN_IMDB);
+            assertThat(reloads)
+                    .hasSize(2);
+            runReloads();
+            assertThat(cache.getAll(List.of(Movies.SNOWDEN_IMDB, Movies.AQUAMAN_IMDB)))
+                    .containsValues(remake(SNOWDEN), remake(AQUAMAN));
+        }
+    }
+
+    @Test
+    void outdatedReloadShouldBeDiscarded() throws IOException {
+        final LeveledCache<String, Movie> delegate = new LFUCache<>(Movie.class, 2, 0.5f);
+        try (RefreshingCache<String, Movie> cache = createWithCapturedReloads(delegate, 0.0)) {
+            cache.put(SNOWDEN);
+            cache.put(AQUAMAN);
+            source.put(Movies.SNOWDEN_IMDB, remake(SNOWDEN));
+            source.put(Movies.AQUAMAN_IMDB, remake(AQUAMAN));
+            advanceSeconds(10L);
+            cache.get(Movies.SNOWDEN_IMDB);
+            cache.get(Movies.AQUAMAN_IMDB);
+            cache.put(SNOWDEN);
+            assertThat(cache.remove(Movies.AQUAMAN_IMDB))
+                    .isEqualTo(AQUAMAN);
+            runReloads();
+
+            assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                    .as("the newer write wins")
+                    .isEqualTo(SNOWDEN);
+            assertThat(cache.containsKey(Movies.AQUAMAN_IMDB))
+                    .isFalse();
+        }
+    }
+
+    @Test
+    void failedReloadShouldKeepItemAndBeRetried() throws IOException {
+        final LeveledCache<String, Movie> delegate = new LFUCache<>(Movie.class, 2, 0.5f);
+        final CacheLoader<String, Movie> failingLoader = key -> {
+            loads.incrementAndGet();
+            throw new IllegalStateException("The source is unavailable");
+        };
+        try (RefreshingCache<String, Movie> cache = new RefreshingCache<>(delegate, failingLoader, TEN_SECONDS, 0.0, reloads::add, () -> now, () -> uniform)) {
+            cache.put(SNOWDEN);
+            advanceSeconds(10L);
+            cache.get(Movies.SNOWDEN_IMDB);
+            runReloads();
+            assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(SNOWDEN);
+            runReloads();
+            assertThat(loads)
+                    .hasValue(2);
+        }
+    }
+
+    @Test
+    void itemMissingInSourceShouldBeRemoved() throws IOException {
+        final LeveledCache<String, Movie> delegate = new LFUCache<>(Movie.class, 2, 0.5f);
+        try (RefreshingCache<String, Movie> cache = createWithCapturedReloads(delegate, 0.0)) {
+            cache.put(SNOWDEN);
+            advanceSeconds(10L);
+            cache.get(Movies.SNOWDEN_IMDB);
+            runReloads();
+            assertThat(cache.containsKey(Movies.SNOWDEN_IMDB))
+                    .isFalse();
+            assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                    .isNull();
+            assertThat(cache.size())
+                    .isZero();
+        }
+    }
+
+    @Test
+    void expensiveItemsShouldBeRefreshedEarlier() throws IOException {
+        final LeveledCache<String, Movie> delegate = new LFUCache<>(Movie.class, 2, 0.5f);
+        try (RefreshingCache<String, Movie> cache = createWithCapturedReloads(delegate, 1.0)) {
+            source.put(Movies.SNOWDEN_IMDB, SNOWDEN);
+            cache.put(SNOWDEN);
+            advanceSeconds(10L);
+            cache.get(Movies.SNOWDEN_IMDB);
+            loadSeconds = 2L;
+            runReloads();
+
+            // -ln(u) = 2, so the reload of two seconds may start four seconds earlier
+            uniform = Math.exp(-2.0);
+            advanceSeconds(5L);
+            cache.get(Movies.SNOWDEN_IMDB);
+            assertThat(reloads)
+                    .isEmpty();
+            advanceSeconds(1L);
+            cache.get(Movies.SNOWDEN_IMDB);
+            assertThat(reloads)
+                    .hasSize(1);
+        }
+    }
+
+    @Test
+    void recoveredItemsShouldStartAgeOnFirstRead() throws IOException {
+        final LeveledCache<String, Movie> delegate = new LFUCache<>(Movie.class, 2, 0.5f);
+        delegate.put(SNOWDEN);
+        try (RefreshingCache<String, Movie> cache = createWithCapturedReloads(delegate, 0.0)) {
+            advanceSeconds(20L);
+            cache.get(Movies.SNOWDEN_IMDB);
+            advanceSeconds(9L);
+            cache.get(Movies.SNOWDEN_IMDB);
+            assertThat(reloads)
+                    .isEmpty();
+            advanceSeconds(1L);
+            cache.get(Movies.SNOWDEN_IMDB);
+            assertThat(reloads)
+                    .hasSize(1);
+
+            cache.close();
+            runReloads();
+            assertThat(loads)
+                    .hasValue(1);
+        }
+    }
+
+    @Test
+    void statesOfItemsDroppedOnPromotionShouldBeSwept() throws IOException {
+        final LeveledCache<String, Movie> firstLevel = new LFUCache<>(Movie.class, 2, 1.0f);
+        final LeveledCache<String, Movie> secondLevel = new LFUCache<>(Movie.class, 2, 0.5f);
+        try (RefreshingCache<String, Movie> cache = createWithCapturedReloads(new TwoLevelsCache<>(firstLevel, secondLevel, 1), 0.0)) {
+            final List<Movie> movies = IntStream.range(0, 1_000)
+                    .mapToObj(i -> new Movie("Movie " + i, 2000, "tt" + i))
+                    .toList();
+            for (int i = 2; i < movies.size(); ++i) {
+                cache.put(movies.get(i));
+                // The items of the second level are promoted on the first hit and evict the other ones silently
+                cache.get(movies.get(i - 2).imdb());
+            }
+            assertThat(cache.size())
+                    .isLessThanOrEqualTo(4);
+            assertThat(cache.refreshStates())
+                    .isLessThanOrEqualTo(64);
+        }
+    }
+
+    @Test
+    void reloadsShouldRunInGivenExecutor() throws IOException {
+        final LeveledCache<String, Movie> delegate = new LFUCache<>(Movie.class, 2, 0.5f);
+        try (RefreshingCache<String, Movie> cache = new RefreshingCache<>(delegate, this::load, Duration.ofNanos(1L), 1.0, Runnable::run)) {
+            source.put(Movies.SNOWDEN_IMDB, remake(SNOWDEN));
+            cache.put(SNOWDEN);
+            // The system ticker may not advance between two calls on some platforms
+            while (loads.get() == 0) {
+                assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                        .isNotNull();
+            }
+            assertThat(delegate.get(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(remake(SNOWDEN));
+        }
+    }
+
+    @Test
+    void otherOperationsShouldBeDelegated() throws IOException {
+        final LeveledCache<String, Movie> delegate = new LFUCache<>(Movie.class, 2, 0.5f);
+        try (RefreshingCache<String, Movie> cache = new RefreshingCache<>(delegate, this::load, TEN_SECONDS)) {
+            cache.put(SNOWDEN);
+            assertThat(cache.put(AQUAMAN))
+                    .isEmpty();
+            assertThat(cache.put(INCEPTION))
+                    .hasSize(1);
+            assertThat(cache.frequencyOf(Movies.INCEPTION_IMDB))
+                    .isEqualTo(delegate.frequencyOf(Movies.INCEPTION_IMDB));
+            assertThat(cache.getLowestFrequency())
+                    .isEqualTo(delegate.getLowestFrequency());
+            assertThat(cache.putAll(Map.of(Movies.SNOWDEN_IMDB, SNOWDEN)))
+                    .hasSize(1);
+            cache.clear();
+            assertThat(cache.size())
+                    .isZero();
+        }
+    }
+
+    @Test
+    void argumentsShouldBeValidated() {
+        final LeveledCache<String, Movie> delegate = new LFUCache<>(Movie.class, 2, 0.5f);
+        assertThatThrownBy(() -> new RefreshingCache<>(delegate, this::load, Duration.ZERO))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Refresh interval must be positive");
+        assertThatThrownBy(() -> new RefreshingCache<>(delegate, this::load, Duration.ofSeconds(-1L)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new RefreshingCache<>(delegate, this::load, TEN_SECONDS, -1.0, Runnable::run))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Beta must not be negative");
+    }
+
+    private RefreshingCache<String, Movie> createWithCapturedReloads(final LeveledCache<String, Movie> delegate, final double beta) {
+        return new RefreshingCache<>(delegate, this::load, TEN_SECONDS, beta, reloads::add, () -> now, () -> uniform);
+    }
+
+    private Movie load(final String key) {
+        loads.incrementAndGet();
+        advanceSeconds(loadSeconds);
+        return source.get(key);
+    }
+
+    private void runReloads() {
+        final List<Runnable> pending = List.copyOf(reloads);
+        reloads.clear();
+        pending.forEach(Runnable::run);
+    }
+
+    private void advanceSeconds(final long seconds) {
+        now += TimeUnit.SECONDS.toNanos(seconds);
+    }
+
+    private static Movie remake(final Movie movie) {
+        return new Movie(movie.title(), movie.year() + 1, movie.imdb());
+    }
+}
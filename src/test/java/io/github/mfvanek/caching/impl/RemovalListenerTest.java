@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.enums.ExpirationPolicy;
+import io.github.mfvanek.caching.enums.RemovalCause;
+import io.github.mfvanek.caching.interfaces.LeveledCache;
+import io.github.mfvanek.caching.interfaces.RemovalListener;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RemovalListenerTest {
+
+    private static final Movie SNOWDEN = Movies.getSnowden();
+    private static final Movie AQUAMAN = Movies.getAquaman();
+    private static final Movie INCEPTION = Movies.getInception();
+
+    private final List<String> removals = new ArrayList<>();
+    private final RemovalListener<String, Movie> listener = (key, value, cause) -> removals.add(removal(key, cause));
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void lfuCacheShouldReportEvictionsInPlace() {
+        final LFUCache<String, Movie> cache = new LFUCache<>(Movie.class, 2, 0.5f);
+        cache.put(Movies.SNOWDEN_IMDB, SNOWDEN, listener);
+        cache.put(Movies.AQUAMAN_IMDB, AQUAMAN, listener);
+        cache.get(Movies.SNOWDEN_IMDB);
+        assertThat(removals)
+                .isEmpty();
+
+        cache.put(Movies.INCEPTION_IMDB, INCEPTION, listener);
+        assertThat(removals)
+                .containsExactly(removal(Movies.AQUAMAN_IMDB, RemovalCause.SIZE));
+        assertThat(cache.put(AQUAMAN))
+                .containsExactly(INCEPTION);
+    }
+
+    @Test
+    void persistentCacheShouldReportEvictionsInPlace() {
+        try (PersistenceLFUCache<String, Movie> cache = new PersistenceLFUCache<>(Movie.class, 2, 0.5f, tempDir)) {
+            cache.put(Movies.SNOWDEN_IMDB, SNOWDEN, listener);
+            cache.put(Movies.AQUAMAN_IMDB, AQUAMAN, listener);
+            cache.get(Movies.AQUAMAN_IMDB);
+            cache.put(Movies.INCEPTION_IMDB, INCEPTION, listener);
+            assertThat(removals)
+                    .containsExactly(removal(Movies.SNOWDEN_IMDB, RemovalCause.SIZE));
+        }
+    }
+
+    @Test
+    void twoLevelsCacheShouldReportDemotedItems() throws IOException {
+        try (TwoLevelsCache<String, Movie> cache = new TwoLevelsCache<>(
+                new LFUCache<>(Movie.class, 1, 1.0f),
+                new LFUCache<>(Movie.class, 1, 1.0f))) {
+            cache.put(Movies.SNOWDEN_IMDB, SNOWDEN, listener);
+            cache.put(Movies.AQUAMAN_IMDB, AQUAMAN, listener);
+            assertThat(removals)
+                    .containsExactly(removal(Movies.SNOWDEN_IMDB, RemovalCause.DEMOTED));
+
+            cache.put(Movies.INCEPTION_IMDB, INCEPTION, listener);
+            assertThat(removals)
+                    .containsExactly(removal(Movies.SNOWDEN_IMDB, RemovalCause.DEMOTED), removal(Movies.AQUAMAN_IMDB, RemovalCause.DEMOTED), removal(Movies.SNOWDEN_IMDB, RemovalCause.SIZE));
+            assertThat(cache.put(SNOWDEN))
+                    .as("demoted items are still in the cache, so only the items evicted from the second level are returned")
+                    .containsExactly(AQUAMAN);
+        }
+    }
+
+    @Test
+    void listOfEvictedItemsShouldBeReportedByDefault() {
+        final LeveledCache<String, Movie> cache = new ConcurrentLFUCache<>(Movie.class, 1, 1.0f, false);
+        cache.put(Movies.SNOWDEN_IMDB, SNOWDEN, listener);
+        cache.put(Movies.AQUAMAN_IMDB, AQUAMAN, listener);
+        assertThat(removals)
+                .containsExactly(removal(Movies.SNOWDEN_IMDB, RemovalCause.SIZE));
+    }
+
+    @Test
+    void expiringCacheShouldReportExpiredItems() throws IOException {
+        final long[] now = {0L};
+        final LeveledCache<String, Movie> delegate = new LFUCache<>(Movie.class, 2, 0.5f);
+        try (ExpiringCache<String, Movie> cache = new ExpiringCache<>(
+                delegate, ExpirationPolicy.AFTER_WRITE, Duration.ofSeconds(1L), () -> now[0], sweeper -> { }, listener)) {
+            cache.putAll(Map.of(Movies.SNOWDEN_IMDB, SNOWDEN, Movies.AQUAMAN_IMDB, AQUAMAN));
+            now[0] = Duration.ofSeconds(2L).toNanos();
+            assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                    .isNull();
+            assertThat(removals)
+                    .containsExactlyInAnyOrder(removal(Movies.SNOWDEN_IMDB, RemovalCause.EXPIRED), removal(Movies.AQUAMAN_IMDB, RemovalCause.EXPIRED));
+        }
+    }
+
+    @Test
+    void explicitlyRemovedItemsShouldNotBeReported() throws IOException {
+        try (ExpiringCache<String, Movie> cache = new ExpiringCache<>(
+                new LFUCache<>(Movie.class, 2, 0.5f), ExpirationPolicy.AFTER_ACCESS, Duration.ofMinutes(1L), listener)) {
+            cache.put(SNOWDEN);
+            assertThat(cache.remove(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(SNOWDEN);
+            assertThat(removals)
+                    .isEmpty();
+        }
+    }
+
+    private static String removal(final String key, final RemovalCause cause) {
+        return key + ":" + cause;
+    }
+}
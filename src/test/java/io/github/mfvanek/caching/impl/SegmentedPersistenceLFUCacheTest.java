@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.builders.CacheBuilder;
+import io.github.mfvanek.caching.enums.CacheType;
+import io.github.mfvanek.caching.enums.StorageType;
+import io.github.mfvanek.caching.interfaces.LeveledCache;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import io.github.mfvanek.caching.serializers.RecordValueSerializer;
+import io.github.mfvanek.caching.serializers.StringSerializer;
+import io.github.mfvanek.caching.storage.SegmentStorage;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SegmentedPersistenceLFUCacheTest extends BaseLFUCacheTest {
+
+    @Test
+    void evictionShouldKeepValuesReadable() {
+        final int maxSize = 100;
+        try (PersistenceLFUCache<String, Movie> cache = new PersistenceLFUCache<>(Movie.class, maxSize, 0.1f,
+                new SegmentStorage<>(new RecordValueSerializer<>(Movie.class), tempDir.resolve("evictions")))) {
+            final List<Movie> movies = Movies.getRandomGeneratedMovies(maxSize * 3);
+            movies.forEach(cache::put);
+
+            assertThat(cache.size())
+                    .isLessThanOrEqualTo(maxSize);
+            final Movie last = movies.get(movies.size() - 1);
+            assertThat(cache.get(last.getIdentifier()))
+                    .isEqualTo(last);
+        }
+    }
+
+    @Test
+    void frequenciesShouldSurviveRestart() {
+        final Path directory = tempDir.resolve("restart");
+        final List<Movie> movies = Movies.getRandomGeneratedMovies(10);
+        try (PersistenceLFUCache<String, Movie> cache = createRecoverableCache(directory, 10)) {
+            movies.forEach(cache::put);
+            for (int i = 0; i < movies.size(); ++i) {
+                for (int j = 0; j < i; ++j) {
+                    cache.get(movies.get(i).getIdentifier());
+                }
+            }
+        }
+
+        try (PersistenceLFUCache<String, Movie> cache = createRecoverableCache(directory, 10)) {
+            assertThat(cache.size())
+                    .isEqualTo(10);
+            assertThat(cache.get(movies.get(9).getIdentifier()))
+                    .isEqualTo(movies.get(9));
+            assertThat(cache.frequencyOf(movies.get(9).getIdentifier()))
+                    .isEqualTo(10);
+            assertThat(cache.getLowestFrequency())
+                    .isZero();
+
+            final Movie snowden = Movies.getSnowden();
+            assertThat(cache.put(snowden.getIdentifier(), snowden))
+                    .extracting(Map.Entry::getKey)
+                    .containsExactly(movies.get(0).getIdentifier(), movies.get(1).getIdentifier());
+        }
+
+        try (PersistenceLFUCache<String, Movie> cache = createRecoverableCache(directory, 5)) {
+            assertThat(cache.size())
+                    .isEqualTo(5);
+            assertThat(movies.subList(5, movies.size()))
+                    .as("the most frequently used values are kept")
+                    .allMatch(m -> cache.containsKey(m.getIdentifier()));
+        }
+    }
+
+    @Override
+    protected LeveledCache<String, Movie> createCache() {
+        return createCache(0.1f);
+    }
+
+    @Override
+    protected LeveledCache<String, Movie> createCache(final int maxSize) {
+        return createCache(maxSize, 0.1f);
+    }
+
+    @Override
+    protected LeveledCache<String, Movie> createCache(final float evictionFactor) {
+        return createCache(MAX_SIZE, evictionFactor);
+    }
+
+    private static PersistenceLFUCache<String, Movie> createRecoverableCache(final Path directory, final int maxSize) {
+        return (PersistenceLFUCache<String, Movie>) CacheBuilder.<String, Movie>builder(Movie.class)
+                .setCacheType(CacheType.PERSISTENCE_LFU)
+                .setStorageType(StorageType.MAPPED_SEGMENTED)
+                .setSerializer(new RecordValueSerializer<>(Movie.class))
+                .setKeySerializer(new StringSerializer())
+                .setMaxSize(maxSize)
+                .setBaseDirectory(directory)
+                .build();
+    }
+
+    private static LeveledCache<String, Movie> createCache(final int maxSize, final float evictionFactor) {
+        return CacheBuilder.builder(Movie.class)
+                .setCacheType(CacheType.PERSISTENCE_LFU)
+                .setStorageType(StorageType.SEGMENTED)
+                .setSerializer(new RecordValueSerializer<>(Movie.class))
+                .setMaxSize(maxSize)
+                .setEvictionFactor(evictionFactor)
+                .setBaseDirectory(tempDir)
+                .build();
+    }
+}
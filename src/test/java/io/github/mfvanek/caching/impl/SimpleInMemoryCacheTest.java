@@ -8,6 +8,7 @@
 package io.github.mfvanek.caching.impl;
 
 import io.github.mfvanek.caching.builders.CacheBuilder;
+import io.github.mfvanek.caching.interfaces.Countable;
 import io.github.mfvanek.caching.interfaces.LeveledCache;
 import io.github.mfvanek.caching.models.Movie;
 import io.github.mfvanek.caching.models.Movies;
@@ -34,6 +35,22 @@ class SimpleInMemoryCacheTest extends BaseCacheTest {
                 .isEqualTo(2);
     }
 
+    @Test
+    void frequenciesAreNotTracked() {
+        final SimpleInMemoryCache<String, Movie> cache = new SimpleInMemoryCache<>(Movie.class, MAX_SIZE);
+        cache.put(SNOWDEN);
+
+        assertThat(cache.frequencyOf(Movies.SNOWDEN_IMDB))
+                .isEqualTo(Countable.INVALID_FREQUENCY);
+        assertThat(cache.getLowestFrequency())
+                .isEqualTo(Countable.INVALID_FREQUENCY);
+        assertThat(cache.innerRemove(Movies.SNOWDEN_IMDB))
+                .satisfies(e -> {
+                    assertThat(e.getKey()).isEqualTo(Countable.INVALID_FREQUENCY);
+                    assertThat(e.getValue()).isEqualTo(SNOWDEN);
+                });
+    }
+
     @Override
     protected LeveledCache<String, Movie> createCache() {
         return createCache(MAX_SIZE);
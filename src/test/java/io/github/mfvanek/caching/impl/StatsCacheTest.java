@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.builders.CacheBuilder;
+import io.github.mfvanek.caching.enums.CacheType;
+import io.github.mfvanek.caching.enums.RemovalCause;
+import io.github.mfvanek.caching.enums.StorageType;
+import io.github.mfvanek.caching.enums.TimedOperation;
+import io.github.mfvanek.caching.interfaces.PersistentStorage;
+import io.github.mfvanek.caching.interfaces.RemovalListener;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import io.github.mfvanek.caching.serializers.JavaValueSerializer;
+import io.github.mfvanek.caching.serializers.StringSerializer;
+import io.github.mfvanek.caching.stats.CacheStats;
+import io.github.mfvanek.caching.stats.ConcurrentStatsCounter;
+import io.github.mfvanek.caching.stats.StatsCounter;
+import io.github.mfvanek.caching.storage.TimedStorage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatsCacheTest {
+
+    private static final Movie SNOWDEN = Movies.getSnowden();
+    private static final Movie AQUAMAN = Movies.getAquaman();
+    private static final Movie INCEPTION = Movies.getInception();
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void hitsMissesAndEvictionsShouldBeRecorded() throws IOException {
+        try (StatsCache<String, Movie> cache = (StatsCache<String, Movie>) CacheBuilder.builder(Movie.class)
+                .setCacheType(CacheType.LFU)
+                .setMaxSize(2)
+                .setEvictionFactor(0.5f)
+                .setStatsCounter(new ConcurrentStatsCounter())
+                .build()) {
+            cache.put(SNOWDEN);
+            cache.put(AQUAMAN);
+            assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(SNOWDEN);
+            assertThat(cache.get(Movies.INCEPTION_IMDB))
+                    .isNull();
+            assertThat(cache.putAll(Map.of(Movies.INCEPTION_IMDB, INCEPTION)))
+                    .hasSize(1);
+            assertThat(cache.getAll(List.of(Movies.SNOWDEN_IMDB, Movies.INCEPTION_IMDB, Movies.AQUAMAN_IMDB)))
+                    .containsOnlyKeys(Movies.SNOWDEN_IMDB, Movies.INCEPTION_IMDB);
+
+            final CacheStats stats = cache.stats();
+            assertThat(stats.hitCount())
+                    .isEqualTo(3L);
+            assertThat(stats.missCount())
+                    .isEqualTo(2L);
+            assertThat(stats.evictionCount())
+                    .isEqualTo(1L);
+            assertThat(stats.latencies())
+                    .as("heap caches don't time anything")
+                    .allSatisfy((operation, latency) -> assertThat(latency.count()).isZero());
+
+            assertThat(cache.containsKey(Movies.SNOWDEN_IMDB))
+                    .isTrue();
+            assertThat(cache.frequencyOf(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(2);
+            assertThat(cache.getLowestFrequency())
+                    .isEqualTo(1);
+            assertThat(cache.remove(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(SNOWDEN);
+            assertThat(cache.removeAll(List.of(Movies.INCEPTION_IMDB)))
+                    .containsOnlyKeys(Movies.INCEPTION_IMDB);
+            cache.put(SNOWDEN);
+            cache.clear();
+            assertThat(cache.size())
+                    .isZero();
+            assertThat(cache.stats().hitCount())
+                    .as("only reads are counted")
+                    .isEqualTo(3L);
+        }
+    }
+
+    @Test
+    void evictionsReportedToListenerShouldBeRecorded() throws IOException {
+        try (StatsCache<String, Movie> cache = (StatsCache<String, Movie>) CacheBuilder.builder(Movie.class)
+                .setCacheType(CacheType.LFU)
+                .setMaxSize(1)
+                .setEvictionFactor(0.5f)
+                .setStatsCounter(new ConcurrentStatsCounter())
+                .build()) {
+            final List<String> evictedKeys = new ArrayList<>();
+            final RemovalListener<String, Movie> listener = (key, value, cause) -> {
+                assertThat(cause)
+                        .isEqualTo(RemovalCause.SIZE);
+                evictedKeys.add(key);
+            };
+            cache.put(Movies.SNOWDEN_IMDB, SNOWDEN, listener);
+            assertThat(cache.stats().evictionCount())
+                    .isZero();
+            cache.put(Movies.AQUAMAN_IMDB, AQUAMAN, listener);
+            cache.put(Movies.INCEPTION_IMDB, INCEPTION, RemovalListener.discarding());
+
+            assertThat(evictedKeys)
+                    .containsExactly(Movies.SNOWDEN_IMDB);
+            assertThat(cache.stats().evictionCount())
+                    .isEqualTo(2L);
+            assertThat(cache.get(Movies.INCEPTION_IMDB))
+                    .isEqualTo(INCEPTION);
+        }
+    }
+
+    @Test
+    void diskOperationsShouldBeTimed() throws IOException {
+        final CacheBuilder<String, Movie> builder = CacheBuilder.builder(Movie.class)
+                .setCacheType(CacheType.PERSISTENCE_LFU)
+                .setStorageType(StorageType.SEGMENTED)
+                .setKeySerializer(new StringSerializer())
+                .setBaseDirectory(tempDir)
+                .setStatsCounter(new ConcurrentStatsCounter());
+        try (StatsCache<String, Movie> cache = (StatsCache<String, Movie>) builder.build()) {
+            cache.put(SNOWDEN);
+            cache.put(AQUAMAN);
+            cache.get(Movies.SNOWDEN_IMDB);
+            cache.getAll(List.of(Movies.SNOWDEN_IMDB, Movies.AQUAMAN_IMDB));
+            cache.remove(Movies.AQUAMAN_IMDB);
+
+            final CacheStats stats = cache.stats();
+            assertThat(stats.latencyOf(TimedOperation.WRITE).count())
+                    .isEqualTo(2L);
+            assertThat(stats.latencyOf(TimedOperation.READ).count())
+                    .as("a batch read is a single operation")
+                    .isEqualTo(2L);
+            assertThat(stats.latencyOf(TimedOperation.REMOVE).count())
+                    .isEqualTo(1L);
+            assertThat(stats.latencyOf(TimedOperation.SERIALIZE).count())
+                    .isEqualTo(2L);
+            assertThat(stats.latencyOf(TimedOperation.DESERIALIZE).count())
+                    .isEqualTo(4L);
+        }
+        try (StatsCache<String, Movie> cache = (StatsCache<String, Movie>) builder.build()) {
+            assertThat(cache.containsKey(Movies.SNOWDEN_IMDB))
+                    .as("timed storage is recovered")
+                    .isTrue();
+        }
+    }
+
+    @Test
+    void storageShouldOnlyTimeReadsWritesAndRemovals() {
+        final StatsCounter counter = new ConcurrentStatsCounter();
+        try (PersistentStorage<String, Movie> storage = new TimedStorage<>(
+                StorageType.FILE_PER_ENTRY.create(new JavaValueSerializer<>(Movie.class), tempDir), counter)) {
+            storage.write(Movies.SNOWDEN_IMDB, SNOWDEN);
+            assertThat(storage.contains(Movies.SNOWDEN_IMDB))
+                    .isTrue();
+            assertThat(storage.size())
+                    .isEqualTo(1);
+            assertThat(storage.sizeInBytes())
+                    .isPositive();
+            storage.clear();
+            assertThat(storage.read(Movies.SNOWDEN_IMDB))
+                    .isNull();
+        }
+        assertThat(counter.snapshot().latencyOf(TimedOperation.WRITE).count())
+                .isEqualTo(1L);
+        assertThat(counter.snapshot().latencyOf(TimedOperation.READ).count())
+                .isEqualTo(1L);
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.builders.TieredCacheBuilder;
+import io.github.mfvanek.caching.enums.CacheType;
+import io.github.mfvanek.caching.enums.RemovalCause;
+import io.github.mfvanek.caching.interfaces.LeveledCache;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import io.github.mfvanek.caching.stats.CacheStats;
+import io.github.mfvanek.caching.stats.StatsCounter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class TieredCacheTest {
+
+    private static final Movie SNOWDEN = Movies.getSnowden();
+    private static final Movie AQUAMAN = Movies.getAquaman();
+    private static final Movie INCEPTION = Movies.getInception();
+    private static final Movie INTERSTELLAR = Movies.getInterstellar();
+    private static final Movie ARRIVAL = Movies.getArrival();
+    private static final Movie MARTIAN = Movies.getMartian();
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void evictedItemsShouldCascadeThroughAllTiers() throws IOException {
+        final List<LeveledCache<String, Movie>> tiers = singleItemTiers();
+        try (TieredCache<String, Movie> cache = tieredCache(tiers, 0)) {
+            final List<RemovalCause> causes = new ArrayList<>();
+            cache.put(Movies.SNOWDEN_IMDB, SNOWDEN, (key, value, cause) -> causes.add(cause));
+            cache.put(Movies.AQUAMAN_IMDB, AQUAMAN, (key, value, cause) -> causes.add(cause));
+            cache.put(Movies.INCEPTION_IMDB, INCEPTION, (key, value, cause) -> causes.add(cause));
+            assertThat(causes)
+                    .as("the first item has been pushed down twice")
+                    .containsExactly(RemovalCause.DEMOTED, RemovalCause.DEMOTED, RemovalCause.DEMOTED);
+            assertThat(tiers.get(2).containsKey(Movies.SNOWDEN_IMDB))
+                    .isTrue();
+
+            assertThat(cache.put(INTERSTELLAR))
+                    .as("only the item evicted from the last tier leaves the cache")
+                    .containsExactly(SNOWDEN);
+            assertThat(cache.size())
+                    .isEqualTo(3);
+            assertThat(tiers.get(0).containsKey(Movies.INTERSTELLAR_IMDB))
+                    .isTrue();
+            assertThat(tiers.get(1).containsKey(Movies.INCEPTION_IMDB))
+                    .isTrue();
+            assertThat(tiers.get(2).containsKey(Movies.AQUAMAN_IMDB))
+                    .isTrue();
+        }
+    }
+
+    @Test
+    void hotItemsShouldClimbOneTierPerPromotion() throws IOException {
+        final List<LeveledCache<String, Movie>> tiers = singleItemTiers();
+        try (TieredCache<String, Movie> cache = tieredCache(tiers, 1)) {
+            cache.put(SNOWDEN);
+            cache.put(AQUAMAN);
+            cache.put(INCEPTION);
+
+            assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(SNOWDEN);
+            assertThat(tiers.get(1).containsKey(Movies.SNOWDEN_IMDB))
+                    .isTrue();
+            assertThat(tiers.get(2).containsKey(Movies.AQUAMAN_IMDB))
+                    .as("demoted on promotion")
+                    .isTrue();
+
+            assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(SNOWDEN);
+            assertThat(tiers.get(0).containsKey(Movies.SNOWDEN_IMDB))
+                    .isTrue();
+            assertThat(tiers.get(1).containsKey(Movies.INCEPTION_IMDB))
+                    .isTrue();
+            assertThat(cache.size())
+                    .isEqualTo(3);
+        }
+    }
+
+    @Test
+    void tiersShouldBehaveAsOneCache() throws IOException {
+        final List<LeveledCache<String, Movie>> tiers = singleItemTiers();
+        try (TieredCache<String, Movie> cache = tieredCache(tiers, 0)) {
+            cache.put(SNOWDEN);
+            cache.put(AQUAMAN);
+            cache.put(INCEPTION);
+            cache.get(Movies.SNOWDEN_IMDB);
+
+            assertThat(cache.put(SNOWDEN))
+                    .isEmpty();
+            assertThat(tiers.get(2).containsKey(Movies.SNOWDEN_IMDB))
+                    .as("the item stored in a slower tier is updated there")
+                    .isTrue();
+            assertThat(cache.frequencyOf(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(1);
+            assertThat(cache.getLowestFrequency())
+                    .isZero();
+            assertThat(cache.containsKey(Movies.AQUAMAN_IMDB))
+                    .isTrue();
+            assertThat(cache.remove(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(SNOWDEN);
+            assertThat(cache.remove(Movies.SNOWDEN_IMDB))
+                    .isNull();
+            assertThat(cache.containsKey(Movies.SNOWDEN_IMDB))
+                    .isFalse();
+            assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                    .isNull();
+            assertThatThrownBy(() -> cache.frequencyOf(Movies.SNOWDEN_IMDB))
+                    .isInstanceOf(NoSuchElementException.class)
+                    .hasMessage("Key " + Movies.SNOWDEN_IMDB + " not found in the cache");
+
+            cache.clear();
+            assertThat(cache.size())
+                    .isZero();
+        }
+    }
+
+    @Test
+    void bulkOperationsShouldSpanAllTiers() throws IOException {
+        try (TieredCache<String, Movie> cache = TieredCacheBuilder.builder(Movie.class)
+                .addTier(tier -> tier.setCacheType(CacheType.LFU).setMaxSize(2).setEvictionFactor(1.0f))
+                .addTier(tier -> tier.setCacheType(CacheType.LFU).setMaxSize(2).setEvictionFactor(1.0f))
+                .addTier(tier -> tier.setCacheType(CacheType.PERSISTENCE_LFU).setMaxSize(2).setEvictionFactor(1.0f).setBaseDirectory(tempDir), 3)
+                .setRecordStats(true)
+                .build()) {
+            List.of(SNOWDEN, AQUAMAN, INCEPTION, INTERSTELLAR, ARRIVAL).forEach(cache::put);
+            assertThat(cache.size())
+                    .isEqualTo(5);
+
+            assertThat(cache.getAll(List.of(Movies.ARRIVAL_IMDB, Movies.INCEPTION_IMDB, Movies.SNOWDEN_IMDB, Movies.MARTIAN_IMDB)))
+                    .containsOnlyKeys(Movies.ARRIVAL_IMDB, Movies.INCEPTION_IMDB, Movies.SNOWDEN_IMDB);
+            assertThat(List.of(cache.tierStats(0), cache.tierStats(1), cache.tierStats(2)))
+                    .extracting(CacheStats::hitCount, CacheStats::missCount)
+                    .containsExactly(
+                            tuple(1L, 3L),
+                            tuple(1L, 2L),
+                            tuple(1L, 1L));
+
+            assertThat(cache.putAll(itemsOf(SNOWDEN, MARTIAN)))
+                    .isEmpty();
+            assertThat(cache.size())
+                    .isEqualTo(6);
+            final List<Map.Entry<String, Movie>> evictedItems = cache.putAll(itemsOf(
+                    Movies.getRandomGeneratedMovie(), Movies.getRandomGeneratedMovie(), Movies.getRandomGeneratedMovie()));
+            assertThat(evictedItems)
+                    .isNotEmpty();
+            assertThat(cache.size() + evictedItems.size())
+                    .as("items evicted from the first tiers are demoted, not lost")
+                    .isEqualTo(9);
+        }
+    }
+
+    @Test
+    void tiersShouldBeValidated() {
+        final TieredCacheBuilder<String, Movie> builder = TieredCacheBuilder.builder(Movie.class);
+        assertThatThrownBy(builder::build)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("At least one tier is required");
+        builder.addTier(tier -> tier.setCacheType(CacheType.LFU), -1);
+        assertThatThrownBy(builder::build)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Promotion frequency must be greater than or equal to zero");
+    }
+
+    private static List<LeveledCache<String, Movie>> singleItemTiers() {
+        return List.of(new LFUCache<>(Movie.class, 1, 1.0f), new LFUCache<>(Movie.class, 1, 1.0f), new LFUCache<>(Movie.class, 1, 1.0f));
+    }
+
+    private static TieredCache<String, Movie> tieredCache(final List<LeveledCache<String, Movie>> tiers, final int promotionFrequency) {
+        return new TieredCache<>(List.of(
+                new CacheTier<>("heap", tiers.get(0), 0, StatsCounter.disabled()),
+                new CacheTier<>("off-heap", tiers.get(1), promotionFrequency, StatsCounter.disabled()),
+                new CacheTier<>("disk", tiers.get(2), promotionFrequency, StatsCounter.disabled())));
+    }
+
+    @SuppressWarnings("PMD.UseConcurrentHashMap")
+    private static Map<String, Movie> itemsOf(final Movie... movies) {
+        final Map<String, Movie> items = new LinkedHashMap<>(movies.length);
+        for (final Movie movie : movies) {
+            items.put(movie.getIdentifier(), movie);
+        }
+        return items;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.interfaces.LeveledCache;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import io.github.mfvanek.caching.serializers.RecordValueSerializer;
+import io.github.mfvanek.caching.storage.SegmentStorage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TwoLevelsCacheBulkTest {
+
+    private static final Movie SNOWDEN = Movies.getSnowden();
+    private static final Movie AQUAMAN = Movies.getAquaman();
+    private static final Movie INCEPTION = Movies.getInception();
+    private static final Movie INTERSTELLAR = Movies.getInterstellar();
+    private static final Movie ARRIVAL = Movies.getArrival();
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void bulkOperationsShouldSpanBothLevels() throws IOException {
+        final LeveledCache<String, Movie> firstLevel = new LFUCache<>(Movie.class, 2, 1.0f);
+        final PersistenceLFUCache<String, Movie> secondLevel = new PersistenceLFUCache<>(Movie.class, 2, 0.5f,
+                new SegmentStorage<>(new RecordValueSerializer<>(Movie.class), tempDir));
+        try (TwoLevelsCache<String, Movie> cache = new TwoLevelsCache<>(firstLevel, secondLevel, 2)) {
+            assertThat(cache.putAll(itemsOf(SNOWDEN, AQUAMAN, INCEPTION)))
+                    .isEmpty();
+            assertThat(secondLevel.size())
+                    .as("evicted from the first level")
+                    .isEqualTo(2);
+
+            assertThat(cache.getAll(List.of(Movies.SNOWDEN_IMDB, Movies.INCEPTION_IMDB, Movies.ARRIVAL_IMDB)))
+                    .containsOnlyKeys(Movies.SNOWDEN_IMDB, Movies.INCEPTION_IMDB);
+            assertThat(cache.getAll(List.of(Movies.SNOWDEN_IMDB)))
+                    .containsEntry(Movies.SNOWDEN_IMDB, SNOWDEN);
+            assertThat(firstLevel.containsKey(Movies.SNOWDEN_IMDB))
+                    .as("promoted by the bulk read")
+                    .isTrue();
+            assertThat(cache.getAll(List.of(Movies.INCEPTION_IMDB)))
+                    .hasSize(1);
+
+            assertThat(cache.putAll(itemsOf(AQUAMAN, INTERSTELLAR)))
+                    .as("the demoted items have displaced the updated one from the second level")
+                    .extracting(Map.Entry::getValue)
+                    .containsExactly(AQUAMAN);
+            assertThat(cache.size())
+                    .isEqualTo(3);
+            assertThat(cache.removeAll(List.of(Movies.SNOWDEN_IMDB, Movies.INTERSTELLAR_IMDB, Movies.ARRIVAL_IMDB)))
+                    .containsOnlyKeys(Movies.SNOWDEN_IMDB, Movies.INTERSTELLAR_IMDB);
+            assertThat(cache.removeAll(List.of(Movies.ARRIVAL_IMDB)))
+                    .isEmpty();
+            assertThat(cache.size())
+                    .isEqualTo(1);
+        }
+    }
+
+    @Test
+    void batchShouldBeEvictedFromSecondLevelAtOnce() {
+        try (PersistenceLFUCache<String, Movie> cache = new PersistenceLFUCache<>(Movie.class, 4, 0.5f, tempDir)) {
+            assertThat(cache.putAll(itemsOf(SNOWDEN, AQUAMAN, INCEPTION)))
+                    .isEmpty();
+            cache.get(Movies.SNOWDEN_IMDB);
+
+            assertThat(cache.putAll(itemsOf(INTERSTELLAR, ARRIVAL, SNOWDEN)))
+                    .hasSize(2)
+                    .extracting(Map.Entry::getValue)
+                    .containsExactlyInAnyOrder(AQUAMAN, INCEPTION);
+            assertThat(cache.size())
+                    .isEqualTo(3);
+            assertThat(cache.getAll(List.of(Movies.SNOWDEN_IMDB, Movies.ARRIVAL_IMDB, Movies.AQUAMAN_IMDB)))
+                    .containsOnlyKeys(Movies.SNOWDEN_IMDB, Movies.ARRIVAL_IMDB);
+            assertThat(cache.frequencyOf(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(2);
+        }
+    }
+
+    @Test
+    void defaultBulkOperationsShouldLoopOverSingleOnes() {
+        final LeveledCache<String, Movie> cache = new LFUCache<>(Movie.class, 2, 1.0f);
+        assertThat(cache.putAll(itemsOf(SNOWDEN, AQUAMAN, INCEPTION)))
+                .hasSize(2);
+        assertThat(cache.getAll(List.of(Movies.INCEPTION_IMDB, Movies.SNOWDEN_IMDB)))
+                .containsOnlyKeys(Movies.INCEPTION_IMDB);
+        assertThat(cache.removeAll(List.of(Movies.INCEPTION_IMDB, Movies.SNOWDEN_IMDB)))
+                .containsOnlyKeys(Movies.INCEPTION_IMDB);
+    }
+
+    @Test
+    void missingItemsShouldBeLoadedAndPut() throws IOException {
+        final Map<String, Movie> source = itemsOf(SNOWDEN, AQUAMAN, INCEPTION);
+        try (TwoLevelsCache<String, Movie> cache = new TwoLevelsCache<>(
+                new LFUCache<>(Movie.class, 1, 1.0f), new LFUCache<>(Movie.class, 2, 1.0f))) {
+            assertThat(cache.get(Movies.SNOWDEN_IMDB, source::get))
+                    .isEqualTo(SNOWDEN);
+            assertThat(cache.get(Movies.SNOWDEN_IMDB, key -> null))
+                    .isEqualTo(SNOWDEN);
+            assertThat(cache.get(Movies.ARRIVAL_IMDB, source::get))
+                    .isNull();
+
+            assertThat(cache.getAll(List.of(Movies.SNOWDEN_IMDB, Movies.AQUAMAN_IMDB, Movies.ARRIVAL_IMDB, Movies.AQUAMAN_IMDB), source::get))
+                    .containsOnlyKeys(Movies.SNOWDEN_IMDB, Movies.AQUAMAN_IMDB);
+            assertThat(cache.getAll(List.of(Movies.SNOWDEN_IMDB, Movies.AQUAMAN_IMDB), key -> null))
+                    .hasSize(2);
+            assertThat(cache.size())
+                    .isEqualTo(2);
+        }
+    }
+
+    @SuppressWarnings("PMD.UseConcurrentHashMap")
+    private static Map<String, Movie> itemsOf(final Movie... movies) {
+        final Map<String, Movie> items = new LinkedHashMap<>(movies.length);
+        for (final Movie movie : movies) {
+            items.put(movie.getIdentifier(), movie);
+        }
+        return items;
+    }
+}
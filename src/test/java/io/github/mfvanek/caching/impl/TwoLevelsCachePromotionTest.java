@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.builders.TwoLevelsCacheBuilder;
+import io.github.mfvanek.caching.interfaces.LeveledCache;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TwoLevelsCachePromotionTest {
+
+    private static final Movie SNOWDEN = Movies.getSnowden();
+    private static final Movie AQUAMAN = Movies.getAquaman();
+    private static final Movie INCEPTION = Movies.getInception();
+    private static final Movie INTERSTELLAR = Movies.getInterstellar();
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void hotItemsShouldBePromotedToFirstLevel() throws IOException {
+        final LeveledCache<String, Movie> firstLevel = new LFUCache<>(Movie.class, 1, 1.0f);
+        final PersistenceLFUCache<String, Movie> secondLevel = new PersistenceLFUCache<>(Movie.class, 2, 0.5f, tempDir);
+        try (TwoLevelsCache<String, Movie> cache = new TwoLevelsCache<>(firstLevel, secondLevel, 2)) {
+            cache.put(SNOWDEN);
+            cache.put(AQUAMAN);
+            assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(SNOWDEN);
+            assertThat(secondLevel.containsKey(Movies.SNOWDEN_IMDB))
+                    .as("the frequency is below the threshold")
+                    .isTrue();
+
+            assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(SNOWDEN);
+            assertThat(firstLevel.containsKey(Movies.SNOWDEN_IMDB))
+                    .isTrue();
+            assertThat(secondLevel.containsKey(Movies.SNOWDEN_IMDB))
+                    .isFalse();
+            assertThat(secondLevel.containsKey(Movies.AQUAMAN_IMDB))
+                    .as("demoted on promotion")
+                    .isTrue();
+            assertThat(cache.size())
+                    .isEqualTo(2);
+        }
+    }
+
+    @Test
+    void promotionShouldDemoteDisplacedItems() {
+        final LeveledCache<String, Movie> cache = TwoLevelsCacheBuilder.builder(Movie.class)
+                .setBaseDirectory(tempDir)
+                .setPromotionFrequency(1)
+                .setFirstLevelMaxSize(2)
+                .setFirstLevelEvictionFactor(1.0f)
+                .setSecondLevelMaxSize(1)
+                .setSecondLevelEvictionFactor(1.0f)
+                .build();
+        cache.put(SNOWDEN);
+        cache.put(AQUAMAN);
+        cache.put(INCEPTION);
+        cache.put(INTERSTELLAR);
+        assertThat(cache.size())
+                .isEqualTo(3);
+
+        assertThat(cache.get(Movies.AQUAMAN_IMDB))
+                .isEqualTo(AQUAMAN);
+        assertThat(cache.size())
+                .as("both items of the first level have been demoted, so the second level has evicted one of them")
+                .isEqualTo(2);
+        assertThat(cache.containsKey(Movies.AQUAMAN_IMDB))
+                .isTrue();
+        assertThat(cache.get(Movies.INTERSTELLAR_IMDB))
+                .isEqualTo(INTERSTELLAR);
+    }
+
+    @Test
+    void promotionShouldBeDisabledByDefault() throws IOException {
+        final LeveledCache<String, Movie> firstLevel = new LFUCache<>(Movie.class, 1, 1.0f);
+        final LeveledCache<String, Movie> secondLevel = new LFUCache<>(Movie.class, 1, 1.0f);
+        try (TwoLevelsCache<String, Movie> cache = new TwoLevelsCache<>(firstLevel, secondLevel)) {
+            cache.put(SNOWDEN);
+            cache.put(AQUAMAN);
+            assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(SNOWDEN);
+            assertThat(secondLevel.containsKey(Movies.SNOWDEN_IMDB))
+                    .isTrue();
+        }
+    }
+
+    @Test
+    void promotionFrequencyShouldNotBeNegative() {
+        final LeveledCache<String, Movie> firstLevel = new LFUCache<>(Movie.class, 1, 1.0f);
+        assertThatThrownBy(() -> new TwoLevelsCache<>(firstLevel, firstLevel, -1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Promotion frequency must be greater than or equal to zero");
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.builders.TwoLevelsCacheBuilder;
+import io.github.mfvanek.caching.enums.TimedOperation;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import io.github.mfvanek.caching.stats.CacheStats;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TwoLevelsCacheStatsTest {
+
+    private static final Movie SNOWDEN = Movies.getSnowden();
+    private static final Movie AQUAMAN = Movies.getAquaman();
+    private static final Movie INCEPTION = Movies.getInception();
+    private static final Movie INTERSTELLAR = Movies.getInterstellar();
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void statisticsShouldBeRecordedPerLevel() throws IOException {
+        try (TwoLevelsCache<String, Movie> cache = TwoLevelsCacheBuilder.builder(Movie.class)
+                .setBaseDirectory(tempDir)
+                .setFirstLevelMaxSize(1)
+                .setFirstLevelEvictionFactor(1.0f)
+                .setSecondLevelMaxSize(2)
+                .setSecondLevelEvictionFactor(0.5f)
+                .setPromotionFrequency(2)
+                .setRecordStats(true)
+                .build()) {
+            cache.put(SNOWDEN);
+            cache.put(AQUAMAN);
+            cache.get(Movies.SNOWDEN_IMDB);
+            cache.get(Movies.AQUAMAN_IMDB);
+            cache.get(Movies.INCEPTION_IMDB);
+            cache.get(Movies.SNOWDEN_IMDB);
+            cache.getAll(List.of(Movies.AQUAMAN_IMDB, Movies.SNOWDEN_IMDB, Movies.INCEPTION_IMDB));
+
+            final CacheStats firstLevelStats = cache.firstLevelStats();
+            assertThat(firstLevelStats.hitCount())
+                    .isEqualTo(2L);
+            assertThat(firstLevelStats.missCount())
+                    .isEqualTo(5L);
+            assertThat(firstLevelStats.evictionCount())
+                    .as("both items have been demoted")
+                    .isEqualTo(2L);
+            assertThat(firstLevelStats.promotionCount())
+                    .isEqualTo(1L);
+
+            final CacheStats secondLevelStats = cache.secondLevelStats();
+            assertThat(secondLevelStats.hitCount())
+                    .isEqualTo(3L);
+            assertThat(secondLevelStats.missCount())
+                    .isEqualTo(2L);
+            assertThat(secondLevelStats.evictionCount())
+                    .isZero();
+            assertThat(secondLevelStats.latencyOf(TimedOperation.WRITE).count())
+                    .isEqualTo(2L);
+            assertThat(secondLevelStats.latencyOf(TimedOperation.REMOVE).count())
+                    .as("the promoted item is removed from disk")
+                    .isEqualTo(1L);
+            assertThat(secondLevelStats.latencyOf(TimedOperation.DESERIALIZE).count())
+                    .isPositive();
+
+            cache.putAll(Map.of(Movies.INCEPTION_IMDB, INCEPTION));
+            cache.putAll(Map.of(Movies.INTERSTELLAR_IMDB, INTERSTELLAR));
+            cache.put(AQUAMAN);
+            assertThat(cache.firstLevelStats().evictionCount())
+                    .isEqualTo(4L);
+            assertThat(cache.secondLevelStats().evictionCount())
+                    .isEqualTo(1L);
+        }
+    }
+
+    @Test
+    void statisticsShouldBeDisabledByDefault() throws IOException {
+        try (TwoLevelsCache<String, Movie> cache = TwoLevelsCacheBuilder.builder(Movie.class)
+                .setBaseDirectory(tempDir)
+                .build()) {
+            cache.put(SNOWDEN);
+            cache.get(Movies.SNOWDEN_IMDB);
+            assertThat(cache.firstLevelStats())
+                    .isEqualTo(CacheStats.empty());
+            assertThat(cache.secondLevelStats())
+                    .isEqualTo(CacheStats.empty());
+        }
+    }
+}
@@ -8,11 +8,19 @@
 package io.github.mfvanek.caching.impl;
 
 import io.github.mfvanek.caching.builders.TwoLevelsCacheBuilder;
+import io.github.mfvanek.caching.enums.BackpressurePolicy;
+import io.github.mfvanek.caching.enums.CacheType;
+import io.github.mfvanek.caching.enums.StorageType;
 import io.github.mfvanek.caching.interfaces.LeveledCache;
 import io.github.mfvanek.caching.models.Movie;
 import io.github.mfvanek.caching.models.Movies;
+import io.github.mfvanek.caching.serializers.RecordValueSerializer;
+import io.github.mfvanek.caching.serializers.StringSerializer;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.util.zip.Deflater;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 class TwoLevelsCacheTest extends BaseCacheTest {
@@ -97,6 +105,139 @@ class TwoLevelsCacheTest extends BaseCacheTest {
                 .isTrue();
     }
 
+    @Test
+    void windowTinyLFUAsFirstLevel() {
+        final LeveledCache<String, Movie> cache = TwoLevelsCacheBuilder.builder(Movie.class)
+                .setBaseDirectory(tempDir)
+                .setFirstLevelCacheType(CacheType.WINDOW_TINY_LFU)
+                .setFirstLevelMaxSize(1)
+                .setSecondLevelMaxSize(1)
+                .build();
+        assertThat(cache.put(SNOWDEN))
+                .isEmpty();
+        assertThat(cache.put(AQUAMAN))
+                .isEmpty();
+        assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                .as("demoted to the second level")
+                .isEqualTo(SNOWDEN);
+        assertThat(cache.size())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void offHeapFirstLevel() {
+        final LeveledCache<String, Movie> cache = TwoLevelsCacheBuilder.builder(Movie.class)
+                .setBaseDirectory(tempDir)
+                .setFirstLevelCacheType(CacheType.OFF_HEAP_LFU)
+                .setFirstLevelMaxSize(1)
+                .setFirstLevelEvictionFactor(1.0f)
+                .setSecondLevelMaxSize(1)
+                .build();
+        cache.put(SNOWDEN);
+        cache.get(Movies.SNOWDEN_IMDB);
+        cache.put(AQUAMAN);
+        assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                .isEqualTo(SNOWDEN);
+        assertThat(cache.get(Movies.AQUAMAN_IMDB))
+                .isEqualTo(AQUAMAN);
+        assertThat(cache.size())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void segmentedSecondLevel() {
+        final LeveledCache<String, Movie> cache = TwoLevelsCacheBuilder.builder(Movie.class)
+                .setBaseDirectory(tempDir.resolve("segmented"))
+                .setSecondLevelStorageType(StorageType.MAPPED_SEGMENTED)
+                .setSecondLevelSerializer(new RecordValueSerializer<>(Movie.class))
+                .setFirstLevelMaxSize(1)
+                .setSecondLevelMaxSize(1)
+                .build();
+        cache.put(SNOWDEN);
+        cache.put(AQUAMAN);
+        // Updates the value in the second level
+        cache.put(SNOWDEN);
+        assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                .isEqualTo(SNOWDEN);
+        assertThat(cache.get(Movies.AQUAMAN_IMDB))
+                .isEqualTo(AQUAMAN);
+        assertThat(cache.size())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void secondLevelShouldBeRecoveredAfterRestart() {
+        final TwoLevelsCacheBuilder<String, Movie> builder = TwoLevelsCacheBuilder.builder(Movie.class)
+                .setBaseDirectory(tempDir.resolve("restart"))
+                .setSecondLevelStorageType(StorageType.SEGMENTED)
+                .setSecondLevelSerializer(new RecordValueSerializer<>(Movie.class))
+                .setSecondLevelKeySerializer(new StringSerializer())
+                .setFirstLevelMaxSize(1)
+                .setSecondLevelMaxSize(1);
+        final LeveledCache<String, Movie> cache = builder.build();
+        cache.put(SNOWDEN);
+        cache.put(AQUAMAN);
+
+        // Nothing is closed, as if the process crashed
+        final LeveledCache<String, Movie> restarted = builder.build();
+        assertThat(restarted.size())
+                .isEqualTo(1);
+        assertThat(restarted.get(Movies.SNOWDEN_IMDB))
+                .isEqualTo(SNOWDEN);
+    }
+
+    @Test
+    void writeBehindSecondLevel() throws IOException {
+        final TwoLevelsCacheBuilder<String, Movie> builder = TwoLevelsCacheBuilder.builder(Movie.class)
+                .setBaseDirectory(tempDir.resolve("write-behind"))
+                .setSecondLevelStorageType(StorageType.SEGMENTED)
+                .setSecondLevelSerializer(new RecordValueSerializer<>(Movie.class))
+                .setSecondLevelKeySerializer(new StringSerializer())
+                .setSecondLevelWriteBehind(1, BackpressurePolicy.WRITE_INLINE)
+                .setFirstLevelMaxSize(1)
+                .setFirstLevelEvictionFactor(1.0f)
+                .setSecondLevelMaxSize(2);
+        try (TwoLevelsCache<String, Movie> cache = builder.build()) {
+            assertThat(cache.put(SNOWDEN))
+                    .isEmpty();
+            assertThat(cache.put(AQUAMAN))
+                    .isEmpty();
+            assertThat(cache.put(INCEPTION))
+                    .isEmpty();
+            assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(SNOWDEN);
+            assertThat(cache.remove(Movies.AQUAMAN_IMDB))
+                    .as("removed from the second level")
+                    .isEqualTo(AQUAMAN);
+            assertThat(cache.size())
+                    .isEqualTo(2);
+        }
+
+        try (TwoLevelsCache<String, Movie> restarted = builder.build()) {
+            assertThat(restarted.get(Movies.SNOWDEN_IMDB))
+                    .as("queued items are written on close")
+                    .isEqualTo(SNOWDEN);
+            assertThat(restarted.containsKey(Movies.AQUAMAN_IMDB))
+                    .isFalse();
+        }
+    }
+
+    @Test
+    void compressedSecondLevel() {
+        final LeveledCache<String, Movie> cache = TwoLevelsCacheBuilder.builder(Movie.class)
+                .setBaseDirectory(tempDir.resolve("compressed"))
+                .setSecondLevelCompression(Deflater.BEST_SPEED, 0)
+                .setFirstLevelMaxSize(1)
+                .setSecondLevelMaxSize(1)
+                .build();
+        cache.put(SNOWDEN);
+        cache.put(AQUAMAN);
+        assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                .isEqualTo(SNOWDEN);
+        assertThat(cache.get(Movies.AQUAMAN_IMDB))
+                .isEqualTo(AQUAMAN);
+    }
+
     @Override
     protected LeveledCache<String, Movie> createCache() {
         return createCache(MAX_SIZE);
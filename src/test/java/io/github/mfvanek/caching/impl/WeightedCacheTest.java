@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.builders.CacheBuilder;
+import io.github.mfvanek.caching.builders.TwoLevelsCacheBuilder;
+import io.github.mfvanek.caching.enums.CacheType;
+import io.github.mfvanek.caching.enums.StorageType;
+import io.github.mfvanek.caching.interfaces.LeveledCache;
+import io.github.mfvanek.caching.interfaces.PersistentStorage;
+import io.github.mfvanek.caching.interfaces.ValueSerializer;
+import io.github.mfvanek.caching.interfaces.Weigher;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import io.github.mfvanek.caching.serializers.JavaValueSerializer;
+import io.github.mfvanek.caching.serializers.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WeightedCacheTest {
+
+    private static final Movie SNOWDEN = Movies.getSnowden();
+    private static final Movie AQUAMAN = Movies.getAquaman();
+    private static final Movie INCEPTION = Movies.getInception();
+    private static final Movie ARRIVAL = Movies.getArrival();
+    private static final Map<String, Integer> WEIGHTS = Map.of(
+            Movies.SNOWDEN_IMDB, 4,
+            Movies.AQUAMAN_IMDB, 4,
+            Movies.INCEPTION_IMDB, 5,
+            Movies.ARRIVAL_IMDB, 11);
+    private static final Weigher<String, Movie> WEIGHER = (key, movie) -> WEIGHTS.get(key);
+    private static final ValueSerializer<Movie> SERIALIZER = new JavaValueSerializer<>(Movie.class);
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void leastFrequentlyUsedItemsShouldBeEvictedUntilNewItemFits() {
+        final LeveledCache<String, Movie> cache = CacheBuilder.builder(Movie.class)
+                .setCacheType(CacheType.LFU)
+                .setMaxWeight(10L)
+                .setWeigher(WEIGHER)
+                .build();
+        cache.put(SNOWDEN);
+        cache.put(AQUAMAN);
+        cache.get(Movies.SNOWDEN_IMDB);
+
+        assertThat(cache.put(INCEPTION))
+                .containsExactly(AQUAMAN);
+        assertThat(cache.put(SNOWDEN))
+                .as("the weight of a replaced item is not counted twice")
+                .isEmpty();
+        assertThat(cache.frequencyOf(Movies.SNOWDEN_IMDB))
+                .isEqualTo(1);
+        assertThat(cache.put(ARRIVAL))
+                .as("an item heavier than the whole budget doesn't flush the others")
+                .containsExactly(ARRIVAL);
+        assertThat(cache.size())
+                .isEqualTo(2);
+        cache.clear();
+        cache.put(SNOWDEN);
+        cache.put(AQUAMAN);
+        assertThat(cache.size())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void eldestItemsShouldBeDroppedUntilNewItemFits() {
+        final LeveledCache<String, Movie> cache = CacheBuilder.builder(Movie.class)
+                .setMaxWeight(10L)
+                .setWeigher(WEIGHER)
+                .build();
+        cache.put(SNOWDEN);
+        cache.put(AQUAMAN);
+        assertThat(cache.put(INCEPTION))
+                .isEmpty();
+        assertThat(cache.containsKey(Movies.SNOWDEN_IMDB))
+                .isFalse();
+        cache.put(ARRIVAL);
+        assertThat(cache.containsKey(Movies.ARRIVAL_IMDB))
+                .isFalse();
+        assertThat(cache.size())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void persistentCacheShouldBeBoundedByDiskBytes() {
+        final PersistentStorage<String, Movie> storage = StorageType.FILE_PER_ENTRY.create(SERIALIZER, tempDir);
+        final long maxBytes = sizeOf(SNOWDEN) + sizeOf(AQUAMAN) + sizeOf(INCEPTION) - 1L;
+        try (PersistenceLFUCache<String, Movie> cache = new PersistenceLFUCache<>(Movie.class, 10, 0.2f, maxBytes, storage)) {
+            cache.put(SNOWDEN);
+            cache.put(AQUAMAN);
+            cache.get(Movies.SNOWDEN_IMDB);
+            assertThat(cache.put(INCEPTION))
+                    .containsExactly(AQUAMAN);
+            assertThat(storage.sizeInBytes())
+                    .isEqualTo(sizeOf(SNOWDEN) + sizeOf(INCEPTION));
+
+            final Movie huge = new Movie("Huge".repeat((int) maxBytes), 2023, "tt0000001");
+            assertThat(cache.put(huge))
+                    .containsExactly(huge);
+            assertThat(cache.size())
+                    .isEqualTo(2);
+            cache.remove(Movies.SNOWDEN_IMDB);
+            assertThat(storage.sizeInBytes())
+                    .isEqualTo(sizeOf(INCEPTION));
+        }
+    }
+
+    @Test
+    void recoveredItemsShouldFitIntoDiskBudget() {
+        final CacheBuilder<String, Movie> builder = CacheBuilder.builder(Movie.class)
+                .setCacheType(CacheType.PERSISTENCE_LFU)
+                .setStorageType(StorageType.SEGMENTED)
+                .setKeySerializer(new StringSerializer())
+                .setBaseDirectory(tempDir);
+        try (PersistenceLFUCache<String, Movie> cache = (PersistenceLFUCache<String, Movie>) builder.build()) {
+            cache.put(SNOWDEN);
+            cache.put(AQUAMAN);
+            cache.put(INCEPTION);
+            cache.get(Movies.SNOWDEN_IMDB);
+        }
+        try (PersistenceLFUCache<String, Movie> cache = (PersistenceLFUCache<String, Movie>) builder.setMaxWeight(sizeOf(SNOWDEN) * 2L).build()) {
+            assertThat(cache.size())
+                    .isEqualTo(1);
+            assertThat(cache.containsKey(Movies.SNOWDEN_IMDB))
+                    .isTrue();
+        }
+    }
+
+    @Test
+    void offHeapCacheShouldBeBoundedByDirectMemory() {
+        try (OffHeapLFUCache<String, Movie> cache = (OffHeapLFUCache<String, Movie>) CacheBuilder.builder(Movie.class)
+                .setCacheType(CacheType.OFF_HEAP_LFU)
+                .setMaxWeight(1L)
+                .build()) {
+            assertThat(cache.put(SNOWDEN))
+                    .containsExactly(SNOWDEN);
+            assertThat(cache.size())
+                    .isZero();
+        }
+    }
+
+    @Test
+    void itemsNotFittingIntoFirstLevelShouldBeDemoted() throws IOException {
+        try (TwoLevelsCache<String, Movie> cache = TwoLevelsCacheBuilder.builder(Movie.class)
+                .setFirstLevelMaxWeight(sizeOf(SNOWDEN) + sizeOf(AQUAMAN) - 1L, null)
+                .setSecondLevelMaxBytes(sizeOf(SNOWDEN) + sizeOf(AQUAMAN))
+                .setBaseDirectory(tempDir)
+                .build()) {
+            cache.put(SNOWDEN);
+            assertThat(cache.put(AQUAMAN))
+                    .isEmpty();
+            assertThat(cache.put(INCEPTION))
+                    .isEmpty();
+            assertThat(cache.containsKey(Movies.SNOWDEN_IMDB))
+                    .isTrue();
+            assertThat(cache.put(ARRIVAL))
+                    .as("the second level makes room for the large item demoted from the first one")
+                    .containsExactly(SNOWDEN, AQUAMAN);
+            assertThat(cache.size())
+                    .isEqualTo(2);
+        }
+    }
+
+    @Test
+    void maxWeightShouldBePositive() {
+        assertThatThrownBy(() -> new LFUCache<>(Movie.class, 10, 0.2f, 0L, WEIGHER))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Max weight must be positive");
+    }
+
+    private static long sizeOf(final Movie movie) {
+        return SERIALIZER.serialize(movie).length;
+    }
+}
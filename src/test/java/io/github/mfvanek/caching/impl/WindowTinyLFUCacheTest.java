@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.builders.CacheBuilder;
+import io.github.mfvanek.caching.enums.CacheType;
+import io.github.mfvanek.caching.interfaces.Countable;
+import io.github.mfvanek.caching.interfaces.LeveledCache;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WindowTinyLFUCacheTest extends BaseCacheTest {
+
+    @Test
+    @Override
+    final void putOnlyValue() {
+        final LeveledCache<String, Movie> cache = createCache();
+
+        assertThat(cache.put(SNOWDEN))
+                .isEmpty();
+        assertThat(cache.put(AQUAMAN))
+                .isEmpty();
+        assertThat(cache.size())
+                .isEqualTo(2);
+
+        // The candidate from the window is not more popular than the victim, so it is rejected
+        assertThat(cache.put(INCEPTION))
+                .hasSize(1)
+                .containsExactly(AQUAMAN);
+        assertThat(cache.size())
+                .isEqualTo(2);
+        assertThat(cache.containsKey(Movies.SNOWDEN_IMDB))
+                .isTrue();
+        assertThat(cache.containsKey(Movies.INCEPTION_IMDB))
+                .isTrue();
+    }
+
+    @Test
+    void popularCandidateShouldReplaceVictim() {
+        final LeveledCache<String, Movie> cache = createCache();
+        cache.put(SNOWDEN);
+        cache.put(AQUAMAN);
+        cache.get(Movies.AQUAMAN_IMDB);
+        cache.get(Movies.AQUAMAN_IMDB);
+
+        assertThat(cache.put(INCEPTION))
+                .hasSize(1)
+                .containsExactly(SNOWDEN);
+        assertThat(cache.getLowestFrequency())
+                .isEqualTo(3);
+    }
+
+    @Test
+    void hotEntriesShouldSurviveScan() {
+        final int maxSize = 100;
+        final LeveledCache<String, Movie> cache = createCache(maxSize);
+        final List<Movie> hotMovies = Movies.getRandomGeneratedMovies(maxSize / 2);
+        for (final Movie movie : hotMovies) {
+            cache.put(movie);
+        }
+        // Push the last hot movie out of the window, so every hot movie gets promoted to the protected segment
+        cache.put(SNOWDEN);
+        for (int i = 0; i < 5; ++i) {
+            hotMovies.forEach(m -> cache.get(m.getIdentifier()));
+        }
+
+        for (final Movie movie : Movies.getRandomGeneratedMovies(maxSize * 10)) {
+            cache.put(movie);
+        }
+        assertThat(cache.size())
+                .isEqualTo(maxSize);
+        assertThat(hotMovies)
+                .allMatch(m -> cache.containsKey(m.getIdentifier()));
+    }
+
+    @Test
+    void protectedSegmentShouldDemoteLeastRecentlyUsed() {
+        final int maxSize = 10;
+        final LeveledCache<String, Movie> cache = createCache(maxSize);
+        final List<Movie> movies = Movies.getRandomGeneratedMovies(maxSize);
+        movies.forEach(cache::put);
+        movies.forEach(m -> cache.get(m.getIdentifier()));
+        movies.forEach(m -> cache.get(m.getIdentifier()));
+
+        assertThat(cache.size())
+                .isEqualTo(maxSize);
+        // The last movie leaves the window and loses to the demoted entry with the same frequency
+        assertThat(cache.put(SNOWDEN))
+                .hasSize(1)
+                .containsExactly(movies.get(maxSize - 1));
+        assertThat(cache.getLowestFrequency())
+                .isEqualTo(3);
+    }
+
+    @Test
+    void putShouldUpdateExistingValue() {
+        final LeveledCache<String, Movie> cache = createCache(0);
+        final Movie updated = new Movie("Snowden", 2017, Movies.SNOWDEN_IMDB);
+        assertThat(cache.put(SNOWDEN))
+                .containsExactly(SNOWDEN);
+
+        final LeveledCache<String, Movie> biggerCache = createCache();
+        biggerCache.put(SNOWDEN);
+        assertThat(biggerCache.put(updated))
+                .isEmpty();
+        assertThat(biggerCache.get(Movies.SNOWDEN_IMDB))
+                .isEqualTo(updated);
+    }
+
+    @Test
+    void frequencies() {
+        final LeveledCache<String, Movie> cache = createCache();
+        assertThat(cache.getLowestFrequency())
+                .isZero();
+        cache.put(SNOWDEN);
+        cache.get(Movies.SNOWDEN_IMDB);
+
+        assertThat(cache.frequencyOf(Movies.SNOWDEN_IMDB))
+                .isEqualTo(2);
+        assertThat(cache.getLowestFrequency())
+                .isEqualTo(2);
+        assertThatThrownBy(() -> cache.frequencyOf(Movies.AQUAMAN_IMDB))
+                .isInstanceOf(NoSuchElementException.class)
+                .hasMessage("Key tt1477834 not found in the cache");
+    }
+
+    @Test
+    void innerRemove() {
+        final WindowTinyLFUCache<String, Movie> cache = new WindowTinyLFUCache<>(Movie.class, MAX_SIZE);
+        cache.put(SNOWDEN);
+
+        assertThat(cache.innerRemove(Movies.SNOWDEN_IMDB))
+                .satisfies(e -> {
+                    assertThat(e.getKey()).isEqualTo(1);
+                    assertThat(e.getValue()).isEqualTo(SNOWDEN);
+                });
+        assertThat(cache.innerRemove(Movies.SNOWDEN_IMDB))
+                .satisfies(e -> {
+                    assertThat(e.getKey()).isEqualTo(Countable.INVALID_FREQUENCY);
+                    assertThat(e.getValue()).isNull();
+                });
+    }
+
+    @Override
+    protected LeveledCache<String, Movie> createCache() {
+        return createCache(MAX_SIZE);
+    }
+
+    @Override
+    protected LeveledCache<String, Movie> createCache(final int maxSize) {
+        return CacheBuilder.builder(Movie.class)
+                .setCacheType(CacheType.WINDOW_TINY_LFU)
+                .setMaxSize(maxSize)
+                .build();
+    }
+}
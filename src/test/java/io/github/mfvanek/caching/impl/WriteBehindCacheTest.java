@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.impl;
+
+import io.github.mfvanek.caching.enums.BackpressurePolicy;
+import io.github.mfvanek.caching.helpers.DirectoryUtils;
+import io.github.mfvanek.caching.interfaces.LeveledCache;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SuppressWarnings("checkstyle:ClassDataAbstractionCoupling")
+class WriteBehindCacheTest {
+
+    private static final Movie SNOWDEN = Movies.getSnowden();
+    private static final Movie AQUAMAN = Movies.getAquaman();
+    private static final Movie INCEPTION = Movies.getInception();
+    private static final Movie UPDATED_SNOWDEN = new Movie("Snowden", 2017, Movies.SNOWDEN_IMDB);
+
+    private final List<Runnable> writers = new ArrayList<>();
+
+    @Test
+    void queuedItemsShouldBeVisibleToReads() throws IOException {
+        final LeveledCache<String, Movie> delegate = new LFUCache<>(Movie.class, 2, 0.5f);
+        try (WriteBehindCache<String, Movie> cache = createWithStoppedWriter(delegate, 2, BackpressurePolicy.BLOCK)) {
+            assertThat(cache.put(SNOWDEN))
+                    .isEmpty();
+            assertThat(cache.put(SNOWDEN))
+                    .isEmpty();
+
+            assertThat(delegate.size())
+                    .isZero();
+            assertThat(cache.size())
+                    .isEqualTo(1);
+            assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(SNOWDEN);
+            assertThat(cache.containsKey(Movies.SNOWDEN_IMDB))
+                    .isTrue();
+            assertThat(cache.frequencyOf(Movies.SNOWDEN_IMDB))
+                    .isZero();
+            assertThat(cache.getLowestFrequency())
+                    .isZero();
+            assertThat(cache.get(Movies.AQUAMAN_IMDB))
+                    .isNull();
+            assertThat(cache.containsKey(Movies.AQUAMAN_IMDB))
+                    .isFalse();
+        }
+        assertThat(delegate.get(Movies.SNOWDEN_IMDB))
+                .as("queued items are written on close")
+                .isEqualTo(SNOWDEN);
+    }
+
+    @Test
+    void writerShouldMoveItemsToUnderlyingCache() throws IOException {
+        final LeveledCache<String, Movie> delegate = new ConcurrentLFUCache<>(Movie.class, 2, 0.5f, false);
+        try (WriteBehindCache<String, Movie> cache = new WriteBehindCache<>(delegate, 2, BackpressurePolicy.BLOCK)) {
+            cache.put(SNOWDEN);
+            cache.put(AQUAMAN);
+            awaitUntil(() -> delegate.size() == 2);
+
+            assertThat(cache.size())
+                    .isEqualTo(2);
+            assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(SNOWDEN);
+            assertThat(cache.frequencyOf(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(1);
+            assertThat(cache.getLowestFrequency())
+                    .isZero();
+            assertThat(cache.remove(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(SNOWDEN);
+            assertThat(cache.containsKey(Movies.SNOWDEN_IMDB))
+                    .isFalse();
+            assertThat(cache.containsKey(Movies.AQUAMAN_IMDB))
+                    .isTrue();
+
+            cache.put(SNOWDEN);
+            cache.put(INCEPTION);
+            awaitUntil(() -> delegate.containsKey(Movies.INCEPTION_IMDB));
+            assertThat(cache.size())
+                    .as("evicted by the writer")
+                    .isEqualTo(2);
+        }
+    }
+
+    @Test
+    void writerShouldStopOnInterrupt() throws IOException, InterruptedException {
+        final LeveledCache<String, Movie> delegate = new ConcurrentLFUCache<>(Movie.class, 2, 0.5f, false);
+        try (WriteBehindCache<String, Movie> cache = createWithStoppedWriter(delegate, 2, BackpressurePolicy.BLOCK)) {
+            cache.put(SNOWDEN);
+            final Thread writer = new Thread(writers.get(0));
+            writer.start();
+            awaitUntil(() -> delegate.containsKey(Movies.SNOWDEN_IMDB));
+
+            writer.interrupt();
+            writer.join();
+            cache.put(AQUAMAN);
+            assertThat(delegate.containsKey(Movies.AQUAMAN_IMDB))
+                    .isFalse();
+        }
+        assertThat(delegate.containsKey(Movies.AQUAMAN_IMDB))
+                .isTrue();
+    }
+
+    @Test
+    void removeAndClearShouldDiscardQueuedItems() throws IOException {
+        final LeveledCache<String, Movie> delegate = new LFUCache<>(Movie.class, 2, 0.5f);
+        try (WriteBehindCache<String, Movie> cache = createWithStoppedWriter(delegate, 2, BackpressurePolicy.BLOCK)) {
+            cache.put(SNOWDEN);
+            cache.put(AQUAMAN);
+            assertThat(cache.remove(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(SNOWDEN);
+            assertThat(cache.size())
+                    .isEqualTo(1);
+            cache.clear();
+            assertThat(cache.size())
+                    .isZero();
+
+            cache.put(SNOWDEN);
+        }
+        assertThat(delegate.size())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void fullQueueShouldDropItems() throws IOException {
+        final LeveledCache<String, Movie> delegate = new LFUCache<>(Movie.class, 2, 0.5f);
+        try (WriteBehindCache<String, Movie> cache = createWithStoppedWriter(delegate, 1, BackpressurePolicy.DROP)) {
+            assertThat(cache.put(SNOWDEN))
+                    .isEmpty();
+            assertThat(cache.put(Movies.AQUAMAN_IMDB, AQUAMAN))
+                    .containsExactly(new AbstractMap.SimpleEntry<>(Movies.AQUAMAN_IMDB, AQUAMAN));
+            assertThat(cache.containsKey(Movies.AQUAMAN_IMDB))
+                    .isFalse();
+            assertThat(cache.put(SNOWDEN))
+                    .as("the queued key takes the new value without a slot in the queue")
+                    .isEmpty();
+        }
+    }
+
+    @Test
+    void fullQueueShouldNotDropUpdatesOfStoredItems() throws IOException {
+        final LeveledCache<String, Movie> delegate = new LFUCache<>(Movie.class, 2, 0.5f);
+        delegate.put(SNOWDEN);
+        try (WriteBehindCache<String, Movie> cache = createWithStoppedWriter(delegate, 1, BackpressurePolicy.DROP)) {
+            cache.put(AQUAMAN);
+            assertThat(cache.put(UPDATED_SNOWDEN))
+                    .as("the update is written inline")
+                    .isEmpty();
+            assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(UPDATED_SNOWDEN);
+            assertThat(delegate.get(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(UPDATED_SNOWDEN);
+        }
+    }
+
+    @Test
+    void putsOfKeyRejectedByFullQueueShouldNotBeLost() throws IOException, InterruptedException {
+        final BlockingReadCache delegate = new BlockingReadCache();
+        try (WriteBehindCache<String, Movie> cache = createWithStoppedWriter(delegate, 1, BackpressurePolicy.DROP)) {
+            cache.put(AQUAMAN);
+            // The reader holds the lock of the cache, so the put rejected by the queue waits for it
+            final Thread reader = new Thread(() -> cache.get(Movies.INCEPTION_IMDB));
+            reader.start();
+            delegate.readStarted.await();
+            final List<Movie> droppedItems = new ArrayList<>();
+            final Thread writer = new Thread(() -> droppedItems.addAll(cache.put(SNOWDEN)));
+            writer.start();
+            awaitUntil(() -> writer.getState() == Thread.State.WAITING);
+
+            assertThat(cache.put(UPDATED_SNOWDEN))
+                    .as("the key is seen as queued")
+                    .isEmpty();
+            delegate.readReleased.countDown();
+            reader.join();
+            writer.join();
+            assertThat(droppedItems)
+                    .isEmpty();
+            assertThat(delegate.get(Movies.SNOWDEN_IMDB))
+                    .as("the latest value is written instead of the rejected one")
+                    .isEqualTo(UPDATED_SNOWDEN);
+        }
+    }
+
+    @Test
+    void fullQueueShouldFallBackToInlineWrites() throws IOException {
+        final LeveledCache<String, Movie> delegate = new LFUCache<>(Movie.class, 2, 0.5f);
+        try (WriteBehindCache<String, Movie> cache = createWithStoppedWriter(delegate, 1, BackpressurePolicy.WRITE_INLINE)) {
+            cache.put(SNOWDEN);
+            cache.put(AQUAMAN);
+            assertThat(delegate.get(Movies.AQUAMAN_IMDB))
+                    .isEqualTo(AQUAMAN);
+            assertThat(cache.size())
+                    .isEqualTo(2);
+        }
+    }
+
+    @Test
+    void interruptedPutShouldWriteInline() throws IOException {
+        final LeveledCache<String, Movie> delegate = new LFUCache<>(Movie.class, 2, 0.5f);
+        try (WriteBehindCache<String, Movie> cache = createWithStoppedWriter(delegate, 1, BackpressurePolicy.BLOCK)) {
+            Thread.currentThread().interrupt();
+            cache.put(SNOWDEN);
+            assertThat(Thread.interrupted())
+                    .isTrue();
+            assertThat(delegate.get(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(SNOWDEN);
+        }
+    }
+
+    @Test
+    void writerShouldSurviveFailures() throws IOException {
+        final Path directory = Files.createTempDirectory("write-behind");
+        try (WriteBehindCache<String, Movie> cache = new WriteBehindCache<>(
+                new PersistenceLFUCache<>(Movie.class, 2, 0.5f, directory), 1, BackpressurePolicy.BLOCK)) {
+            DirectoryUtils.deleteDirectory(directory);
+            Files.createFile(directory);
+            cache.put(SNOWDEN);
+            awaitUntil(() -> !cache.containsKey(Movies.SNOWDEN_IMDB));
+
+            cache.put(AQUAMAN);
+            awaitUntil(() -> !cache.containsKey(Movies.AQUAMAN_IMDB));
+            assertThat(cache.size())
+                    .isZero();
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    void queueCapacityShouldBePositive() {
+        final LeveledCache<String, Movie> delegate = new LFUCache<>(Movie.class, 2, 0.5f);
+        assertThatThrownBy(() -> new WriteBehindCache<>(delegate, 0, BackpressurePolicy.BLOCK))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Queue capacity must be greater than zero");
+    }
+
+    private WriteBehindCache<String, Movie> createWithStoppedWriter(final LeveledCache<String, Movie> delegate,
+                                                                    final int queueCapacity,
+                                                                    final BackpressurePolicy policy) {
+        return new WriteBehindCache<>(delegate, queueCapacity, policy, writers::add);
+    }
+
+    private static void awaitUntil(final BooleanSupplier condition) {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime())
+                    .isLessThan(deadline);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10L));
+        }
+    }
+
+    private static final class BlockingReadCache extends LFUCache<String, Movie> {
+
+        private final CountDownLatch readStarted = new CountDownLatch(1);
+        private final CountDownLatch readReleased = new CountDownLatch(1);
+
+        BlockingReadCache() {
+            super(Movie.class, 2, 0.5f);
+        }
+
+        @Override
+        public Movie get(final String key) {
+            readStarted.countDown();
+            try {
+                readReleased.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.get(key);
+        }
+    }
+}
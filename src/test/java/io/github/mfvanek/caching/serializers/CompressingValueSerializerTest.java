@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.serializers;
+
+import io.github.mfvanek.caching.interfaces.ValueSerializer;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompressingValueSerializerTest {
+
+    private static final RecordValueSerializer<Movie> MOVIE_SERIALIZER = new RecordValueSerializer<>(Movie.class);
+
+    @Test
+    void smallValuesShouldBeStoredAsIs() {
+        final CompressingValueSerializer<Movie> serializer = new CompressingValueSerializer<>(
+                MOVIE_SERIALIZER, Deflater.BEST_SPEED, CompressingValueSerializer.DEFAULT_THRESHOLD);
+        final Movie snowden = Movies.getSnowden();
+        final byte[] bytes = serializer.serialize(snowden);
+
+        assertThat(bytes)
+                .hasSize(MOVIE_SERIALIZER.serialize(snowden).length + 1);
+        assertThat(serializer.deserialize(ByteBuffer.wrap(bytes)))
+                .isEqualTo(snowden);
+    }
+
+    @Test
+    void textShouldBeCompressed() {
+        final CompressingValueSerializer<Movie> serializer = new CompressingValueSerializer<>(
+                MOVIE_SERIALIZER, Deflater.DEFAULT_COMPRESSION, 0);
+        final Movie movie = new Movie("The quick brown fox jumps over the lazy dog. ".repeat(50), 2018, "tt0000001");
+        final byte[] bytes = serializer.serialize(movie);
+
+        assertThat(bytes)
+                .hasSizeLessThan(MOVIE_SERIALIZER.serialize(movie).length / 10);
+        final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+        assertThat(serializer.deserialize(direct))
+                .isEqualTo(movie);
+        assertThat(direct.hasRemaining())
+                .isFalse();
+    }
+
+    @Test
+    void incompressibleValuesShouldBeStoredAsIs() {
+        final CompressingValueSerializer<byte[]> serializer = new CompressingValueSerializer<>(
+                new BytesSerializer(), Deflater.BEST_COMPRESSION, 0);
+        final ByteBuffer randomBuffer = ByteBuffer.allocate(1024);
+        while (randomBuffer.hasRemaining()) {
+            final UUID uuid = UUID.randomUUID();
+            randomBuffer.putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+        }
+        final byte[] random = randomBuffer.array();
+        final byte[] bytes = serializer.serialize(random);
+
+        assertThat(bytes)
+                .hasSize(random.length + 1);
+        assertThat(serializer.deserialize(ByteBuffer.wrap(bytes)))
+                .isEqualTo(random);
+        assertThat(serializer.deserialize(ByteBuffer.wrap(serializer.serialize(new byte[2]))))
+                .isEqualTo(new byte[2]);
+    }
+
+    @Test
+    void corruptedValuesShouldBeRejected() {
+        final CompressingValueSerializer<byte[]> serializer = new CompressingValueSerializer<>(
+                new BytesSerializer(), Deflater.BEST_SPEED, 0);
+        final byte[] bytes = serializer.serialize(new byte[1024]);
+
+        final ByteBuffer truncated = ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length - 4));
+        assertThatThrownBy(() -> serializer.deserialize(truncated))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Compressed value is corrupted");
+
+        final ByteBuffer wrongSize = ByteBuffer.wrap(bytes.clone()).putInt(1, 10);
+        assertThatThrownBy(() -> serializer.deserialize(wrongSize))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Compressed value is corrupted");
+
+        final byte[] garbage = bytes.clone();
+        Arrays.fill(garbage, 5, garbage.length, (byte) -1);
+        assertThatThrownBy(() -> serializer.deserialize(ByteBuffer.wrap(garbage)))
+                .isInstanceOf(DataFormatException.class);
+
+        final ByteBuffer unknownFormat = ByteBuffer.wrap(new byte[]{7});
+        assertThatThrownBy(() -> serializer.deserialize(unknownFormat))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Unknown format of serialized value: 7");
+    }
+
+    @Test
+    void invalidArgumentsShouldBeRejected() {
+        assertThatThrownBy(() -> new CompressingValueSerializer<>(MOVIE_SERIALIZER, 10, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Compression level must be between -1 and 9");
+        assertThatThrownBy(() -> new CompressingValueSerializer<>(MOVIE_SERIALIZER, -2, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Compression level must be between -1 and 9");
+        assertThatThrownBy(() -> new CompressingValueSerializer<>(MOVIE_SERIALIZER, 1, -1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Threshold must be greater than or equal to 0");
+    }
+
+    private static final class BytesSerializer implements ValueSerializer<byte[]> {
+
+        @Override
+        public byte[] serialize(final byte[] value) {
+            return value.clone();
+        }
+
+        @Override
+        public byte[] deserialize(final ByteBuffer buffer) {
+            final byte[] value = new byte[buffer.remaining()];
+            buffer.get(value);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.serializers;
+
+import io.github.mfvanek.caching.helpers.CacheSerializer;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RecordValueSerializerTest {
+
+    @Test
+    void shouldBeMoreCompactThanJavaSerialization() {
+        final RecordValueSerializer<Movie> serializer = new RecordValueSerializer<>(Movie.class);
+        final Movie snowden = Movies.getSnowden();
+        final byte[] bytes = serializer.serialize(snowden);
+
+        assertThat(serializer.deserialize(ByteBuffer.wrap(bytes)))
+                .isEqualTo(snowden);
+        // 1 + 7 bytes of title, 4 bytes of year and 1 + 9 bytes of imdb id
+        assertThat(bytes)
+                .hasSize(22)
+                .hasSizeLessThan(CacheSerializer.toBytes(snowden).length / 4);
+    }
+
+    @Test
+    void shouldSupportPrimitives() {
+        assertRoundTrip(Primitives.class,
+                new Primitives(true, (byte) -1, (short) 300, (char) 0x416, Integer.MIN_VALUE, Long.MAX_VALUE, 1.5f, Math.PI),
+                new Primitives(false, (byte) 0, (short) 0, 'a', 0, 0L, 0.0f, 0.0));
+    }
+
+    @Test
+    void shouldSupportBoxedPrimitives() {
+        assertRoundTrip(Boxed.class,
+                new Boxed(Boolean.TRUE, (byte) 2, (short) 3, 'c', 4, 5L, 6.0f, 7.0),
+                new Boxed(null, null, null, null, null, null, null, null));
+    }
+
+    @Test
+    void shouldSupportStringsAndEnums() {
+        final String nonAscii = new String(new int[]{0x41f, 0x440, 0x438, 0xe9, 0x1f600}, 0, 5);
+        assertRoundTrip(Labeled.class,
+                new Labeled(nonAscii, Color.BLUE),
+                new Labeled("", Color.RED),
+                new Labeled(null, null));
+    }
+
+    @Test
+    void longStringsShouldUseMultiByteLength() {
+        final RecordValueSerializer<Movie> serializer = new RecordValueSerializer<>(Movie.class);
+        final Movie movie = new Movie("x".repeat(100_000), 2000, "id");
+
+        assertThat(serializer.deserialize(ByteBuffer.wrap(serializer.serialize(movie))))
+                .isEqualTo(movie);
+    }
+
+    @Test
+    void unsupportedComponentTypeShouldBeRejected() {
+        assertThatThrownBy(() -> new RecordValueSerializer<>(Unsupported.class))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unsupported type of record component: java.util.List");
+    }
+
+    @Test
+    void exceptionsFromRecordShouldBePropagated() {
+        final RecordValueSerializer<Positive> serializer = new RecordValueSerializer<>(Positive.class);
+        final Positive positive = new Positive(Integer.MAX_VALUE);
+        assertThatThrownBy(() -> serializer.serialize(positive))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Accessor failed");
+
+        final ByteBuffer negative = ByteBuffer.allocate(Integer.BYTES).putInt(-1).flip();
+        assertThatThrownBy(() -> serializer.deserialize(negative))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Value must be positive");
+    }
+
+    enum Color {
+        RED, BLUE
+    }
+
+    @SafeVarargs
+    private static <V extends Record> void assertRoundTrip(final Class<V> type, final V... values) {
+        final RecordValueSerializer<V> serializer = new RecordValueSerializer<>(type);
+        for (final V value : values) {
+            final byte[] bytes = serializer.serialize(value);
+            final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+            assertThat(serializer.deserialize(direct))
+                    .isEqualTo(value);
+            assertThat(direct.hasRemaining())
+                    .isFalse();
+        }
+    }
+
+    private record Primitives(boolean flag, byte small, short medium, char letter, int number, long big, float ratio, double precise) {
+    }
+
+    private record Boxed(Boolean flag, Byte small, Short medium, Character letter, Integer number, Long big, Float ratio, Double precise) {
+    }
+
+    private record Labeled(String text, Color color) {
+    }
+
+    private record Positive(int value) {
+
+        Positive {
+            if (value <= 0) {
+                throw new IllegalArgumentException("Value must be positive");
+            }
+        }
+
+        @Override
+        // The serializer calls the accessor reflectively
+        @SuppressWarnings("UnusedMethod")
+        public int value() {
+            if (value == Integer.MAX_VALUE) {
+                throw new IllegalStateException("Accessor failed");
+            }
+            return value;
+        }
+    }
+
+    private record Unsupported(List<String> items) {
+    }
+}
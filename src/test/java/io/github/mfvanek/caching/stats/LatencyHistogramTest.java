@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.stats;
+
+import io.github.mfvanek.caching.enums.TimedOperation;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentilesShouldBeRoundedUpToPowersOfTwo() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 98; ++i) {
+            histogram.add(100L);
+        }
+        histogram.add(1_000L);
+        histogram.add(5_000L);
+
+        final CacheStats.Latency latency = histogram.snapshot();
+        assertThat(latency.count())
+                .isEqualTo(100L);
+        assertThat(latency.totalNanos())
+                .isEqualTo(15_800L);
+        assertThat(latency.meanNanos())
+                .isEqualTo(158L);
+        assertThat(latency.maxNanos())
+                .isEqualTo(5_000L);
+        assertThat(latency.medianNanos())
+                .isEqualTo(127L);
+        assertThat(latency.p99Nanos())
+                .isEqualTo(1_023L);
+    }
+
+    @Test
+    void percentilesShouldNotExceedMaximum() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.add(-1L);
+        assertThat(histogram.snapshot())
+                .as("negative durations are recorded as zero")
+                .isEqualTo(new CacheStats.Latency(1L, 0L, 0L, 0L, 0L));
+
+        histogram.add(Long.MAX_VALUE);
+        assertThat(histogram.snapshot().p99Nanos())
+                .isEqualTo(Long.MAX_VALUE);
+        assertThat(new LatencyHistogram().snapshot())
+                .isEqualTo(new CacheStats.Latency(0L, 0L, 0L, 0L, 0L));
+    }
+
+    @Test
+    void counterShouldAccumulateStatistics() {
+        final StatsCounter counter = new ConcurrentStatsCounter();
+        counter.recordHits(3);
+        counter.recordMisses(1);
+        counter.recordEvictions(2);
+        counter.recordPromotion();
+        counter.recordLatency(TimedOperation.WRITE, 10L);
+
+        final CacheStats stats = counter.snapshot();
+        assertThat(stats.hitCount())
+                .isEqualTo(3L);
+        assertThat(stats.missCount())
+                .isEqualTo(1L);
+        assertThat(stats.hitRate())
+                .isEqualTo(0.75);
+        assertThat(stats.evictionCount())
+                .isEqualTo(2L);
+        assertThat(stats.promotionCount())
+                .isEqualTo(1L);
+        assertThat(stats.latencyOf(TimedOperation.WRITE).count())
+                .isEqualTo(1L);
+        assertThat(stats.latencyOf(TimedOperation.READ).count())
+                .isZero();
+    }
+
+    @Test
+    void disabledCounterShouldIgnoreEverything() {
+        final StatsCounter counter = StatsCounter.disabled();
+        counter.recordHits(1);
+        counter.recordMisses(1);
+        counter.recordEvictions(1);
+        counter.recordPromotion();
+        counter.recordLatency(TimedOperation.READ, 1L);
+
+        final CacheStats stats = counter.snapshot();
+        assertThat(stats)
+                .isEqualTo(CacheStats.empty());
+        assertThat(stats.hitRate())
+                .isEqualTo(1.0);
+        assertThat(stats.latencyOf(TimedOperation.READ))
+                .isEqualTo(new CacheStats.Latency(0L, 0L, 0L, 0L, 0L));
+    }
+}
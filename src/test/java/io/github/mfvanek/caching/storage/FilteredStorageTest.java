@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.storage;
+
+import io.github.mfvanek.caching.builders.CacheBuilder;
+import io.github.mfvanek.caching.builders.TwoLevelsCacheBuilder;
+import io.github.mfvanek.caching.enums.CacheType;
+import io.github.mfvanek.caching.enums.StorageType;
+import io.github.mfvanek.caching.enums.TimedOperation;
+import io.github.mfvanek.caching.impl.PersistenceLFUCache;
+import io.github.mfvanek.caching.impl.TwoLevelsCache;
+import io.github.mfvanek.caching.interfaces.PersistentStorage;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import io.github.mfvanek.caching.serializers.JavaValueSerializer;
+import io.github.mfvanek.caching.serializers.StringSerializer;
+import io.github.mfvanek.caching.stats.ConcurrentStatsCounter;
+import io.github.mfvanek.caching.stats.StatsCounter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilteredStorageTest {
+
+    private static final Movie SNOWDEN = Movies.getSnowden();
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void lookupsOfAbsentKeysShouldNotReachStorage() {
+        final StatsCounter counter = new ConcurrentStatsCounter();
+        try (PersistentStorage<String, Movie> storage = new FilteredStorage<>(
+                new TimedStorage<>(new FileStorage<>(new JavaValueSerializer<>(Movie.class), tempDir), counter), 10, 0.01)) {
+            storage.write(Movies.SNOWDEN_IMDB, SNOWDEN);
+            storage.write(Movies.SNOWDEN_IMDB, SNOWDEN);
+            assertThat(storage.read(Movies.AQUAMAN_IMDB))
+                    .isNull();
+            assertThat(storage.contains(Movies.AQUAMAN_IMDB))
+                    .isFalse();
+            assertThat(storage.remove(Movies.AQUAMAN_IMDB))
+                    .isNull();
+            assertThat(storage.readAll(List.of(Movies.AQUAMAN_IMDB)))
+                    .isEmpty();
+            assertThat(counter.snapshot().latencyOf(TimedOperation.READ).count())
+                    .isZero();
+            assertThat(counter.snapshot().latencyOf(TimedOperation.REMOVE).count())
+                    .isZero();
+
+            assertThat(storage.readAll(List.of(Movies.SNOWDEN_IMDB, Movies.AQUAMAN_IMDB)))
+                    .containsOnlyKeys(Movies.SNOWDEN_IMDB);
+            assertThat(storage.read(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(SNOWDEN);
+            assertThat(storage.size())
+                    .isEqualTo(1);
+            assertThat(storage.sizeInBytes())
+                    .isPositive();
+            assertThat(storage.remove(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(SNOWDEN);
+            assertThat(storage.contains(Movies.SNOWDEN_IMDB))
+                    .as("the key has been removed from the filter")
+                    .isFalse();
+            storage.write(Movies.SNOWDEN_IMDB, SNOWDEN);
+            storage.clear();
+            assertThat(storage.contains(Movies.SNOWDEN_IMDB))
+                    .isFalse();
+        }
+    }
+
+    @Test
+    void filterShouldBeRebuiltFromRecoveredKeys() {
+        final CacheBuilder<String, Movie> builder = CacheBuilder.builder(Movie.class)
+                .setCacheType(CacheType.PERSISTENCE_LFU)
+                .setStorageType(StorageType.SEGMENTED)
+                .setKeySerializer(new StringSerializer())
+                .setLookupFilter(0.01)
+                .setBaseDirectory(tempDir);
+        try (PersistenceLFUCache<String, Movie> cache = (PersistenceLFUCache<String, Movie>) builder.build()) {
+            cache.put(SNOWDEN);
+        }
+        try (PersistenceLFUCache<String, Movie> cache = (PersistenceLFUCache<String, Movie>) builder.build()) {
+            assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(SNOWDEN);
+            assertThat(cache.containsKey(Movies.AQUAMAN_IMDB))
+                    .isFalse();
+        }
+    }
+
+    @Test
+    void missesOfTwoLevelsCacheShouldNotReachDisk() throws IOException {
+        try (TwoLevelsCache<String, Movie> cache = TwoLevelsCacheBuilder.builder(Movie.class)
+                .setBaseDirectory(tempDir)
+                .setFirstLevelMaxSize(1)
+                .setSecondLevelLookupFilter(0.01)
+                .setRecordStats(true)
+                .build()) {
+            cache.put(SNOWDEN);
+            cache.put(Movies.getAquaman());
+            assertThat(cache.get(Movies.INCEPTION_IMDB))
+                    .isNull();
+            assertThat(cache.get(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(SNOWDEN);
+            assertThat(cache.secondLevelStats().missCount())
+                    .isEqualTo(1L);
+            assertThat(cache.secondLevelStats().latencyOf(TimedOperation.READ).count())
+                    .as("only the hit has been read from disk")
+                    .isEqualTo(1L);
+        }
+    }
+}
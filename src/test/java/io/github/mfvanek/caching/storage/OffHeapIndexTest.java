@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.storage;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffHeapIndexTest {
+
+    @Test
+    void shouldGrowAndKeepAllKeys() {
+        final OffHeapIndex<Integer> index = new OffHeapIndex<>();
+        for (int i = 0; i < 1_000; ++i) {
+            assertThat(index.put(i, i * 10L))
+                    .isEqualTo(SlabAllocator.NULL_ADDRESS);
+        }
+        assertThat(index.put(500, 1L))
+                .isEqualTo(5_000L);
+
+        assertThat(index.size())
+                .isEqualTo(1_000);
+        for (int i = 0; i < 1_000; ++i) {
+            assertThat(index.get(i))
+                    .isEqualTo(i == 500 ? 1L : i * 10L);
+        }
+        assertThat(index.get(1_000))
+                .isEqualTo(SlabAllocator.NULL_ADDRESS);
+    }
+
+    @Test
+    void removalShouldKeepCollidingKeysReachable() {
+        final OffHeapIndex<CollidingKey> index = new OffHeapIndex<>();
+        for (int i = 0; i < 10; ++i) {
+            index.put(key(i % 2, i), i);
+        }
+        // Removes keys from the middle of both probe sequences
+        assertThat(index.remove(key(0, 2)))
+                .isEqualTo(2L);
+        assertThat(index.remove(key(1, 5)))
+                .isEqualTo(5L);
+        assertThat(index.remove(key(1, 5)))
+                .isEqualTo(SlabAllocator.NULL_ADDRESS);
+
+        assertThat(index.size())
+                .isEqualTo(8);
+        for (int i = 0; i < 10; ++i) {
+            final long expected = i == 2 || i == 5 ? SlabAllocator.NULL_ADDRESS : i;
+            assertThat(index.get(key(i % 2, i)))
+                    .isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void removalShouldWrapAroundTheTable() {
+        final OffHeapIndex<CollidingKey> index = new OffHeapIndex<>();
+        // Hash 15 is the last slot of the initial table, so the collisions continue from the first slot
+        for (int i = 0; i < 4; ++i) {
+            index.put(key(15, i), i);
+        }
+        index.put(key(1, 4), 4L);
+        assertThat(index.remove(key(15, 0)))
+                .isZero();
+
+        for (int i = 1; i < 4; ++i) {
+            assertThat(index.get(key(15, i)))
+                    .isEqualTo(i);
+        }
+        assertThat(index.get(key(1, 4)))
+                .isEqualTo(4L);
+        index.clear();
+        assertThat(index.get(key(1, 4)))
+                .isEqualTo(SlabAllocator.NULL_ADDRESS);
+        assertThat(index.size())
+                .isZero();
+    }
+
+    private static CollidingKey key(final int hash, final int id) {
+        return new CollidingKey(hash, id);
+    }
+
+    private record CollidingKey(int hash, int id) {
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof CollidingKey key && key.id == id;
+        }
+    }
+}
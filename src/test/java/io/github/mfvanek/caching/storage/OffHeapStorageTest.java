@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.storage;
+
+import io.github.mfvanek.caching.interfaces.ValueSerializer;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import io.github.mfvanek.caching.serializers.RecordValueSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OffHeapStorageTest {
+
+    private static final int PAGE_SIZE = 1024;
+    private static final ValueSerializer<Movie> SERIALIZER = new RecordValueSerializer<>(Movie.class);
+
+    @Test
+    void shouldReadWrittenValues() {
+        try (OffHeapStorage<String, Movie> storage = new OffHeapStorage<>(SERIALIZER)) {
+            final Movie snowden = Movies.getSnowden();
+            storage.write(snowden.getIdentifier(), snowden);
+
+            assertThat(storage.contains(Movies.SNOWDEN_IMDB))
+                    .isTrue();
+            assertThat(storage.contains(Movies.AQUAMAN_IMDB))
+                    .isFalse();
+            assertThat(storage.read(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(snowden);
+            assertThat(storage.read(Movies.AQUAMAN_IMDB))
+                    .isNull();
+            assertThat(storage.remove(Movies.AQUAMAN_IMDB))
+                    .isNull();
+
+            final Movie updated = new Movie("Snowden", 2017, Movies.SNOWDEN_IMDB);
+            storage.write(Movies.SNOWDEN_IMDB, updated);
+            assertThat(storage.size())
+                    .isEqualTo(1);
+            assertThat(storage.sizeInBytes())
+                    .isEqualTo(SlabAllocator.MIN_CHUNK_SIZE);
+            assertThat(storage.remove(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(updated);
+            assertThat(storage.size())
+                    .isZero();
+            assertThat(storage.sizeInBytes())
+                    .isZero();
+        }
+    }
+
+    @Test
+    void freedChunksShouldBeReused() {
+        try (OffHeapStorage<String, Movie> storage = new OffHeapStorage<>(SERIALIZER, PAGE_SIZE)) {
+            final List<Movie> movies = Movies.getRandomGeneratedMovies(1_000);
+            for (int i = 0; i < movies.size(); ++i) {
+                storage.write(movies.get(i).getIdentifier(), movies.get(i));
+                final int oldest = i - 100;
+                if (oldest >= 0) {
+                    assertThat(storage.remove(movies.get(oldest).getIdentifier()))
+                            .isEqualTo(movies.get(oldest));
+                }
+            }
+
+            assertThat(storage.size())
+                    .isEqualTo(100);
+            // 100 values of 128 bytes chunks fit into 13 pages
+            assertThat(storage.reservedBytes())
+                    .isEqualTo(13L * PAGE_SIZE);
+            for (final Movie movie : movies.subList(movies.size() - 100, movies.size())) {
+                assertThat(storage.read(movie.getIdentifier()))
+                        .isEqualTo(movie);
+            }
+        }
+    }
+
+    @Test
+    void largeValuesShouldGetOwnPage() {
+        try (OffHeapStorage<String, Movie> storage = new OffHeapStorage<>(SERIALIZER, PAGE_SIZE)) {
+            final Movie large = new Movie("x".repeat(PAGE_SIZE * 3), 2000, "large");
+            final Movie snowden = Movies.getSnowden();
+            storage.write(large.getIdentifier(), large);
+            storage.write(snowden.getIdentifier(), snowden);
+
+            assertThat(storage.read(large.getIdentifier()))
+                    .isEqualTo(large);
+            assertThat(storage.read(snowden.getIdentifier()))
+                    .isEqualTo(snowden);
+            assertThat(storage.reservedBytes())
+                    .isEqualTo(4L * PAGE_SIZE + PAGE_SIZE);
+        }
+    }
+
+    @Test
+    void clearShouldReleaseAllPages() {
+        try (OffHeapStorage<String, Movie> storage = new OffHeapStorage<>(SERIALIZER, PAGE_SIZE)) {
+            Movies.getRandomGeneratedMovies(100).forEach(m -> storage.write(m.getIdentifier(), m));
+            storage.clear();
+
+            assertThat(storage.size())
+                    .isZero();
+            assertThat(storage.reservedBytes())
+                    .isZero();
+            assertThat(storage.read(Movies.SNOWDEN_IMDB))
+                    .isNull();
+            final Movie snowden = Movies.getSnowden();
+            storage.write(snowden.getIdentifier(), snowden);
+            assertThat(storage.read(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(snowden);
+        }
+    }
+
+    @Test
+    void pageSizeShouldBeValidated() {
+        assertThatThrownBy(() -> new OffHeapStorage<>(SERIALIZER, SlabAllocator.MIN_CHUNK_SIZE - 1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Page size must be greater than or equal to 64");
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.storage;
+
+import io.github.mfvanek.caching.enums.StorageType;
+import io.github.mfvanek.caching.interfaces.PersistentStorage;
+import io.github.mfvanek.caching.interfaces.ValueSerializer;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import io.github.mfvanek.caching.serializers.RecordValueSerializer;
+import io.github.mfvanek.caching.serializers.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SegmentRecoveryTest {
+
+    private static final int SEGMENT_SIZE = 1024;
+    private static final ValueSerializer<Movie> SERIALIZER = new RecordValueSerializer<>(Movie.class);
+    private static final ValueSerializer<String> KEY_SERIALIZER = new StringSerializer();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldRecoverFromSnapshot() {
+        final List<Movie> movies = Movies.getRandomGeneratedMovies(100);
+        final Movie updated = new Movie("Updated", 2023, movies.get(1).getIdentifier());
+        try (SegmentStorage<String, Movie> storage = createRecoverable()) {
+            assertThat(recover(storage))
+                    .isEmpty();
+            movies.forEach(m -> storage.write(m.getIdentifier(), m));
+            storage.remove(movies.get(0).getIdentifier());
+            storage.write(updated.getIdentifier(), updated);
+            storage.close(key -> key.hashCode() & 0xFF);
+        }
+        assertThat(tempDir.resolve(SegmentRecovery.SNAPSHOT_FILE_NAME))
+                .exists();
+
+        try (SegmentStorage<String, Movie> storage = createRecoverable()) {
+            final Map<String, Integer> frequencies = recover(storage);
+            assertThat(tempDir.resolve(SegmentRecovery.SNAPSHOT_FILE_NAME))
+                    .as("snapshot is used only once")
+                    .doesNotExist();
+            assertThat(frequencies)
+                    .hasSize(99)
+                    .allSatisfy((key, frequency) -> assertThat(frequency).isEqualTo(key.hashCode() & 0xFF));
+            assertThat(List.copyOf(frequencies.values()))
+                    .as("keys come in descending order of frequencies")
+                    .isSortedAccordingTo(Comparator.reverseOrder());
+            assertRecovered(storage, movies, updated);
+        }
+    }
+
+    @Test
+    void shouldRecoverByScanWithoutSnapshot() throws IOException {
+        final List<Movie> movies = Movies.getRandomGeneratedMovies(100);
+        final Movie updated = new Movie("Updated", 2023, movies.get(1).getIdentifier());
+        try (SegmentStorage<String, Movie> storage = createRecoverable()) {
+            movies.forEach(m -> storage.write(m.getIdentifier(), m));
+            storage.remove(movies.get(0).getIdentifier());
+            storage.write(updated.getIdentifier(), updated);
+        }
+        Files.delete(tempDir.resolve(SegmentRecovery.SNAPSHOT_FILE_NAME));
+
+        try (SegmentStorage<String, Movie> storage = createRecoverable()) {
+            assertThat(recover(storage))
+                    .hasSize(99)
+                    .containsValue(0)
+                    .doesNotContainValue(1);
+            assertRecovered(storage, movies, updated);
+        }
+    }
+
+    @Test
+    void staleOrCorruptedSnapshotShouldBeIgnored() throws IOException {
+        final Path snapshot = tempDir.resolve(SegmentRecovery.SNAPSHOT_FILE_NAME);
+        final Movie snowden = Movies.getSnowden();
+        final Movie updated = new Movie("Updated", 2023, Movies.SNOWDEN_IMDB);
+        try (SegmentStorage<String, Movie> storage = createRecoverable()) {
+            Movies.getRandomGeneratedMovies(100).forEach(m -> storage.write(m.getIdentifier(), m));
+            storage.write(snowden.getIdentifier(), snowden);
+        }
+        // The snapshot of an instance that wasn't recovered lists only its own segments
+        try (SegmentStorage<String, Movie> storage = createRecoverable()) {
+            storage.write(updated.getIdentifier(), updated);
+        }
+        try (SegmentStorage<String, Movie> storage = createRecoverable()) {
+            assertThat(recover(storage))
+                    .hasSize(101);
+            assertThat(storage.read(Movies.SNOWDEN_IMDB))
+                    .as("the latest record wins")
+                    .isEqualTo(updated);
+        }
+
+        final byte[] content = Files.readAllBytes(snapshot);
+        Files.write(snapshot, List.of("garbage"));
+        assertThat(createRecoverableAndRecover())
+                .hasSize(101);
+
+        Files.write(snapshot, Arrays.copyOf(content, content.length / 2));
+        assertThat(createRecoverableAndRecover())
+                .hasSize(101);
+
+        final ByteBuffer unknownSegment = ByteBuffer.wrap(Files.readAllBytes(snapshot));
+        // Magic, number of segments, segments, number of entries and the segment of the first entry
+        unknownSegment.putInt(3 * Integer.BYTES + unknownSegment.getInt(Integer.BYTES) * (Integer.BYTES + Long.BYTES), -1);
+        Files.write(snapshot, unknownSegment.array());
+        assertThat(createRecoverableAndRecover())
+                .hasSize(101);
+        assertThat(snapshot)
+                .exists();
+    }
+
+    @Test
+    void recordWithCorruptedValueShouldBeDroppedOnScan() throws IOException {
+        final List<Movie> movies = Movies.getRandomGeneratedMovies(3);
+        try (SegmentStorage<String, Movie> storage = createRecoverable()) {
+            movies.forEach(m -> storage.write(m.getIdentifier(), m));
+        }
+        Files.delete(tempDir.resolve(SegmentRecovery.SNAPSHOT_FILE_NAME));
+        final Path segment = Segment.findAll(tempDir).values().iterator().next();
+        final byte[] content = Files.readAllBytes(segment);
+        final int end = movies.stream()
+                .mapToInt(m -> Segment.HEADER_SIZE + KEY_SERIALIZER.serialize(m.getIdentifier()).length + SERIALIZER.serialize(m).length)
+                .sum();
+        // The last byte of the value of the last record
+        content[end - 1] ^= 0x55;
+        Files.write(segment, content);
+
+        try (SegmentStorage<String, Movie> storage = createRecoverable()) {
+            assertThat(recover(storage))
+                    .containsOnlyKeys(movies.get(0).getIdentifier(), movies.get(1).getIdentifier());
+            assertThat(storage.read(movies.get(1).getIdentifier()))
+                    .isEqualTo(movies.get(1));
+            storage.write(movies.get(2).getIdentifier(), movies.get(2));
+            assertThat(storage.read(movies.get(2).getIdentifier()))
+                    .isEqualTo(movies.get(2));
+        }
+    }
+
+    @Test
+    void segmentShouldBeTruncatedAtKeyThatCannotBeDeserialized() throws IOException {
+        final List<Movie> movies = Movies.getRandomGeneratedMovies(3);
+        try (SegmentStorage<String, Movie> storage = createRecoverable()) {
+            movies.forEach(m -> storage.write(m.getIdentifier(), m));
+        }
+        Files.delete(tempDir.resolve(SegmentRecovery.SNAPSHOT_FILE_NAME));
+        final ValueSerializer<String> failingSerializer = new FailingKeySerializer(movies.get(1).getIdentifier());
+        try (SegmentStorage<String, Movie> storage = new SegmentStorage<>(SERIALIZER, failingSerializer, tempDir, SEGMENT_SIZE, false)) {
+            assertThat(recover(storage))
+                    .containsOnlyKeys(movies.get(0).getIdentifier());
+        }
+    }
+
+    @Test
+    void recoveryShouldBeDisabledWithoutKeySerializer() throws IOException {
+        try (SegmentStorage<String, Movie> storage = createRecoverable()) {
+            Movies.getRandomGeneratedMovies(20).forEach(m -> storage.write(m.getIdentifier(), m));
+        }
+        final long filesCount = countFiles();
+        try (PersistentStorage<String, Movie> storage = StorageType.SEGMENTED.create(SERIALIZER, tempDir);
+             PersistentStorage<String, Movie> mapped = new SegmentStorage<>(SERIALIZER, tempDir, true)) {
+            assertThat(recover(storage))
+                    .isEmpty();
+            assertThat(recover(mapped))
+                    .isEmpty();
+            assertThat(storage.size())
+                    .isZero();
+        }
+        assertThat(countFiles())
+                .isEqualTo(filesCount);
+    }
+
+    @Test
+    void recoveryShouldPrecedeOtherOperations() {
+        try (SegmentStorage<String, Movie> storage = createRecoverable()) {
+            storage.write(Movies.SNOWDEN_IMDB, Movies.getSnowden());
+            assertThatThrownBy(() -> recover(storage))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessage("Storage must be recovered before it is used");
+        }
+    }
+
+    private SegmentStorage<String, Movie> createRecoverable() {
+        return new SegmentStorage<>(SERIALIZER, KEY_SERIALIZER, tempDir, SEGMENT_SIZE, false);
+    }
+
+    /**
+     * Recovers the storage and closes it, which saves a new snapshot.
+     */
+    private Map<String, Integer> createRecoverableAndRecover() {
+        try (SegmentStorage<String, Movie> storage = createRecoverable()) {
+            return recover(storage);
+        }
+    }
+
+    @SuppressWarnings("PMD.UseConcurrentHashMap")
+    private static Map<String, Integer> recover(final PersistentStorage<String, Movie> storage) {
+        final Map<String, Integer> frequencies = new LinkedHashMap<>();
+        storage.recover(frequencies::put);
+        return frequencies;
+    }
+
+    private static void assertRecovered(final SegmentStorage<String, Movie> storage, final List<Movie> movies, final Movie updated) {
+        assertThat(storage.size())
+                .isEqualTo(movies.size() - 1);
+        assertThat(storage.contains(movies.get(0).getIdentifier()))
+                .as("removed values are not resurrected")
+                .isFalse();
+        assertThat(storage.read(updated.getIdentifier()))
+                .isEqualTo(updated);
+        assertThat(movies.subList(2, movies.size()))
+                .allMatch(m -> m.equals(storage.read(m.getIdentifier())));
+        final Movie snowden = Movies.getSnowden();
+        storage.write(snowden.getIdentifier(), snowden);
+        assertThat(storage.read(snowden.getIdentifier()))
+                .isEqualTo(snowden);
+    }
+
+    private long countFiles() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.count();
+        }
+    }
+
+    private record FailingKeySerializer(String brokenKey) implements ValueSerializer<String> {
+
+        @Override
+        public byte[] serialize(final String value) {
+            return KEY_SERIALIZER.serialize(value);
+        }
+
+        @Override
+        public String deserialize(final ByteBuffer buffer) {
+            final String key = KEY_SERIALIZER.deserialize(buffer);
+            if (brokenKey.equals(key)) {
+                throw new IllegalArgumentException("Unknown format of key");
+            }
+            return key;
+        }
+    }
+}
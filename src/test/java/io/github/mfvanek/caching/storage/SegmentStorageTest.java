@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2018-2023. Ivan Vakhrushev. All rights reserved.
+ * https://github.com/mfvanek/two-levels-caching
+ *
+ * Licensed under the Apache License 2.0
+ */
+
+package io.github.mfvanek.caching.storage;
+
+import io.github.mfvanek.caching.interfaces.ValueSerializer;
+import io.github.mfvanek.caching.models.Movie;
+import io.github.mfvanek.caching.models.Movies;
+import io.github.mfvanek.caching.serializers.RecordValueSerializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SegmentStorageTest {
+
+    private static final int SEGMENT_SIZE = 1024;
+    private static final ValueSerializer<Movie> SERIALIZER = new RecordValueSerializer<>(Movie.class);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldReadWrittenValues() {
+        try (SegmentStorage<String, Movie> storage = new SegmentStorage<>(SERIALIZER, tempDir, SEGMENT_SIZE, false)) {
+            final Movie snowden = Movies.getSnowden();
+            storage.write(snowden.getIdentifier(), snowden);
+
+            assertThat(storage.contains(Movies.SNOWDEN_IMDB))
+                    .isTrue();
+            assertThat(storage.read(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(snowden);
+            assertThat(storage.read(Movies.AQUAMAN_IMDB))
+                    .isNull();
+            assertThat(storage.remove(Movies.AQUAMAN_IMDB))
+                    .isNull();
+
+            final Movie updated = new Movie("Snowden", 2017, Movies.SNOWDEN_IMDB);
+            storage.write(Movies.SNOWDEN_IMDB, updated);
+            assertThat(storage.size())
+                    .isEqualTo(1);
+            assertThat(storage.remove(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(updated);
+            assertThat(storage.size())
+                    .isZero();
+        }
+    }
+
+    @Test
+    void numberOfFilesShouldNotGrowWithChurn() throws IOException {
+        try (SegmentStorage<String, Movie> storage = new SegmentStorage<>(SERIALIZER, tempDir, SEGMENT_SIZE, false)) {
+            final List<Movie> movies = Movies.getRandomGeneratedMovies(1_000);
+            for (int i = 0; i < movies.size(); ++i) {
+                storage.write(movies.get(i).getIdentifier(), movies.get(i));
+                final int oldest = i - 10;
+                if (oldest >= 0) {
+                    assertThat(storage.remove(movies.get(oldest).getIdentifier()))
+                            .isEqualTo(movies.get(oldest));
+                }
+            }
+            storage.awaitCompaction();
+
+            assertThat(storage.size())
+                    .isEqualTo(10);
+            assertThat(countFiles())
+                    .isEqualTo(storage.segmentsCount())
+                    .isLessThan(10);
+            for (final Movie movie : movies.subList(movies.size() - 10, movies.size())) {
+                assertThat(storage.read(movie.getIdentifier()))
+                        .isEqualTo(movie);
+            }
+        }
+    }
+
+    @Test
+    void compactionShouldMoveLiveValues() {
+        try (SegmentStorage<String, Movie> storage = new SegmentStorage<>(SERIALIZER, tempDir, SEGMENT_SIZE, false)) {
+            final List<Movie> movies = Movies.getRandomGeneratedMovies(100);
+            movies.forEach(m -> storage.write(m.getIdentifier(), m));
+            final int segmentsBefore = storage.segmentsCount();
+            for (int i = 0; i < movies.size(); ++i) {
+                if (i % 4 != 0) {
+                    storage.remove(movies.get(i).getIdentifier());
+                }
+            }
+            storage.awaitCompaction();
+
+            assertThat(storage.segmentsCount())
+                    .isLessThan(segmentsBefore);
+            assertThat(movies)
+                    .filteredOn(m -> movies.indexOf(m) % 4 == 0)
+                    .allMatch(m -> m.equals(storage.read(m.getIdentifier())));
+            assertThat(storage.sizeInBytes())
+                    .as("copied records are counted once")
+                    .isEqualTo(movies.stream()
+                            .filter(m -> movies.indexOf(m) % 4 == 0)
+                            .mapToLong(m -> Segment.HEADER_SIZE + SERIALIZER.serialize(m).length)
+                            .sum());
+        }
+    }
+
+    @Test
+    void mappedReadsShouldSeeAppendedValues() {
+        try (SegmentStorage<String, Movie> storage = new SegmentStorage<>(SERIALIZER, tempDir, SEGMENT_SIZE, true)) {
+            final List<Movie> movies = Movies.getRandomGeneratedMovies(100);
+            for (final Movie movie : movies) {
+                storage.write(movie.getIdentifier(), movie);
+                assertThat(storage.read(movie.getIdentifier()))
+                        .isEqualTo(movie);
+            }
+            for (final Movie movie : movies.subList(1, movies.size())) {
+                assertThat(storage.remove(movie.getIdentifier()))
+                        .isEqualTo(movie);
+            }
+            storage.awaitCompaction();
+
+            assertThat(storage.read(movies.get(0).getIdentifier()))
+                    .isEqualTo(movies.get(0));
+            assertThat(storage.segmentsCount())
+                    .isEqualTo(1);
+        }
+    }
+
+    @Test
+    void readAllShouldReadValuesOfSeveralSegments() {
+        assertReadAllFromSeveralSegments(false);
+        assertReadAllFromSeveralSegments(true);
+    }
+
+    @Test
+    void readAllShouldSplitDistantRecords() {
+        try (SegmentStorage<String, Movie> storage = new SegmentStorage<>(SERIALIZER, tempDir, false)) {
+            final List<Movie> movies = Movies.getRandomGeneratedMovies(1_000);
+            movies.forEach(m -> storage.write(m.getIdentifier(), m));
+            final List<Movie> expected = List.of(movies.get(0), movies.get(1), movies.get(999));
+
+            assertThat(storage.readAll(expected.stream().map(Movie::getIdentifier).collect(Collectors.toList())))
+                    .hasSize(3)
+                    .containsValues(expected.toArray(new Movie[0]));
+            assertThat(storage.readAll(List.of()))
+                    .isEmpty();
+        }
+    }
+
+    @Test
+    void largeValueShouldGetItsOwnSegment() {
+        try (SegmentStorage<String, Movie> storage = new SegmentStorage<>(SERIALIZER, tempDir, 16, false)) {
+            final Movie snowden = Movies.getSnowden();
+            storage.write(snowden.getIdentifier(), snowden);
+            storage.write(snowden.getIdentifier(), snowden);
+
+            assertThat(storage.read(Movies.SNOWDEN_IMDB))
+                    .isEqualTo(snowden);
+            assertThat(storage.segmentsCount())
+                    .isEqualTo(1);
+        }
+    }
+
+    @Test
+    void clearShouldDeleteSegments() throws IOException {
+        final Path foreignSegment = Files.createFile(tempDir.resolve("00000007.seg"));
+        Files.createFile(tempDir.resolve(".seg"));
+        Files.createFile(tempDir.resolve("segment.seg"));
+        Files.createFile(tempDir.resolve("00000009.txt"));
+        try (SegmentStorage<String, Movie> storage = new SegmentStorage<>(SERIALIZER, tempDir, SEGMENT_SIZE, false)) {
+            Movies.getRandomGeneratedMovies(20).forEach(m -> storage.write(m.getIdentifier(), m));
+            assertThat(countFiles())
+                    .isGreaterThan(1);
+
+            storage.clear();
+            assertThat(storage.size())
+                    .isZero();
+            assertThat(storage.segmentsCount())
+                    .isZero();
+            assertThat(countFiles())
+                    .as("files of other instances are not touched")
+                    .isEqualTo(4);
+            assertThat(foreignSegment)
+                    .exists();
+        }
+    }
+
+    @Test
+    void sizeInBytesShouldCountLiveRecordsOnly() {
+        try (SegmentStorage<String, Movie> storage = new SegmentStorage<>(SERIALIZER, tempDir, SEGMENT_SIZE, false)) {
+            final Movie snowden = Movies.getSnowden();
+            final Movie aquaman = Movies.getAquaman();
+            final int snowdenSize = Segment.HEADER_SIZE + SERIALIZER.serialize(snowden).length;
+            assertThat(storage.write(snowden.getIdentifier(), snowden))
+                    .isEqualTo(snowdenSize);
+            storage.write(aquaman.getIdentifier(), aquaman);
+            assertThat(storage.write(snowden.getIdentifier(), snowden))
+                    .as("the previous record is dead")
+                    .isZero();
+
+            assertThat(storage.sizeInBytes())
+                    .isEqualTo(snowdenSize + Segment.HEADER_SIZE + SERIALIZER.serialize(aquaman).length);
+            storage.remove(Movies.AQUAMAN_IMDB);
+            assertThat(storage.sizeInBytes())
+                    .isEqualTo(snowdenSize);
+            storage.clear();
+            assertThat(storage.sizeInBytes())
+                    .isZero();
+        }
+    }
+
+    @Test
+    void segmentSizeShouldBeValidated() {
+        assertThatThrownBy(() -> new SegmentStorage<>(SERIALIZER, tempDir, 4, false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Segment size must be greater than 13");
+    }
+
+    private void assertReadAllFromSeveralSegments(final boolean mappedReads) {
+        try (SegmentStorage<String, Movie> storage = new SegmentStorage<>(SERIALIZER, tempDir, SEGMENT_SIZE, mappedReads)) {
+            final List<Movie> movies = Movies.getRandomGeneratedMovies(100);
+            movies.forEach(m -> storage.write(m.getIdentifier(), m));
+            final List<Movie> expected = List.of(movies.get(99), movies.get(0), movies.get(1), movies.get(50));
+            final List<String> keys = new ArrayList<>(expected.stream().map(Movie::getIdentifier).collect(Collectors.toList()));
+            keys.add(Movies.SNOWDEN_IMDB);
+
+            assertThat(storage.readAll(keys))
+                    .as("mapped reads = %s", mappedReads)
+                    .hasSize(4)
+                    .containsValues(expected.toArray(new Movie[0]))
+                    .doesNotContainKey(Movies.SNOWDEN_IMDB);
+            storage.clear();
+        }
+    }
+
+    private long countFiles() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.count();
+        }
+    }
+}